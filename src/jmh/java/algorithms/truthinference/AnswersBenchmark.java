@@ -0,0 +1,34 @@
+package algorithms.truthinference;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks building the indexes of {@link Answers} and compiling its {@link AnswerMatrix} from the answers of a
+ * {@link SyntheticCrowdState}.
+ *
+ * @author LinX
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AnswersBenchmark {
+    @Benchmark
+    public Answers answers( final SyntheticCrowdState crowd ) {
+        return new Answers( crowd.getAnswerList() );
+    }
+
+    @Benchmark
+    public AnswerMatrix answerMatrix( final SyntheticCrowdState crowd ) {
+        return AnswerMatrix.compile( crowd.getAnswers() );
+    }
+}
@@ -0,0 +1,34 @@
+package algorithms.truthinference;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the CrowdTruth metrics on a {@link SyntheticCrowdState}. Its cost grows with the number of co-occurring
+ * workers rather than the number of answers, so smaller crowds can be selected with -p nrQuestions=... .
+ *
+ * @author LinX
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class CrowdtruthBenchmark {
+    @Benchmark
+    public CrowdtruthAlgorithm.MetricsScores closed( final SyntheticCrowdState crowd ) {
+        return CrowdtruthAlgorithm.calculateClosed( crowd.getAnswers() );
+    }
+
+    @Benchmark
+    public CrowdtruthAlgorithm.MetricsScores open( final SyntheticCrowdState crowd ) {
+        return CrowdtruthAlgorithm.calculateOpen( crowd.getAnswers() );
+    }
+}
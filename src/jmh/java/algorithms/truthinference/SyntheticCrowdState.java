@@ -0,0 +1,63 @@
+package algorithms.truthinference;
+
+import algorithms.synthetic.SyntheticCrowd;
+import com.google.common.collect.ImmutableList;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Synthetic crowd used as benchmark input, generated by {@link SyntheticCrowd} with a fixed seed, so all benchmark runs
+ * see the same answers.
+ *
+ * @author LinX
+ */
+@State(Scope.Benchmark)
+public class SyntheticCrowdState {
+    @Param({"1000", "10000"})
+    public int nrQuestions;
+
+    @Param({"100"})
+    public int nrWorkers;
+
+    @Param({"2", "5"})
+    public int nrChoices;
+
+    @Param({"5"})
+    public int redundancy;
+
+    @Param({"0.7"})
+    public double workerAccuracy;
+
+    @Param({"0.1"})
+    public double spammerFraction;
+
+    private ImmutableList<Answer> answerList;
+
+    private Answers answers;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        final SyntheticCrowd crowd = SyntheticCrowd.builder( this.nrQuestions, this.nrWorkers, this.nrChoices )
+                .withRedundancy( this.redundancy, this.redundancy )
+                .withAccuracy( this.workerAccuracy, this.workerAccuracy )
+                .withSpammerFraction( this.spammerFraction ).build();
+        final ImmutableList.Builder<Answer> answers = ImmutableList.builder();
+        crowd.generate( ( question, worker, choice ) -> answers.add( Answer.create( ParticipantId.create( worker ),
+                QuestionId.create( question ), ChoiceId.create( choice ) ) ) );
+        this.answerList = answers.build();
+        this.answers = new Answers( this.answerList );
+        //compile outside of the measured algorithm runs, as Answers caches it
+        this.answers.toAnswerMatrix();
+    }
+
+    public ImmutableList<Answer> getAnswerList() {
+        return this.answerList;
+    }
+
+    public Answers getAnswers() {
+        return this.answers;
+    }
+}
@@ -0,0 +1,114 @@
+package algorithms.truthinference;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the iterative truth inference algorithms on a {@link SyntheticCrowdState}. Reports throughput and
+ * average time per run, the same for single iterations of the algorithms as secondary result emIterations, and with
+ * -prof gc the allocation rate.
+ *
+ * @author LinX
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TruthInferenceBenchmark {
+    //as used by HybridDawidSkeneAggregation
+    private static final double HYBRID_SWITCH_THRESHOLD = 0.05;
+
+    //as used by CatdAggregation
+    private static final double CATD_ALPHA = 0.05;
+
+    @Benchmark
+    public DawidSkeneAlgorithm.Output dawidSkene( final SyntheticCrowdState crowd, final Iterations iterations ) {
+        final DawidSkeneAlgorithm.Output output = new DawidSkeneAlgorithm( crowd.getAnswers() ).run();
+        iterations.add( output.getTrace() );
+        return output;
+    }
+
+    @Benchmark
+    public FastDawidSkeneAlgorithm.Output fastDawidSkene( final SyntheticCrowdState crowd,
+            final Iterations iterations ) {
+        final FastDawidSkeneAlgorithm.Output output = new FastDawidSkeneAlgorithm( crowd.getAnswers() ).run();
+        iterations.add( output.getTrace() );
+        return output;
+    }
+
+    @Benchmark
+    public HybridDawidSkeneAlgorithm.Output hybridDawidSkene( final SyntheticCrowdState crowd,
+            final Iterations iterations ) {
+        final HybridDawidSkeneAlgorithm.Output output = new HybridDawidSkeneAlgorithm( crowd.getAnswers(),
+                HYBRID_SWITCH_THRESHOLD ).run();
+        iterations.add( output.getTrace() );
+        return output;
+    }
+
+    @Benchmark
+    public ZenCrowdAlgorithm.Output zenCrowd( final SyntheticCrowdState crowd, final Iterations iterations ) {
+        final ZenCrowdAlgorithm.Output output = new ZenCrowdAlgorithm( crowd.getAnswers() ).run();
+        iterations.add( output.getTrace() );
+        return output;
+    }
+
+    @Benchmark
+    public GladAlgorithm.Output glad( final SyntheticCrowdState crowd, final Iterations iterations ) {
+        final GladAlgorithm.Output output = new GladAlgorithm( crowd.getAnswers() ).run();
+        iterations.add( output.getTrace() );
+        return output;
+    }
+
+    @Benchmark
+    public LfcAlgorithm.Output lfc( final SyntheticCrowdState crowd, final Iterations iterations ) {
+        final LfcAlgorithm.Output output = new LfcAlgorithm( crowd.getAnswers() ).run();
+        iterations.add( output.getTrace() );
+        return output;
+    }
+
+    @Benchmark
+    public CatdAlgorithm.Output catd( final SyntheticCrowdState crowd, final Iterations iterations ) {
+        final CatdAlgorithm.Output output = new CatdAlgorithm( crowd.getAnswers() ).run( CATD_ALPHA );
+        iterations.add( output.getTrace() );
+        return output;
+    }
+
+    @Benchmark
+    public CrhAlgorithm.Output crh( final SyntheticCrowdState crowd, final Iterations iterations ) {
+        final CrhAlgorithm.Output output = new CrhAlgorithm( crowd.getAnswers() ).run();
+        iterations.add( output.getTrace() );
+        return output;
+    }
+
+    /**
+     * Secondary result counting the iterations performed by the benchmarked runs, normalized like the primary result,
+     * i.e. as iterations per time unit respectively time per iteration.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Iterations {
+        public long emIterations;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            this.emIterations = 0;
+        }
+
+        private void add( final ConvergenceTrace trace ) {
+            this.emIterations += trace.getNrIterations();
+        }
+    }
+}
@@ -3,13 +3,21 @@ package algorithms;
 import java.util.Objects;
 
 /**
+ * Identifier wrapping a value. The hash code is computed once, as ids are used as keys in most maps of the
+ * algorithms. Subclasses intern their instances in their factory methods, so equal ids are usually the same instance
+ * and compared by identity.
+ *
  * @author LinX
  */
 public abstract class Id<T> {
     private final T id;
 
+    private final int hash;
+
     protected Id( final T id ) {
         this.id = id;
+        //same as Objects.hash( id ), without the varargs array
+        this.hash = 31 + Objects.hashCode( id );
     }
 
     public T getId() {
@@ -30,11 +38,11 @@ public abstract class Id<T> {
             return false;
         }
         final Id<?> id1 = (Id<?>) o;
-        return Objects.equals( this.id, id1.id );
+        return this.hash == id1.hash && Objects.equals( this.id, id1.id );
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash( this.id );
+        return this.hash;
     }
 }
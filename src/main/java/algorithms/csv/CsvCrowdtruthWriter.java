@@ -75,7 +75,7 @@ public class CsvCrowdtruthWriter {
                 w1.getQuality() ) ).forEach( w -> FinalDefectCsvWriter.analyzeAndWrite( crowdtruthAggregation,
                 getCsvFilenameAnalysisSingleHighest( Integer.valueOf( w.getId() ), counter.getAndIncrement() ) ) );
         return sampleHighestWorkers.stream().map( CrowdtruthAggregation.Sample::getId ).map(
-                TaskWorkerId::new ).collect(
+                TaskWorkerId::of ).collect(
                 ImmutableSet.toImmutableSet() );
     }
 
@@ -89,7 +89,7 @@ public class CsvCrowdtruthWriter {
         sampleLowestWorkers.stream().sorted( ( w1, w2 ) -> Double.valueOf( w1.getQuality() ).compareTo(
                 w2.getQuality() ) ).forEach( w -> FinalDefectCsvWriter.analyzeAndWrite( crowdtruthAggregation,
                 getCsvFilenameAnalysisSingleLowest( Integer.valueOf( w.getId() ), counter.getAndIncrement() ) ) );
-        return sampleLowestWorkers.stream().map( CrowdtruthAggregation.Sample::getId ).map( TaskWorkerId::new )
+        return sampleLowestWorkers.stream().map( CrowdtruthAggregation.Sample::getId ).map( TaskWorkerId::of )
                 .collect( ImmutableSet.toImmutableSet() );
     }
 
@@ -1,8 +1,11 @@
 package algorithms.finaldefects;
 
+import algorithms.vericom.model.ColumnFilter;
 import algorithms.vericom.model.DefectReport;
+import algorithms.vericom.model.Participant;
 import com.google.common.collect.ImmutableMap;
 
+import java.util.Objects;
 import java.util.function.Predicate;
 
 /**
@@ -11,7 +14,9 @@ import java.util.function.Predicate;
 public class SemesterSettings {
     private final Semester semester;
 
-    private final Predicate<DefectReport> defectReportFilter;
+    private final ColumnFilter defectReportFilter;
+
+    private final ColumnFilter participantFilter;
 
     private final String finalDefectFilterCode;
 
@@ -20,18 +25,30 @@ public class SemesterSettings {
     public static final ImmutableMap<Semester, SemesterSettings> SETTINGS = ImmutableMap.of( Semester.WS2017,
             SemesterSettings.ws2017(), Semester.SS2018, SemesterSettings.ss2018() );
 
-    private SemesterSettings( final Semester semester, final Predicate<DefectReport> defectReportFilter, final String
-            finalDefectFilterCode, final Predicate<String> useOldEmes ) {
+    private SemesterSettings( final Semester semester, final ColumnFilter defectReportFilter,
+            final ColumnFilter participantFilter, final String finalDefectFilterCode,
+            final Predicate<String> useOldEmes ) {
         this.semester = semester;
         this.defectReportFilter = defectReportFilter;
+        this.participantFilter = participantFilter;
         this.finalDefectFilterCode = finalDefectFilterCode;
         this.useOldEmes = useOldEmes;
     }
 
-    public Predicate<DefectReport> getDefectReportFilter() {
+    /**
+     * @return filter for the defect reports of the workshops of this semester
+     */
+    public ColumnFilter getDefectReportFilter() {
         return this.defectReportFilter;
     }
 
+    /**
+     * @return filter for the participants registered in this semester
+     */
+    public ColumnFilter getParticipantFilter() {
+        return this.participantFilter;
+    }
+
     public String getFinalDefectFilterCode() {
         return this.finalDefectFilterCode;
     }
@@ -44,14 +61,43 @@ public class SemesterSettings {
         return this.semester;
     }
 
+    /**
+     * Settings are fully determined by their semester, so settings of the same semester are equal.
+     */
+    @Override
+    public boolean equals( final Object o ) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        final SemesterSettings that = (SemesterSettings) o;
+        return this.semester == that.semester;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash( this.semester );
+    }
+
+    @Override
+    public String toString() {
+        return "SemesterSettings{" +
+                "semester=" + this.semester +
+                '}';
+    }
+
     public static SemesterSettings ws2017() {
-        return new SemesterSettings( Semester.WS2017, DefectReport.workshopFilter( "WS1",
-                "WS2", "WS3", "WS4" ), "WS1, WS2, WS3, WS4", s -> true );
+        return new SemesterSettings( Semester.WS2017, ColumnFilter.in( DefectReport.WORKSHOP_CODE_COLUMN, "WS1",
+                "WS2", "WS3", "WS4" ), ColumnFilter.startsWith( Participant.CREATED_AT_COLUMN, "2017" ),
+                "WS1, WS2, WS3, WS4", s -> true );
     }
 
     public static SemesterSettings ss2018() {
-        return new SemesterSettings( Semester.SS2018, DefectReport.workshopFilter( "WS1_SS18",
-                "WS2_SS18", "WS3_SS18", "WS4_SS18" ), "WS1_SS18, WS2_SS18, WS3_SS18, WS4_SS18", s -> false );
+        return new SemesterSettings( Semester.SS2018, ColumnFilter.in( DefectReport.WORKSHOP_CODE_COLUMN, "WS1_SS18",
+                "WS2_SS18", "WS3_SS18", "WS4_SS18" ), ColumnFilter.startsWith( Participant.CREATED_AT_COLUMN, "2018" ),
+                "WS1_SS18, WS2_SS18, WS3_SS18, WS4_SS18", s -> false );
     }
 
     public static SemesterSettings get( final Semester semester ) {
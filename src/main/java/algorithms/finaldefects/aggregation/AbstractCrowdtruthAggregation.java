@@ -20,6 +20,8 @@ import java.util.stream.IntStream;
 public abstract class AbstractCrowdtruthAggregation implements FinalDefectAggregationAlgorithm {
     private final MetricsScores metricsScores;
 
+    private final DefectReportKeys keys;
+
     private final Emes emes;
 
     private final DefectReports defectReports;
@@ -31,15 +33,16 @@ public abstract class AbstractCrowdtruthAggregation implements FinalDefectAggreg
         this.settings = settings;
         this.defectReports = defectReports;
         this.emes = Emes.fetchFromDb( settings );
-        this.metricsScores = getMetricsScores( this.defectReports.getDefectReports() );
+        this.keys = DefectReportKeys.fromDefectReports( this.defectReports.getDefectReports() );
+        this.metricsScores = CrowdtruthAlgorithm.calculateClosed( this.keys.getAnswers() );
     }
 
     @Override
     public final ImmutableMap<EmeAndScenarioId, FinalDefect> getFinalDefects() {
         final Map<EmeAndScenarioId, FinalDefect.Builder> finalDefects = Maps.newHashMap();
         this.metricsScores.getMediaUnitAnnotationScores().forEach( ( mua, score ) -> {
-            final EmeAndScenarioId emeAndScenarioId = EmeAndScenarioId.fromString( mua.getKey().getId() );
-            final DefectType defectType = DefectType.fromString( mua.getValue().getId() );
+            final EmeAndScenarioId emeAndScenarioId = this.keys.getEmeAndScenarioId( mua.getKey() );
+            final DefectType defectType = DefectReportKeys.getDefectType( mua.getValue() );
 
             final FinalDefect.Builder builder = finalDefects.computeIfAbsent( emeAndScenarioId,
                     e -> FinalDefect.builder( this.emes, emeAndScenarioId ) );
@@ -72,7 +75,7 @@ public abstract class AbstractCrowdtruthAggregation implements FinalDefectAggreg
     public ImmutableMap<TaskWorkerId, WorkerDefectReports> getWorkerDefectReports() {
         final ImmutableMap<TaskWorkerId, WorkerQuality> workerQualityScores =
                 this.metricsScores.getWorkerQualityScores().entrySet().stream().collect( ImmutableMap
-                        .toImmutableMap( e -> new TaskWorkerId( e.getKey().getId() ),
+                        .toImmutableMap( e -> TaskWorkerId.of( e.getKey().getId() ),
                                 e -> new WorkerQuality( e.getValue() ) ) );
         return this.defectReports.toWorkerDefectReports( workerQualityScores::get );
     }
@@ -80,7 +83,7 @@ public abstract class AbstractCrowdtruthAggregation implements FinalDefectAggreg
     public ImmutableSet<Sample> getAllWorkerScores() {
         final ImmutableMap<ParticipantId, Double> workerQualityScores = this.metricsScores.getWorkerQualityScores();
         return workerQualityScores.entrySet().stream().map( w -> {
-            final TaskWorkerId workerId = new TaskWorkerId( w.getKey().getId() );
+            final TaskWorkerId workerId = TaskWorkerId.of( w.getKey().getId() );
             return new Sample( w.getKey().getId(), w.getValue(), getFinalDefectForWorker( workerId ) );
         } ).collect( ImmutableSet.toImmutableSet() );
     }
@@ -89,8 +92,8 @@ public abstract class AbstractCrowdtruthAggregation implements FinalDefectAggreg
         final ImmutableMap<ChoiceId, Double> annotationQualityScores = this.metricsScores
                 .getAnnotationQualityScores();
         return annotationQualityScores.entrySet().stream().map( w -> {
-            final String name = w.getKey().getId();
-            return new Sample( name, w.getValue(), getFinalDefectForAnnotation( DefectType.fromString( name ) ) );
+            return new Sample( w.getKey().getId(), w.getValue(), getFinalDefectForAnnotation(
+                    DefectReportKeys.getDefectType( w.getKey() ) ) );
         } ).collect( ImmutableSet.toImmutableSet() );
     }
 
@@ -98,8 +101,8 @@ public abstract class AbstractCrowdtruthAggregation implements FinalDefectAggreg
         final ImmutableMap<QuestionId, Double> mediaUnitQualityScores = this.metricsScores
                 .getMediaUnitQualityScores();
         return mediaUnitQualityScores.entrySet().stream().map( w -> {
-            final String name = w.getKey().getId();
-            return new Sample( name, w.getValue(), getFinalDefectForMediaUnit( EmeAndScenarioId.fromString( name ) ) );
+            return new Sample( w.getKey().getId(), w.getValue(), getFinalDefectForMediaUnit(
+                    this.keys.getEmeAndScenarioId( w.getKey() ) ) );
         } ).collect( ImmutableSet.toImmutableSet() );
     }
 
@@ -116,7 +119,7 @@ public abstract class AbstractCrowdtruthAggregation implements FinalDefectAggreg
         return IntStream.range( 0, nrWorkers ).mapToObj( n -> orderedByQuality.entrySet().stream().skip( n ).findFirst()
                 .get() )
                 .map( w -> {
-                    final TaskWorkerId workerId = new TaskWorkerId( w.getKey().getId() );
+                    final TaskWorkerId workerId = TaskWorkerId.of( w.getKey().getId() );
                     return new Sample( w.getKey().getId(), w.getValue(),
                             getFinalDefectForWorker( workerId ) );
                 } ).collect( ImmutableSet.toImmutableSet() );
@@ -148,10 +151,6 @@ public abstract class AbstractCrowdtruthAggregation implements FinalDefectAggreg
                 .build();
     }
 
-    private static MetricsScores getMetricsScores( final ImmutableSet<DefectReport> defectReports ) {
-        return CrowdtruthAlgorithm.calculateClosed( Answers.fromDefectReports( defectReports ) );
-    }
-
     public enum SamplingType {
         HIGHEST,
         LOWEST
@@ -3,7 +3,9 @@ package algorithms.finaldefects.aggregation;
 import algorithms.finaldefects.SemesterSettings;
 import algorithms.finaldefects.WorkerDefectReports;
 import algorithms.truthinference.Answers;
+import algorithms.truthinference.DefectReportKeys;
 import algorithms.truthinference.CrhAlgorithm;
+import algorithms.truthinference.Parallelism;
 import algorithms.vericom.model.*;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
@@ -21,6 +23,8 @@ public class CrhAggregation implements FinalDefectAggregationAlgorithm {
     //object? = task(emeAndScenarioId), source = worker, entry = final defect, observation = defect report
     private final CrhAlgorithm.Output output;
 
+    private final DefectReportKeys keys;
+
     private final Emes emes;
 
     private final DefectReports defectReports;
@@ -32,7 +36,8 @@ public class CrhAggregation implements FinalDefectAggregationAlgorithm {
         this.settings = settings;
         this.defectReports = defectReports;
         this.emes = Emes.fetchFromDb( settings );
-        this.output = runAlgorithm( this.defectReports.getDefectReports() );
+        this.keys = DefectReportKeys.fromDefectReports( this.defectReports.getDefectReports() );
+        this.output = runAlgorithm( this.keys.getAnswers() );
     }
 
     public static void main( final String[] args ) {
@@ -44,9 +49,9 @@ public class CrhAggregation implements FinalDefectAggregationAlgorithm {
     @Override
     public final ImmutableMap<EmeAndScenarioId, FinalDefect> getFinalDefects() {
         return this.output.getTruths().entrySet().stream().map( truth -> {
-            final EmeAndScenarioId emeAndScenarioId = EmeAndScenarioId.fromString( truth.getKey().getId() );
+            final EmeAndScenarioId emeAndScenarioId = this.keys.getEmeAndScenarioId( truth.getKey() );
             return FinalDefect.builder( this.emes, emeAndScenarioId ).withFinalDefectType(
-                    FinalDefectType.valueOf( truth.getValue().getId() ) ).withAgreementCoeff(
+                    DefectReportKeys.getFinalDefectType( truth.getValue() ) ).withAgreementCoeff(
                     new AgreementCoefficient( 0.0 ) ).build(); //TODO fill in agreement coefficient
         } ).collect( ImmutableMap.toImmutableMap( FinalDefect::getEmeAndScenarioId, Function.identity() ) );
     }
@@ -74,8 +79,8 @@ public class CrhAggregation implements FinalDefectAggregationAlgorithm {
         return ImmutableMap.of(); //TODO
     }
 
-    private static CrhAlgorithm.Output runAlgorithm( final ImmutableSet<DefectReport> defectReports ) {
-        final CrhAlgorithm algorithm = new CrhAlgorithm( Answers.fromDefectReports( defectReports ) );
+    private static CrhAlgorithm.Output runAlgorithm( final Answers answers ) {
+        final CrhAlgorithm algorithm = new CrhAlgorithm( answers, Parallelism.forkJoin() );
         return algorithm.run();
     }
 }
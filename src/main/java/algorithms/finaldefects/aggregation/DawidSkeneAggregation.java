@@ -3,13 +3,12 @@ package algorithms.finaldefects.aggregation;
 import algorithms.finaldefects.SemesterSettings;
 import algorithms.finaldefects.WorkerDefectReports;
 import algorithms.truthinference.Answers;
+import algorithms.truthinference.DefectReportKeys;
 import algorithms.truthinference.DawidSkeneAlgorithm;
+import algorithms.truthinference.Parallelism;
 import algorithms.vericom.model.*;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.Maps;
-
-import java.util.Map;
 
 /**
  * @author LinX
@@ -19,6 +18,8 @@ public class DawidSkeneAggregation implements FinalDefectAggregationAlgorithm {
     //patient = task(emeAndScenarioId), observer = worker, label = final defect
     private final DawidSkeneAlgorithm.Output output;
 
+    private final DefectReportKeys keys;
+
     private final Emes emes;
 
     private final DefectReports defectReports;
@@ -30,7 +31,8 @@ public class DawidSkeneAggregation implements FinalDefectAggregationAlgorithm {
         this.settings = settings;
         this.defectReports = defectReports;
         this.emes = Emes.fetchFromDb( settings );
-        this.output = runDawidSkeneAlgorithm( this.defectReports.getDefectReports() );
+        this.keys = DefectReportKeys.fromDefectReports( this.defectReports.getDefectReports() );
+        this.output = runDawidSkeneAlgorithm( this.keys.getAnswers() );
     }
 
     public static void main( final String[] args ) {
@@ -42,22 +44,23 @@ public class DawidSkeneAggregation implements FinalDefectAggregationAlgorithm {
     //TODO factor in case where two class estimation have same ratio
     @Override
     public final ImmutableMap<EmeAndScenarioId, FinalDefect> getFinalDefects() {
-        final Map<EmeAndScenarioId, FinalDefect.Builder> finalDefects = Maps.newHashMap();
-        this.output.getPatientClassEstimations().forEach( ( patientId, indicatorEstimations ) -> {
-            indicatorEstimations.forEach( estimation -> {
-                final EmeAndScenarioId emeAndScenarioId = EmeAndScenarioId.fromString( patientId.getId() );
-                final FinalDefect.Builder builder = finalDefects.computeIfAbsent( emeAndScenarioId,
-                        id -> FinalDefect.builder( this.emes, emeAndScenarioId ) );
+        final ImmutableMap.Builder<EmeAndScenarioId, FinalDefect> finalDefects = ImmutableMap.builder();
+        for (int question = 0; question < this.keys.getNrQuestions(); question++) {
+            final EmeAndScenarioId emeAndScenarioId = this.keys.getEmeAndScenarioId( question );
+            final FinalDefect.Builder builder = FinalDefect.builder( this.emes, emeAndScenarioId );
+            for (final DawidSkeneAlgorithm.IndicatorEstimation estimation : this.output.getPatientClassEstimations(
+                    question )) {
                 if (builder.getAgreementCoeff().toDouble() < estimation.getIndicatorEstimation()) {
-                    builder.withFinalDefectType( FinalDefectType.valueOf( estimation.getLabel().getId() ) )
+                    builder.withFinalDefectType( DefectReportKeys.getFinalDefectType( estimation.getLabel() ) )
                             .withAgreementCoeff( new AgreementCoefficient( estimation.getIndicatorEstimation() ) );
                 }
                 else if (builder.getAgreementCoeff().toDouble() == estimation.getIndicatorEstimation()) {
                     builder.withFinalDefectType( FinalDefectType.UNDECIDABLE );
                 }
-            } );
-        } );
-        return ImmutableMap.copyOf( Maps.transformValues( finalDefects, FinalDefect.Builder::build ) );
+            }
+            finalDefects.put( emeAndScenarioId, builder.build() );
+        }
+        return finalDefects.build();
     }
 
     public DawidSkeneAlgorithm.Output runDawidSkeneAlgorithm() {
@@ -83,9 +86,9 @@ public class DawidSkeneAggregation implements FinalDefectAggregationAlgorithm {
         return ImmutableMap.of(); //TODO
     }
 
-    private static DawidSkeneAlgorithm.Output runDawidSkeneAlgorithm( final ImmutableSet<DefectReport> defectReports ) {
+    private static DawidSkeneAlgorithm.Output runDawidSkeneAlgorithm( final Answers answers ) {
         final DawidSkeneAlgorithm dawidSkeneAlgorithm = new DawidSkeneAlgorithm(
-                Answers.fromDefectReports( defectReports ) );
+                answers, Parallelism.forkJoin() );
         return dawidSkeneAlgorithm.run();
     }
 }
\ No newline at end of file
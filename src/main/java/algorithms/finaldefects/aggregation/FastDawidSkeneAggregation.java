@@ -3,13 +3,12 @@ package algorithms.finaldefects.aggregation;
 import algorithms.finaldefects.SemesterSettings;
 import algorithms.finaldefects.WorkerDefectReports;
 import algorithms.truthinference.Answers;
+import algorithms.truthinference.DefectReportKeys;
 import algorithms.truthinference.FastDawidSkeneAlgorithm;
+import algorithms.truthinference.Parallelism;
 import algorithms.vericom.model.*;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.Maps;
-
-import java.util.Map;
 
 /**
  * @author LinX
@@ -19,6 +18,8 @@ public class FastDawidSkeneAggregation implements FinalDefectAggregationAlgorith
     //patient = question(emeAndScenarioId), participant = worker, choice = final defect
     private final FastDawidSkeneAlgorithm.Output output;
 
+    private final DefectReportKeys keys;
+
     private final Emes emes;
 
     private final DefectReports defectReports;
@@ -30,7 +31,8 @@ public class FastDawidSkeneAggregation implements FinalDefectAggregationAlgorith
         this.settings = settings;
         this.defectReports = defectReports;
         this.emes = Emes.fetchFromDb( settings );
-        this.output = runFDSAlgorithm( this.defectReports.getDefectReports() );
+        this.keys = DefectReportKeys.fromDefectReports( this.defectReports.getDefectReports() );
+        this.output = runFDSAlgorithm( this.keys.getAnswers() );
     }
 
     public static void main( final String[] args ) {
@@ -41,22 +43,23 @@ public class FastDawidSkeneAggregation implements FinalDefectAggregationAlgorith
 
     @Override
     public final ImmutableMap<EmeAndScenarioId, FinalDefect> getFinalDefects() {
-        final Map<EmeAndScenarioId, FinalDefect.Builder> finalDefects = Maps.newHashMap();
-        this.output.getClassEstimations().forEach( ( patientId, indicatorEstimations ) -> {
-            indicatorEstimations.forEach( estimation -> {
-                final EmeAndScenarioId emeAndScenarioId = EmeAndScenarioId.fromString( patientId.getId() );
-                final FinalDefect.Builder builder = finalDefects.computeIfAbsent( emeAndScenarioId,
-                        id -> FinalDefect.builder( this.emes, emeAndScenarioId ) );
+        final ImmutableMap.Builder<EmeAndScenarioId, FinalDefect> finalDefects = ImmutableMap.builder();
+        for (int question = 0; question < this.keys.getNrQuestions(); question++) {
+            final EmeAndScenarioId emeAndScenarioId = this.keys.getEmeAndScenarioId( question );
+            final FinalDefect.Builder builder = FinalDefect.builder( this.emes, emeAndScenarioId );
+            for (final FastDawidSkeneAlgorithm.IndicatorEstimation estimation : this.output.getClassEstimations(
+                    question )) {
                 if (builder.getAgreementCoeff().toDouble() < estimation.getIndicatorEstimation()) {
-                    builder.withFinalDefectType( FinalDefectType.valueOf( estimation.getChoice().getId() ) )
+                    builder.withFinalDefectType( DefectReportKeys.getFinalDefectType( estimation.getChoice() ) )
                             .withAgreementCoeff( new AgreementCoefficient( estimation.getIndicatorEstimation() ) );
                 }
                 else if (builder.getAgreementCoeff().toDouble() == estimation.getIndicatorEstimation()) {
                     builder.withFinalDefectType( FinalDefectType.UNDECIDABLE );
                 }
-            } );
-        } );
-        return ImmutableMap.copyOf( Maps.transformValues( finalDefects, FinalDefect.Builder::build ) );
+            }
+            finalDefects.put( emeAndScenarioId, builder.build() );
+        }
+        return finalDefects.build();
     }
 
     public FastDawidSkeneAlgorithm.Output runFDSAlgorithm() {
@@ -82,9 +85,9 @@ public class FastDawidSkeneAggregation implements FinalDefectAggregationAlgorith
         return ImmutableMap.of(); //TODO
     }
 
-    private static FastDawidSkeneAlgorithm.Output runFDSAlgorithm( final ImmutableSet<DefectReport> defectReports ) {
+    private static FastDawidSkeneAlgorithm.Output runFDSAlgorithm( final Answers answers ) {
         final FastDawidSkeneAlgorithm algorithm = new FastDawidSkeneAlgorithm(
-                Answers.fromDefectReports( defectReports ) );
+                answers, Parallelism.forkJoin() );
         return algorithm.run();
     }
 }
\ No newline at end of file
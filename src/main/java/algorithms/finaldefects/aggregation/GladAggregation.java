@@ -0,0 +1,102 @@
+package algorithms.finaldefects.aggregation;
+
+import algorithms.finaldefects.SemesterSettings;
+import algorithms.finaldefects.WorkerDefectReports;
+import algorithms.finaldefects.WorkerQuality;
+import algorithms.truthinference.Answers;
+import algorithms.truthinference.DefectReportKeys;
+import algorithms.truthinference.Parallelism;
+import algorithms.truthinference.GladAlgorithm;
+import algorithms.truthinference.ParticipantId;
+import algorithms.vericom.model.*;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Comparator;
+
+/**
+ * Final defects by GLAD, which weighs the defect reports by the expertise of the worker and the difficulty of the EME
+ * and scenario, see {@link GladAlgorithm}.
+ *
+ * @author LinX
+ */
+public class GladAggregation implements FinalDefectAggregationAlgorithm {
+    private static final Logger LOG = LoggerFactory.getLogger( GladAggregation.class );
+
+    //question = task(emeAndScenarioId), participant = worker, choice = final defect
+    private final GladAlgorithm.Output output;
+
+    private final DefectReportKeys keys;
+
+    private final Emes emes;
+
+    private final DefectReports defectReports;
+
+    private final SemesterSettings settings;
+
+    protected GladAggregation( final SemesterSettings settings,
+            final DefectReports defectReports ) {
+        this.settings = settings;
+        this.defectReports = defectReports;
+        this.emes = Emes.fetchFromDb( settings );
+        this.keys = DefectReportKeys.fromDefectReports( this.defectReports.getDefectReports() );
+        this.output = runAlgorithm( this.keys.getAnswers() );
+    }
+
+    public static void main( final String[] args ) {
+        final GladAggregation aggregation = create( SemesterSettings.ws2017() );
+        LOG.info( "Final defects: " + aggregation.getFinalDefects() );
+    }
+
+    public static GladAggregation create( final SemesterSettings settings ) {
+        return new GladAggregation( settings, DefectReports.fetchFromDb( settings ) );
+    }
+
+    @Override
+    public final ImmutableMap<EmeAndScenarioId, FinalDefect> getFinalDefects() {
+        final ImmutableMap.Builder<EmeAndScenarioId, FinalDefect> finalDefects = ImmutableMap.builder();
+        for (int question = 0; question < this.keys.getNrQuestions(); question++) {
+            final GladAlgorithm.ClassEstimation highest = this.output.getClassEstimations( question ).stream().max(
+                    Comparator.comparingDouble( GladAlgorithm.ClassEstimation::getEstimation ) ).get();
+
+            final EmeAndScenarioId emeAndScenarioId = this.keys.getEmeAndScenarioId( question );
+            finalDefects.put( emeAndScenarioId, FinalDefect.builder( this.emes, emeAndScenarioId ).withFinalDefectType(
+                    DefectReportKeys.getFinalDefectType( highest.getChoice() ) ).withAgreementCoeff(
+                    new AgreementCoefficient( highest.getEstimation() ) ).build() );
+        }
+        return finalDefects.build();
+    }
+
+    public GladAlgorithm.Output runAlgorithm() {
+        return this.output;
+    }
+
+    public ImmutableSet<DefectReport> getDefectReports() {
+        return this.defectReports.getDefectReports();
+    }
+
+    @Override
+    public SemesterSettings getSettings() {
+        return this.settings;
+    }
+
+    @Override
+    public ImmutableMap<String, String> getParameters() {
+        return ImmutableMap.of();
+    }
+
+    @Override
+    public ImmutableMap<TaskWorkerId, WorkerDefectReports> getWorkerDefectReports() {
+        final ImmutableMap<ParticipantId, Double> expertises = this.output.getExpertises();
+        //probability of a correct defect report about an EME and scenario of inverse difficulty 1, i.e. sigma(alpha_k)
+        return this.defectReports.toWorkerDefectReports( id -> new WorkerQuality( 1 / (1 + Math.exp( -expertises.get(
+                ParticipantId.create( id.toInt() ) ) )) ) );
+    }
+
+    private static GladAlgorithm.Output runAlgorithm( final Answers answers ) {
+        final GladAlgorithm algorithm = new GladAlgorithm( answers, Parallelism.forkJoin() );
+        return algorithm.run();
+    }
+}
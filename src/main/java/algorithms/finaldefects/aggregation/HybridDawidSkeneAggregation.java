@@ -3,13 +3,12 @@ package algorithms.finaldefects.aggregation;
 import algorithms.finaldefects.SemesterSettings;
 import algorithms.finaldefects.WorkerDefectReports;
 import algorithms.truthinference.Answers;
+import algorithms.truthinference.DefectReportKeys;
 import algorithms.truthinference.HybridDawidSkeneAlgorithm;
+import algorithms.truthinference.Parallelism;
 import algorithms.vericom.model.*;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.Maps;
-
-import java.util.Map;
 
 /**
  * @author LinX
@@ -19,6 +18,8 @@ public class HybridDawidSkeneAggregation implements FinalDefectAggregationAlgori
     //patient = question(emeAndScenarioId), participant = worker, choice = final defect
     private final HybridDawidSkeneAlgorithm.Output output;
 
+    private final DefectReportKeys keys;
+
     private final Emes emes;
 
     private final DefectReports defectReports;
@@ -30,7 +31,8 @@ public class HybridDawidSkeneAggregation implements FinalDefectAggregationAlgori
         this.settings = settings;
         this.defectReports = defectReports;
         this.emes = Emes.fetchFromDb( settings );
-        this.output = runAlgorithm( this.defectReports.getDefectReports() );
+        this.keys = DefectReportKeys.fromDefectReports( this.defectReports.getDefectReports() );
+        this.output = runAlgorithm( this.keys.getAnswers() );
     }
 
     public static void main( final String[] args ) {
@@ -42,22 +44,23 @@ public class HybridDawidSkeneAggregation implements FinalDefectAggregationAlgori
     //TODO factor in case where two class estimation have same ratio
     @Override
     public final ImmutableMap<EmeAndScenarioId, FinalDefect> getFinalDefects() {
-        final Map<EmeAndScenarioId, FinalDefect.Builder> finalDefects = Maps.newHashMap();
-        this.output.getClassEstimations().forEach( ( patientId, indicatorEstimations ) -> {
-            indicatorEstimations.forEach( estimation -> {
-                final EmeAndScenarioId emeAndScenarioId = EmeAndScenarioId.fromString( patientId.getId() );
-                final FinalDefect.Builder builder = finalDefects.computeIfAbsent( emeAndScenarioId,
-                        id -> FinalDefect.builder( this.emes, emeAndScenarioId ) );
+        final ImmutableMap.Builder<EmeAndScenarioId, FinalDefect> finalDefects = ImmutableMap.builder();
+        for (int question = 0; question < this.keys.getNrQuestions(); question++) {
+            final EmeAndScenarioId emeAndScenarioId = this.keys.getEmeAndScenarioId( question );
+            final FinalDefect.Builder builder = FinalDefect.builder( this.emes, emeAndScenarioId );
+            for (final HybridDawidSkeneAlgorithm.IndicatorEstimation estimation : this.output.getClassEstimations(
+                    question )) {
                 if (builder.getAgreementCoeff().toDouble() < estimation.getIndicatorEstimation()) {
-                    builder.withFinalDefectType( FinalDefectType.valueOf( estimation.getChoice().getId() ) )
+                    builder.withFinalDefectType( DefectReportKeys.getFinalDefectType( estimation.getChoice() ) )
                             .withAgreementCoeff( new AgreementCoefficient( estimation.getIndicatorEstimation() ) );
                 }
                 else if (builder.getAgreementCoeff().toDouble() == estimation.getIndicatorEstimation()) {
                     builder.withFinalDefectType( FinalDefectType.UNDECIDABLE );
                 }
-            } );
-        } );
-        return ImmutableMap.copyOf( Maps.transformValues( finalDefects, FinalDefect.Builder::build ) );
+            }
+            finalDefects.put( emeAndScenarioId, builder.build() );
+        }
+        return finalDefects.build();
     }
 
     public HybridDawidSkeneAlgorithm.Output runAlgorithm() {
@@ -83,9 +86,10 @@ public class HybridDawidSkeneAggregation implements FinalDefectAggregationAlgori
         return ImmutableMap.of(); //TODO
     }
 
-    private static HybridDawidSkeneAlgorithm.Output runAlgorithm( final ImmutableSet<DefectReport> defectReports ) {
+    private static HybridDawidSkeneAlgorithm.Output runAlgorithm( final Answers answers ) {
         final HybridDawidSkeneAlgorithm algorithm = new HybridDawidSkeneAlgorithm(
-                Answers.fromDefectReports( defectReports ), 0.05 ); //TODO do not make it hard-coded
+                answers, 0.05, //TODO do not make it hard-coded
+                Parallelism.forkJoin() );
         return algorithm.run();
     }
 }
\ No newline at end of file
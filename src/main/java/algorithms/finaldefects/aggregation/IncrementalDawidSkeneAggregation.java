@@ -0,0 +1,135 @@
+package algorithms.finaldefects.aggregation;
+
+import algorithms.finaldefects.SemesterSettings;
+import algorithms.finaldefects.WorkerDefectReports;
+import algorithms.finaldefects.WorkerQuality;
+import algorithms.truthinference.Answer;
+import algorithms.truthinference.ChoiceId;
+import algorithms.truthinference.DefectReportKeys;
+import algorithms.truthinference.IncrementalDawidSkene;
+import algorithms.truthinference.Parallelism;
+import algorithms.truthinference.ParticipantId;
+import algorithms.truthinference.QuestionId;
+import algorithms.vericom.model.*;
+import com.google.common.collect.BiMap;
+import com.google.common.collect.HashBiMap;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Sets;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * D&S aggregation which is kept up to date as defect reports arrive, e.g. during a workshop, see {@link
+ * IncrementalDawidSkene}. The defect reports known on creation are aggregated with a full run.
+ *
+ * @author LinX
+ */
+public class IncrementalDawidSkeneAggregation implements FinalDefectAggregationAlgorithm {
+    private static final Logger LOG = LoggerFactory.getLogger( IncrementalDawidSkeneAggregation.class );
+
+    //runs EM over all defect reports again once this many new answers have been added
+    private static final int FULL_EM_EVERY = 1000;
+
+    private final IncrementalDawidSkene dawidSkene;
+
+    private final Emes emes;
+
+    private final SemesterSettings settings;
+
+    //questions of all EMEs and scenarios added so far, each one created once
+    private final BiMap<EmeAndScenarioId, QuestionId> questions = HashBiMap.create();
+
+    //all defect reports added so far, for the defect reports by worker
+    private final Set<DefectReport> defectReports = Sets.newLinkedHashSet();
+
+    private IncrementalDawidSkeneAggregation( final SemesterSettings settings, final DefectReports defectReports ) {
+        this.settings = settings;
+        this.emes = Emes.fetchFromDb( settings );
+        this.dawidSkene = IncrementalDawidSkene.builder( DefectReportKeys.getChoices() ).withDistinctAnswers()
+                .withFullEmEvery( FULL_EM_EVERY ).withParallelism( Parallelism.forkJoin() )
+                .build();
+        Iterables.addAll( this.defectReports, defectReports.getDefectReports() );
+        this.dawidSkene.addAll( Iterables.transform( defectReports.getDefectReports(), this::toAnswer ) );
+        if (this.dawidSkene.getNrAnswers() > 0) {
+            this.dawidSkene.runFullEm();
+        }
+    }
+
+    public static void main( final String[] args ) {
+        final IncrementalDawidSkeneAggregation aggregation = create( SemesterSettings.ws2017() );
+        LOG.info( "Final defects: " + aggregation.getFinalDefects() );
+    }
+
+    public static IncrementalDawidSkeneAggregation create( final SemesterSettings settings ) {
+        return new IncrementalDawidSkeneAggregation( settings, DefectReports.fetchFromDb( settings ) );
+    }
+
+    /**
+     * Updates the final defects of the EMEs and scenarios the new defect reports belong to.
+     */
+    public synchronized void addDefectReports( final Iterable<DefectReport> defectReports ) {
+        Iterables.addAll( this.defectReports, defectReports );
+        this.dawidSkene.addAll( Iterables.transform( defectReports, this::toAnswer ) );
+    }
+
+    //same tie handling as DawidSkeneAggregation
+    @Override
+    public synchronized ImmutableMap<EmeAndScenarioId, FinalDefect> getFinalDefects() {
+        final ImmutableMap.Builder<EmeAndScenarioId, FinalDefect> finalDefects = ImmutableMap.builder();
+        this.dawidSkene.getQuestions().forEach( question -> {
+            final EmeAndScenarioId emeAndScenarioId = this.questions.inverse().get( question );
+            final FinalDefect.Builder builder = FinalDefect.builder( this.emes, emeAndScenarioId );
+            for (final Map.Entry<ChoiceId, Double> estimation : this.dawidSkene.getClassEstimations( question )
+                    .entrySet()) {
+                if (builder.getAgreementCoeff().toDouble() < estimation.getValue()) {
+                    builder.withFinalDefectType( DefectReportKeys.getFinalDefectType( estimation.getKey() ) )
+                            .withAgreementCoeff( new AgreementCoefficient( estimation.getValue() ) );
+                }
+                else if (builder.getAgreementCoeff().toDouble() == estimation.getValue()) {
+                    builder.withFinalDefectType( FinalDefectType.UNDECIDABLE );
+                }
+            }
+            finalDefects.put( emeAndScenarioId, builder.build() );
+        } );
+        return finalDefects.build();
+    }
+
+    @Override
+    public SemesterSettings getSettings() {
+        return this.settings;
+    }
+
+    @Override
+    public ImmutableMap<String, String> getParameters() {
+        return ImmutableMap.of();
+    }
+
+    @Override
+    public synchronized ImmutableMap<TaskWorkerId, WorkerDefectReports> getWorkerDefectReports() {
+        return new DefectReports( ImmutableSet.copyOf( this.defectReports ) ).toWorkerDefectReports(
+                this::getWorkerQuality );
+    }
+
+    //probability of answering correctly, i.e. sum_j p_j * pi^k_jj
+    private WorkerQuality getWorkerQuality( final TaskWorkerId id ) {
+        final ParticipantId participant = ParticipantId.create( id.toInt() );
+        double quality = 0;
+        for (final ChoiceId choice : this.dawidSkene.getChoices()) {
+            quality += this.dawidSkene.getClassProbability( choice ) * this.dawidSkene.getErrorRate( participant,
+                    choice, choice );
+        }
+        //rounding may push the sum slightly above 1
+        return new WorkerQuality( Math.min( 1, quality ) );
+    }
+
+    private Answer toAnswer( final DefectReport report ) {
+        return Answer.create( ParticipantId.create( report.getWorkerId().toInt() ), this.questions.computeIfAbsent(
+                report.getEmeAndScenarioId(), e -> QuestionId.create( e.toString() ) ),
+                DefectReportKeys.getChoice( report.getDefectType() ) );
+    }
+}
@@ -0,0 +1,101 @@
+package algorithms.finaldefects.aggregation;
+
+import algorithms.finaldefects.SemesterSettings;
+import algorithms.finaldefects.WorkerDefectReports;
+import algorithms.finaldefects.WorkerQuality;
+import algorithms.truthinference.Answers;
+import algorithms.truthinference.DefectReportKeys;
+import algorithms.truthinference.LfcAlgorithm;
+import algorithms.truthinference.Parallelism;
+import algorithms.truthinference.ParticipantId;
+import algorithms.vericom.model.*;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Comparator;
+
+/**
+ * Final defects by LFC, i.e. D&S with a prior on the error rates of the workers, see {@link LfcAlgorithm}.
+ *
+ * @author LinX
+ */
+public class LfcAggregation implements FinalDefectAggregationAlgorithm {
+    private static final Logger LOG = LoggerFactory.getLogger( LfcAggregation.class );
+
+    //question = task(emeAndScenarioId), participant = worker, choice = final defect
+    private final LfcAlgorithm.Output output;
+
+    private final DefectReportKeys keys;
+
+    private final Emes emes;
+
+    private final DefectReports defectReports;
+
+    private final SemesterSettings settings;
+
+    protected LfcAggregation( final SemesterSettings settings,
+            final DefectReports defectReports ) {
+        this.settings = settings;
+        this.defectReports = defectReports;
+        this.emes = Emes.fetchFromDb( settings );
+        this.keys = DefectReportKeys.fromDefectReports( this.defectReports.getDefectReports() );
+        this.output = runAlgorithm( this.keys.getAnswers() );
+    }
+
+    public static void main( final String[] args ) {
+        final LfcAggregation aggregation = create( SemesterSettings.ws2017() );
+        LOG.info( "Final defects: " + aggregation.getFinalDefects() );
+    }
+
+    public static LfcAggregation create( final SemesterSettings settings ) {
+        return new LfcAggregation( settings, DefectReports.fetchFromDb( settings ) );
+    }
+
+    @Override
+    public final ImmutableMap<EmeAndScenarioId, FinalDefect> getFinalDefects() {
+        final ImmutableMap.Builder<EmeAndScenarioId, FinalDefect> finalDefects = ImmutableMap.builder();
+        for (int question = 0; question < this.keys.getNrQuestions(); question++) {
+            final LfcAlgorithm.ClassEstimation highest = this.output.getClassProbabilities( question ).stream().max(
+                    Comparator.comparingDouble( LfcAlgorithm.ClassEstimation::getEstimation ) ).get();
+
+            final EmeAndScenarioId emeAndScenarioId = this.keys.getEmeAndScenarioId( question );
+            finalDefects.put( emeAndScenarioId, FinalDefect.builder( this.emes, emeAndScenarioId ).withFinalDefectType(
+                    DefectReportKeys.getFinalDefectType( highest.getChoice() ) ).withAgreementCoeff(
+                    new AgreementCoefficient( highest.getEstimation() ) ).build() );
+        }
+        return finalDefects.build();
+    }
+
+    public LfcAlgorithm.Output runAlgorithm() {
+        return this.output;
+    }
+
+    public ImmutableSet<DefectReport> getDefectReports() {
+        return this.defectReports.getDefectReports();
+    }
+
+    @Override
+    public SemesterSettings getSettings() {
+        return this.settings;
+    }
+
+    @Override
+    public ImmutableMap<String, String> getParameters() {
+        return ImmutableMap.of();
+    }
+
+    @Override
+    public ImmutableMap<TaskWorkerId, WorkerDefectReports> getWorkerDefectReports() {
+        final ImmutableMap<ParticipantId, Double> reliabilities = this.output.getWorkerReliabilities();
+        //rounding may push the sum of p_j * pi^k_jj slightly above 1
+        return this.defectReports.toWorkerDefectReports( id -> new WorkerQuality( Math.min( 1, reliabilities.get(
+                ParticipantId.create( id.toInt() ) ) ) ) );
+    }
+
+    private static LfcAlgorithm.Output runAlgorithm( final Answers answers ) {
+        final LfcAlgorithm algorithm = new LfcAlgorithm( answers, Parallelism.forkJoin() );
+        return algorithm.run();
+    }
+}
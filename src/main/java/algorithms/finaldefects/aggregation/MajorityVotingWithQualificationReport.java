@@ -25,9 +25,9 @@ public class MajorityVotingWithQualificationReport implements FinalDefectAggrega
             final WorkerQualityInfluence influence, final double alpha ) {
         this.influence = influence;
         this.alpha = alpha;
+        final ImmutableMap<TaskWorkerId, QualificationReport> qualificationReports = QualificationReport.fetch(
+                settings );
         this.majorityVoting = MajorityVotingAlgorithm.create( settings, wid -> {
-            final ImmutableMap<TaskWorkerId, QualificationReport> qualificationReports =
-                    QualificationReport.QUALIFICATION_REPORTS;
             //TODO remove comment
 //            final WorkerQuality averageWorkerQuality = getAverageWorkerQuality( influence, alpha,
 //                    qualificationReports );
@@ -3,6 +3,8 @@ package algorithms.finaldefects.aggregation;
 import algorithms.finaldefects.SemesterSettings;
 import algorithms.finaldefects.WorkerDefectReports;
 import algorithms.truthinference.Answers;
+import algorithms.truthinference.DefectReportKeys;
+import algorithms.truthinference.Parallelism;
 import algorithms.truthinference.ZenCrowdAlgorithm;
 import algorithms.vericom.model.*;
 import com.google.common.collect.ImmutableMap;
@@ -11,7 +13,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Comparator;
-import java.util.function.Function;
 
 /**
  * @author LinX
@@ -22,6 +23,8 @@ public class ZenCrowdAggregation implements FinalDefectAggregationAlgorithm {
     //click = task(emeAndScenarioId), source = worker, link= final defect
     private final ZenCrowdAlgorithm.Output output;
 
+    private final DefectReportKeys keys;
+
     private final Emes emes;
 
     private final DefectReports defectReports;
@@ -33,7 +36,8 @@ public class ZenCrowdAggregation implements FinalDefectAggregationAlgorithm {
         this.settings = settings;
         this.defectReports = defectReports;
         this.emes = Emes.fetchFromDb( settings );
-        this.output = runAlgorithm( this.defectReports.getDefectReports() );
+        this.keys = DefectReportKeys.fromDefectReports( this.defectReports.getDefectReports() );
+        this.output = runAlgorithm( this.keys.getAnswers() );
     }
 
     public static void main( final String[] args ) {
@@ -44,15 +48,17 @@ public class ZenCrowdAggregation implements FinalDefectAggregationAlgorithm {
 
     @Override
     public final ImmutableMap<EmeAndScenarioId, FinalDefect> getFinalDefects() {
-        return this.output.getClassProbabilities().entrySet().stream().map( e -> {
-            final ZenCrowdAlgorithm.ClassEstimation highest = e.getValue().stream().max(
-                    Comparator.comparingDouble( ZenCrowdAlgorithm.ClassEstimation::getEstimation ) ).get();
-
-            final EmeAndScenarioId emeAndScenarioId = EmeAndScenarioId.fromString( e.getKey().getId() );
-            return FinalDefect.builder( this.emes, emeAndScenarioId ).withFinalDefectType(
-                    FinalDefectType.valueOf( highest.getChoice().getId() ) ).withAgreementCoeff(
-                    new AgreementCoefficient( highest.getEstimation() ) ).build();
-        } ).collect( ImmutableMap.toImmutableMap( FinalDefect::getEmeAndScenarioId, Function.identity() ) );
+        final ImmutableMap.Builder<EmeAndScenarioId, FinalDefect> finalDefects = ImmutableMap.builder();
+        for (int question = 0; question < this.keys.getNrQuestions(); question++) {
+            final ZenCrowdAlgorithm.ClassEstimation highest = this.output.getClassProbabilities( question ).stream()
+                    .max( Comparator.comparingDouble( ZenCrowdAlgorithm.ClassEstimation::getEstimation ) ).get();
+
+            final EmeAndScenarioId emeAndScenarioId = this.keys.getEmeAndScenarioId( question );
+            finalDefects.put( emeAndScenarioId, FinalDefect.builder( this.emes, emeAndScenarioId ).withFinalDefectType(
+                    DefectReportKeys.getFinalDefectType( highest.getChoice() ) ).withAgreementCoeff(
+                    new AgreementCoefficient( highest.getEstimation() ) ).build() );
+        }
+        return finalDefects.build();
     }
 
     public ZenCrowdAlgorithm.Output runAlgorithm() {
@@ -78,8 +84,8 @@ public class ZenCrowdAggregation implements FinalDefectAggregationAlgorithm {
         return ImmutableMap.of(); //TODO
     }
 
-    private static ZenCrowdAlgorithm.Output runAlgorithm( final ImmutableSet<DefectReport> defectReports ) {
-        final ZenCrowdAlgorithm algorithm = new ZenCrowdAlgorithm( Answers.fromDefectReports( defectReports ) );
+    private static ZenCrowdAlgorithm.Output runAlgorithm( final Answers answers ) {
+        final ZenCrowdAlgorithm algorithm = new ZenCrowdAlgorithm( answers, Parallelism.forkJoin() );
         return algorithm.run();
     }
 }
@@ -21,8 +21,8 @@ public class FinalDefectAnalyzer {
     }
 
     public ImmutableBiMap<EmeAndScenarioId, FinalDefectResult> getFinalDefectResults() {
-        final ImmutableMap<EmeId, TrueDefect> trueDefects = AllTrueDefectsMixin.findAllTrueDefects(
-                this.algorithm.getSettings() );
+        final ImmutableMap<EmeId, TrueDefect> trueDefects = TrueDefectIndex.of( this.algorithm.getSettings() )
+                .getByEme();
 
         final ImmutableMap<EmeAndScenarioId, FinalDefect> finalDefects = this.algorithm.getFinalDefects();
         final ImmutableBiMap.Builder<EmeAndScenarioId, FinalDefectResult> results = ImmutableBiMap.builder();
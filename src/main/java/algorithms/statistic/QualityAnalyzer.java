@@ -57,7 +57,7 @@ public class QualityAnalyzer {
     ImmutableSet<CrowdtruthAggregation.Sample> samples ) {
         final ImmutableMap<EmeId, TrueDefect> trueDefects;
         final ImmutableSet.Builder<ArtifactWithConfusionMatrix> builder = ImmutableSet.builder();
-        trueDefects = AllTrueDefectsMixin.findAllTrueDefects( settings );
+        trueDefects = TrueDefectIndex.of( settings ).getByEme();
 
         samples.forEach( sample -> {
             final Set<FinalDefectResult> results = Sets.newHashSet();
@@ -78,7 +78,7 @@ public class QualityAnalyzer {
 
         final ImmutableMap<EmeId, TrueDefect> trueDefects;
         final ImmutableSet.Builder<ArtifactWithConfusionMatrix> builder = ImmutableSet.builder();
-        trueDefects = AllTrueDefectsMixin.findAllTrueDefects( algorithm.getSettings() );
+        trueDefects = TrueDefectIndex.of( algorithm.getSettings() ).getByEme();
         final Emes emes = Emes.fetchFromDb( algorithm.getSettings() );
 
         algorithm.getWorkerDefectReports().values().forEach( workerReports -> {
@@ -102,7 +102,7 @@ public class QualityAnalyzer {
             final FinalDefectAggregationAlgorithm algorithm ) {
         final ImmutableMap<EmeId, TrueDefect> trueDefects;
         final ImmutableSet.Builder<ArtifactWithConfusionMatrix> builder = ImmutableSet.builder();
-        trueDefects = AllTrueDefectsMixin.findAllTrueDefects( algorithm.getSettings() );
+        trueDefects = TrueDefectIndex.of( algorithm.getSettings() ).getByEme();
         final Emes emes = Emes.fetchFromDb( algorithm.getSettings() );
 
         algorithm.getWorkerDefectReports().values().forEach( workerReports -> {
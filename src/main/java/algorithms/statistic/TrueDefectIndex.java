@@ -0,0 +1,222 @@
+package algorithms.statistic;
+
+import algorithms.finaldefects.SemesterSettings;
+import algorithms.vericom.model.EmeId;
+import algorithms.vericom.model.Emes;
+import algorithms.vericom.model.SemesterData;
+import algorithms.vericom.model.SemesterDataStore;
+import algorithms.vericom.model.TrueDefect;
+import com.google.common.base.Strings;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.opencsv.CSVReader;
+import com.opencsv.CSVReaderBuilder;
+import com.opencsv.CSVWriter;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * True defects of a semester, mixed with the true defects of synonymous EMEs and the manual matches from other
+ * sources. The index is built once per semester data and shared read-only by all evaluations.
+ *
+ * @author LinX
+ */
+public final class TrueDefectIndex {
+    private static final String ADDITIONAL_TRUE_DEFECTS_IN_CSV = "src/main/resources/additions/additionalTrueDefects" +
+            ".csv";
+
+    private static final String ALL_TRUE_DEFECTS_OUT_CSV = "output/allTrueDefects_%s.csv";
+
+    //weak keys, so that refreshed or evicted semester data takes its index along
+    private static final LoadingCache<SemesterData, TrueDefectIndex> INDEXES = CacheBuilder.newBuilder().weakKeys()
+            .build( CacheLoader.from( d -> create( d.getTrueDefects(), readAdditionalTrueDefects() ) ) );
+
+    private final ImmutableSet<TrueDefect> trueDefects;
+
+    private final ImmutableMap<EmeId, TrueDefect> byEme;
+
+    private final ImmutableMap<String, TrueDefect> byCodeTd;
+
+    private TrueDefectIndex( final ImmutableSet<TrueDefect> trueDefects ) {
+        this.trueDefects = trueDefects;
+        this.byEme = trueDefects.stream().collect( ImmutableMap.toImmutableMap( TrueDefect::getAboutEmEid,
+                Function.identity() ) );
+        this.byCodeTd = byCodeTd( trueDefects );
+    }
+
+    /**
+     * Writes all true defects of every semester to {@value #ALL_TRUE_DEFECTS_OUT_CSV}.
+     */
+    public static void main( final String[] args ) {
+        SemesterSettings.SETTINGS.values().forEach( s -> of( s ).writeCsv( Emes.fetchFromDb( s ),
+                Paths.get( String.format( ALL_TRUE_DEFECTS_OUT_CSV, s.getSemester() ) ) ) );
+    }
+
+    /**
+     * @return the index of the true defects of the semester, built on first use
+     */
+    public static TrueDefectIndex of( final SemesterSettings settings ) {
+        return INDEXES.getUnchecked( SemesterDataStore.shared().get( settings ) );
+    }
+
+    /**
+     * @param additionalTrueDefects lines of {@value #ADDITIONAL_TRUE_DEFECTS_IN_CSV}, applied in order
+     */
+    static TrueDefectIndex create( final ImmutableSet<TrueDefect> trueDefects,
+            final ImmutableList<String[]> additionalTrueDefects ) {
+        final Map<EmeId, Set<TrueDefect>> trueDefectsByEme = Maps.newHashMap();
+        trueDefects.forEach( d -> trueDefectsByEme.computeIfAbsent( d.getAboutEmEid(), e -> Sets.newHashSet() )
+                .add( d ) );
+        //mixed in true defects are copies of true defects with the same code, so the code index stays valid
+        final ImmutableMap<String, TrueDefect> byCodeTd = byCodeTd( trueDefects );
+
+        additionalTrueDefects.forEach( l -> addAdditionalTrueDefects( trueDefectsByEme, byCodeTd, l ) );
+        trueDefectsByEme.values().forEach( e -> e.removeIf( s -> s.getAboutEmEid().toString().equals( "NA" ) ) );
+        trueDefectsByEme.values().removeIf( Set::isEmpty );
+
+        return new TrueDefectIndex( trueDefectsByEme.values().stream().flatMap( Collection::stream ).collect(
+                ImmutableSet.toImmutableSet() ) );
+    }
+
+    public ImmutableSet<TrueDefect> getTrueDefects() {
+        return this.trueDefects;
+    }
+
+    /**
+     * @return true defects by the EME they are about
+     */
+    public ImmutableMap<EmeId, TrueDefect> getByEme() {
+        return this.byEme;
+    }
+
+    public Optional<TrueDefect> get( final EmeId emeId ) {
+        return Optional.ofNullable( this.byEme.get( emeId ) );
+    }
+
+    public Optional<TrueDefect> getByCodeTd( final String codeTd ) {
+        return Optional.ofNullable( this.byCodeTd.get( codeTd ) );
+    }
+
+    /**
+     * Writes the true defects with the text of their EME to a CSV file at path.
+     */
+    public void writeCsv( final Emes emes, final Path path ) {
+        try {
+            Files.createDirectories( path.toAbsolutePath().getParent() );
+            try (CSVWriter allTrueDefects = new CSVWriter( Files.newBufferedWriter( path ) )) {
+                allTrueDefects.writeNext( new String[]{"about_em_eid", "eme_text", "code_td", "scenario", "defect_type",
+                        "description"} );
+                this.trueDefects.forEach( td -> allTrueDefects.writeNext( new String[]{td.getAboutEmEid().toString(),
+                        emes.get( td.getAboutEmEid() ).getEmeText(), td.getCodeTd(), td.getScenario().toString(),
+                        td.getDefectType().name(), td.getDescription()} ) );
+            }
+        } catch (final IOException e) {
+            throw new UncheckedIOException( e );
+        }
+    }
+
+    private static ImmutableMap<String, TrueDefect> byCodeTd( final ImmutableSet<TrueDefect> trueDefects ) {
+        final Map<String, TrueDefect> byCodeTd = Maps.newHashMap();
+        trueDefects.forEach( d -> byCodeTd.putIfAbsent( d.getCodeTd(), d ) );
+        return ImmutableMap.copyOf( byCodeTd );
+    }
+
+    private static ImmutableList<String[]> readAdditionalTrueDefects() {
+        try (Reader reader = Files.newBufferedReader( Paths.get( ADDITIONAL_TRUE_DEFECTS_IN_CSV ) ); CSVReader
+                additionalTdReader = new CSVReaderBuilder( reader ).withSkipLines( 1 ).build()) {
+            return ImmutableList.copyOf( additionalTdReader.readAll() );
+        } catch (final IOException e) {
+            throw new UncheckedIOException( e );
+        }
+    }
+
+    private static void addAdditionalTrueDefects( final Map<EmeId, Set<TrueDefect>> trueDefectsByEme,
+            final ImmutableMap<String, TrueDefect> byCodeTd, final String[] csvLine ) {
+        final AdditionalTrueDefectForEme additionalTrueDefectForEme = new AdditionalTrueDefectForEme(
+                csvLine[1], Stream.of( csvLine[3],
+                csvLine[5] ).filter( Objects::nonNull ).collect( ImmutableSet.toImmutableSet() ), csvLine
+                [7] );
+        final EmeId emeId = additionalTrueDefectForEme.getEmeId();
+        final Set<TrueDefect> trueDefectsOfEme = trueDefectsByEme.computeIfAbsent(
+                emeId, d -> Sets.newHashSet() );
+        additionalTrueDefectForEme.getSynonymousEmeIds().stream().flatMap( synonym -> trueDefectsByEme
+                .getOrDefault( synonym, Sets.newHashSet() ).stream() ).collect( ImmutableList.toImmutableList() )
+                .forEach( s -> trueDefectsOfEme.add( s.replaceEmeId( emeId ) ) );
+        Optional.ofNullable( additionalTrueDefectForEme.getManualMatchTrueDefectId() ).map( Strings::emptyToNull )
+                .ifPresent( manualTd -> {
+                    final TrueDefect trueDefect = Optional.ofNullable( byCodeTd.get( manualTd ) ).orElseThrow(
+                            () -> new NoSuchElementException( "Unknown true defect " + manualTd ) );
+                    trueDefectsOfEme.add( trueDefect.replaceEmeId( emeId ) );
+                } );
+    }
+
+    private static class AdditionalTrueDefectForEme {
+        private final EmeId emeId;
+
+        private final ImmutableSet<EmeId> synonymousEmeIds;
+
+        private final String manualMatchTrueDefectId;
+
+        public AdditionalTrueDefectForEme( final String emeId, final Set<String> synonymousEmeIds, final String
+                manualMatchTrueDefectId ) {
+            this.emeId = EmeId.of( emeId );
+            this.synonymousEmeIds = synonymousEmeIds.stream().map( EmeId::of ).collect(
+                    ImmutableSet.toImmutableSet() );
+            this.manualMatchTrueDefectId = manualMatchTrueDefectId;
+        }
+
+        public EmeId getEmeId() {
+            return this.emeId;
+        }
+
+        public ImmutableSet<EmeId> getSynonymousEmeIds() {
+            return this.synonymousEmeIds;
+        }
+
+        public String getManualMatchTrueDefectId() {
+            return this.manualMatchTrueDefectId;
+        }
+
+        @Override
+        public boolean equals( final Object o ) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            final AdditionalTrueDefectForEme that = (AdditionalTrueDefectForEme) o;
+            return Objects.equals( this.emeId, that.emeId ) &&
+                    Objects.equals( this.synonymousEmeIds, that.synonymousEmeIds ) &&
+                    Objects.equals( this.manualMatchTrueDefectId, that.manualMatchTrueDefectId );
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash( this.emeId, this.synonymousEmeIds, this.manualMatchTrueDefectId );
+        }
+
+        @Override
+        public String toString() {
+            return "AdditionalTrueDefectForEme{" +
+                    "emeId='" + this.emeId + '\'' +
+                    ", synonymousEmeIds=" + this.synonymousEmeIds +
+                    ", manualMatchTrueDefectId='" + this.manualMatchTrueDefectId + '\'' +
+                    '}';
+        }
+    }
+}
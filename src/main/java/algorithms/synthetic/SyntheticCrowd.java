@@ -0,0 +1,413 @@
+package algorithms.synthetic;
+
+import algorithms.truthinference.Answers;
+import algorithms.truthinference.ChoiceId;
+import algorithms.truthinference.ParticipantId;
+import algorithms.truthinference.QuestionId;
+import algorithms.vericom.model.DefectReport;
+import algorithms.vericom.model.DefectReports;
+import algorithms.vericom.model.DefectType;
+import algorithms.vericom.model.EmeAndScenarioId;
+import algorithms.vericom.model.EmeId;
+import algorithms.vericom.model.ScenarioId;
+import algorithms.vericom.model.TaskWorkerId;
+import com.google.common.collect.ImmutableSet;
+import com.opencsv.CSVWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Seeded generator of synthetic crowdsourcing workloads, e.g. for benchmarks and hardware sizing without a database.
+ *
+ * Questions are structured as EMEs times scenarios, i.e. question i is EME i / #scenarios in scenario i % #scenarios,
+ * and have a true choice drawn from the class priors. Every question is answered by a number of distinct workers drawn
+ * uniformly from the redundancy range. Honest workers answer according to their confusion matrix, i.e. row j is the
+ * distribution of the answer given true choice j, while spammers answer uniformly at random.
+ *
+ * The answers are generated one at a time and never stored, so they can be streamed to disk at any scale with
+ * {@link #writeCsv(Writer)} or collected into the in-memory model with {@link #toAnswers()} and {@link
+ * #toDefectReports()}. Generating twice yields the same answers.
+ *
+ * @author LinX
+ */
+public final class SyntheticCrowd {
+    private static final Logger LOG = LoggerFactory.getLogger( SyntheticCrowd.class );
+
+    private static final String[] CSV_HEADER = {"question", "worker", "answer"};
+
+    private final int nrQuestions;
+
+    private final int nrWorkers;
+
+    private final int nrChoices;
+
+    private final int nrScenarios;
+
+    private final int minRedundancy;
+
+    private final int maxRedundancy;
+
+    private final long seed;
+
+    //true choice of every question
+    private final int[] truths;
+
+    //cumulative confusion matrix of every worker, indexed by [(worker * #choices + true choice) * #choices + answer]
+    private final double[] cumulativeConfusionMatrices;
+
+    private final boolean[] spammers;
+
+    private SyntheticCrowd( final Builder builder ) {
+        this.nrQuestions = builder.nrQuestions;
+        this.nrWorkers = builder.nrWorkers;
+        this.nrChoices = builder.nrChoices;
+        this.nrScenarios = builder.nrScenarios;
+        this.minRedundancy = builder.minRedundancy;
+        this.maxRedundancy = builder.maxRedundancy;
+        this.seed = builder.seed;
+
+        final SplittableRandom random = new SplittableRandom( builder.seed );
+        final double[] cumulativeClassPriors = cumulative( builder.classPriors );
+        this.truths = new int[this.nrQuestions];
+        for (int question = 0; question < this.nrQuestions; question++) {
+            this.truths[question] = sample( cumulativeClassPriors, 0, this.nrChoices, random.nextDouble() );
+        }
+
+        this.spammers = new boolean[this.nrWorkers];
+        this.cumulativeConfusionMatrices = new double[this.nrWorkers * this.nrChoices * this.nrChoices];
+        for (int worker = 0; worker < this.nrWorkers; worker++) {
+            this.spammers[worker] = random.nextDouble() < builder.spammerFraction;
+            final double[][] confusionMatrix = this.spammers[worker] ? uniformConfusionMatrix( this.nrChoices ) :
+                    builder.confusionMatrix != null ? builder.confusionMatrix :
+                            symmetricConfusionMatrix( this.nrChoices, builder.minAccuracy +
+                                    random.nextDouble() * (builder.maxAccuracy - builder.minAccuracy) );
+            for (int j = 0; j < this.nrChoices; j++) {
+                System.arraycopy( cumulative( confusionMatrix[j] ), 0, this.cumulativeConfusionMatrices,
+                        (worker * this.nrChoices + j) * this.nrChoices, this.nrChoices );
+            }
+        }
+    }
+
+    public int getNrQuestions() {
+        return this.nrQuestions;
+    }
+
+    public int getNrWorkers() {
+        return this.nrWorkers;
+    }
+
+    public int getNrChoices() {
+        return this.nrChoices;
+    }
+
+    public int getTrueChoice( final int question ) {
+        return this.truths[question];
+    }
+
+    public boolean isSpammer( final int worker ) {
+        return this.spammers[worker];
+    }
+
+    /**
+     * Generates all answers, ordered by question.
+     *
+     * @return number of answers generated
+     */
+    public long generate( final AnswerSink sink ) {
+        final SplittableRandom random = new SplittableRandom( this.seed ).split();
+        final int[] workers = new int[this.nrWorkers];
+        for (int worker = 0; worker < this.nrWorkers; worker++) {
+            workers[worker] = worker;
+        }
+
+        long nrAnswers = 0;
+        for (int question = 0; question < this.nrQuestions; question++) {
+            final int truth = this.truths[question];
+            final int redundancy = this.minRedundancy == this.maxRedundancy ? this.minRedundancy :
+                    random.nextInt( this.minRedundancy, this.maxRedundancy + 1 );
+            for (int r = 0; r < redundancy; r++) {
+                //partial Fisher-Yates shuffle to draw distinct workers
+                final int swap = r + random.nextInt( this.nrWorkers - r );
+                final int worker = workers[swap];
+                workers[swap] = workers[r];
+                workers[r] = worker;
+
+                final int choice = sample( this.cumulativeConfusionMatrices,
+                        (worker * this.nrChoices + truth) * this.nrChoices, this.nrChoices, random.nextDouble() );
+                sink.accept( question, worker, choice );
+                nrAnswers++;
+            }
+        }
+        LOG.info( "Generated #{} answers for #{} questions and #{} workers.", nrAnswers, this.nrQuestions,
+                this.nrWorkers );
+        return nrAnswers;
+    }
+
+    /**
+     * @return answers with the EME and scenario as question id and the choice ordinal as choice id
+     */
+    public Answers toAnswers() {
+        final Answers.Builder answers = Answers.builder();
+        //answers are generated ordered by question, so the id is created once per question
+        final int[] lastQuestion = {-1};
+        final QuestionId[] questionId = {null};
+        generate( ( question, worker, choice ) -> {
+            if (question != lastQuestion[0]) {
+                lastQuestion[0] = question;
+                questionId[0] = QuestionId.create( getEmeAndScenarioId( question ).toString() );
+            }
+            answers.add( ParticipantId.create( worker ), questionId[0], ChoiceId.create( choice ) );
+        } );
+        return answers.build();
+    }
+
+    /**
+     * @return defect reports with the choice ordinal mapped to the defect type of the same ordinal
+     */
+    public DefectReports toDefectReports() {
+        final DefectType[] defectTypes = DefectType.values();
+        if (this.nrChoices > defectTypes.length) {
+            throw new IllegalStateException( "Defect reports support at most " + defectTypes.length +
+                    " choices, but crowd has " + this.nrChoices );
+        }
+        final ImmutableSet.Builder<DefectReport> defectReports = ImmutableSet.builder();
+        final int[] id = {0};
+        final int[] lastQuestion = {-1};
+        final EmeAndScenarioId[] emeAndScenarioId = {null};
+        generate( ( question, worker, choice ) -> {
+            if (question != lastQuestion[0]) {
+                lastQuestion[0] = question;
+                emeAndScenarioId[0] = getEmeAndScenarioId( question );
+            }
+            defectReports.add( DefectReport.builder( id[0]++ ).withWorkerId( TaskWorkerId.of( worker ) )
+                    .withEmeId( emeAndScenarioId[0].getEmeId() )
+                    .withScenarioId( emeAndScenarioId[0].getScenarioId() )
+                    .withDefectType( defectTypes[choice] ).build() );
+        } );
+        return new DefectReports( defectReports.build() );
+    }
+
+    /**
+     * Streams all answers as CSV with columns question, worker and answer, as the ordinals of the crowd.
+     *
+     * @return number of answers written
+     */
+    public long writeCsv( final Writer writer ) {
+        final CSVWriter csvWriter = new CSVWriter( writer );
+        csvWriter.writeNext( CSV_HEADER, false );
+        final String[] line = new String[CSV_HEADER.length];
+        final long nrAnswers = generate( ( question, worker, choice ) -> {
+            line[0] = String.valueOf( question );
+            line[1] = String.valueOf( worker );
+            line[2] = String.valueOf( choice );
+            csvWriter.writeNext( line, false );
+        } );
+        try {
+            csvWriter.flush();
+        } catch (final IOException e) {
+            throw new UncheckedIOException( e );
+        }
+        return nrAnswers;
+    }
+
+    public EmeAndScenarioId getEmeAndScenarioId( final int question ) {
+        return new EmeAndScenarioId( EmeId.of( "eme" + question / this.nrScenarios ),
+                ScenarioId.of( "scenario" + question % this.nrScenarios ) );
+    }
+
+    private static double[] cumulative( final double[] distribution ) {
+        final double[] cumulative = new double[distribution.length];
+        double sum = 0;
+        for (int i = 0; i < distribution.length; i++) {
+            sum += distribution[i];
+            cumulative[i] = sum;
+        }
+        for (int i = 0; i < distribution.length; i++) {
+            cumulative[i] /= sum;
+        }
+        return cumulative;
+    }
+
+    private static int sample( final double[] cumulative, final int offset, final int length, final double uniform ) {
+        for (int i = 0; i < length - 1; i++) {
+            if (uniform < cumulative[offset + i]) {
+                return i;
+            }
+        }
+        return length - 1;
+    }
+
+    private static double[][] uniformConfusionMatrix( final int nrChoices ) {
+        final double[][] confusionMatrix = new double[nrChoices][nrChoices];
+        for (final double[] row : confusionMatrix) {
+            Arrays.fill( row, 1.0 / nrChoices );
+        }
+        return confusionMatrix;
+    }
+
+    //answers the true choice with probability accuracy and each other choice with the same probability
+    private static double[][] symmetricConfusionMatrix( final int nrChoices, final double accuracy ) {
+        final double[][] confusionMatrix = new double[nrChoices][nrChoices];
+        for (int j = 0; j < nrChoices; j++) {
+            for (int l = 0; l < nrChoices; l++) {
+                confusionMatrix[j][l] = j == l ? accuracy : nrChoices == 1 ? 0 : (1 - accuracy) / (nrChoices - 1);
+            }
+        }
+        return confusionMatrix;
+    }
+
+    public static Builder builder( final int nrQuestions, final int nrWorkers, final int nrChoices ) {
+        return new Builder( nrQuestions, nrWorkers, nrChoices );
+    }
+
+    @FunctionalInterface
+    public interface AnswerSink {
+        void accept( int question, int worker, int choice );
+    }
+
+    public static final class Builder {
+        //tolerated deviation of the sum of a row of the confusion matrix from 1
+        private static final double MAX_ROW_SUM_ERROR = 1e-9;
+
+        private final int nrQuestions;
+
+        private final int nrWorkers;
+
+        private final int nrChoices;
+
+        private int nrScenarios = 1;
+
+        private int minRedundancy = 5;
+
+        private int maxRedundancy = 5;
+
+        private double[] classPriors;
+
+        private double[][] confusionMatrix;
+
+        private double minAccuracy = 0.7;
+
+        private double maxAccuracy = 0.7;
+
+        private double spammerFraction;
+
+        private long seed = 42;
+
+        private Builder( final int nrQuestions, final int nrWorkers, final int nrChoices ) {
+            if (nrQuestions < 0 || nrWorkers < 1 || nrChoices < 1) {
+                throw new IllegalArgumentException( "Invalid crowd of #" + nrQuestions + " questions, #" +
+                        nrWorkers + " workers and #" + nrChoices + " choices." );
+            }
+            this.nrQuestions = nrQuestions;
+            this.nrWorkers = nrWorkers;
+            this.nrChoices = nrChoices;
+            this.classPriors = new double[nrChoices];
+            Arrays.fill( this.classPriors, 1.0 / nrChoices );
+        }
+
+        /**
+         * Number of scenarios per EME, 1 by default.
+         */
+        public Builder withNrScenarios( final int nrScenarios ) {
+            if (nrScenarios < 1) {
+                throw new IllegalArgumentException( "At least one scenario is needed, but got " + nrScenarios );
+            }
+            this.nrScenarios = nrScenarios;
+            return this;
+        }
+
+        /**
+         * Number of workers per question, drawn uniformly from [min, max]. 5 by default.
+         */
+        public Builder withRedundancy( final int min, final int max ) {
+            if (min < 1 || max < min || max > this.nrWorkers) {
+                throw new IllegalArgumentException( "Invalid redundancy [" + min + ", " + max + "] for #" +
+                        this.nrWorkers + " workers." );
+            }
+            this.minRedundancy = min;
+            this.maxRedundancy = max;
+            return this;
+        }
+
+        /**
+         * Relative frequencies of the true choices, uniform by default. The priors are copied.
+         */
+        public Builder withClassPriors( final double... classPriors ) {
+            if (classPriors.length != this.nrChoices) {
+                throw new IllegalArgumentException( "Expected #" + this.nrChoices + " class priors, but got " +
+                        classPriors.length );
+            }
+            if (Arrays.stream( classPriors ).anyMatch( p -> !(p >= 0) ) || !(Arrays.stream( classPriors ).sum() > 0)) {
+                throw new IllegalArgumentException( "Class priors are no relative frequencies: " +
+                        Arrays.toString( classPriors ) );
+            }
+            this.classPriors = classPriors.clone();
+            return this;
+        }
+
+        /**
+         * Confusion matrix of all honest workers, row j being the relative frequencies of the answers given true
+         * choice j. Overrides the accuracy. The matrix is copied.
+         */
+        public Builder withConfusionMatrix( final double[][] confusionMatrix ) {
+            if (confusionMatrix.length != this.nrChoices || Arrays.stream( confusionMatrix ).anyMatch(
+                    row -> row.length != this.nrChoices )) {
+                throw new IllegalArgumentException( "Expected a " + this.nrChoices + "x" + this.nrChoices +
+                        " confusion matrix." );
+            }
+            for (int j = 0; j < this.nrChoices; j++) {
+                final double[] row = confusionMatrix[j];
+                if (Arrays.stream( row ).anyMatch( p -> !(p >= 0) ) ||
+                        Math.abs( Arrays.stream( row ).sum() - 1 ) > MAX_ROW_SUM_ERROR) {
+                    throw new IllegalArgumentException( "Row " + j + " of the confusion matrix is no distribution: " +
+                            Arrays.toString( row ) );
+                }
+            }
+            this.confusionMatrix = Arrays.stream( confusionMatrix ).map( double[]::clone ).toArray( double[][]::new );
+            return this;
+        }
+
+        /**
+         * Probability of honest workers answering the true choice, drawn uniformly from [min, max] per worker, with
+         * all wrong choices being equally likely. 0.7 by default.
+         */
+        public Builder withAccuracy( final double min, final double max ) {
+            if (min < 0 || max < min || max > 1) {
+                throw new IllegalArgumentException( "Invalid accuracy [" + min + ", " + max + "]" );
+            }
+            this.minAccuracy = min;
+            this.maxAccuracy = max;
+            return this;
+        }
+
+        /**
+         * Probability of a worker being a spammer answering uniformly at random, 0 by default.
+         */
+        public Builder withSpammerFraction( final double spammerFraction ) {
+            if (!(spammerFraction >= 0 && spammerFraction <= 1)) {
+                throw new IllegalArgumentException( "Invalid spammer fraction " + spammerFraction );
+            }
+            this.spammerFraction = spammerFraction;
+            return this;
+        }
+
+        public Builder withSeed( final long seed ) {
+            this.seed = seed;
+            return this;
+        }
+
+        public SyntheticCrowd build() {
+            if (this.maxRedundancy > this.nrWorkers) {
+                throw new IllegalArgumentException( "Redundancy " + this.maxRedundancy + " exceeds #" +
+                        this.nrWorkers + " workers." );
+            }
+            return new SyntheticCrowd( this );
+        }
+    }
+}
@@ -0,0 +1,362 @@
+package algorithms.truthinference;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compiled, immutable form of {@link Answers}. Questions, participants and choices are interned into dense ordinals
+ * (in the iteration order of {@link Answers}) and the answers are stored in CSR-style primitive arrays, indexed both
+ * by question and by participant.
+ *
+ * Additionally, all distinct (question, participant) pairs are stored as observations, sorted by question and then by
+ * participant, together with the number of answers for each choice. Algorithms should iterate over these instead of
+ * over all participant x question combinations, as most of them are empty.
+ *
+ * @author LinX
+ */
+public final class AnswerMatrix {
+    private final ImmutableList<QuestionId> questions;
+
+    private final ImmutableList<ParticipantId> participants;
+
+    private final ImmutableList<ChoiceId> choices;
+
+    private final ImmutableMap<QuestionId, Integer> questionOrdinals;
+
+    private final ImmutableMap<ParticipantId, Integer> participantOrdinals;
+
+    private final ImmutableMap<ChoiceId, Integer> choiceOrdinals;
+
+    //answers of question q are stored in [questionOffsets[q], questionOffsets[q + 1])
+    private final int[] questionOffsets;
+
+    private final int[] participantsByQuestion;
+
+    private final int[] choicesByQuestion;
+
+    //answers of participant p are stored in [participantOffsets[p], participantOffsets[p + 1])
+    private final int[] participantOffsets;
+
+    private final int[] questionsByParticipant;
+
+    private final int[] choicesByParticipant;
+
+    //observations of question q are stored in [observationOffsets[q], observationOffsets[q + 1])
+    private final int[] observationOffsets;
+
+    private final int[] observationQuestions;
+
+    private final int[] observationParticipants;
+
+    //number of answers of an observation for each choice, i.e. n_kil, stored at [observation * nrChoices + choice]
+    private final int[] observationCounts;
+
+    private final int[] observationSizes;
+
+    //observations of participant p are stored in [participantObservationOffsets[p], participantObservationOffsets[p+1])
+    private final int[] participantObservationOffsets;
+
+    private final int[] observationsByParticipant;
+
+    private AnswerMatrix( final List<QuestionId> questions, final List<ParticipantId> participants,
+            final List<ChoiceId> choices, final int[] questionColumn, final int[] participantColumn,
+            final int[] choiceColumn, final int nrAnswers ) {
+        this.questions = ImmutableList.copyOf( questions );
+        this.participants = ImmutableList.copyOf( participants );
+        this.choices = ImmutableList.copyOf( choices );
+        this.questionOrdinals = toOrdinals( this.questions );
+        this.participantOrdinals = toOrdinals( this.participants );
+        this.choiceOrdinals = toOrdinals( this.choices );
+
+        final int nrQuestions = this.questions.size();
+        final int nrParticipants = this.participants.size();
+        final int nrChoices = this.choices.size();
+
+        //stable counting sort by question
+        this.questionOffsets = offsets( questionColumn, nrAnswers, nrQuestions );
+        this.participantsByQuestion = new int[nrAnswers];
+        this.choicesByQuestion = new int[nrAnswers];
+        final int[] questionCursor = Arrays.copyOf( this.questionOffsets, nrQuestions );
+        for (int i = 0; i < nrAnswers; i++) {
+            final int target = questionCursor[questionColumn[i]]++;
+            this.participantsByQuestion[target] = participantColumn[i];
+            this.choicesByQuestion[target] = choiceColumn[i];
+        }
+
+        //stable counting sort by participant, keeps question order within a participant
+        final int[] sortedQuestionColumn = new int[nrAnswers];
+        for (int q = 0; q < nrQuestions; q++) {
+            Arrays.fill( sortedQuestionColumn, this.questionOffsets[q], this.questionOffsets[q + 1], q );
+        }
+        this.participantOffsets = offsets( this.participantsByQuestion, nrAnswers, nrParticipants );
+        this.questionsByParticipant = new int[nrAnswers];
+        this.choicesByParticipant = new int[nrAnswers];
+        final int[] participantCursor = Arrays.copyOf( this.participantOffsets, nrParticipants );
+        for (int i = 0; i < nrAnswers; i++) {
+            final int target = participantCursor[this.participantsByQuestion[i]]++;
+            this.questionsByParticipant[target] = sortedQuestionColumn[i];
+            this.choicesByParticipant[target] = this.choicesByQuestion[i];
+        }
+
+        //distinct (question, participant) pairs
+        final int[] lastQuestionOfParticipant = new int[nrParticipants];
+        Arrays.fill( lastQuestionOfParticipant, -1 );
+        this.observationOffsets = new int[nrQuestions + 1];
+        int nrObservations = 0;
+        for (int q = 0; q < nrQuestions; q++) {
+            this.observationOffsets[q] = nrObservations;
+            for (int i = this.questionOffsets[q]; i < this.questionOffsets[q + 1]; i++) {
+                final int participant = this.participantsByQuestion[i];
+                if (lastQuestionOfParticipant[participant] != q) {
+                    lastQuestionOfParticipant[participant] = q;
+                    nrObservations++;
+                }
+            }
+        }
+        this.observationOffsets[nrQuestions] = nrObservations;
+
+        this.observationQuestions = new int[nrObservations];
+        this.observationParticipants = new int[nrObservations];
+        this.observationCounts = new int[nrObservations * nrChoices];
+        this.observationSizes = new int[nrObservations];
+        final int[] observationOfParticipant = new int[nrParticipants];
+        Arrays.fill( lastQuestionOfParticipant, -1 );
+        for (int q = 0; q < nrQuestions; q++) {
+            int observation = this.observationOffsets[q];
+            for (int i = this.questionOffsets[q]; i < this.questionOffsets[q + 1]; i++) {
+                final int participant = this.participantsByQuestion[i];
+                if (lastQuestionOfParticipant[participant] != q) {
+                    lastQuestionOfParticipant[participant] = q;
+                    this.observationParticipants[observation++] = participant;
+                }
+            }
+            Arrays.sort( this.observationParticipants, this.observationOffsets[q], this.observationOffsets[q + 1] );
+            for (int o = this.observationOffsets[q]; o < this.observationOffsets[q + 1]; o++) {
+                this.observationQuestions[o] = q;
+                observationOfParticipant[this.observationParticipants[o]] = o;
+            }
+            for (int i = this.questionOffsets[q]; i < this.questionOffsets[q + 1]; i++) {
+                final int o = observationOfParticipant[this.participantsByQuestion[i]];
+                this.observationCounts[o * nrChoices + this.choicesByQuestion[i]]++;
+                this.observationSizes[o]++;
+            }
+        }
+
+        this.participantObservationOffsets = offsets( this.observationParticipants, nrObservations, nrParticipants );
+        this.observationsByParticipant = new int[nrObservations];
+        final int[] participantObservationCursor = Arrays.copyOf( this.participantObservationOffsets,
+                nrParticipants );
+        for (int o = 0; o < nrObservations; o++) {
+            this.observationsByParticipant[participantObservationCursor[this.observationParticipants[o]]++] = o;
+        }
+    }
+
+    public int getNrQuestions() {
+        return this.questions.size();
+    }
+
+    public int getNrParticipants() {
+        return this.participants.size();
+    }
+
+    public int getNrChoices() {
+        return this.choices.size();
+    }
+
+    public int getNrAnswers() {
+        return this.participantsByQuestion.length;
+    }
+
+    public int getNrObservations() {
+        return this.observationParticipants.length;
+    }
+
+    public ImmutableList<QuestionId> getQuestions() {
+        return this.questions;
+    }
+
+    public ImmutableList<ParticipantId> getParticipants() {
+        return this.participants;
+    }
+
+    public ImmutableList<ChoiceId> getChoices() {
+        return this.choices;
+    }
+
+    public QuestionId getQuestion( final int question ) {
+        return this.questions.get( question );
+    }
+
+    public ParticipantId getParticipant( final int participant ) {
+        return this.participants.get( participant );
+    }
+
+    public ChoiceId getChoice( final int choice ) {
+        return this.choices.get( choice );
+    }
+
+    /**
+     * @return ordinal of question or -1, if question is not known
+     */
+    public int getOrdinal( final QuestionId question ) {
+        return this.questionOrdinals.getOrDefault( question, -1 );
+    }
+
+    /**
+     * @return ordinal of participant or -1, if participant is not known
+     */
+    public int getOrdinal( final ParticipantId participant ) {
+        return this.participantOrdinals.getOrDefault( participant, -1 );
+    }
+
+    /**
+     * @return ordinal of choice or -1, if choice is not known
+     */
+    public int getOrdinal( final ChoiceId choice ) {
+        return this.choiceOrdinals.getOrDefault( choice, -1 );
+    }
+
+    //answers indexed by question
+
+    public int getQuestionAnswersStart( final int question ) {
+        return this.questionOffsets[question];
+    }
+
+    public int getQuestionAnswersEnd( final int question ) {
+        return this.questionOffsets[question + 1];
+    }
+
+    public int getParticipantOfQuestionAnswer( final int answer ) {
+        return this.participantsByQuestion[answer];
+    }
+
+    public int getChoiceOfQuestionAnswer( final int answer ) {
+        return this.choicesByQuestion[answer];
+    }
+
+    //answers indexed by participant
+
+    public int getParticipantAnswersStart( final int participant ) {
+        return this.participantOffsets[participant];
+    }
+
+    public int getParticipantAnswersEnd( final int participant ) {
+        return this.participantOffsets[participant + 1];
+    }
+
+    public int getQuestionOfParticipantAnswer( final int answer ) {
+        return this.questionsByParticipant[answer];
+    }
+
+    public int getChoiceOfParticipantAnswer( final int answer ) {
+        return this.choicesByParticipant[answer];
+    }
+
+    //observations, i.e. distinct (question, participant) pairs
+
+    public int getQuestionObservationsStart( final int question ) {
+        return this.observationOffsets[question];
+    }
+
+    public int getQuestionObservationsEnd( final int question ) {
+        return this.observationOffsets[question + 1];
+    }
+
+    public int getParticipantObservationsStart( final int participant ) {
+        return this.participantObservationOffsets[participant];
+    }
+
+    public int getParticipantObservationsEnd( final int participant ) {
+        return this.participantObservationOffsets[participant + 1];
+    }
+
+    /**
+     * @param index index in [getParticipantObservationsStart(p), getParticipantObservationsEnd(p))
+     * @return observation of participant at index
+     */
+    public int getParticipantObservation( final int index ) {
+        return this.observationsByParticipant[index];
+    }
+
+    public int getObservationQuestion( final int observation ) {
+        return this.observationQuestions[observation];
+    }
+
+    public int getObservationParticipant( final int observation ) {
+        return this.observationParticipants[observation];
+    }
+
+    /**
+     * @return number of answers n_kil of participant k for question i containing choice l
+     */
+    public int getCount( final int observation, final int choice ) {
+        return this.observationCounts[observation * this.choices.size() + choice];
+    }
+
+    /**
+     * @return number of answers of participant for question of observation over all choices
+     */
+    public int getObservationSize( final int observation ) {
+        return this.observationSizes[observation];
+    }
+
+    public int getQuestionSize( final int question ) {
+        return this.questionOffsets[question + 1] - this.questionOffsets[question];
+    }
+
+    public int getParticipantSize( final int participant ) {
+        return this.participantOffsets[participant + 1] - this.participantOffsets[participant];
+    }
+
+    @Override
+    public String toString() {
+        return "AnswerMatrix{" +
+                "questions=" + getNrQuestions() +
+                ", participants=" + getNrParticipants() +
+                ", choices=" + getNrChoices() +
+                ", answers=" + getNrAnswers() +
+                ", observations=" + getNrObservations() +
+                '}';
+    }
+
+    /**
+     * Compiles the matrix anew, instead of using the one already compiled by {@link Answers#toAnswerMatrix()}.
+     */
+    public static AnswerMatrix compile( final Answers answers ) {
+        return answers.compile();
+    }
+
+    /**
+     * @param questionColumn question ordinal of each answer, same for the participant and choice column
+     */
+    static AnswerMatrix compile( final List<QuestionId> questions, final List<ParticipantId> participants,
+            final List<ChoiceId> choices, final int[] questionColumn, final int[] participantColumn,
+            final int[] choiceColumn ) {
+        return new AnswerMatrix( questions, participants, choices, questionColumn, participantColumn, choiceColumn,
+                questionColumn.length );
+    }
+
+    private static <T> ImmutableMap<T, Integer> toOrdinals( final List<T> ids ) {
+        final ImmutableMap.Builder<T, Integer> ordinals = ImmutableMap.builderWithExpectedSize( ids.size() );
+        for (int i = 0; i < ids.size(); i++) {
+            ordinals.put( ids.get( i ), i );
+        }
+        return ordinals.build();
+    }
+
+    private static int[] offsets( final int[] column, final int size, final int nrKeys ) {
+        final int[] offsets = new int[nrKeys + 1];
+        for (int i = 0; i < size; i++) {
+            Preconditions.checkElementIndex( column[i], nrKeys );
+            offsets[column[i] + 1]++;
+        }
+        for (int k = 0; k < nrKeys; k++) {
+            offsets[k + 1] += offsets[k];
+        }
+        return offsets;
+    }
+}
@@ -1,92 +1,376 @@
 package algorithms.truthinference;
 
 import algorithms.vericom.model.DefectReport;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
 import com.google.common.collect.*;
+import com.opencsv.CSVReader;
+import com.opencsv.CSVReaderBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
 /**
+ * Answers of participants to questions. Internally, questions, participants and choices are interned into ordinals in
+ * the order of their first occurrence and each answer is stored as three primitive columns, from which the
+ * {@link AnswerMatrix} is compiled on construction. The {@link Answer} based views are only materialized on first
+ * access of any getAnswers method.
+ *
  * @author LinX
  */
 public final class Answers {
     private static final Logger LOG = LoggerFactory.getLogger( Answers.class );
 
-    private final ImmutableMap<QuestionId, ImmutableMultiset<Answer>> byQuestions;
+    private final ImmutableSet<QuestionId> questions;
 
-    private final ImmutableMap<ParticipantId, ImmutableMultiset<Answer>> byParticipants;
+    private final ImmutableSet<ParticipantId> participants;
 
-    private final ImmutableMap<ChoiceId, ImmutableMultiset<Answer>> byChoices;
+    private final ImmutableSet<ChoiceId> choices;
 
-    private final ImmutableMap<ParticipantId, ImmutableMap<QuestionId, ImmutableMultiset<Answer>>>
-            byParticipantsForQuestion;
+    //ordinals of answer i in input order
+    private final int[] questionColumn;
+
+    private final int[] participantColumn;
+
+    private final int[] choiceColumn;
+
+    private final AnswerMatrix answerMatrix;
+
+    private final Supplier<Views> views = Suppliers.memoize( () -> new Views( this ) );
 
     public Answers( final List<Answer> answers ) {
-        final Map<QuestionId, List<Answer>> byQuestions = Maps.newLinkedHashMap();
-        final Map<ParticipantId, List<Answer>> byParticipants = Maps.newLinkedHashMap();
-        final Map<ChoiceId, List<Answer>> byChoices = Maps.newLinkedHashMap();
-        final Map<ParticipantId, Map<QuestionId, List<Answer>>> byParticipantForQuestion = Maps.newLinkedHashMap();
-
-        answers.forEach( answer -> {
-            byQuestions.computeIfAbsent( answer.getQuestionId(), i -> Lists.newArrayList() ).add( answer );
-            byParticipants.computeIfAbsent( answer.getParticipantId(), i -> Lists.newArrayList() ).add( answer );
-            byChoices.computeIfAbsent( answer.getChoice(), id -> Lists.newArrayList() ).add( answer );
-            byParticipantForQuestion.computeIfAbsent( answer.getParticipantId(), i -> Maps.newLinkedHashMap() )
-                    .computeIfAbsent( answer.getQuestionId(), k -> Lists.newArrayList() ).add(
-                    answer );
-        } );
-
-        this.byQuestions = byQuestions.entrySet().stream().collect(
-                ImmutableMap.toImmutableMap( Map.Entry::getKey, e -> ImmutableMultiset.copyOf( e.getValue() ) ) );
-        this.byParticipants = byParticipants.entrySet().stream().collect(
-                ImmutableMap.toImmutableMap( Map.Entry::getKey, e -> ImmutableMultiset.copyOf( e.getValue() ) ) );
-        this.byChoices = byChoices.entrySet().stream().collect(
-                ImmutableMap.toImmutableMap( Map.Entry::getKey, e -> ImmutableMultiset.copyOf( e.getValue() ) ) );
-        this.byParticipantsForQuestion = byParticipantForQuestion.entrySet().stream().collect(
-                ImmutableMap.toImmutableMap( Map.Entry::getKey,
-                        e -> e.getValue().entrySet().stream().collect( ImmutableMap
-                                .toImmutableMap( Map.Entry::getKey,
-                                        e2 -> ImmutableMultiset.copyOf( e2.getValue() ) ) ) ) );
-        LOG.info( "Questions #{}, participants #{}, choices #{}", this.byQuestions.size(), this.byParticipants.size(),
-                this.byChoices.size() );
+        this( builder().withExpectedSize( answers.size() ).addAll( answers ) );
+    }
+
+    private Answers( final Builder builder ) {
+        this.questions = ImmutableSet.copyOf( builder.questions.ids );
+        this.participants = ImmutableSet.copyOf( builder.participants.ids );
+        this.choices = ImmutableSet.copyOf( builder.choices.ids );
+        this.questionColumn = Arrays.copyOf( builder.questionColumn, builder.nrAnswers );
+        this.participantColumn = Arrays.copyOf( builder.participantColumn, builder.nrAnswers );
+        this.choiceColumn = Arrays.copyOf( builder.choiceColumn, builder.nrAnswers );
+        this.answerMatrix = compile();
+        LOG.info( "Questions #{}, participants #{}, choices #{}", this.questions.size(), this.participants.size(),
+                this.choices.size() );
     }
 
     public ImmutableMultiset<Answer> getAnswers( final QuestionId questionId ) {
-        return this.byQuestions.getOrDefault( questionId, ImmutableMultiset.of() );
+        return this.views.get().byQuestions.getOrDefault( questionId, ImmutableMultiset.of() );
     }
 
     public ImmutableMultiset<Answer> getAnswers( final ParticipantId participantId ) {
-        return this.byParticipants.getOrDefault( participantId, ImmutableMultiset.of() );
+        return this.views.get().byParticipants.getOrDefault( participantId, ImmutableMultiset.of() );
     }
 
     public ImmutableMultiset<Answer> getAnswers( final ChoiceId choiceId ) {
-        return this.byChoices.getOrDefault( choiceId, ImmutableMultiset.of() );
+        return this.views.get().byChoices.getOrDefault( choiceId, ImmutableMultiset.of() );
     }
 
     public ImmutableMultiset<Answer> getAnswers( final ParticipantId participant, final QuestionId question ) {
-        return this.byParticipantsForQuestion.getOrDefault( participant, ImmutableMap.of() ).getOrDefault( question,
-                ImmutableMultiset.of() );
+        return this.views.get().byParticipantsForQuestion.getOrDefault( participant, ImmutableMap.of() )
+                .getOrDefault( question, ImmutableMultiset.of() );
     }
 
     public ImmutableSet<QuestionId> getQuestions() {
-        return this.byQuestions.keySet();
+        return this.questions;
     }
 
     public ImmutableSet<ParticipantId> getParticipants() {
-        return this.byParticipants.keySet();
+        return this.participants;
     }
 
     public ImmutableSet<ChoiceId> getChoices() {
-        return this.byChoices.keySet();
+        return this.choices;
+    }
+
+    public int getNrAnswers() {
+        return this.questionColumn.length;
+    }
+
+    /**
+     * @return dense integer-indexed form of these answers
+     */
+    public AnswerMatrix toAnswerMatrix() {
+        return this.answerMatrix;
+    }
+
+    AnswerMatrix compile() {
+        return AnswerMatrix.compile( this.questions.asList(), this.participants.asList(), this.choices.asList(),
+                this.questionColumn, this.participantColumn, this.choiceColumn );
+    }
+
+    public static Builder builder() {
+        return new Builder();
     }
 
-    public static Answers fromDefectReports( final ImmutableSet<DefectReport> defectReports ) {
-        return new Answers( ImmutableList.copyOf( defectReports.stream().map( report -> Answer
-                .create( ParticipantId.create( report.getWorkerId().toInt() ),
-                        QuestionId.create( report.getEmeAndScenarioId().toString() ),
-                        ChoiceId.create( report.getDefectType().toString() ) ) )
-                .collect( ImmutableSet.toImmutableSet() ) ) );
+    /**
+     * @see DefectReportKeys#fromDefectReports(Iterable) to map the results back to the defect reports
+     */
+    public static Answers fromDefectReports( final Iterable<DefectReport> defectReports ) {
+        return DefectReportKeys.fromDefectReports( defectReports ).getAnswers();
+    }
+
+    /**
+     * Reads answers line by line from a CSV with the header question,worker,answer, as used by the data sets of
+     * the truth inference benchmark.
+     *
+     * @throws IllegalArgumentException if a line has less than three columns
+     */
+    public static Answers fromCsv( final Reader reader ) throws IOException {
+        final Builder answers = builder();
+        try (CSVReader csvReader = new CSVReaderBuilder( reader ).withSkipLines( 1 ).build()) {
+            String[] line;
+            while ((line = csvReader.readNext()) != null) {
+                if (line.length < 3) {
+                    throw new IllegalArgumentException( "Line " + csvReader.getLinesRead() + " has " + line.length +
+                            " columns, expected question,worker,answer" );
+                }
+                answers.add( ParticipantId.create( line[1] ), QuestionId.create( line[0] ),
+                        ChoiceId.create( line[2] ) );
+            }
+        }
+        return answers.build();
+    }
+
+    /**
+     * Collects answers one at a time, without keeping the {@link Answer} instances. Ids are interned on the fly, so
+     * equal ids added several times are only retained once.
+     */
+    public static final class Builder {
+        private static final int DEFAULT_EXPECTED_SIZE = 16;
+
+        private final Ordinals<QuestionId> questions = new Ordinals<>();
+
+        private final Ordinals<ParticipantId> participants = new Ordinals<>();
+
+        private final Ordinals<ChoiceId> choices = new Ordinals<>();
+
+        private int[] questionColumn = new int[DEFAULT_EXPECTED_SIZE];
+
+        private int[] participantColumn = new int[DEFAULT_EXPECTED_SIZE];
+
+        private int[] choiceColumn = new int[DEFAULT_EXPECTED_SIZE];
+
+        private int nrAnswers;
+
+        private boolean distinctAnswers;
+
+        private Builder() {
+        }
+
+        public Builder withExpectedSize( final int nrAnswers ) {
+            Preconditions.checkArgument( nrAnswers >= 0, "Expected size must not be negative, but was %s.",
+                    nrAnswers );
+            if (nrAnswers > this.questionColumn.length) {
+                resize( nrAnswers );
+            }
+            return this;
+        }
+
+        /**
+         * Answers equal to an already added answer are dropped, keeping the first one.
+         */
+        public Builder withDistinctAnswers() {
+            this.distinctAnswers = true;
+            return this;
+        }
+
+        public Builder add( final Answer answer ) {
+            return add( answer.getParticipantId(), answer.getQuestionId(), answer.getChoice() );
+        }
+
+        public Builder add( final ParticipantId participant, final QuestionId question, final ChoiceId choice ) {
+            if (this.nrAnswers == this.questionColumn.length) {
+                resize( this.nrAnswers + (this.nrAnswers >> 1) + 1 );
+            }
+            this.questionColumn[this.nrAnswers] = this.questions.intern( question );
+            this.participantColumn[this.nrAnswers] = this.participants.intern( participant );
+            this.choiceColumn[this.nrAnswers] = this.choices.intern( choice );
+            this.nrAnswers++;
+            return this;
+        }
+
+        public Builder addAll( final Iterator<Answer> answers ) {
+            answers.forEachRemaining( this::add );
+            return this;
+        }
+
+        public Builder addAll( final Iterable<Answer> answers ) {
+            return addAll( answers.iterator() );
+        }
+
+        public Builder addAll( final Stream<Answer> answers ) {
+            answers.forEachOrdered( this::add );
+            return this;
+        }
+
+        public Answers build() {
+            if (this.distinctAnswers) {
+                removeDuplicates();
+            }
+            return new Answers( this );
+        }
+
+        private void resize( final int capacity ) {
+            this.questionColumn = Arrays.copyOf( this.questionColumn, capacity );
+            this.participantColumn = Arrays.copyOf( this.participantColumn, capacity );
+            this.choiceColumn = Arrays.copyOf( this.choiceColumn, capacity );
+        }
+
+        private void removeDuplicates() {
+            //answers grouped by question, in input order within a question
+            final int nrQuestions = this.questions.ids.size();
+            final int[] offsets = new int[nrQuestions + 1];
+            for (int i = 0; i < this.nrAnswers; i++) {
+                offsets[this.questionColumn[i] + 1]++;
+            }
+            for (int q = 0; q < nrQuestions; q++) {
+                offsets[q + 1] += offsets[q];
+            }
+            final int[] byQuestion = new int[this.nrAnswers];
+            final int[] cursor = Arrays.copyOf( offsets, nrQuestions );
+            for (int i = 0; i < this.nrAnswers; i++) {
+                byQuestion[cursor[this.questionColumn[i]]++] = i;
+            }
+
+            //open addressing set of participant and choice per question, at most half full. A slot holds a key of
+            //the current question only if it is stamped with the question, so the set is never cleared
+            int maxNrAnswersPerQuestion = 0;
+            for (int q = 0; q < nrQuestions; q++) {
+                maxNrAnswersPerQuestion = Math.max( maxNrAnswersPerQuestion, offsets[q + 1] - offsets[q] );
+            }
+            final int capacity = Integer.highestOneBit( Math.max( 1, maxNrAnswersPerQuestion ) ) << 2;
+            final int mask = capacity - 1;
+            final long[] keys = new long[capacity];
+            final int[] stamps = new int[capacity];
+
+            final BitSet duplicates = new BitSet( this.nrAnswers );
+            for (int q = 0; q < nrQuestions; q++) {
+                final int stamp = q + 1;
+                for (int a = offsets[q]; a < offsets[q + 1]; a++) {
+                    final int i = byQuestion[a];
+                    final long key = (long) this.participantColumn[i] << 32 | this.choiceColumn[i];
+                    int slot = (int) (key * 0x9E3779B97F4A7C15L >>> 32) & mask;
+                    while (stamps[slot] == stamp && keys[slot] != key) {
+                        slot = (slot + 1) & mask;
+                    }
+                    if (stamps[slot] == stamp) {
+                        duplicates.set( i );
+                    }
+                    else {
+                        stamps[slot] = stamp;
+                        keys[slot] = key;
+                    }
+                }
+            }
+
+            int target = 0;
+            for (int i = 0; i < this.nrAnswers; i++) {
+                if (!duplicates.get( i )) {
+                    this.questionColumn[target] = this.questionColumn[i];
+                    this.participantColumn[target] = this.participantColumn[i];
+                    this.choiceColumn[target] = this.choiceColumn[i];
+                    target++;
+                }
+            }
+            this.nrAnswers = target;
+        }
+    }
+
+    private static final class Ordinals<T> {
+        private final Map<T, Integer> ordinals = Maps.newHashMap();
+
+        private final List<T> ids = Lists.newArrayList();
+
+        private int intern( final T id ) {
+            final Integer ordinal = this.ordinals.get( id );
+            if (ordinal != null) {
+                return ordinal;
+            }
+            this.ordinals.put( id, this.ids.size() );
+            this.ids.add( id );
+            return this.ids.size() - 1;
+        }
+    }
+
+    /**
+     * {@link Answer} based indexes, in input order of the answers.
+     */
+    private static final class Views {
+        private final ImmutableMap<QuestionId, ImmutableMultiset<Answer>> byQuestions;
+
+        private final ImmutableMap<ParticipantId, ImmutableMultiset<Answer>> byParticipants;
+
+        private final ImmutableMap<ChoiceId, ImmutableMultiset<Answer>> byChoices;
+
+        private final ImmutableMap<ParticipantId, ImmutableMap<QuestionId, ImmutableMultiset<Answer>>>
+                byParticipantsForQuestion;
+
+        private Views( final Answers answers ) {
+            final ImmutableList<QuestionId> questions = answers.questions.asList();
+            final ImmutableList<ParticipantId> participants = answers.participants.asList();
+            final ImmutableList<ChoiceId> choices = answers.choices.asList();
+
+            final List<List<Answer>> byQuestions = newLists( questions.size() );
+            final List<List<Answer>> byParticipants = newLists( participants.size() );
+            final List<List<Answer>> byChoices = newLists( choices.size() );
+            final List<Map<QuestionId, List<Answer>>> byParticipantForQuestion = Lists.newArrayListWithCapacity(
+                    participants.size() );
+            for (int p = 0; p < participants.size(); p++) {
+                byParticipantForQuestion.add( Maps.newLinkedHashMap() );
+            }
+
+            for (int i = 0; i < answers.getNrAnswers(); i++) {
+                final int question = answers.questionColumn[i];
+                final int participant = answers.participantColumn[i];
+                final int choice = answers.choiceColumn[i];
+                final Answer answer = Answer.create( participants.get( participant ), questions.get( question ),
+                        choices.get( choice ) );
+                byQuestions.get( question ).add( answer );
+                byParticipants.get( participant ).add( answer );
+                byChoices.get( choice ).add( answer );
+                byParticipantForQuestion.get( participant ).computeIfAbsent( questions.get( question ),
+                        k -> Lists.newArrayList() ).add( answer );
+            }
+
+            this.byQuestions = toMultisets( questions, byQuestions );
+            this.byParticipants = toMultisets( participants, byParticipants );
+            this.byChoices = toMultisets( choices, byChoices );
+            final ImmutableMap.Builder<ParticipantId, ImmutableMap<QuestionId, ImmutableMultiset<Answer>>>
+                    byParticipantsForQuestion = ImmutableMap.builderWithExpectedSize( participants.size() );
+            for (int p = 0; p < participants.size(); p++) {
+                byParticipantsForQuestion.put( participants.get( p ),
+                        byParticipantForQuestion.get( p ).entrySet().stream().collect( ImmutableMap
+                                .toImmutableMap( Map.Entry::getKey, e -> ImmutableMultiset.copyOf( e.getValue() ) ) ) );
+            }
+            this.byParticipantsForQuestion = byParticipantsForQuestion.build();
+        }
+
+        private static List<List<Answer>> newLists( final int size ) {
+            final List<List<Answer>> lists = Lists.newArrayListWithCapacity( size );
+            for (int i = 0; i < size; i++) {
+                lists.add( Lists.newArrayList() );
+            }
+            return lists;
+        }
+
+        private static <T> ImmutableMap<T, ImmutableMultiset<Answer>> toMultisets( final List<T> ids,
+                final List<List<Answer>> answers ) {
+            final ImmutableMap.Builder<T, ImmutableMultiset<Answer>> multisets = ImmutableMap
+                    .builderWithExpectedSize( ids.size() );
+            for (int i = 0; i < ids.size(); i++) {
+                multisets.put( ids.get( i ), ImmutableMultiset.copyOf( answers.get( i ) ) );
+            }
+            return multisets.build();
+        }
     }
 }
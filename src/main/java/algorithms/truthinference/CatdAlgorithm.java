@@ -1,16 +1,12 @@
 package algorithms.truthinference;
 
 import com.google.common.collect.ImmutableMap;
-import com.google.common.collect.ImmutableMultiset;
 import com.google.common.collect.Maps;
 import org.apache.commons.math3.distribution.ChiSquaredDistribution;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Comparator;
 import java.util.Map;
-import java.util.Optional;
-import java.util.stream.Collectors;
 
 /**
  * Implements algorithm for estimating truths from:
@@ -26,90 +22,121 @@ public class CatdAlgorithm {
 
     private final Answers answers;
 
-    //maximum of iterations to perform
-    private static final int MAXIMUM_ITERATIONS = 100;
+    private final Parallelism parallelism;
 
-    //threshold of source weight difference under which the algorithm can be viewed as converged
-    private static final double CONVERGENCE_THRESHOLD = 0.00001;
+    private final ConvergencePolicy convergencePolicy;
+
+    //stops once the source weights have converged
+    private static final ConvergencePolicy DEFAULT_CONVERGENCE_POLICY = ConvergencePolicy.absoluteDelta( 0.00001,
+            100 );
 
     //question=entity, participant=source, choice=information
     public CatdAlgorithm( final Answers answers ) {
+        this( answers, Parallelism.sequential() );
+    }
+
+    public CatdAlgorithm( final Answers answers, final Parallelism parallelism ) {
+        this( answers, parallelism, DEFAULT_CONVERGENCE_POLICY );
+    }
+
+    public CatdAlgorithm( final Answers answers, final Parallelism parallelism,
+            final ConvergencePolicy convergencePolicy ) {
         this.answers = answers;
+        this.parallelism = parallelism;
+        this.convergencePolicy = convergencePolicy;
     }
 
     public Output run( final double alpha ) {
-        ImmutableMap<QuestionId, ChoiceId> estimatedTruths = estimateInitialEntityTruths();
-        Output output = null;
-        int iteration = 0;
+        final AnswerMatrix matrix = this.answers.toAnswerMatrix();
+        final double[] chiSquaredQuantiles = calculateChiSquaredQuantiles( matrix, alpha );
+        int[] estimatedTruths = estimateInitialEntityTruths( matrix );
+        double[] previousSourceWeights = null;
+        final ConvergencePolicy.Tracker tracker = this.convergencePolicy.track();
 
         while (true) {
-            iteration++;
-            LOG.info( "Starting iteration " + iteration );
-            final ImmutableMap<ParticipantId, Double> sourceWeights = estimateSourceWeights( estimatedTruths, alpha );
-            estimatedTruths = estimateEntityTruths( sourceWeights );
-
-            final Output newOutput = new Output( estimatedTruths, sourceWeights );
-            if (output != null && (MAXIMUM_ITERATIONS < iteration || output.hasConverged( newOutput ))) {
-                return newOutput;
+            LOG.info( "Starting iteration " + (tracker.getIteration() + 1) );
+            final double[] sourceWeights = estimateSourceWeights( matrix, estimatedTruths, chiSquaredQuantiles );
+            estimatedTruths = estimateEntityTruths( matrix, sourceWeights );
+
+            if (tracker.iterationFinished( previousSourceWeights == null ? ConvergencePolicy.Delta.NONE :
+                    ConvergencePolicy.Delta.between( previousSourceWeights, sourceWeights ), Double.NaN )) {
+                return toOutput( matrix, estimatedTruths, sourceWeights, tracker.getTrace() );
             }
-            output = newOutput;
+            previousSourceWeights = sourceWeights;
         }
     }
 
     /**
      * Init the initial truth x^*(0)_n with MV algorithm.
      */
-    private ImmutableMap<QuestionId, ChoiceId> estimateInitialEntityTruths() {
-        return Maps.toMap( this.answers.getQuestions(), entity -> {
-            final ImmutableMultiset<Answer> answers = this.answers.getAnswers( entity );
-            final Map<ChoiceId, Long> nrAnswersPerChoice = answers.stream().collect(
-                    Collectors.groupingBy( Answer::getChoice, Collectors.counting() ) );
-            return nrAnswersPerChoice.entrySet().stream().max(
-                    Comparator.comparingLong( Map.Entry::getValue ) ).get().getKey();
-        } );
+    private int[] estimateInitialEntityTruths( final AnswerMatrix matrix ) {
+        return WeightedVote.argmax( matrix, null, this.parallelism );
+    }
+
+    /**
+     * The numerator of the source weights, i.e. the alpha/2 quantile of the chi-squared distribution with the number of
+     * claims of the source as degrees of freedom. Does not depend on the truths, so it is calculated once per run and
+     * number of claims.
+     */
+    private static double[] calculateChiSquaredQuantiles( final AnswerMatrix matrix, final double alpha ) {
+        final Map<Integer, Double> quantilesPerNrClaims = Maps.newHashMap();
+        final double[] quantiles = new double[matrix.getNrParticipants()];
+        for (int source = 0; source < matrix.getNrParticipants(); source++) {
+            quantiles[source] = quantilesPerNrClaims.computeIfAbsent( matrix.getParticipantSize( source ),
+                    nrClaims -> new ChiSquaredDistribution( nrClaims ).inverseCumulativeProbability( alpha / 2 ) );
+        }
+        return quantiles;
     }
 
     /**
      * Estimate source weights (source reliability degree) w_s.
      * See equation 7
      */
-    private ImmutableMap<ParticipantId, Double> estimateSourceWeights(
-            final ImmutableMap<QuestionId, ChoiceId> currentTruths, final double alpha ) {
-        final ImmutableMap<ParticipantId, Double> initialSourceWeightEstimation = Maps.toMap(
-                this.answers.getParticipants(), source -> {
-                    final ImmutableMultiset<Answer> claimsFromSource = this.answers.getAnswers( source );
-                    final double numerator = new ChiSquaredDistribution( claimsFromSource.size() )
-                            .inverseCumulativeProbability( alpha / 2 );
-
-                    final long diffs = claimsFromSource.stream().filter( claim -> !currentTruths.get(
-                            claim.getQuestionId() ).equals( claim.getChoice() ) ).count();
-
-                    return numerator / ((double) diffs + 0.000000001);
-                } );
-
-        final double weightSum = initialSourceWeightEstimation.values().stream().mapToDouble( e -> e ).sum();
+    private double[] estimateSourceWeights( final AnswerMatrix matrix, final int[] currentTruths,
+            final double[] chiSquaredQuantiles ) {
+        final double[] sourceWeights = new double[matrix.getNrParticipants()];
+        final double weightSum = this.parallelism.sum( matrix.getNrParticipants(), ( from, to ) -> {
+            double sum = 0;
+            for (int source = from; source < to; source++) {
+                long diffs = 0;
+                for (int a = matrix.getParticipantAnswersStart( source );
+                     a < matrix.getParticipantAnswersEnd( source ); a++) {
+                    if (currentTruths[matrix.getQuestionOfParticipantAnswer( a )] !=
+                            matrix.getChoiceOfParticipantAnswer( a )) {
+                        diffs++;
+                    }
+                }
+                sourceWeights[source] = chiSquaredQuantiles[source] / ((double) diffs + 0.000000001);
+                sum += sourceWeights[source];
+            }
+            return sum;
+        } );
 
-        return ImmutableMap.copyOf( Maps.transformValues( initialSourceWeightEstimation, v -> v / weightSum ) );
+        for (int source = 0; source < sourceWeights.length; source++) {
+            sourceWeights[source] /= weightSum;
+        }
+        return sourceWeights;
     }
 
     /**
      * Estimate entity truths x^*_n.
      * See equation 1
      */
-    private ImmutableMap<QuestionId, ChoiceId> estimateEntityTruths(
-            final ImmutableMap<ParticipantId, Double> sourceWeights ) {
-        return Maps.toMap( this.answers.getQuestions(), entity -> {
-            final ImmutableMultiset<Answer> answers = this.answers.getAnswers( entity );
-            final Map<ChoiceId, Double> weightedAnswersPerChoice = Maps.newHashMap();
-            answers.forEach( claim -> {
-                weightedAnswersPerChoice.compute( claim.getChoice(),
-                        ( k, v ) -> Optional.ofNullable( v ).orElse( 0.0 ) +
-                                sourceWeights.get( claim.getParticipantId() ) );
-            } );
-
-            return weightedAnswersPerChoice.entrySet().stream().max(
-                    Comparator.comparingDouble( Map.Entry::getValue ) ).get().getKey();
-        } );
+    private int[] estimateEntityTruths( final AnswerMatrix matrix, final double[] sourceWeights ) {
+        return WeightedVote.argmax( matrix, sourceWeights, this.parallelism );
+    }
+
+    private static Output toOutput( final AnswerMatrix matrix, final int[] truths, final double[] sourceWeights,
+            final ConvergenceTrace trace ) {
+        final ImmutableMap.Builder<QuestionId, ChoiceId> truthsPerQuestion = ImmutableMap.builder();
+        for (int q = 0; q < truths.length; q++) {
+            truthsPerQuestion.put( matrix.getQuestion( q ), matrix.getChoice( truths[q] ) );
+        }
+        final ImmutableMap.Builder<ParticipantId, Double> weightsPerSource = ImmutableMap.builder();
+        for (int source = 0; source < sourceWeights.length; source++) {
+            weightsPerSource.put( matrix.getParticipant( source ), sourceWeights[source] );
+        }
+        return new Output( truthsPerQuestion.build(), weightsPerSource.build(), trace );
     }
 
     public static final class Output {
@@ -117,11 +144,14 @@ public class CatdAlgorithm {
 
         private final ImmutableMap<ParticipantId, Double> sourceWeights;
 
+        private final ConvergenceTrace trace;
+
         public Output(
                 final ImmutableMap<QuestionId, ChoiceId> truths,
-                final ImmutableMap<ParticipantId, Double> sourceWeights ) {
+                final ImmutableMap<ParticipantId, Double> sourceWeights, final ConvergenceTrace trace ) {
             this.truths = truths;
             this.sourceWeights = sourceWeights;
+            this.trace = trace;
         }
 
         public ImmutableMap<QuestionId, ChoiceId> getTruths() {
@@ -132,10 +162,11 @@ public class CatdAlgorithm {
             return this.sourceWeights;
         }
 
-        public boolean hasConverged( final Output otherOutput ) {
-            return this.sourceWeights.entrySet().stream().mapToDouble(
-                    e -> Math.abs( e.getValue() - otherOutput.getSourceWeights().get( e.getKey() ) ) ).sum() <
-                    CONVERGENCE_THRESHOLD;
+        /**
+         * @return delta and time spent of every iteration
+         */
+        public ConvergenceTrace getTrace() {
+            return this.trace;
         }
     }
 }
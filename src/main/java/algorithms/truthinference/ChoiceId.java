@@ -2,19 +2,26 @@ package algorithms.truthinference;
 
 import algorithms.Id;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 /**
  * @author LinX
  */
 public final class ChoiceId extends Id<String> {
+    //few choices per data set, so they are held strongly and found without creating an instance
+    private static final ConcurrentMap<String, ChoiceId> INSTANCES = new ConcurrentHashMap<>();
+
     private ChoiceId( final String id ) {
         super( id );
     }
 
     public static ChoiceId create( final int id ) {
-        return new ChoiceId( String.valueOf( id ) );
+        return create( String.valueOf( id ) );
     }
 
     public static ChoiceId create( final String id ) {
-        return new ChoiceId( id );
+        final ChoiceId choice = INSTANCES.get( id );
+        return choice != null ? choice : INSTANCES.computeIfAbsent( id, ChoiceId::new );
     }
 }
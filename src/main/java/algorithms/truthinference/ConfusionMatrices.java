@@ -0,0 +1,90 @@
+package algorithms.truthinference;
+
+/**
+ * Error rates pi^k_jl of all participants, i.e. the probability of participant k answering l given that j is the true
+ * label. Kept in one flat array indexed by (participant ordinal, true choice ordinal, answered choice ordinal) of an
+ * {@link AnswerMatrix}, so that lookups neither allocate keys nor hash.
+ *
+ * @author LinX
+ */
+public final class ConfusionMatrices {
+    private final AnswerMatrix matrix;
+
+    private final double[] errorRates;
+
+    /**
+     * @param errorRates error rates, indexed by {@link #index(int, int, int)}; not copied, so must not be modified
+     *                   afterwards
+     */
+    ConfusionMatrices( final AnswerMatrix matrix, final double[] errorRates ) {
+        if (errorRates.length != matrix.getNrParticipants() * matrix.getNrChoices() * matrix.getNrChoices()) {
+            throw new IllegalArgumentException( "Expected " + matrix.getNrParticipants() + " confusion matrices of " +
+                    "size " + matrix.getNrChoices() + "x" + matrix.getNrChoices() + ", but got " + errorRates.length +
+                    " error rates." );
+        }
+        this.matrix = matrix;
+        this.errorRates = errorRates;
+    }
+
+    public AnswerMatrix getMatrix() {
+        return this.matrix;
+    }
+
+    /**
+     * @return pi^k_jl by ordinals of the answer matrix
+     */
+    public double getErrorRate( final int participant, final int trueChoice, final int answeredChoice ) {
+        return this.errorRates[index( participant, trueChoice, answeredChoice )];
+    }
+
+    /**
+     * @return pi^k_jl by ids, 0 for participants or choices not in the answer matrix
+     */
+    public double getErrorRate( final ParticipantId participant, final ChoiceId trueChoice,
+            final ChoiceId answeredChoice ) {
+        final int k = this.matrix.getOrdinal( participant );
+        final int j = this.matrix.getOrdinal( trueChoice );
+        final int l = this.matrix.getOrdinal( answeredChoice );
+        return k == -1 || j == -1 || l == -1 ? 0 : getErrorRate( k, j, l );
+    }
+
+    /**
+     * @return flat index of pi^k_jl, i.e. (k * #choices + j) * #choices + l
+     */
+    public int index( final int participant, final int trueChoice, final int answeredChoice ) {
+        final int nrChoices = this.matrix.getNrChoices();
+        return (participant * nrChoices + trueChoice) * nrChoices + answeredChoice;
+    }
+
+    public int size() {
+        return this.errorRates.length;
+    }
+
+    /**
+     * Passes every pi^k_jl to consumer, ordered by participant, true choice and answered choice.
+     */
+    public void forEach( final ErrorRateConsumer consumer ) {
+        final int nrChoices = this.matrix.getNrChoices();
+        int index = 0;
+        for (int k = 0; k < this.matrix.getNrParticipants(); k++) {
+            for (int j = 0; j < nrChoices; j++) {
+                for (int l = 0; l < nrChoices; l++) {
+                    consumer.accept( k, j, l, this.errorRates[index++] );
+                }
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ConfusionMatrices{" +
+                "nrParticipants=" + this.matrix.getNrParticipants() +
+                ", nrChoices=" + this.matrix.getNrChoices() +
+                '}';
+    }
+
+    @FunctionalInterface
+    public interface ErrorRateConsumer {
+        void accept( int participant, int trueChoice, int answeredChoice, double errorRate );
+    }
+}
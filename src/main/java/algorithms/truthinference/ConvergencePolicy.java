@@ -0,0 +1,280 @@
+package algorithms.truthinference;
+
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableList;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+
+/**
+ * Decides when the iterations of a truth inference algorithm stop. An algorithm reports the change of its parameters
+ * (see {@link Delta}) and, if available, the log likelihood after every iteration, and stops as soon as one of the
+ * configured criteria is met:
+ *
+ * - the summed absolute change of the parameters falls below a threshold
+ * - the summed absolute change relative to the summed absolute values of the previous parameters falls below a
+ * threshold
+ * - the log likelihood increases by less than a threshold
+ * - the maximum number of iterations is reached
+ * - the wall-clock time spent since the start of the run exceeds a budget
+ *
+ * All iterations are recorded in a {@link ConvergenceTrace}.
+ *
+ * @author LinX
+ */
+public final class ConvergencePolicy {
+    private static final Logger LOG = LoggerFactory.getLogger( ConvergencePolicy.class );
+
+    private final double absoluteDeltaThreshold;
+
+    private final double relativeDeltaThreshold;
+
+    private final double logLikelihoodPlateauThreshold;
+
+    private final int maximumNrIterations;
+
+    private final Duration timeBudget;
+
+    private ConvergencePolicy( final Builder builder ) {
+        this.absoluteDeltaThreshold = builder.absoluteDeltaThreshold;
+        this.relativeDeltaThreshold = builder.relativeDeltaThreshold;
+        this.logLikelihoodPlateauThreshold = builder.logLikelihoodPlateauThreshold;
+        this.maximumNrIterations = builder.maximumNrIterations;
+        this.timeBudget = builder.timeBudget;
+    }
+
+    public int getMaximumNrIterations() {
+        return this.maximumNrIterations;
+    }
+
+    /**
+     * Starts tracking the iterations of one run, measuring time with the system ticker.
+     */
+    public Tracker track() {
+        return track( Ticker.systemTicker() );
+    }
+
+    Tracker track( final Ticker ticker ) {
+        return new Tracker( ticker );
+    }
+
+    @Override
+    public String toString() {
+        return "ConvergencePolicy{" +
+                "absoluteDeltaThreshold=" + this.absoluteDeltaThreshold +
+                ", relativeDeltaThreshold=" + this.relativeDeltaThreshold +
+                ", logLikelihoodPlateauThreshold=" + this.logLikelihoodPlateauThreshold +
+                ", maximumNrIterations=" + this.maximumNrIterations +
+                ", timeBudget=" + this.timeBudget +
+                '}';
+    }
+
+    /**
+     * @return policy stopping once the summed absolute change of the parameters falls below the threshold or after
+     * maximumNrIterations, as used by default by the EM algorithms
+     */
+    public static ConvergencePolicy absoluteDelta( final double threshold, final int maximumNrIterations ) {
+        return builder().withAbsoluteDeltaBelow( threshold ).withMaximumNrIterations( maximumNrIterations ).build();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Evaluates the policy for the iterations of one run.
+     */
+    public final class Tracker {
+        private final Ticker ticker;
+
+        private final long start;
+
+        private final ImmutableList.Builder<ConvergenceTrace.Iteration> iterations = ImmutableList.builder();
+
+        private long iterationStart;
+
+        private int iteration;
+
+        private double previousLogLikelihood = Double.NaN;
+
+        private ConvergenceTrace.StopReason stopReason;
+
+        private Tracker( final Ticker ticker ) {
+            this.ticker = ticker;
+            this.start = ticker.read();
+            this.iterationStart = this.start;
+        }
+
+        /**
+         * Records the iteration that just finished.
+         *
+         * @param delta         change of the parameters compared to the previous iteration, {@link Delta#NONE} for the
+         *                      first iteration
+         * @param logLikelihood log likelihood of the current parameters, NaN if not computed by the algorithm
+         * @return true if the algorithm has to stop
+         */
+        public boolean iterationFinished( final Delta delta, final double logLikelihood ) {
+            final long now = this.ticker.read();
+            this.iteration++;
+            this.iterations.add( new ConvergenceTrace.Iteration( this.iteration, delta.getAbsolute(),
+                    delta.getRelative(), logLikelihood, Duration.ofNanos( now - this.iterationStart ) ) );
+            this.iterationStart = now;
+
+            if (delta.getAbsolute() < ConvergencePolicy.this.absoluteDeltaThreshold) {
+                this.stopReason = ConvergenceTrace.StopReason.ABSOLUTE_DELTA;
+            }
+            else if (delta.getRelative() < ConvergencePolicy.this.relativeDeltaThreshold) {
+                this.stopReason = ConvergenceTrace.StopReason.RELATIVE_DELTA;
+            }
+            else if (Math.abs( logLikelihood - this.previousLogLikelihood ) <
+                    ConvergencePolicy.this.logLikelihoodPlateauThreshold) {
+                this.stopReason = ConvergenceTrace.StopReason.LOG_LIKELIHOOD_PLATEAU;
+            }
+            else if (this.iteration >= ConvergencePolicy.this.maximumNrIterations) {
+                this.stopReason = ConvergenceTrace.StopReason.MAXIMUM_NR_ITERATIONS;
+            }
+            else if (ConvergencePolicy.this.timeBudget != null && now - this.start >= ConvergencePolicy.this
+                    .timeBudget.toNanos()) {
+                this.stopReason = ConvergenceTrace.StopReason.TIME_BUDGET;
+            }
+            this.previousLogLikelihood = logLikelihood;
+
+            if (this.stopReason != null) {
+                LOG.info( "Stopping after iteration {}: {}.", this.iteration, this.stopReason );
+                return true;
+            }
+            return false;
+        }
+
+        public int getIteration() {
+            return this.iteration;
+        }
+
+        /**
+         * @return trace of all iterations recorded so far, with the reason for stopping if the algorithm has to stop
+         */
+        public ConvergenceTrace getTrace() {
+            return new ConvergenceTrace( this.iterations.build(), this.stopReason );
+        }
+    }
+
+    /**
+     * Change of the parameters of an algorithm between two iterations.
+     */
+    public static final class Delta {
+        //delta of the first iteration, which has no previous parameters
+        public static final Delta NONE = new Delta( Double.NaN, Double.NaN );
+
+        private final double absolute;
+
+        private final double relative;
+
+        private Delta( final double absolute, final double relative ) {
+            this.absolute = absolute;
+            this.relative = relative;
+        }
+
+        /**
+         * @return sum_i |current_i - previous_i|
+         */
+        public double getAbsolute() {
+            return this.absolute;
+        }
+
+        /**
+         * @return sum_i |current_i - previous_i| / sum_i |previous_i|
+         */
+        public double getRelative() {
+            return this.relative;
+        }
+
+        /**
+         * @return delta with the smaller absolute and the smaller relative change, for algorithms which have
+         * converged if any of their parameters has converged
+         */
+        Delta min( final Delta other ) {
+            return new Delta( Math.min( this.absolute, other.absolute ), Math.min( this.relative, other.relative ) );
+        }
+
+        static Delta between( final double[] previous, final double[] current ) {
+            double absolute = 0;
+            double norm = 0;
+            for (int i = 0; i < previous.length; i++) {
+                absolute += Math.abs( current[i] - previous[i] );
+                norm += Math.abs( previous[i] );
+            }
+            return new Delta( absolute, norm == 0 ? (absolute == 0 ? 0 : Double.POSITIVE_INFINITY) :
+                    absolute / norm );
+        }
+
+        @Override
+        public String toString() {
+            return "Delta{" +
+                    "absolute=" + this.absolute +
+                    ", relative=" + this.relative +
+                    '}';
+        }
+    }
+
+    public static final class Builder {
+        private double absoluteDeltaThreshold = Double.NEGATIVE_INFINITY;
+
+        private double relativeDeltaThreshold = Double.NEGATIVE_INFINITY;
+
+        private double logLikelihoodPlateauThreshold = Double.NEGATIVE_INFINITY;
+
+        private int maximumNrIterations = 100;
+
+        private Duration timeBudget;
+
+        private Builder() {
+        }
+
+        /**
+         * Stops once sum_i |current_i - previous_i| of the parameters falls below threshold.
+         */
+        public Builder withAbsoluteDeltaBelow( final double threshold ) {
+            this.absoluteDeltaThreshold = threshold;
+            return this;
+        }
+
+        /**
+         * Stops once sum_i |current_i - previous_i| / sum_i |previous_i| of the parameters falls below threshold.
+         */
+        public Builder withRelativeDeltaBelow( final double threshold ) {
+            this.relativeDeltaThreshold = threshold;
+            return this;
+        }
+
+        /**
+         * Stops once the log likelihood changes by less than threshold. Ignored by algorithms not computing a log
+         * likelihood.
+         */
+        public Builder withLogLikelihoodPlateauBelow( final double threshold ) {
+            this.logLikelihoodPlateauThreshold = threshold;
+            return this;
+        }
+
+        public Builder withMaximumNrIterations( final int maximumNrIterations ) {
+            if (maximumNrIterations < 1) {
+                throw new IllegalArgumentException( "At least one iteration is needed, but maximum is " +
+                        maximumNrIterations );
+            }
+            this.maximumNrIterations = maximumNrIterations;
+            return this;
+        }
+
+        /**
+         * Stops after the first iteration finishing once timeBudget has elapsed since the start of the run.
+         */
+        public Builder withTimeBudget( final Duration timeBudget ) {
+            this.timeBudget = timeBudget;
+            return this;
+        }
+
+        public ConvergencePolicy build() {
+            return new ConvergencePolicy( this );
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package algorithms.truthinference;
+
+import com.google.common.collect.ImmutableList;
+
+import java.time.Duration;
+
+/**
+ * Per-iteration telemetry of one run of a truth inference algorithm, recorded by {@link ConvergencePolicy}.
+ *
+ * @author LinX
+ */
+public final class ConvergenceTrace {
+    private final ImmutableList<Iteration> iterations;
+
+    private final StopReason stopReason;
+
+    ConvergenceTrace( final ImmutableList<Iteration> iterations, final StopReason stopReason ) {
+        this.iterations = iterations;
+        this.stopReason = stopReason;
+    }
+
+    public ImmutableList<Iteration> getIterations() {
+        return this.iterations;
+    }
+
+    public int getNrIterations() {
+        return this.iterations.size();
+    }
+
+    /**
+     * @return criterion which stopped the run, null if the run has not stopped yet
+     */
+    public StopReason getStopReason() {
+        return this.stopReason;
+    }
+
+    public Duration getTimeSpent() {
+        return this.iterations.stream().map( Iteration::getTimeSpent ).reduce( Duration.ZERO, Duration::plus );
+    }
+
+    @Override
+    public String toString() {
+        return "ConvergenceTrace{" +
+                "iterations=" + this.iterations +
+                ", stopReason=" + this.stopReason +
+                '}';
+    }
+
+    public enum StopReason {
+        ABSOLUTE_DELTA,
+        RELATIVE_DELTA,
+        LOG_LIKELIHOOD_PLATEAU,
+        MAXIMUM_NR_ITERATIONS,
+        TIME_BUDGET
+    }
+
+    public static final class Iteration {
+        private final int iteration;
+
+        private final double delta;
+
+        private final double relativeDelta;
+
+        private final double logLikelihood;
+
+        private final Duration timeSpent;
+
+        Iteration( final int iteration, final double delta, final double relativeDelta, final double logLikelihood,
+                final Duration timeSpent ) {
+            this.iteration = iteration;
+            this.delta = delta;
+            this.relativeDelta = relativeDelta;
+            this.logLikelihood = logLikelihood;
+            this.timeSpent = timeSpent;
+        }
+
+        public int getIteration() {
+            return this.iteration;
+        }
+
+        /**
+         * @return summed absolute change of the parameters, NaN for the first iteration
+         */
+        public double getDelta() {
+            return this.delta;
+        }
+
+        /**
+         * @return summed absolute change of the parameters relative to their previous values, NaN for the first
+         * iteration
+         */
+        public double getRelativeDelta() {
+            return this.relativeDelta;
+        }
+
+        /**
+         * @return log likelihood after the iteration, NaN if not computed by the algorithm
+         */
+        public double getLogLikelihood() {
+            return this.logLikelihood;
+        }
+
+        public Duration getTimeSpent() {
+            return this.timeSpent;
+        }
+
+        @Override
+        public String toString() {
+            return "Iteration{" +
+                    "iteration=" + this.iteration +
+                    ", delta=" + this.delta +
+                    ", relativeDelta=" + this.relativeDelta +
+                    ", logLikelihood=" + this.logLikelihood +
+                    ", timeSpent=" + this.timeSpent +
+                    '}';
+        }
+    }
+}
@@ -1,15 +1,10 @@
 package algorithms.truthinference;
 
 import com.google.common.collect.ImmutableMap;
-import com.google.common.collect.ImmutableMultiset;
-import com.google.common.collect.Maps;
-import com.google.common.util.concurrent.AtomicDouble;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Comparator;
-import java.util.Map;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.Arrays;
 
 /**
  * Implements algorithm from:
@@ -23,55 +18,59 @@ import java.util.concurrent.atomic.AtomicInteger;
 public class CrhAlgorithm {
     private static final Logger LOG = LoggerFactory.getLogger( CrhAlgorithm.class );
 
-    //maximum of iterations to perform
-    private static final int MAXIMUM_ITERATIONS = 100;
-
-    //threshold of source weight difference under which the algorithm can be viewed as converged
-    private static final double CONVERGENCE_THRESHOLD = 0.00001;
+    //stops once the source weights have converged
+    private static final ConvergencePolicy DEFAULT_CONVERGENCE_POLICY = ConvergencePolicy.absoluteDelta( 0.00001,
+            100 );
 
     private final Answers answers;
 
+    private final Parallelism parallelism;
+
+    private final ConvergencePolicy convergencePolicy;
+
     //question=object, participant=source, choice=entry, answer=observation
     public CrhAlgorithm( final Answers answers ) {
+        this( answers, Parallelism.sequential() );
+    }
+
+    public CrhAlgorithm( final Answers answers, final Parallelism parallelism ) {
+        this( answers, parallelism, DEFAULT_CONVERGENCE_POLICY );
+    }
+
+    public CrhAlgorithm( final Answers answers, final Parallelism parallelism,
+            final ConvergencePolicy convergencePolicy ) {
         this.answers = answers;
+        this.parallelism = parallelism;
+        this.convergencePolicy = convergencePolicy;
     }
 
     public Output run() {
-        ImmutableMap<QuestionId, ChoiceId> estimatedTruths = estimateInitialEntityTruths();
-        Output output = null;
-        int iteration = 0;
+        final AnswerMatrix matrix = this.answers.toAnswerMatrix();
+        int[] estimatedTruths = estimateInitialEntityTruths( matrix );
+        double[] previousSourceWeights = null;
+        final ConvergencePolicy.Tracker tracker = this.convergencePolicy.track();
 
         while (true) {
-            iteration++;
-            LOG.info( "Starting iteration " + iteration );
-            final ImmutableMap<ParticipantId, Double> sourceWeights = estimateSourceWeights( estimatedTruths );
-            estimatedTruths = estimateTruths( sourceWeights );
-
-            final Output newOutput = new Output( estimatedTruths, sourceWeights );
-            if (output != null && (iteration > MAXIMUM_ITERATIONS || output.hasConverged( newOutput ))) {
-                return newOutput;
+            LOG.info( "Starting iteration " + (tracker.getIteration() + 1) );
+            final double[] sourceWeights = estimateSourceWeights( matrix, estimatedTruths );
+            estimatedTruths = estimateTruths( matrix, sourceWeights );
+
+            if (tracker.iterationFinished( previousSourceWeights == null ? ConvergencePolicy.Delta.NONE :
+                    ConvergencePolicy.Delta.between( previousSourceWeights, sourceWeights ), Double.NaN )) {
+                return toOutput( matrix, estimatedTruths, sourceWeights, tracker.getTrace() );
             }
-            output = newOutput;
+            previousSourceWeights = sourceWeights;
         }
     }
 
     /**
      * Estimate truths v^(*)_im for i in object and m in property with weighted voting. See equation 13.
      *
-     * @param sourceWeights
-     * @return
+     * @param sourceWeights source weights
+     * @return estimated truths
      */
-    private ImmutableMap<QuestionId, ChoiceId> estimateTruths(
-            final ImmutableMap<ParticipantId, Double> sourceWeights ) {
-        return Maps.toMap( this.answers.getQuestions(), entry -> {
-            final ImmutableMultiset<Answer> answers = this.answers.getAnswers( entry );
-            final Map<ChoiceId, AtomicDouble> score = Maps.newLinkedHashMap();
-            answers.forEach(
-                    o -> score.computeIfAbsent( o.getChoice(), k -> new AtomicDouble( 0 ) )
-                            .addAndGet( sourceWeights.get( o.getParticipantId() ) ) );
-            return score.entrySet().stream().max(
-                    Comparator.comparingDouble( e -> e.getValue().get() ) ).get().getKey();
-        } );
+    private int[] estimateTruths( final AnswerMatrix matrix, final double[] sourceWeights ) {
+        return WeightedVote.argmax( matrix, sourceWeights, this.parallelism );
     }
 
     /**
@@ -80,41 +79,51 @@ public class CrhAlgorithm {
      * @param truths estimated truths
      * @return estimated source weights
      */
-    private ImmutableMap<ParticipantId, Double> estimateSourceWeights(
-            final ImmutableMap<QuestionId, ChoiceId> truths ) {
-        final ImmutableMap<ParticipantId, Double> diffPerSource = Maps.toMap( //sum of loss functions for each source
-                this.answers.getParticipants(),
-                source -> {
-                    final int sum = this.answers.getAnswers( source ).stream().mapToInt( observation -> {
-                        return observation.getChoice().equals(
-                                truths.get( observation.getQuestionId() ) ) ? 0 : 1; //loss function dm
-                    } ).sum();
-                    return sum == 0 ? 0.00000001 : sum;
-                } );
+    private double[] estimateSourceWeights( final AnswerMatrix matrix, final int[] truths ) {
+        //sum of loss functions for each source
+        final double[] diffPerSource = new double[matrix.getNrParticipants()];
+        this.parallelism.forEach( matrix.getNrParticipants(), ( from, to ) -> {
+            for (int source = from; source < to; source++) {
+                int sum = 0;
+                for (int a = matrix.getParticipantAnswersStart( source );
+                     a < matrix.getParticipantAnswersEnd( source ); a++) {
+                    //loss function dm
+                    sum += truths[matrix.getQuestionOfParticipantAnswer( a )] ==
+                            matrix.getChoiceOfParticipantAnswer( a ) ? 0 : 1;
+                }
+                diffPerSource[source] = sum == 0 ? 0.00000001 : sum;
+            }
+        } );
 
         //normalize by maximum, see paragraph above example 6
-        final double maxDiff = diffPerSource.values().stream().max( Comparator.comparingDouble( d -> d ) ).get();
+        final double maxDiff = Arrays.stream( diffPerSource ).max().getAsDouble();
 
-        return ImmutableMap.copyOf( Maps.transformValues( diffPerSource,
-                s -> {
-                    final double normalized = s / maxDiff;
-                    return -Math.log( normalized + 0.0000001 ) + 0.0000001;
-                } ) );
+        final double[] sourceWeights = new double[diffPerSource.length];
+        for (int source = 0; source < diffPerSource.length; source++) {
+            final double normalized = diffPerSource[source] / maxDiff;
+            sourceWeights[source] = -Math.log( normalized + 0.0000001 ) + 0.0000001;
+        }
+        return sourceWeights;
     }
 
     /**
      * Init the initial truth table X^(*) with all v^(*)_im for i in object and m in property with MV algorithm.
      */
-    private ImmutableMap<QuestionId, ChoiceId> estimateInitialEntityTruths() {
-        return Maps.toMap( this.answers.getQuestions(), entity -> {
-            final ImmutableMultiset<Answer> answers = this.answers.getAnswers( entity );
-            final Map<ChoiceId, AtomicInteger> nrAnswers = Maps.newLinkedHashMap();
-            answers.forEach(
-                    o -> nrAnswers.computeIfAbsent( o.getChoice(), k -> new AtomicInteger( 0 ) )
-                            .incrementAndGet() );
-            return nrAnswers.entrySet().stream().max(
-                    Comparator.comparingLong( e -> e.getValue().get() ) ).get().getKey();
-        } );
+    private int[] estimateInitialEntityTruths( final AnswerMatrix matrix ) {
+        return WeightedVote.argmax( matrix, null, this.parallelism );
+    }
+
+    private static Output toOutput( final AnswerMatrix matrix, final int[] truths, final double[] sourceWeights,
+            final ConvergenceTrace trace ) {
+        final ImmutableMap.Builder<QuestionId, ChoiceId> truthsPerQuestion = ImmutableMap.builder();
+        for (int q = 0; q < truths.length; q++) {
+            truthsPerQuestion.put( matrix.getQuestion( q ), matrix.getChoice( truths[q] ) );
+        }
+        final ImmutableMap.Builder<ParticipantId, Double> weightsPerSource = ImmutableMap.builder();
+        for (int source = 0; source < sourceWeights.length; source++) {
+            weightsPerSource.put( matrix.getParticipant( source ), sourceWeights[source] );
+        }
+        return new Output( truthsPerQuestion.build(), weightsPerSource.build(), trace );
     }
 
     public static final class Output {
@@ -122,11 +131,14 @@ public class CrhAlgorithm {
 
         private final ImmutableMap<ParticipantId, Double> sourceWeights;
 
+        private final ConvergenceTrace trace;
+
         public Output(
                 final ImmutableMap<QuestionId, ChoiceId> truths,
-                final ImmutableMap<ParticipantId, Double> sourceWeights ) {
+                final ImmutableMap<ParticipantId, Double> sourceWeights, final ConvergenceTrace trace ) {
             this.truths = truths;
             this.sourceWeights = sourceWeights;
+            this.trace = trace;
         }
 
         public ImmutableMap<QuestionId, ChoiceId> getTruths() {
@@ -137,10 +149,11 @@ public class CrhAlgorithm {
             return this.sourceWeights;
         }
 
-        public boolean hasConverged( final Output otherOutput ) {
-            return this.sourceWeights.entrySet().stream().mapToDouble(
-                    e -> Math.abs( e.getValue() - otherOutput.getSourceWeights().get( e.getKey() ) ) ).sum() <
-                    CONVERGENCE_THRESHOLD;
+        /**
+         * @return delta and time spent of every iteration
+         */
+        public ConvergenceTrace getTrace() {
+            return this.trace;
         }
     }
 }
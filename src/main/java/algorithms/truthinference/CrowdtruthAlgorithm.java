@@ -1,5 +1,6 @@
 package algorithms.truthinference;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Maps;
@@ -36,21 +37,112 @@ public class CrowdtruthAlgorithm {
 
     private Map<QuestionId, Double> mediaUnitQualityScores;
 
+    //annotation quality scores indexed by choice ordinal of this.matrix
+    private double[] annotationWeights;
+
     private final Answers answers;
 
-    private final ImmutableMap<ParticipantId, Map<QuestionId, Map<ChoiceId, Long>>> workers;
+    //interns the annotations to ordinals of the annotation vectors
+    private final AnswerMatrix matrix;
+
+    //annotation vector of each worker for each of its media units, i.e. counts indexed by choice ordinal
+    private final ImmutableMap<ParticipantId, Map<QuestionId, long[]>> workers;
+
+    //sum of the annotation vectors of all workers of each media unit
+    private final ImmutableMap<QuestionId, long[]> mediaUnitVectors;
+
+    //all pairs of distinct workers sharing at least one media unit, in order of this.workers
+    private final ImmutableList<WorkerPair> coOccurringWorkers;
 
-    private CrowdtruthAlgorithm( final Answers answers ) {
+    //workers of each media unit, in order of this.workerQualityScores
+    private final ImmutableMap<QuestionId, ImmutableList<ParticipantId>> workersPerMediaUnit;
+
+    /**
+     * @param warmStart scores of a previous run to start from, scores missing there start with 1.0
+     */
+    private CrowdtruthAlgorithm( final Answers answers, final MetricsScores warmStart ) {
         this.answers = answers;
         this.mediaUnitQualityScores = this.answers.getQuestions().stream().collect(
-                Collectors.toMap( Function.identity(), m -> 1.0 ) );
+                Collectors.toMap( Function.identity(),
+                        m -> warmStart.getMediaUnitQualityScores().getOrDefault( m, 1.0 ) ) );
         this.annotationQualityScores = this.answers.getChoices().stream().collect(
-                Collectors.toMap( Function.identity(), m -> 1.0 ) );
+                Collectors.toMap( Function.identity(),
+                        a -> warmStart.getAnnotationQualityScores().getOrDefault( a, 1.0 ) ) );
         this.workerQualityScores = this.answers.getParticipants().stream().collect(
-                Collectors.toMap( Function.identity(), m -> 1.0 ) );
+                Collectors.toMap( Function.identity(), w -> warmStart.getWorkerQualityScores().getOrDefault( w,
+                        1.0 ) ) );
+        this.matrix = this.answers.toAnswerMatrix();
+        this.annotationWeights = toAnnotationWeights( this.annotationQualityScores );
         this.workers = Maps.toMap( this.answers.getParticipants(), worker -> this.answers.getAnswers( worker ).stream()
                 .collect( Collectors.groupingBy( Answer::getQuestionId, Collectors
-                        .groupingBy( Answer::getChoice, Collectors.counting() ) ) ) );
+                        .collectingAndThen( Collectors.toList(), this::toAnnotationVector ) ) ) );
+        this.workersPerMediaUnit = invertWorkers();
+        this.mediaUnitVectors = Maps.toMap( this.answers.getQuestions(), mediaUnit -> {
+            final long[] mediaUnitVector = new long[this.matrix.getNrChoices()];
+            this.workersPerMediaUnit.get( mediaUnit ).forEach( w -> add( mediaUnitVector,
+                    this.workers.get( w ).get( mediaUnit ), 1 ) );
+            return mediaUnitVector;
+        } );
+        this.coOccurringWorkers = findCoOccurringWorkers();
+        LOG.info( "Co-occurring worker pairs #{}", this.coOccurringWorkers.size() );
+    }
+
+    /**
+     * Inverts this.workers in one pass over the annotations. Workers are visited in order of this.workerQualityScores,
+     * so that the workers of each media unit keep that order.
+     */
+    private ImmutableMap<QuestionId, ImmutableList<ParticipantId>> invertWorkers() {
+        final Map<QuestionId, ImmutableList.Builder<ParticipantId>> builders = Maps.newHashMap();
+        this.workerQualityScores.keySet().forEach( w -> this.workers.get( w ).keySet().forEach(
+                mediaUnit -> builders.computeIfAbsent( mediaUnit, m -> ImmutableList.builder() ).add( w ) ) );
+        return Maps.toMap( this.answers.getQuestions(), mediaUnit -> builders.containsKey( mediaUnit ) ? builders
+                .get( mediaUnit ).build() : ImmutableList.of() );
+    }
+
+    private long[] toAnnotationVector( final List<Answer> annotations ) {
+        final long[] vector = new long[this.matrix.getNrChoices()];
+        annotations.forEach( a -> vector[this.matrix.getOrdinal( a.getChoice() )]++ );
+        return vector;
+    }
+
+    private double[] toAnnotationWeights( final Map<ChoiceId, Double> annotationQualityScores ) {
+        final double[] weights = new double[this.matrix.getNrChoices()];
+        annotationQualityScores.forEach( ( annotation, score ) -> weights[this.matrix.getOrdinal( annotation )] =
+                score );
+        return weights;
+    }
+
+    //target += factor * vector
+    private static void add( final long[] target, final long[] vector, final long factor ) {
+        for (int c = 0; c < target.length; c++) {
+            target[c] += factor * vector[c];
+        }
+    }
+
+    /**
+     * Builds the co-occurrence graph of the workers once, so that only pairs sharing a media unit are visited on every
+     * iteration. Pairs and their common media units are kept in the same order as iterating over all pairs of
+     * this.workers, so that scores are summed up in the same order.
+     */
+    private ImmutableList<WorkerPair> findCoOccurringWorkers() {
+        final Map<ParticipantId, Integer> workerOrder = Maps.newHashMap();
+        this.workers.keySet().forEach( w -> workerOrder.put( w, workerOrder.size() ) );
+
+        final ImmutableList.Builder<WorkerPair> pairs = ImmutableList.builder();
+        this.workers.forEach( ( worker1, w1annotations ) -> {
+            final SortedSet<ParticipantId> neighbours = new TreeSet<>( Comparator.comparing( workerOrder::get ) );
+            w1annotations.keySet().forEach( mediaUnit -> neighbours.addAll(
+                    this.workersPerMediaUnit.get( mediaUnit ) ) );
+            neighbours.remove( worker1 );
+
+            neighbours.forEach( worker2 -> {
+                final Map<QuestionId, long[]> w2annotations = this.workers.get( worker2 );
+                pairs.add( new WorkerPair( worker1, worker2, w1annotations, w2annotations,
+                        ImmutableList.copyOf( Sets.intersection( w1annotations.keySet(),
+                                w2annotations.keySet() ) ) ) );
+            } );
+        } );
+        return pairs.build();
     }
 
     private MetricsScores calculate( final boolean closedTask ) {
@@ -86,6 +178,7 @@ public class CrowdtruthAlgorithm {
             } );
             LOG.info( "WQS: {}", newWorkerQualityScores );
             this.annotationQualityScores = newAnnotationQualityScores;
+            this.annotationWeights = toAnnotationWeights( newAnnotationQualityScores );
             this.mediaUnitQualityScores = newMediaUnitQualityScores;
             this.workerQualityScores = newWorkerQualityScores;
 
@@ -116,7 +209,7 @@ public class CrowdtruthAlgorithm {
         final AtomicDouble numerator = new AtomicDouble( 0 );
         final AtomicDouble denominator = new AtomicDouble( 0 );
         this.answers.getAnswers( mediaUnit ).stream().map( Answer::getParticipantId ).forEach( worker -> {
-            final double score = this.workers.get( worker ).get( mediaUnit ).getOrDefault( annotation, 0L );
+            final double score = this.workers.get( worker ).get( mediaUnit )[this.matrix.getOrdinal( annotation )];
             final double workerQualityScore = this.workerQualityScores.get( worker );
             numerator.addAndGet( score * workerQualityScore );
             denominator.addAndGet( workerQualityScore );
@@ -126,44 +219,35 @@ public class CrowdtruthAlgorithm {
 
     //agreement over an mediaUnitAnnotation in all media units that it appears
     private double annotationQualityScore( final ChoiceId annotation ) {
-        final AtomicDouble numerator = new AtomicDouble( 0 );
-        final AtomicDouble denominator = new AtomicDouble( 0 );
+        final int annotationOrdinal = this.matrix.getOrdinal( annotation );
+        double numerator = 0;
+        double denominator = 0;
+
+        for (final WorkerPair pair : this.coOccurringWorkers) {
+            double probabilityNumerator = 0.0;
+            double probabilityDenominator = 0.0;
+            for (final QuestionId mediaUnit : pair.commonMediaUnits) {
+                final Entry<Double, Double> probability = probabilityWorkerAnnotation( mediaUnit,
+                        pair.worker1Annotations.get( mediaUnit )[annotationOrdinal],
+                        pair.worker2Annotations.get( mediaUnit )[annotationOrdinal] );
+                probabilityNumerator += probability.getKey();
+                probabilityDenominator += probability.getValue();
+            }
 
-        this.workers.forEach( ( worker1, w1annotations ) -> {
-            final double worker1Quality = this.workerQualityScores.get( worker1 );
-            this.workers.forEach( ( worker2, w2annotations ) -> {
-                final Sets.SetView<QuestionId> commonMediaUnits = Sets.intersection( w1annotations.keySet(),
-                        w2annotations.keySet() );
-                if (!worker1.equals( worker2 ) && !commonMediaUnits.isEmpty()) {
-                    final double worker2Quality = this.workerQualityScores.get( worker2 );
-
-                    final AtomicDouble probabilityNumerator = new AtomicDouble( 0.0 );
-                    final AtomicDouble probabilityDenominator = new AtomicDouble( 0.0 );
-                    commonMediaUnits.forEach( mediaUnit -> {
-                        final Entry<Double, Double> probability = probabilityWorkerAnnotation(
-                                mediaUnit,
-                                w1annotations.get( mediaUnit ).getOrDefault( annotation, 0L ),
-                                w2annotations.get( mediaUnit ).getOrDefault( annotation, 0L ) );
-                        probabilityNumerator.addAndGet( probability.getKey() );
-                        probabilityDenominator.addAndGet( probability.getValue() );
-                    } );
-
-                    if (probabilityDenominator.get() > 0.0) {
-                        numerator.addAndGet(
-                                worker1Quality * worker2Quality *
-                                        (probabilityNumerator.get() / probabilityDenominator.get()) );
-                        denominator.addAndGet( worker1Quality * worker2Quality );
-                    }
-                }
-            } );
-        } );
-        return denominator.get() == 0 ? 0 : numerator.get() / denominator.get();
+            if (probabilityDenominator > 0.0) {
+                final double workerQualities = this.workerQualityScores.get( pair.worker1 ) *
+                        this.workerQualityScores.get( pair.worker2 );
+                numerator += workerQualities * (probabilityNumerator / probabilityDenominator);
+                denominator += workerQualities;
+            }
+        }
+        return denominator == 0 ? 0 : numerator / denominator;
     }
 
     //probability that if first worker annotates an mediaUnitAnnotation, that second worker will also
     // annotate it
     private Entry<Double, Double> probabilityWorkerAnnotation(
-            final QuestionId mediaUnit, final long scoreAnnotation1, final Long scoreAnnotation2 ) {
+            final QuestionId mediaUnit, final long scoreAnnotation1, final long scoreAnnotation2 ) {
         final AtomicDouble numerator = new AtomicDouble( 0 );
         final AtomicDouble denominator = new AtomicDouble( 0 );
         final double qualityScore = this.mediaUnitQualityScores.get( mediaUnit );
@@ -181,13 +265,11 @@ public class CrowdtruthAlgorithm {
 
     //agreement of worker with all other workers
     private double workerWorkerAgreement( final ParticipantId worker ) {
-        final Set<ParticipantId> otherWorkers = this.workerQualityScores.keySet().stream().filter(
-                w -> !w.equals( worker ) ).collect( ImmutableSet.toImmutableSet() );
         final AtomicDouble numerator = new AtomicDouble( 0 );
         final AtomicDouble denominator = new AtomicDouble( 0 );
         this.answers.getAnswers( worker ).forEach(
-                mediaUnit -> otherWorkers.stream().filter( w -> !this.answers.getAnswers( w, mediaUnit.getQuestionId() )
-                        .isEmpty() ).forEach( otherWorker -> {
+                mediaUnit -> this.workersPerMediaUnit.get( mediaUnit.getQuestionId() ).stream().filter(
+                        w -> !w.equals( worker ) ).forEach( otherWorker -> {
                     final double otherWorkerQualityScore = this.workerQualityScores
                             .get( otherWorker );
                     final double mediaUnitQualityScore = this.mediaUnitQualityScores.get( mediaUnit.getQuestionId() );
@@ -201,23 +283,21 @@ public class CrowdtruthAlgorithm {
 
     //similarity between the annotations of a worker and the aggregated annotations of the rest of the workers
     private double workerMediaUnitAgreement( final ParticipantId worker ) {
-        final AtomicDouble numerator = new AtomicDouble( 0 );
-        final AtomicDouble denominator = new AtomicDouble( 0 );
-        this.answers.getAnswers( worker ).stream().map( Answer::getQuestionId ).forEach( annotatedMediaUnit -> {
+        final Map<QuestionId, long[]> workerVectors = this.workers.get( worker );
+        final long[] mediaUnitVectorExcludingWorker = new long[this.matrix.getNrChoices()];
+        double numerator = 0;
+        double denominator = 0;
+        for (final Answer answer : this.answers.getAnswers( worker )) {
+            final QuestionId annotatedMediaUnit = answer.getQuestionId();
             final double mediaUnitQualityScore = this.mediaUnitQualityScores.get( annotatedMediaUnit );
-            final Map<ChoiceId, Long> mediaUnitVectorExcludingWorker = Maps.newHashMap();
-            this.workers.entrySet().stream().filter(
-                    w -> !Objects.equals( worker, w.getKey() ) ).map(
-                    w -> w.getValue().getOrDefault( annotatedMediaUnit, ImmutableMap.of() ) ).forEach(
-                    v -> v.forEach( ( ve, c ) -> mediaUnitVectorExcludingWorker
-                            .compute( ve, ( key, val ) -> val == null ? c : val + c ) ) );
-            final double weightedCosineScore = weightedCosineScore(
-                    this.workers.get( worker ).get( annotatedMediaUnit ),
-                    mediaUnitVectorExcludingWorker );
-            numerator.addAndGet( weightedCosineScore * mediaUnitQualityScore );
-            denominator.addAndGet( mediaUnitQualityScore );
-        } );
-        return denominator.get() == 0 ? 0 : numerator.get() / denominator.get();
+            final long[] workerVector = workerVectors.get( annotatedMediaUnit );
+            System.arraycopy( this.mediaUnitVectors.get( annotatedMediaUnit ), 0, mediaUnitVectorExcludingWorker, 0,
+                    mediaUnitVectorExcludingWorker.length );
+            add( mediaUnitVectorExcludingWorker, workerVector, -1 );
+            numerator += weightedCosineScore( workerVector, mediaUnitVectorExcludingWorker ) * mediaUnitQualityScore;
+            denominator += mediaUnitQualityScore;
+        }
+        return denominator == 0 ? 0 : numerator / denominator;
     }
 
     //worker agreement over one media unit
@@ -252,36 +332,81 @@ public class CrowdtruthAlgorithm {
     //cosine similarity over 2 worker vectors
     private double weightedCosineScore( final QuestionId mediaUnit, final ParticipantId worker1,
             final ParticipantId worker2 ) {
-        return weightedCosineScore( this.workers.get( worker1 ).getOrDefault( mediaUnit, ImmutableMap.of() ),
-                this.workers.get( worker2 ).getOrDefault( mediaUnit, ImmutableMap.of() ) );
+        final long[] vector1 = this.workers.get( worker1 ).get( mediaUnit );
+        final long[] vector2 = this.workers.get( worker2 ).get( mediaUnit );
+        return vector1 == null || vector2 == null ? 0 : weightedCosineScore( vector1, vector2 );
     }
 
-    //cosine similarity over 2 vectors
-    private double weightedCosineScore( final Map<ChoiceId, Long> vector1, final Map<ChoiceId, Long> vector2 ) {
-        final AtomicDouble dotProduct = new AtomicDouble( 0 );
-        final AtomicDouble magnitude1 = new AtomicDouble( 0 );
-        final AtomicDouble magnitude2 = new AtomicDouble( 0 );
-        Sets.union( vector1.keySet(), vector2.keySet() ).forEach( ann -> {
-            final long w1Ar = vector1.getOrDefault( ann, 0L );
-            final long w2Ar = vector2.getOrDefault( ann, 0L );
-            final double aqs = this.annotationQualityScores.get( ann );
-            dotProduct.addAndGet( w1Ar * w2Ar * aqs );
-            magnitude1.addAndGet( w1Ar * w1Ar * aqs );
-            magnitude2.addAndGet( w2Ar * w2Ar * aqs );
-        } );
-        final double denominator = Math.sqrt( magnitude1.get() * magnitude2.get() );
-        return denominator == 0.0 ? 0 : (dotProduct.get() / denominator);
+    //cosine similarity over 2 annotation vectors, weighted by annotation quality scores
+    private double weightedCosineScore( final long[] vector1, final long[] vector2 ) {
+        double dotProduct = 0;
+        double magnitude1 = 0;
+        double magnitude2 = 0;
+        for (int c = 0; c < vector1.length; c++) {
+            final long w1Ar = vector1[c];
+            final long w2Ar = vector2[c];
+            if (w1Ar != 0 || w2Ar != 0) {
+                final double aqs = this.annotationWeights[c];
+                dotProduct += w1Ar * w2Ar * aqs;
+                magnitude1 += w1Ar * w1Ar * aqs;
+                magnitude2 += w2Ar * w2Ar * aqs;
+            }
+        }
+        final double denominator = Math.sqrt( magnitude1 * magnitude2 );
+        return denominator == 0.0 ? 0 : (dotProduct / denominator);
     }
 
     public static MetricsScores calculateClosed( final Answers mediaUnits ) {
-        return new CrowdtruthAlgorithm( mediaUnits ).calculate( true );
+        return calculateClosed( mediaUnits, MetricsScores.NONE );
+    }
+
+    /**
+     * Iterates starting from the quality scores of a previous run instead of 1.0 for all media units, workers and
+     * annotations. Those not scored by the previous run start with 1.0 as usual.
+     */
+    public static MetricsScores calculateClosed( final Answers mediaUnits, final MetricsScores previous ) {
+        return new CrowdtruthAlgorithm( mediaUnits, previous ).calculate( true );
     }
 
     public static MetricsScores calculateOpen( final Answers mediaUnits ) {
-        return new CrowdtruthAlgorithm( mediaUnits ).calculate( false );
+        return calculateOpen( mediaUnits, MetricsScores.NONE );
+    }
+
+    /**
+     * Same as {@link #calculateClosed(Answers, MetricsScores)} for open tasks.
+     */
+    public static MetricsScores calculateOpen( final Answers mediaUnits, final MetricsScores previous ) {
+        return new CrowdtruthAlgorithm( mediaUnits, previous ).calculate( false );
+    }
+
+    private static final class WorkerPair {
+        private final ParticipantId worker1;
+
+        private final ParticipantId worker2;
+
+        private final Map<QuestionId, long[]> worker1Annotations;
+
+        private final Map<QuestionId, long[]> worker2Annotations;
+
+        private final ImmutableList<QuestionId> commonMediaUnits;
+
+        private WorkerPair( final ParticipantId worker1, final ParticipantId worker2,
+                final Map<QuestionId, long[]> worker1Annotations,
+                final Map<QuestionId, long[]> worker2Annotations,
+                final ImmutableList<QuestionId> commonMediaUnits ) {
+            this.worker1 = worker1;
+            this.worker2 = worker2;
+            this.worker1Annotations = worker1Annotations;
+            this.worker2Annotations = worker2Annotations;
+            this.commonMediaUnits = commonMediaUnits;
+        }
     }
 
     public static final class MetricsScores {
+        //no scores, i.e. no warm start
+        private static final MetricsScores NONE = new MetricsScores( ImmutableMap.of(), ImmutableMap.of(),
+                ImmutableMap.of(), ImmutableMap.of() );
+
         private final ImmutableMap<ChoiceId, Double> annotationQualityScores;
 
         private final ImmutableMap<ParticipantId, Double> workerQualityScores;
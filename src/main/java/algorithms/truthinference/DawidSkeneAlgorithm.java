@@ -1,17 +1,13 @@
 package algorithms.truthinference;
 
-import algorithms.Id;
-import com.google.common.collect.*;
-import com.google.common.util.concurrent.AtomicDouble;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
 
-import java.util.AbstractMap;
 import java.util.Map;
-import java.util.Optional;
-import java.util.Set;
-import java.util.function.Function;
-import java.util.stream.Collectors;
+import java.util.Objects;
 
 /**
  * Implements D&S algorithm for estimating the probability of patient classes from:
@@ -20,285 +16,160 @@ import java.util.stream.Collectors;
  * A. P. Dawid and A. M. Skene
  * 1979
  *
+ * The EM iterations are carried out by {@link DawidSkeneEngine} on the compiled {@link AnswerMatrix}.
+ *
  * @author LinX
  */
 public class DawidSkeneAlgorithm {
-    private static final Logger LOG = LoggerFactory.getLogger( DawidSkeneAlgorithm.class );
+    //stops once p_j or pi^k_jl have converged
+    private static final ConvergencePolicy DEFAULT_CONVERGENCE_POLICY = ConvergencePolicy.absoluteDelta( 0.00001,
+            100 );
 
-    //threshold under which the algorithm can be viewed as converged
-    private static final double CONVERGENCE_THRESHOLD = 0.00001;
+    private final Answers observations;
 
-    private static final int MAXIMUM_NR_ITERATIONS = 100;
+    private final Parallelism parallelism;
 
-    private final Answers observations;
+    private final ConvergencePolicy convergencePolicy;
 
     public DawidSkeneAlgorithm( final Answers observations ) {
-        this.observations = observations;
+        this( observations, Parallelism.sequential() );
     }
 
-    public Output run() {
-        int iteration = 0;
-
-        ImmutableMap<QuestionId, ImmutableSet<IndicatorEstimation>> patientClassEstimations = Maps.toMap(
-                this.observations.getQuestions(), this::getInitialEstimatesForTruePatientClasses );
-
-        Optional<Output> output = Optional.empty();
-
-        while (true) {
-            iteration++;
-
-            //m-step / maximization step
-            //estimate for p_j
-            final ImmutableMap<ChoiceId, Double> patientClassProbabilities = calculatePatientClassProbabilities(
-                    patientClassEstimations );
-            LOG.info( "estimation for pj done." );
-            //estimate for pi^k_jl
-            final ImmutableMap<ErrorRateId, ErrorRateEstimation> errorRates = calculateErrorRates(
-                    patientClassEstimations );
-            LOG.info( "Maximization step done." );
-
-            //e-step / estimation step
-            //estimate for T_ij
-            patientClassEstimations = reCalculatePatientClassEstimatesForTruePatientClasses( errorRates,
-                    patientClassProbabilities );
-            LOG.info( "Estimation step done." );
-
-            //calculate log likelihood -> should go up as algorithm proceeds
-            final double logLikelihood = calculateLogLikelihood( patientClassProbabilities, errorRates );
-            LOG.info( "Log-Likelihood on iteration {}: {}", iteration, logLikelihood );
-
-            final Output newOutput = new Output( patientClassProbabilities, errorRates, patientClassEstimations );
-            if (iteration >= MAXIMUM_NR_ITERATIONS || output.map( o -> o.hasConverged( newOutput ) ).orElse( false )) {
-                break;
-            }
-
-            output = Optional.of( newOutput );
-            LOG.info( "=======================" );
-        }
-
-        return output.get();
+    public DawidSkeneAlgorithm( final Answers observations, final Parallelism parallelism ) {
+        this( observations, parallelism, DEFAULT_CONVERGENCE_POLICY );
     }
 
-    /**
-     * Calculates the log likelihood given the current parameter estimates -> should monotically go up as EM proceeds.
-     * See Equation 2.7
-     *
-     * @return likelihood
-     */
-    private double calculateLogLikelihood( final ImmutableMap<ChoiceId, Double> patientClassProbabilities,  //pj
-            final ImmutableMap<ErrorRateId, ErrorRateEstimation> errorRates ) {                          //piKjl
-        final AtomicDouble likelihood = new AtomicDouble( 0.0 );
-        this.observations.getQuestions().forEach( patient -> {
-            final AtomicDouble sumPjTimesPkjlPowerNkil = new AtomicDouble( 0.0 );
-            this.observations.getChoices().forEach( trueLabel -> {
-                final AtomicDouble productPkjlPowerNkil = new AtomicDouble( 1.0 );
-                final Double pj = patientClassProbabilities.get( trueLabel );
-
-                this.observations.getParticipants().forEach( observer -> {
-                    final Map<ChoiceId, Long> countForEachLabel = this.observations.getAnswers(
-                            observer, patient ).stream().collect(
-                            Collectors.groupingBy( Answer::getChoice, Collectors.counting() ) );
-
-                    countForEachLabel.forEach( ( label, nkil ) -> {
-                        final ErrorRateEstimation errorRateEstimation = errorRates.get(
-                                new ErrorRateId( observer, label, trueLabel ) );
-                        final double pikjl = errorRateEstimation.getErrorRateEstimation();
-
-                        final double pkjlPowerNkil = Math.pow( pikjl, nkil );
-                        productPkjlPowerNkil.set( productPkjlPowerNkil.get() * pkjlPowerNkil );
-                    } );
-                } );
-                sumPjTimesPkjlPowerNkil.addAndGet( pj * productPkjlPowerNkil.get() );
-            } );
-            final double patientLikelihood = sumPjTimesPkjlPowerNkil.get();
-            if (patientLikelihood != 0) {
-                final double log = Math.log( patientLikelihood );
-                likelihood.addAndGet( log );
-            }
-        } );
-
-        return likelihood.get();
+    public DawidSkeneAlgorithm( final Answers observations, final Parallelism parallelism,
+            final ConvergencePolicy convergencePolicy ) {
+        this.observations = observations;
+        this.parallelism = parallelism;
+        this.convergencePolicy = convergencePolicy;
     }
 
-    /**
-     * Re-calculate the patient class estimates ^T_ij where i in patients and j in labels, i.e.,
-     * the estimate for the indicate variable if j is the true label for patient i.
-     * See Equation 2.5
-     *
-     * @param errorRateEstimations      error rate estimates
-     * @param patientClassProbabilities probabilities of each label being "true"
-     * @return patient class estimations for existent labels
-     */
-    private ImmutableMap<QuestionId, ImmutableSet<IndicatorEstimation>> reCalculatePatientClassEstimatesForTruePatientClasses(
-            final ImmutableMap<ErrorRateId, ErrorRateEstimation> errorRateEstimations,
-            final ImmutableMap<ChoiceId, Double> patientClassProbabilities ) {
-        return Maps.toMap( this.observations.getQuestions(), patient -> {
-            final ImmutableSet.Builder<IndicatorEstimation> estimations = ImmutableSet.builder();
-            final Map<ChoiceId, Double> numerators = Maps.newHashMap();
-
-            this.observations.getChoices().forEach( trueLabel -> {
-                final AtomicDouble numerator = new AtomicDouble( 1.0 );
-
-                this.observations.getParticipants().forEach( observer -> {
-                    final Map<ChoiceId, Long> countForEachLabel = this.observations.getAnswers(
-                            observer, patient ).stream().collect(
-                            Collectors.groupingBy( Answer::getChoice, Collectors.counting() ) );
-
-                    countForEachLabel.forEach( ( label, nkil ) -> {
-                        final Optional<Double> piKjl =
-                                Optional.ofNullable(
-                                        errorRateEstimations.get( new ErrorRateId( observer, label, trueLabel ) ) )
-                                        .map( ErrorRateEstimation::getErrorRateEstimation );
-
-                        piKjl.ifPresent( pikjl -> {
-                            final double pikjlTimesNkil = Math.pow( pikjl, nkil );
-                            numerator.set( numerator.get() * pikjlTimesNkil );
-                        } );
-                    } );
-
-                } );
-
-                final Double pj = patientClassProbabilities.get( trueLabel );
-                numerator.set( numerator.get() * pj );
-                numerators.put( trueLabel, numerator.get() );
-            } );
-
-            final double denominator = numerators.values().stream().mapToDouble( n -> n ).sum();
-
-            numerators.forEach( ( trueLabel, numerator ) -> {
-                estimations.add( new IndicatorEstimation( trueLabel, numerator / denominator ) );
-            } );
-
-            return estimations.build();
-        } );
+    public Output run() {
+        return estimate( null );
     }
 
     /**
-     * Calculate maximum likelihood estimates for individual errors rates ^pi^k_jl where k in observer, j,l in label.
-     * This is an estimate for the conditional probability, that observer k will answer with l given that j is the true
-     * label class.
-     * See Equation 2.3
+     * Runs EM starting from the patient class estimations of a previous run instead of the observations. Patients
+     * not estimated by the previous run are initialized from the observations as usual.
      */
-    private ImmutableMap<ErrorRateId, ErrorRateEstimation> calculateErrorRates(
-            final ImmutableMap<QuestionId, ImmutableSet<IndicatorEstimation>> patientClassEstimations ) {
-
-        final Set<ErrorRateEstimation> estimations = Sets.newHashSet();
-
-        this.observations.getParticipants().forEach( observer -> { //k
-            this.observations.getChoices().forEach( trueLabel -> { //l
-                this.observations.getChoices().forEach( label -> { //j
-                    final AtomicDouble numerator = new AtomicDouble( 0.0 );
-                    final AtomicDouble denominator = new AtomicDouble( 0.0 );
-
-                    this.observations.getQuestions().forEach( patient -> {
-                        final double Tij = patientClassEstimations.get( patient ).stream().filter(
-                                p -> p.getLabel().equals( trueLabel ) ).findFirst().map(
-                                IndicatorEstimation::getIndicatorEstimation ).orElse( 0.0 );
-                        final ImmutableMultiset<Answer> observationsByObserverForPatient = this.observations.getAnswers(
-                                observer, patient );
-
-                        final long nkil = observationsByObserverForPatient.stream().filter(
-                                o -> o.getChoice().equals( label ) ).count();
-
-                        numerator.addAndGet( Tij * nkil );
-
-                        final Map<ChoiceId, Long> countForEachLabel = observationsByObserverForPatient.stream().collect(
-                                Collectors.groupingBy( Answer::getChoice, Collectors.counting() ) );
+    public Output run( final Output previous ) {
+        return estimate( Maps.transformValues( previous.getPatientClassEstimations(),
+                estimations -> estimations.stream().collect( ImmutableMap.toImmutableMap(
+                        IndicatorEstimation::getLabel, IndicatorEstimation::getIndicatorEstimation ) ) ) );
+    }
 
-                        countForEachLabel.values().forEach(
-                                c -> denominator.addAndGet( Tij * c ) );
-                    } );
+    private Output estimate( final Map<QuestionId, ? extends Map<ChoiceId, Double>> warmStart ) {
+        final DawidSkeneEngine.Estimates estimates = DawidSkeneEngine.builder(
+                this.observations.toAnswerMatrix() ).withConvergencePolicy( this.convergencePolicy )
+                .withParallelism( this.parallelism ).withWarmStart( warmStart ).build().run();
+        return toOutput( estimates );
+    }
 
-                    estimations.add( new ErrorRateEstimation( observer, label, trueLabel,
-                            denominator.doubleValue() == 0 ? 0 :
-                                    numerator.doubleValue() / denominator.doubleValue() ) );
-                } );
-            } );
-        } );
+    private Output toOutput( final DawidSkeneEngine.Estimates estimates ) {
+        final AnswerMatrix matrix = estimates.getMatrix();
 
-        return estimations.stream().collect(
-                ImmutableMap.toImmutableMap( ErrorRateEstimation::getErrorRateId, Function.identity() ) );
-    }
+        final ImmutableMap.Builder<ChoiceId, Double> patientClassProbabilities = ImmutableMap.builder();
+        for (int j = 0; j < matrix.getNrChoices(); j++) {
+            patientClassProbabilities.put( matrix.getChoice( j ), estimates.getClassProbability( j ) );
+        }
 
-    /**
-     * Calculate ^p_j where j in labels, i.e., probability of label j being chosen for a random patient.
-     * ^p_j's are marginal probabilities. ^p_j is an estimate for the probability of j being the true label for a random
-     * patient.
-     * See Equation 2.4.
-     *
-     * @param patientClassEstimations all ^T_ij
-     */
-    private ImmutableMap<ChoiceId, Double> calculatePatientClassProbabilities(
-            final ImmutableMap<QuestionId, ImmutableSet<IndicatorEstimation>> patientClassEstimations ) {
-        final int nrPatients = this.observations.getQuestions().size();
-
-        final Map<ChoiceId, Double> sumOfPatientClassEstimations =
-                patientClassEstimations.values().stream().flatMap(
-                        p -> p.stream().map( e -> new AbstractMap.SimpleImmutableEntry<>( e.getLabel(),
-                                e.getIndicatorEstimation() ) ) ).collect(
-                        Collectors.groupingBy( AbstractMap.SimpleImmutableEntry::getKey, Collectors.summingDouble(
-                                AbstractMap.SimpleImmutableEntry::getValue ) ) );
-
-        return ImmutableMap.copyOf( Maps.transformValues( sumOfPatientClassEstimations, e -> e / nrPatients ) );
-    }
+        final ImmutableMap.Builder<QuestionId, ImmutableSet<IndicatorEstimation>> patientClassEstimations =
+                ImmutableMap.builder();
+        for (int i = 0; i < matrix.getNrQuestions(); i++) {
+            final ImmutableSet.Builder<IndicatorEstimation> estimations = ImmutableSet.builder();
+            for (int j = 0; j < matrix.getNrChoices(); j++) {
+                estimations.add( new IndicatorEstimation( matrix.getChoice( j ),
+                        estimates.getClassEstimation( i, j ) ) );
+            }
+            patientClassEstimations.put( matrix.getQuestion( i ), estimations.build() );
+        }
 
-    /**
-     * Calculate the initial patient class estimates ^T_ij where i in patients and j in labels, i.e.,
-     * the estimate for the indicate variable if j is the true label for patient i.
-     * See Equation 3.1
-     *
-     * @param patientId id the patient
-     * @return patient class estimations for existent labels
-     */
-    private ImmutableSet<IndicatorEstimation> getInitialEstimatesForTruePatientClasses( final QuestionId patientId ) {
-        final ImmutableMultiset<Answer> observations = this.observations.getAnswers( patientId );
-        final double totalNrObservations = observations.size();
-        final Map<ChoiceId, Long> nrObservationsPerLabel = observations.stream().collect( Collectors.groupingBy(
-                Answer::getChoice, Collectors.counting() ) );
-
-        return nrObservationsPerLabel.entrySet().stream().map(
-                e -> new IndicatorEstimation( e.getKey(), e.getValue() / totalNrObservations ) ).collect(
-                ImmutableSet.toImmutableSet() );
+        return new Output( patientClassProbabilities.build(), estimates.getConfusionMatrices(),
+                patientClassEstimations.build(), estimates.getLogLikelihood(), estimates.getTrace() );
     }
 
     public final class Output {
         private final ImmutableMap<ChoiceId, Double> patientClassProbabilities;
 
-        private final ImmutableMap<ErrorRateId, ErrorRateEstimation> errorRates;
+        private final ConfusionMatrices confusionMatrices;
 
+        //view of the confusion matrices by error rate id, only built if requested
+        private final Supplier<ImmutableMap<ErrorRateId, ErrorRateEstimation>> errorRates = Suppliers.memoize(
+                this::toErrorRates );
+
+        //in order of the question ordinals of the answer matrix
         private final ImmutableMap<QuestionId, ImmutableSet<IndicatorEstimation>> patientClassEstimations;
 
+        private final double logLikelihood;
+
+        private final ConvergenceTrace trace;
+
         public Output(
                 final ImmutableMap<ChoiceId, Double> patientClassProbabilities,
-                final ImmutableMap<ErrorRateId, ErrorRateEstimation> errorRates,
-                final ImmutableMap<QuestionId, ImmutableSet<IndicatorEstimation>> patientClassEstimations ) {
+                final ConfusionMatrices confusionMatrices,
+                final ImmutableMap<QuestionId, ImmutableSet<IndicatorEstimation>> patientClassEstimations,
+                final double logLikelihood, final ConvergenceTrace trace ) {
             this.patientClassProbabilities = patientClassProbabilities;
-            this.errorRates = errorRates;
+            this.confusionMatrices = confusionMatrices;
             this.patientClassEstimations = patientClassEstimations;
+            this.logLikelihood = logLikelihood;
+            this.trace = trace;
         }
 
         public ImmutableMap<ChoiceId, Double> getPatientClassProbabilities() {
             return this.patientClassProbabilities;
         }
 
+        /**
+         * @return pi^k_jl indexed by ordinals of the answer matrix
+         */
+        public ConfusionMatrices getConfusionMatrices() {
+            return this.confusionMatrices;
+        }
+
+        /**
+         * @return pi^k_jl by error rate id, built from the confusion matrices on first access
+         */
         public ImmutableMap<ErrorRateId, ErrorRateEstimation> getErrorRates() {
-            return this.errorRates;
+            return this.errorRates.get();
+        }
+
+        private ImmutableMap<ErrorRateId, ErrorRateEstimation> toErrorRates() {
+            final AnswerMatrix matrix = this.confusionMatrices.getMatrix();
+            final ImmutableMap.Builder<ErrorRateId, ErrorRateEstimation> errorRates = ImmutableMap.builder();
+            this.confusionMatrices.forEach( ( k, j, l, errorRate ) -> {
+                final ErrorRateEstimation estimation = new ErrorRateEstimation( matrix.getParticipant( k ),
+                        matrix.getChoice( l ), matrix.getChoice( j ), errorRate );
+                errorRates.put( estimation.getErrorRateId(), estimation );
+            } );
+            return errorRates.build();
         }
 
         public ImmutableMap<QuestionId, ImmutableSet<IndicatorEstimation>> getPatientClassEstimations() {
             return this.patientClassEstimations;
         }
 
-        public boolean hasConverged( final Output other ) {
-            final double deltaPatientClassProbabilities =
-                    this.patientClassProbabilities.entrySet().stream().mapToDouble(
-                            e -> Math.abs( other.patientClassProbabilities.get( e.getKey() ) - e.getValue() ) ).sum();
-            final double deltaErrorRates = this.errorRates.entrySet().stream().mapToDouble(
-                    e -> Math.abs( other.errorRates.get( e.getKey() ).getErrorRateEstimation() -
-                            e.getValue().getErrorRateEstimation() ) ).sum();
-            LOG.info( "Delta pj: {}. Delta pikjl: {}.", deltaPatientClassProbabilities, deltaErrorRates );
+        /**
+         * @param question ordinal of the question in the answer matrix
+         */
+        public ImmutableSet<IndicatorEstimation> getPatientClassEstimations( final int question ) {
+            return this.patientClassEstimations.values().asList().get( question );
+        }
 
-            return deltaPatientClassProbabilities < CONVERGENCE_THRESHOLD || deltaErrorRates < CONVERGENCE_THRESHOLD;
+        /**
+         * @return log likelihood of the estimated class probabilities and error rates
+         */
+        public double getLogLikelihood() {
+            return this.logLikelihood;
+        }
+
+        /**
+         * @return delta, log likelihood and time spent of every iteration
+         */
+        public ConvergenceTrace getTrace() {
+            return this.trace;
         }
     }
 
@@ -329,10 +200,54 @@ public class DawidSkeneAlgorithm {
         }
     }
 
-    public static final class ErrorRateId extends Id<String> {
+    public static final class ErrorRateId {
+        private final ParticipantId observerId;
+
+        private final ChoiceId answeredLabel;
+
+        private final ChoiceId estimatedTrueLabel;
+
         public ErrorRateId( final ParticipantId observerId, final ChoiceId answeredLabel,
                 final ChoiceId estimatedTrueLabel ) {
-            super( "k=" + observerId + "|l=" + answeredLabel + "j=" + estimatedTrueLabel );
+            this.observerId = observerId;
+            this.answeredLabel = answeredLabel;
+            this.estimatedTrueLabel = estimatedTrueLabel;
+        }
+
+        public ParticipantId getObserverId() {
+            return this.observerId;
+        }
+
+        public ChoiceId getAnsweredLabel() {
+            return this.answeredLabel;
+        }
+
+        public ChoiceId getEstimatedTrueLabel() {
+            return this.estimatedTrueLabel;
+        }
+
+        @Override
+        public boolean equals( final Object o ) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            final ErrorRateId that = (ErrorRateId) o;
+            return Objects.equals( this.observerId, that.observerId ) &&
+                    Objects.equals( this.answeredLabel, that.answeredLabel ) &&
+                    Objects.equals( this.estimatedTrueLabel, that.estimatedTrueLabel );
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash( this.observerId, this.answeredLabel, this.estimatedTrueLabel );
+        }
+
+        @Override
+        public String toString() {
+            return "k=" + this.observerId + "|l=" + this.answeredLabel + "j=" + this.estimatedTrueLabel;
         }
     }
 
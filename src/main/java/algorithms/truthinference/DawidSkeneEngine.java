@@ -0,0 +1,527 @@
+package algorithms.truthinference;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Array-based implementation of the EM iterations of D&S (see {@link DawidSkeneAlgorithm}) running on an {@link
+ * AnswerMatrix}. T_ij, p_j and pi^k_jl are kept in flat double arrays and only the observations, i.e. the existing
+ * (question, participant) pairs, are visited, so one iteration costs O(#answers * J) instead of O(K * J^2 * N).
+ *
+ * The e-step is computed in log space on cached log error rates, so the posterior does not underflow for questions
+ * with many answers. Optionally, the classification step of FDS is performed (see {@link FastDawidSkeneAlgorithm}
+ * and {@link HybridDawidSkeneAlgorithm}).
+ *
+ * The steps are sharded over questions respectively participants according to the configured {@link Parallelism}.
+ *
+ * With pseudo counts for pi^k_jl (see {@link Builder#withErrorRatePseudoCounts(double, double)}), the m-step yields
+ * the maximum a posteriori estimate under a Dirichlet prior on every row of the confusion matrices, as done by LFC (see
+ * {@link LfcAlgorithm}).
+ *
+ * Instead of the answers, T_ij can be initialized from the estimates of a previous run (see {@link
+ * Builder#withWarmStart(Map)}), so that re-running on mostly unchanged answers converges within a few iterations.
+ *
+ * @author LinX
+ */
+public final class DawidSkeneEngine {
+    private static final Logger LOG = LoggerFactory.getLogger( DawidSkeneEngine.class );
+
+    private final AnswerMatrix matrix;
+
+    private final ConvergencePolicy convergencePolicy;
+
+    private final boolean hardMajorityInitialization;
+
+    private final boolean classificationStepFromStart;
+
+    private final double switchToClassificationStepThreshold;
+
+    //choice ordinals sorted by choice id, used to break ties in the classification step deterministically
+    private final int[] choicesInIdOrder;
+
+    private final Parallelism parallelism;
+
+    //pseudo counts added to sum_i T_ij n_kil for l = j respectively l != j
+    private final double correctPseudoCount;
+
+    private final double wrongPseudoCount;
+
+    //T_ij of a previous run by question and choice, null for no warm start
+    private final Map<QuestionId, ? extends Map<ChoiceId, Double>> warmStart;
+
+    private DawidSkeneEngine( final Builder builder ) {
+        this.matrix = builder.matrix;
+        this.convergencePolicy = builder.convergencePolicy;
+        this.hardMajorityInitialization = builder.hardMajorityInitialization;
+        this.classificationStepFromStart = builder.classificationStep;
+        this.switchToClassificationStepThreshold = builder.switchToClassificationStepThreshold;
+        this.parallelism = builder.parallelism;
+        this.warmStart = builder.warmStart;
+        this.correctPseudoCount = builder.correctPseudoCount;
+        this.wrongPseudoCount = builder.wrongPseudoCount;
+        this.choicesInIdOrder = IntStream.range( 0, this.matrix.getNrChoices() ).boxed().sorted(
+                Comparator.comparing( j -> this.matrix.getChoice( j ).getId() ) ).mapToInt( j -> j ).toArray();
+    }
+
+    public AnswerMatrix getMatrix() {
+        return this.matrix;
+    }
+
+    /**
+     * Runs EM until the {@link ConvergencePolicy} stops, where the change of p_j and the change of pi^k_jl are
+     * tracked and the smaller one of both counts.
+     *
+     * @return estimates of the last iteration before stopping, with the trace of all iterations. If the policy stops
+     * after the first iteration, there is no iteration before and the estimates of the first iteration are returned.
+     */
+    public Estimates run() {
+        double[] classEstimations = initialClassEstimations();
+        if (this.hardMajorityInitialization) {
+            classify( classEstimations );
+        }
+        final ConvergencePolicy.Tracker tracker = this.convergencePolicy.track();
+        Estimates estimates = null;
+        boolean classificationStep = this.classificationStepFromStart;
+
+        while (true) {
+            final int iteration = tracker.getIteration() + 1;
+
+            //m-step
+            final double[] classProbabilities = calculateClassProbabilities( classEstimations );
+            final double[] errorRates = calculateErrorRates( classEstimations );
+
+            //e-step, yields the log likelihood of the m-step estimates as sum of the normalizers
+            classEstimations = new double[this.matrix.getNrQuestions() * this.matrix.getNrChoices()];
+            final double logLikelihood = calculateClassEstimations( classProbabilities, log( errorRates ),
+                    classEstimations );
+            LOG.debug( "Log-Likelihood on iteration {}: {}", iteration, logLikelihood );
+
+            //c-step
+            if (classificationStep) {
+                classify( classEstimations );
+            }
+
+            final Estimates newEstimates = new Estimates( this.matrix, classProbabilities, errorRates,
+                    classEstimations, iteration, logLikelihood, null );
+            final ConvergencePolicy.Delta delta = estimates == null ? ConvergencePolicy.Delta.NONE :
+                    estimates.getDelta( newEstimates );
+            if (tracker.iterationFinished( delta, logLikelihood )) {
+                if (estimates == null) {
+                    estimates = newEstimates;
+                }
+                break;
+            }
+            if (!classificationStep && estimates != null && estimates.getDeltaClassProbabilities( newEstimates ) <
+                    this.switchToClassificationStepThreshold) {
+                LOG.info( "Switching to classification step after iteration {}.", iteration );
+                classificationStep = true;
+            }
+            estimates = newEstimates;
+        }
+
+        return estimates.withTrace( tracker.getTrace() );
+    }
+
+    /**
+     * Initial T_ij as the fraction of answers for question i choosing j (Equation 3.1), or from the warm start, if it
+     * has estimates for question i. With hard majority initialization (FDS), this is classified afterwards.
+     */
+    private double[] initialClassEstimations() {
+        final int nrChoices = this.matrix.getNrChoices();
+        final double[] classEstimations = new double[this.matrix.getNrQuestions() * nrChoices];
+        this.parallelism.forEach( this.matrix.getNrQuestions(), ( from, to ) -> {
+            for (int q = from; q < to; q++) {
+                if (this.warmStart != null && warmStart( q, classEstimations )) {
+                    continue;
+                }
+                final double nrAnswers = this.matrix.getQuestionSize( q );
+                for (int a = this.matrix.getQuestionAnswersStart( q ); a < this.matrix.getQuestionAnswersEnd( q );
+                     a++) {
+                    classEstimations[q * nrChoices + this.matrix.getChoiceOfQuestionAnswer( a )]++;
+                }
+                for (int j = 0; j < nrChoices; j++) {
+                    classEstimations[q * nrChoices + j] /= nrAnswers;
+                }
+            }
+        } );
+        return classEstimations;
+    }
+
+    /**
+     * Copies T_ij of question i from the warm start, renormalized over the choices of this run.
+     *
+     * @return false if the warm start has no estimates for question i or for none of the choices of this run
+     */
+    private boolean warmStart( final int question, final double[] classEstimations ) {
+        final Map<ChoiceId, Double> previous = this.warmStart.get( this.matrix.getQuestion( question ) );
+        if (previous == null) {
+            return false;
+        }
+        final int nrChoices = this.matrix.getNrChoices();
+        double sum = 0;
+        for (int j = 0; j < nrChoices; j++) {
+            sum += previous.getOrDefault( this.matrix.getChoice( j ), 0.0 );
+        }
+        if (!(sum > 0)) {
+            return false;
+        }
+        for (int j = 0; j < nrChoices; j++) {
+            classEstimations[question * nrChoices + j] = previous.getOrDefault( this.matrix.getChoice( j ), 0.0 ) /
+                    sum;
+        }
+        return true;
+    }
+
+    /**
+     * p_j = sum_i T_ij / N (Equation 2.4).
+     */
+    private double[] calculateClassProbabilities( final double[] classEstimations ) {
+        final int nrQuestions = this.matrix.getNrQuestions();
+        final int nrChoices = this.matrix.getNrChoices();
+        final double[] classProbabilities = this.parallelism.sum( nrQuestions, nrChoices, ( from, to, sum ) -> {
+            for (int q = from; q < to; q++) {
+                for (int j = 0; j < nrChoices; j++) {
+                    sum[j] += classEstimations[q * nrChoices + j];
+                }
+            }
+        } );
+        for (int j = 0; j < nrChoices; j++) {
+            classProbabilities[j] /= nrQuestions;
+        }
+        return classProbabilities;
+    }
+
+    /**
+     * pi^k_jl = sum_i T_ij n_kil / sum_i T_ij n_ki (Equation 2.3), 0 if participant k never answered a question with
+     * estimated true label j. With pseudo counts a_jl, pi^k_jl = (sum_i T_ij n_kil + a_jl) / (sum_i T_ij n_ki +
+     * sum_l a_jl). Each participant only writes its own rows, so participants are processed in parallel.
+     */
+    private double[] calculateErrorRates( final double[] classEstimations ) {
+        final int nrChoices = this.matrix.getNrChoices();
+        final double pseudoCountsPerRow = this.correctPseudoCount + (nrChoices - 1) * this.wrongPseudoCount;
+        final double[] errorRates = new double[this.matrix.getNrParticipants() * nrChoices * nrChoices];
+
+        this.parallelism.forEach( this.matrix.getNrParticipants(), ( from, to ) -> {
+            final double[] denominators = new double[nrChoices];
+            for (int k = from; k < to; k++) {
+                final int participantOffset = k * nrChoices * nrChoices;
+                Arrays.fill( denominators, 0 );
+                for (int i = this.matrix.getParticipantObservationsStart( k );
+                     i < this.matrix.getParticipantObservationsEnd( k ); i++) {
+                    final int o = this.matrix.getParticipantObservation( i );
+                    final int q = this.matrix.getObservationQuestion( o );
+                    final int size = this.matrix.getObservationSize( o );
+                    for (int j = 0; j < nrChoices; j++) {
+                        final double tij = classEstimations[q * nrChoices + j];
+                        if (tij == 0) {
+                            continue;
+                        }
+                        denominators[j] += tij * size;
+                        for (int l = 0; l < nrChoices; l++) {
+                            final int nkil = this.matrix.getCount( o, l );
+                            if (nkil != 0) {
+                                errorRates[participantOffset + j * nrChoices + l] += tij * nkil;
+                            }
+                        }
+                    }
+                }
+                for (int j = 0; j < nrChoices; j++) {
+                    for (int l = 0; l < nrChoices; l++) {
+                        final int index = participantOffset + j * nrChoices + l;
+                        final double denominator = denominators[j] + pseudoCountsPerRow;
+                        errorRates[index] = denominator == 0 ? 0 : (errorRates[index] + (j == l ?
+                                this.correctPseudoCount : this.wrongPseudoCount)) / denominator;
+                    }
+                }
+            }
+        } );
+        return errorRates;
+    }
+
+    /**
+     * T_ij proportional to p_j * prod_k prod_l (pi^k_jl)^n_kil (Equation 2.5), evaluated in log space as
+     * log p_j + sum_k sum_l n_kil * log pi^k_jl and normalized with log-sum-exp.
+     *
+     * The log normalizer of question i is its log likelihood sum_j p_j * prod_k prod_l (pi^k_jl)^n_kil, so the log
+     * likelihood given the current parameter estimates (Equation 2.7) falls out of the same pass. It should
+     * monotonically go up as EM proceeds. Questions with likelihood 0 are skipped.
+     *
+     * @param classEstimations target for T_ij
+     * @return log likelihood
+     */
+    private double calculateClassEstimations( final double[] classProbabilities, final double[] logErrorRates,
+            final double[] classEstimations ) {
+        final int nrChoices = this.matrix.getNrChoices();
+        return this.parallelism.sum( this.matrix.getNrQuestions(), ( from, to ) -> {
+            double logLikelihood = 0;
+            for (int q = from; q < to; q++) {
+                logJoint( q, classProbabilities, logErrorRates, classEstimations, q * nrChoices );
+                final double questionLogLikelihood = LogSpace.normalize( classEstimations, q * nrChoices,
+                        (q + 1) * nrChoices );
+                if (questionLogLikelihood != Double.NEGATIVE_INFINITY) {
+                    logLikelihood += questionLogLikelihood;
+                }
+            }
+            return logLikelihood;
+        } );
+    }
+
+    /**
+     * Writes log p_j + sum_k sum_l n_kil * log pi^k_jl for question i and every true label j into target, starting at
+     * offset.
+     */
+    private void logJoint( final int question, final double[] classProbabilities, final double[] logErrorRates,
+            final double[] target, final int offset ) {
+        final int nrChoices = this.matrix.getNrChoices();
+        for (int j = 0; j < nrChoices; j++) {
+            target[offset + j] = LogSpace.log( classProbabilities[j] );
+        }
+        for (int o = this.matrix.getQuestionObservationsStart( question );
+             o < this.matrix.getQuestionObservationsEnd( question ); o++) {
+            final int participantOffset = this.matrix.getObservationParticipant( o ) * nrChoices * nrChoices;
+            for (int l = 0; l < nrChoices; l++) {
+                final int nkil = this.matrix.getCount( o, l );
+                if (nkil != 0) {
+                    for (int j = 0; j < nrChoices; j++) {
+                        target[offset + j] += nkil * logErrorRates[participantOffset + j * nrChoices + l];
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * C-step of FDS: sets T_ij to 1 for the most probable label j of each question and to 0 for all others. On ties,
+     * the label with the lowest choice id is chosen.
+     */
+    private void classify( final double[] classEstimations ) {
+        final int nrChoices = this.matrix.getNrChoices();
+        this.parallelism.forEach( this.matrix.getNrQuestions(), ( from, to ) -> {
+            for (int q = from; q < to; q++) {
+                final int offset = q * nrChoices;
+                int best = this.choicesInIdOrder[0];
+                for (final int j : this.choicesInIdOrder) {
+                    if (classEstimations[offset + j] > classEstimations[offset + best]) {
+                        best = j;
+                    }
+                }
+                for (int j = 0; j < nrChoices; j++) {
+                    classEstimations[offset + j] = j == best ? 1 : 0;
+                }
+            }
+        } );
+    }
+
+    private static double[] log( final double[] probabilities ) {
+        final double[] logs = new double[probabilities.length];
+        for (int i = 0; i < probabilities.length; i++) {
+            logs[i] = LogSpace.log( probabilities[i] );
+        }
+        return logs;
+    }
+
+    public static Builder builder( final AnswerMatrix matrix ) {
+        return new Builder( matrix );
+    }
+
+    /**
+     * Estimates of one EM iteration, indexed by the ordinals of {@link AnswerMatrix}.
+     */
+    public static final class Estimates {
+        private final AnswerMatrix matrix;
+
+        private final double[] classProbabilities;
+
+        private final double[] errorRates;
+
+        private final ConfusionMatrices confusionMatrices;
+
+        private final double[] classEstimations;
+
+        private final int iteration;
+
+        private final double logLikelihood;
+
+        private final ConvergenceTrace trace;
+
+        private Estimates( final AnswerMatrix matrix, final double[] classProbabilities, final double[] errorRates,
+                final double[] classEstimations, final int iteration, final double logLikelihood,
+                final ConvergenceTrace trace ) {
+            this.matrix = matrix;
+            this.classProbabilities = classProbabilities;
+            this.errorRates = errorRates;
+            this.confusionMatrices = new ConfusionMatrices( matrix, errorRates );
+            this.classEstimations = classEstimations;
+            this.iteration = iteration;
+            this.logLikelihood = logLikelihood;
+            this.trace = trace;
+        }
+
+        private Estimates withTrace( final ConvergenceTrace trace ) {
+            return new Estimates( this.matrix, this.classProbabilities, this.errorRates, this.classEstimations,
+                    this.iteration, this.logLikelihood, trace );
+        }
+
+        public AnswerMatrix getMatrix() {
+            return this.matrix;
+        }
+
+        /**
+         * @return p_j
+         */
+        public double getClassProbability( final int choice ) {
+            return this.classProbabilities[choice];
+        }
+
+        /**
+         * @return pi^k_jl, i.e. probability of participant k answering l given that j is the true label
+         */
+        public double getErrorRate( final int participant, final int trueLabel, final int answeredLabel ) {
+            return this.confusionMatrices.getErrorRate( participant, trueLabel, answeredLabel );
+        }
+
+        /**
+         * @return pi^k_jl of all participants
+         */
+        public ConfusionMatrices getConfusionMatrices() {
+            return this.confusionMatrices;
+        }
+
+        /**
+         * @return T_ij, i.e. estimate for j being the true label of question i
+         */
+        public double getClassEstimation( final int question, final int choice ) {
+            return this.classEstimations[question * this.matrix.getNrChoices() + choice];
+        }
+
+        public int getIteration() {
+            return this.iteration;
+        }
+
+        /**
+         * @return log likelihood of p_j and pi^k_jl, obtained from the normalizers of the e-step computing T_ij
+         */
+        public double getLogLikelihood() {
+            return this.logLikelihood;
+        }
+
+        /**
+         * @return trace of all iterations of the run, null for estimates of an unfinished run
+         */
+        public ConvergenceTrace getTrace() {
+            return this.trace;
+        }
+
+        /**
+         * @return the smaller one of the changes of p_j and of pi^k_jl, as D&S has converged if either has converged
+         */
+        private ConvergencePolicy.Delta getDelta( final Estimates other ) {
+            final ConvergencePolicy.Delta deltaClassProbabilities = ConvergencePolicy.Delta.between(
+                    this.classProbabilities, other.classProbabilities );
+            final ConvergencePolicy.Delta deltaErrorRates = ConvergencePolicy.Delta.between( this.errorRates,
+                    other.errorRates );
+            LOG.info( "Delta pj: {}. Delta pikjl: {}.", deltaClassProbabilities.getAbsolute(),
+                    deltaErrorRates.getAbsolute() );
+            return deltaClassProbabilities.min( deltaErrorRates );
+        }
+
+        public double getDeltaClassProbabilities( final Estimates other ) {
+            return ConvergencePolicy.Delta.between( this.classProbabilities, other.classProbabilities )
+                    .getAbsolute();
+        }
+    }
+
+    public static final class Builder {
+        private final AnswerMatrix matrix;
+
+        private ConvergencePolicy convergencePolicy = ConvergencePolicy.absoluteDelta( 0.00001, 100 );
+
+        private boolean hardMajorityInitialization;
+
+        private boolean classificationStep;
+
+        private double switchToClassificationStepThreshold = Double.NEGATIVE_INFINITY;
+
+        private Parallelism parallelism = Parallelism.sequential();
+
+        private Map<QuestionId, ? extends Map<ChoiceId, Double>> warmStart;
+
+        private double correctPseudoCount;
+
+        private double wrongPseudoCount;
+
+        private Builder( final AnswerMatrix matrix ) {
+            this.matrix = matrix;
+        }
+
+        public Builder withConvergencePolicy( final ConvergencePolicy convergencePolicy ) {
+            this.convergencePolicy = convergencePolicy;
+            return this;
+        }
+
+        /**
+         * Initializes T_ij with a hard majority vote, i.e. 1 for the most often chosen label, as done by FDS.
+         */
+        public Builder withHardMajorityInitialization() {
+            this.hardMajorityInitialization = true;
+            return this;
+        }
+
+        /**
+         * Performs the classification step of FDS after every e-step.
+         */
+        public Builder withClassificationStep() {
+            this.classificationStep = true;
+            return this;
+        }
+
+        /**
+         * Starts performing the classification step once the summed change of p_j between two iterations falls below
+         * the threshold, as done by the FDS-DS hybrid.
+         */
+        public Builder withClassificationStepWhenClassProbabilitiesDeltaBelow( final double threshold ) {
+            this.switchToClassificationStepThreshold = threshold;
+            return this;
+        }
+
+        public Builder withParallelism( final Parallelism parallelism ) {
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        /**
+         * Initializes T_ij from the estimates of a previous run. Questions without previous estimates are initialized
+         * from the answers as usual.
+         *
+         * @param classEstimations T_ij of the previous run by question and choice
+         */
+        public Builder withWarmStart( final Map<QuestionId, ? extends Map<ChoiceId, Double>> classEstimations ) {
+            this.warmStart = classEstimations;
+            return this;
+        }
+
+        /**
+         * Adds pseudo counts to the answers of every participant when estimating pi^k_jl, i.e. estimates pi^k_jl
+         * under a Dirichlet prior with parameters a_jj = correct + 1 and a_jl = wrong + 1 for l != j. Participants
+         * with few answers are pulled towards the prior instead of getting error rates of 0 or 1.
+         */
+        public Builder withErrorRatePseudoCounts( final double correct, final double wrong ) {
+            if (correct < 0 || wrong < 0) {
+                throw new IllegalArgumentException( "Pseudo counts must not be negative, but are " + correct +
+                        " and " + wrong );
+            }
+            this.correctPseudoCount = correct;
+            this.wrongPseudoCount = wrong;
+            return this;
+        }
+
+        public DawidSkeneEngine build() {
+            return new DawidSkeneEngine( this );
+        }
+    }
+}
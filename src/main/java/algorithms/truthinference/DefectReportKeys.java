@@ -0,0 +1,123 @@
+package algorithms.truthinference;
+
+import algorithms.vericom.model.DefectReport;
+import algorithms.vericom.model.DefectType;
+import algorithms.vericom.model.EmeAndScenarioId;
+import algorithms.vericom.model.FinalDefectType;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+
+/**
+ * Dictionary between the keys of defect reports and the ids of {@link Answers}: an EME and scenario is a question and
+ * a defect type is a choice. Each key is converted to its id once, while the answers are built, and the ids of the
+ * results are mapped back through the question ordinals of the answers, so neither ids are parsed nor strings built
+ * per answer or per result.
+ *
+ * @author LinX
+ */
+public final class DefectReportKeys {
+    //choices by ordinal of their defect type
+    private static final ImmutableList<ChoiceId> CHOICES = Arrays.stream( DefectType.values() ).map(
+            d -> ChoiceId.create( d.toString() ) ).collect( ImmutableList.toImmutableList() );
+
+    private static final ImmutableMap<ChoiceId, DefectType> DEFECT_TYPES = Arrays.stream( DefectType.values() )
+            .collect( ImmutableMap.toImmutableMap( DefectReportKeys::getChoice, Function.identity() ) );
+
+    private final Answers answers;
+
+    //EMEs and scenarios by question ordinal of the answers
+    private final EmeAndScenarioId[] emeAndScenarioIds;
+
+    private final ImmutableMap<EmeAndScenarioId, QuestionId> questions;
+
+    private DefectReportKeys( final Answers answers, final ImmutableMap<EmeAndScenarioId, QuestionId> questions ) {
+        this.answers = answers;
+        this.emeAndScenarioIds = questions.keySet().toArray( new EmeAndScenarioId[0] );
+        this.questions = questions;
+    }
+
+    /**
+     * @return answers of the defect reports, equal answers only once, with the dictionary of their keys
+     */
+    public static DefectReportKeys fromDefectReports( final Iterable<DefectReport> defectReports ) {
+        final Answers.Builder answers = Answers.builder().withDistinctAnswers();
+        //in order of first occurrence, as the questions of the answers
+        final Map<EmeAndScenarioId, QuestionId> questions = Maps.newLinkedHashMap();
+        defectReports.forEach( report -> answers.add( ParticipantId.create( report.getWorkerId().toInt() ),
+                questions.computeIfAbsent( report.getEmeAndScenarioId(), e -> QuestionId.create( e.toString() ) ),
+                getChoice( report.getDefectType() ) ) );
+        final Answers built = answers.build();
+        Preconditions.checkState( built.getQuestions().size() == questions.size(),
+                "Questions of the answers do not match the EMEs and scenarios." );
+        return new DefectReportKeys( built, ImmutableMap.copyOf( questions ) );
+    }
+
+    public Answers getAnswers() {
+        return this.answers;
+    }
+
+    /**
+     * @return number of questions, i.e. EMEs and scenarios reported on
+     */
+    public int getNrQuestions() {
+        return this.emeAndScenarioIds.length;
+    }
+
+    /**
+     * @param question ordinal of the question in the answers and their {@link AnswerMatrix}
+     */
+    public EmeAndScenarioId getEmeAndScenarioId( final int question ) {
+        return this.emeAndScenarioIds[question];
+    }
+
+    /**
+     * @throws NoSuchElementException if question is not a question of the answers
+     */
+    public EmeAndScenarioId getEmeAndScenarioId( final QuestionId question ) {
+        final int ordinal = this.answers.toAnswerMatrix().getOrdinal( question );
+        if (ordinal < 0) {
+            throw new NoSuchElementException( "Unknown question " + question );
+        }
+        return this.emeAndScenarioIds[ordinal];
+    }
+
+    /**
+     * @return question of the EME and scenario or null, if no defect report is about it
+     */
+    public QuestionId getQuestion( final EmeAndScenarioId emeAndScenarioId ) {
+        return this.questions.get( emeAndScenarioId );
+    }
+
+    /**
+     * @return choices of all defect types, in the order of the defect types
+     */
+    public static ImmutableList<ChoiceId> getChoices() {
+        return CHOICES;
+    }
+
+    public static ChoiceId getChoice( final DefectType defectType ) {
+        return CHOICES.get( defectType.ordinal() );
+    }
+
+    /**
+     * @throws NoSuchElementException if choice is not the choice of a defect type
+     */
+    public static DefectType getDefectType( final ChoiceId choice ) {
+        final DefectType defectType = DEFECT_TYPES.get( choice );
+        if (defectType == null) {
+            throw new NoSuchElementException( "Unknown defect type " + choice );
+        }
+        return defectType;
+    }
+
+    public static FinalDefectType getFinalDefectType( final ChoiceId choice ) {
+        return getDefectType( choice ).toFinalDefectType();
+    }
+}
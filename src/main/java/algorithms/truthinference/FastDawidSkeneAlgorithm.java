@@ -1,14 +1,13 @@
 package algorithms.truthinference;
 
-import algorithms.Id;
-import com.google.common.collect.*;
-import com.google.common.util.concurrent.AtomicDouble;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
 
-import java.util.*;
-import java.util.function.Function;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Objects;
 
 /**
  * Implements Fast-Dawid-Skene algorithm as described by:
@@ -17,305 +16,161 @@ import java.util.stream.Collectors;
  * V.B. Sinha et al.
  * 2018
  *
+ * The EM iterations are carried out by {@link DawidSkeneEngine} on the compiled {@link AnswerMatrix}.
+ *
  * @author LinX
  */
 public class FastDawidSkeneAlgorithm {
-    private static final Logger LOG = LoggerFactory.getLogger( FastDawidSkeneAlgorithm.class );
+    //stops once p_j or pi^k_jl have converged
+    private static final ConvergencePolicy DEFAULT_CONVERGENCE_POLICY = ConvergencePolicy.absoluteDelta( 0.00001,
+            100 );
 
-    //threshold under which the algorithm can be viewed as converged
-    private static final double CONVERGENCE_THRESHOLD = 0.00001;
+    private final Answers answers;
 
-    private static final int MAXIMUM_NR_ITERATIONS = 100;
+    private final Parallelism parallelism;
 
-    private final Answers answers;
+    private final ConvergencePolicy convergencePolicy;
 
     public FastDawidSkeneAlgorithm( final Answers answers ) {
-        this.answers = answers;
+        this( answers, Parallelism.sequential() );
     }
 
-    public Output run() {
-        int iteration = 0;
-
-        ImmutableMap<QuestionId, ImmutableSet<IndicatorEstimation>> classEstimations =
-                Maps.toMap( this.answers.getQuestions(), this::getInitialEstimatesForTrueClasses );
-
-        Optional<Output> output = Optional.empty();
-
-        while (true) {
-            iteration++;
-
-            //m-step / maximization step
-            //estimate for p_j
-            final ImmutableMap<ChoiceId, Double> classProbabilities = calculateClassProbabilities( classEstimations );
-            LOG.info( "estimation for pj done." );
-            //estimate for pi^k_jl
-            final ImmutableMap<ErrorRateId, ErrorRateEstimation> errorRates = calculateErrorRates( classEstimations );
-            LOG.info( "Maximization step done." );
-
-            //e-step / estimation step
-            //estimate for T_ij
-            classEstimations = reCalculateClassEstimates( errorRates, classProbabilities );
-            LOG.info( "Estimation step done." );
-
-            //calculate log likelihood -> should go up as algorithm proceeds
-            final double logLikelihood = calculateLogLikelihood( classProbabilities, errorRates );
-            LOG.info( "Log-Likelihood on iteration {}: {}", iteration, logLikelihood );
-
-            final Output newOutput = new Output( classProbabilities, errorRates, classEstimations );
-            if (iteration >= MAXIMUM_NR_ITERATIONS || output.map( o -> o.hasConverged( newOutput ) ).orElse( false )) {
-                break;
-            }
-
-            output = Optional.of( newOutput );
-            LOG.info( "=======================" );
-        }
-
-        return output.get();
+    public FastDawidSkeneAlgorithm( final Answers answers, final Parallelism parallelism ) {
+        this( answers, parallelism, DEFAULT_CONVERGENCE_POLICY );
     }
 
-    /**
-     * Calculates the log likelihood given the current parameter estimates -> should monotically go up as EM proceeds.
-     * See Equation 2.7
-     *
-     * @return likelihood
-     */
-    private double calculateLogLikelihood( final ImmutableMap<ChoiceId, Double> classProbabilities,  //pj
-            final ImmutableMap<ErrorRateId, ErrorRateEstimation> errorRates ) {                          //piKjl
-        final AtomicDouble likelihood = new AtomicDouble( 0.0 );
-        this.answers.getQuestions().forEach( question -> {
-            final AtomicDouble sumPjTimesPkjlPowerNkil = new AtomicDouble( 0.0 );
-            this.answers.getChoices().forEach( trueChoice -> {
-                final AtomicDouble productPkjlPowerNkil = new AtomicDouble( 1.0 );
-                final Double pj = classProbabilities.get( trueChoice );
-
-                this.answers.getParticipants().forEach( participant -> {
-                    final Map<ChoiceId, Long> countForEachLabel = this.answers.getAnswers( participant, question )
-                            .stream().collect( Collectors.groupingBy( Answer::getChoice, Collectors.counting() ) );
-
-                    countForEachLabel.forEach( ( choiceId, nkil ) -> {
-                        final ErrorRateEstimation errorRateEstimation = errorRates.get(
-                                new ErrorRateId( participant, choiceId, trueChoice ) );
-                        final double pikjl = errorRateEstimation.getErrorRateEstimation();
-
-                        final double pkjlPowerNkil = Math.pow( pikjl, nkil );
-                        productPkjlPowerNkil.set( productPkjlPowerNkil.get() * pkjlPowerNkil );
-                    } );
-                } );
-                sumPjTimesPkjlPowerNkil.addAndGet( pj * productPkjlPowerNkil.get() );
-            } );
-            final double patientLikelihood = sumPjTimesPkjlPowerNkil.get();
-            if (patientLikelihood != 0) {
-                final double log = Math.log( patientLikelihood );
-                likelihood.addAndGet( log );
-            }
-        } );
-
-        return likelihood.get();
+    public FastDawidSkeneAlgorithm( final Answers answers, final Parallelism parallelism,
+            final ConvergencePolicy convergencePolicy ) {
+        this.answers = answers;
+        this.parallelism = parallelism;
+        this.convergencePolicy = convergencePolicy;
     }
 
-    /**
-     * Re-calculate the question class estimates ^T_ij where i in patients and j in labels, i.e.,
-     * the estimate for the indicate variable if j is the true choiceId for question i.
-     * See Equation 2.5
-     *
-     * @param errorRateEstimations      error rate estimates
-     * @param patientClassProbabilities probabilities of each choiceId being "true"
-     * @return question class estimations for existent labels
-     */
-    private ImmutableMap<QuestionId, ImmutableSet<IndicatorEstimation>> reCalculateClassEstimates(
-            final ImmutableMap<ErrorRateId, ErrorRateEstimation> errorRateEstimations,
-            final ImmutableMap<ChoiceId, Double> patientClassProbabilities ) {
-        //e-step (same as original D&S)
-        final ImmutableMap<QuestionId, ImmutableSet<IndicatorEstimation>> estimates =
-                Maps.toMap( this.answers.getQuestions(), question -> {
-                    final ImmutableSet.Builder<IndicatorEstimation> estimations = ImmutableSet.builder();
-                    final Map<ChoiceId, Double> numerators = Maps.newHashMap();
-
-                    this.answers.getChoices().forEach( trueChoice -> {
-                        final AtomicDouble numerator = new AtomicDouble( 1.0 );
-
-                        this.answers.getParticipants().forEach( participant -> {
-                            final Map<ChoiceId, Long> countForEachLabel =
-                                    this.answers.getAnswers( participant, question ).stream().collect(
-                                            Collectors.groupingBy( Answer::getChoice, Collectors.counting() ) );
-
-                            countForEachLabel.forEach( ( choiceId, nkil ) -> {
-                                final Optional<Double> piKjl =
-                                        Optional.ofNullable( errorRateEstimations
-                                                .get( new ErrorRateId( participant, choiceId,
-                                                        trueChoice ) ) ).map(
-                                                ErrorRateEstimation::getErrorRateEstimation );
-
-                                piKjl.ifPresent( pikjl -> {
-                                    final double pikjlTimesNkil = Math.pow( pikjl, nkil );
-                                    numerator.set( numerator.get() * pikjlTimesNkil );
-                                } );
-                            } );
-
-                        } );
-
-                        final Double pj = patientClassProbabilities.get( trueChoice );
-                        numerator.set( numerator.get() * pj );
-                        numerators.put( trueChoice, numerator.get() );
-                    } );
-
-                    final double denominator = numerators.values().stream().mapToDouble( n -> n ).sum();
-
-                    numerators.forEach( ( trueChoice, numerator ) -> {
-                        estimations.add( new IndicatorEstimation( trueChoice, numerator / denominator ) );
-                    } );
-
-                    return estimations.build();
-                } );
-
-        //c-step (classification step)
-        return ImmutableMap.copyOf( Maps.transformValues( estimates, e -> {
-            final Map<ChoiceId, Double> estimatesPerChoice = e.stream().collect(
-                    ImmutableMap.toImmutableMap( IndicatorEstimation::getChoice,
-                            IndicatorEstimation::getIndicatorEstimation ) );
-            final ChoiceId choiceWithHighestEstimate = estimatesPerChoice.entrySet().stream().max(
-                    Comparator.comparingDouble( Map.Entry::getValue ) ).get().getKey();
-
-            return estimatesPerChoice.keySet().stream().map(
-                    c -> new IndicatorEstimation( c, c.equals( choiceWithHighestEstimate ) ? 1 : 0 ) ).collect(
-                    ImmutableSet.toImmutableSet() );
-        } ) );
+    public Output run() {
+        return estimate( null );
     }
 
     /**
-     * Calculate maximum likelihood estimates for individual errors rates ^pi^k_jl where k in participant, j,l in choiceId.
-     * This is an estimate for the conditional probability, that participant k will answer with l given that j is the true
-     * choiceId class.
-     * See Equation 2.3
-     * Same as D&S Equation 2.3
-     *
-     * TODO doc
+     * Runs EM starting from the class estimations of a previous run instead of the majority vote. Questions not
+     * estimated by the previous run are initialized with the majority vote as usual.
      */
-    private ImmutableMap<ErrorRateId, ErrorRateEstimation> calculateErrorRates(
-            final ImmutableMap<QuestionId, ImmutableSet<IndicatorEstimation>> classEstimations ) {
-
-        final Set<ErrorRateEstimation> estimations = Sets.newHashSet();
-
-        this.answers.getParticipants().forEach( participant -> { //k
-            this.answers.getChoices().forEach( trueChoice -> { //l
-                this.answers.getChoices().forEach( choiceId -> { //j
-                    final AtomicDouble numerator = new AtomicDouble( 0.0 );
-                    final AtomicDouble denominator = new AtomicDouble( 0.0 );
-
-                    this.answers.getQuestions().forEach( question -> {
-                        final double Tij = classEstimations.get( question ).stream().filter(
-                                p -> p.getChoice().equals( trueChoice ) ).findFirst().map(
-                                IndicatorEstimation::getIndicatorEstimation ).orElse( 0.0 );
-                        final ImmutableMultiset<Answer> answers = this.answers.getAnswers( participant, question );
-
-                        final long nkil = answers.stream().filter( o -> o.getChoice().equals( choiceId ) ).count();
-
-                        numerator.addAndGet( Tij * nkil );
-
-                        final Map<ChoiceId, Long> countForEachChoice = answers.stream().collect(
-                                Collectors.groupingBy( Answer::getChoice, Collectors.counting() ) );
+    public Output run( final Output previous ) {
+        return estimate( Maps.transformValues( previous.getClassEstimations(),
+                estimations -> estimations.stream().collect( ImmutableMap.toImmutableMap(
+                        IndicatorEstimation::getChoice, IndicatorEstimation::getIndicatorEstimation ) ) ) );
+    }
 
-                        countForEachChoice.values().forEach(
-                                c -> denominator.addAndGet( Tij * c ) );
-                    } );
+    private Output estimate( final Map<QuestionId, ? extends Map<ChoiceId, Double>> warmStart ) {
+        final DawidSkeneEngine.Estimates estimates = DawidSkeneEngine.builder( this.answers.toAnswerMatrix() )
+                .withConvergencePolicy( this.convergencePolicy ).withHardMajorityInitialization()
+                .withClassificationStep().withParallelism( this.parallelism ).withWarmStart( warmStart ).build()
+                .run();
+        return toOutput( estimates );
+    }
 
-                    estimations.add( new ErrorRateEstimation( participant, choiceId, trueChoice,
-                            denominator.doubleValue() == 0 ?
-                                    0 :
-                                    numerator.doubleValue() / denominator.doubleValue() ) );
-                } );
-            } );
-        } );
+    private Output toOutput( final DawidSkeneEngine.Estimates estimates ) {
+        final AnswerMatrix matrix = estimates.getMatrix();
 
-        return estimations.stream().collect(
-                ImmutableMap.toImmutableMap( ErrorRateEstimation::getErrorRateId, Function.identity() ) );
-    }
+        final ImmutableMap.Builder<ChoiceId, Double> classProbabilities = ImmutableMap.builder();
+        for (int j = 0; j < matrix.getNrChoices(); j++) {
+            classProbabilities.put( matrix.getChoice( j ), estimates.getClassProbability( j ) );
+        }
 
-    /**
-     * Calculate ^p_j where j in labels, i.e., probability of choiceId j being chosen for a random question.
-     * ^p_j's are marginal probabilities. ^p_j is an estimate for the probability of j being the true choiceId for a random
-     * question.
-     * Same as D&S Equation 2.4.
-     *
-     * TODO fix doc
-     *
-     * @param classEstimations all ^T_ij
-     */
-    private ImmutableMap<ChoiceId, Double> calculateClassProbabilities(
-            final ImmutableMap<QuestionId, ImmutableSet<IndicatorEstimation>> classEstimations ) {
-        final int nrQuestions = this.answers.getQuestions().size();
-
-        final Map<ChoiceId, Double> sumOfClassEstimations =
-                classEstimations.values().stream().flatMap(
-                        p -> p.stream().map( e -> new AbstractMap.SimpleImmutableEntry<>( e.getChoice(),
-                                e.getIndicatorEstimation() ) ) ).collect(
-                        Collectors.groupingBy( AbstractMap.SimpleImmutableEntry::getKey, Collectors.summingDouble(
-                                AbstractMap.SimpleImmutableEntry::getValue ) ) );
-
-        return ImmutableMap.copyOf( Maps.transformValues( sumOfClassEstimations, e -> e / nrQuestions ) );
-    }
+        final ImmutableMap.Builder<QuestionId, ImmutableSet<IndicatorEstimation>> classEstimations =
+                ImmutableMap.builder();
+        for (int i = 0; i < matrix.getNrQuestions(); i++) {
+            final ImmutableSet.Builder<IndicatorEstimation> estimations = ImmutableSet.builder();
+            for (int j = 0; j < matrix.getNrChoices(); j++) {
+                estimations.add( new IndicatorEstimation( matrix.getChoice( j ),
+                        estimates.getClassEstimation( i, j ) ) );
+            }
+            classEstimations.put( matrix.getQuestion( i ), estimations.build() );
+        }
 
-    /**
-     * Calculate the initial class estimates ^T_qc where q in questions and c in choices.
-     * Counts the number of answers containing each choice for the specified question and estimates the true choice being the
-     * one that was contained in the maximum of answers. In case more than one choice contains the same agreement coefficient,
-     * any of these choices is returned.
-     * See equation 2.
-     *
-     * @param questionId question id
-     * @return choice id with the highest number of occurrence for question
-     */
-    private ImmutableSet<IndicatorEstimation> getInitialEstimatesForTrueClasses(
-            final QuestionId questionId ) {
-        final ImmutableMultiset<Answer> answers = this.answers.getAnswers( questionId );
-        final Map<ChoiceId, Long> nrAnswersPerChoice = answers.stream().collect( Collectors.groupingBy(
-                Answer::getChoice, Collectors.counting() ) );
-        final ChoiceId choiceWithHighestOccurrence = nrAnswersPerChoice.entrySet().stream().max(
-                Comparator.comparingLong( Map.Entry::getValue ) ).get().getKey();
-
-        return nrAnswersPerChoice.keySet().stream().map(
-                c -> new IndicatorEstimation( c, c.equals( choiceWithHighestOccurrence ) ? 1 : 0 ) ).collect(
-                ImmutableSet.toImmutableSet() );
+        return new Output( classProbabilities.build(), estimates.getConfusionMatrices(), classEstimations.build(),
+                estimates.getLogLikelihood(), estimates.getTrace() );
     }
 
     public final class Output {
         private final ImmutableMap<ChoiceId, Double> classProbabilities;
 
-        private final ImmutableMap<ErrorRateId, ErrorRateEstimation> errorRates;
+        private final ConfusionMatrices confusionMatrices;
 
+        //view of the confusion matrices by error rate id, only built if requested
+        private final Supplier<ImmutableMap<ErrorRateId, ErrorRateEstimation>> errorRates = Suppliers.memoize(
+                this::toErrorRates );
+
+        //in order of the question ordinals of the answer matrix
         private final ImmutableMap<QuestionId, ImmutableSet<IndicatorEstimation>> classEstimations;
 
+        private final double logLikelihood;
+
+        private final ConvergenceTrace trace;
+
         public Output(
                 final ImmutableMap<ChoiceId, Double> classProbabilities,
-                final ImmutableMap<ErrorRateId, ErrorRateEstimation> errorRates,
-                final ImmutableMap<QuestionId, ImmutableSet<IndicatorEstimation>> classEstimations ) {
+                final ConfusionMatrices confusionMatrices,
+                final ImmutableMap<QuestionId, ImmutableSet<IndicatorEstimation>> classEstimations,
+                final double logLikelihood, final ConvergenceTrace trace ) {
             this.classProbabilities = classProbabilities;
-            this.errorRates = errorRates;
+            this.confusionMatrices = confusionMatrices;
             this.classEstimations = classEstimations;
+            this.logLikelihood = logLikelihood;
+            this.trace = trace;
         }
 
         public ImmutableMap<ChoiceId, Double> getClassProbabilities() {
             return this.classProbabilities;
         }
 
+        /**
+         * @return pi^k_jl indexed by ordinals of the answer matrix
+         */
+        public ConfusionMatrices getConfusionMatrices() {
+            return this.confusionMatrices;
+        }
+
+        /**
+         * @return pi^k_jl by error rate id, built from the confusion matrices on first access
+         */
         public ImmutableMap<ErrorRateId, ErrorRateEstimation> getErrorRates() {
-            return this.errorRates;
+            return this.errorRates.get();
+        }
+
+        private ImmutableMap<ErrorRateId, ErrorRateEstimation> toErrorRates() {
+            final AnswerMatrix matrix = this.confusionMatrices.getMatrix();
+            final ImmutableMap.Builder<ErrorRateId, ErrorRateEstimation> errorRates = ImmutableMap.builder();
+            this.confusionMatrices.forEach( ( k, j, l, errorRate ) -> {
+                final ErrorRateEstimation estimation = new ErrorRateEstimation( matrix.getParticipant( k ),
+                        matrix.getChoice( l ), matrix.getChoice( j ), errorRate );
+                errorRates.put( estimation.getErrorRateId(), estimation );
+            } );
+            return errorRates.build();
         }
 
         public ImmutableMap<QuestionId, ImmutableSet<IndicatorEstimation>> getClassEstimations() {
             return this.classEstimations;
         }
 
-        public boolean hasConverged( final Output other ) {
-            final double deltaPatientClassProbabilities =
-                    this.classProbabilities.entrySet().stream().mapToDouble(
-                            e -> Math.abs( other.classProbabilities.get( e.getKey() ) - e.getValue() ) ).sum();
-            final double deltaErrorRates = this.errorRates.entrySet().stream().mapToDouble(
-                    e -> Math.abs( other.errorRates.get( e.getKey() ).getErrorRateEstimation() -
-                            e.getValue().getErrorRateEstimation() ) ).sum();
-            LOG.info( "Delta pj: {}. Delta pikjl: {}.", deltaPatientClassProbabilities, deltaErrorRates );
+        /**
+         * @param question ordinal of the question in the answer matrix
+         */
+        public ImmutableSet<IndicatorEstimation> getClassEstimations( final int question ) {
+            return this.classEstimations.values().asList().get( question );
+        }
 
-            return deltaPatientClassProbabilities < CONVERGENCE_THRESHOLD || deltaErrorRates < CONVERGENCE_THRESHOLD;
+        /**
+         * @return log likelihood of the estimated class probabilities and error rates
+         */
+        public double getLogLikelihood() {
+            return this.logLikelihood;
+        }
+
+        /**
+         * @return delta, log likelihood and time spent of every iteration
+         */
+        public ConvergenceTrace getTrace() {
+            return this.trace;
         }
     }
 
@@ -346,10 +201,54 @@ public class FastDawidSkeneAlgorithm {
         }
     }
 
-    public static final class ErrorRateId extends Id<String> {
+    public static final class ErrorRateId {
+        private final ParticipantId participantId;
+
+        private final ChoiceId answeredLabel;
+
+        private final ChoiceId estimatedTrueLabel;
+
         public ErrorRateId( final ParticipantId participantId, final ChoiceId answeredLabel,
                 final ChoiceId estimatedTrueLabel ) {
-            super( "k=" + participantId + "|l=" + answeredLabel + "j=" + estimatedTrueLabel );
+            this.participantId = participantId;
+            this.answeredLabel = answeredLabel;
+            this.estimatedTrueLabel = estimatedTrueLabel;
+        }
+
+        public ParticipantId getParticipantId() {
+            return this.participantId;
+        }
+
+        public ChoiceId getAnsweredLabel() {
+            return this.answeredLabel;
+        }
+
+        public ChoiceId getEstimatedTrueLabel() {
+            return this.estimatedTrueLabel;
+        }
+
+        @Override
+        public boolean equals( final Object o ) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            final ErrorRateId that = (ErrorRateId) o;
+            return Objects.equals( this.participantId, that.participantId ) &&
+                    Objects.equals( this.answeredLabel, that.answeredLabel ) &&
+                    Objects.equals( this.estimatedTrueLabel, that.estimatedTrueLabel );
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash( this.participantId, this.answeredLabel, this.estimatedTrueLabel );
+        }
+
+        @Override
+        public String toString() {
+            return "k=" + this.participantId + "|l=" + this.answeredLabel + "j=" + this.estimatedTrueLabel;
         }
     }
 
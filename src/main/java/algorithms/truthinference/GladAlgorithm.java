@@ -1,7 +1,359 @@
 package algorithms.truthinference;
 
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+
 /**
+ * Implements GLAD algorithm from:
+ *
+ * Whose Vote Should Count More: Optimal Integration of Labels from Labelers of Unknown Expertise
+ * J. Whitehill et al.
+ * 2009
+ *
+ * A participant k answers question i correctly with probability sigma(alpha_k * beta_i), where alpha_k is the expertise
+ * of the participant and 1 / beta_i the difficulty of the question, and picks one of the other choices uniformly
+ * otherwise. beta_i = exp(b_i) is estimated in log space to keep it positive. The parameters are kept in one primitive
+ * vector [alpha_0, ..., alpha_k, b_0, ..., b_i], which the M-step optimizes for all participants and questions at once
+ * with {@link Lbfgs}. Gaussian priors on alpha_k and b_i keep the parameters of participants and questions with few
+ * answers finite. Unlike the original paper, the class probabilities p_j are estimated as well.
+ *
  * @author LinX
  */
 public class GladAlgorithm {
+    private static final Logger LOG = LoggerFactory.getLogger( GladAlgorithm.class );
+
+    //stops once alpha_k and b_i have converged
+    private static final ConvergencePolicy DEFAULT_CONVERGENCE_POLICY = ConvergencePolicy.absoluteDelta( 0.00001,
+            100 );
+
+    //means of the Gaussian priors with unit variance, i.e. an expertise of 1 and a difficulty of 1
+    private static final double ALPHA_PRIOR_MEAN = 1;
+
+    private static final double B_PRIOR_MEAN = 0;
+
+    private static final int LBFGS_MEMORY = 5;
+
+    private static final int MAXIMUM_NR_LBFGS_ITERATIONS = 25;
+
+    private static final double LBFGS_GRADIENT_TOLERANCE = 1e-6;
+
+    private final Answers answers;
+
+    private final Parallelism parallelism;
+
+    private final ConvergencePolicy convergencePolicy;
+
+    public GladAlgorithm( final Answers answers ) {
+        this( answers, Parallelism.sequential() );
+    }
+
+    public GladAlgorithm( final Answers answers, final Parallelism parallelism ) {
+        this( answers, parallelism, DEFAULT_CONVERGENCE_POLICY );
+    }
+
+    public GladAlgorithm( final Answers answers, final Parallelism parallelism,
+            final ConvergencePolicy convergencePolicy ) {
+        this.answers = answers;
+        this.parallelism = parallelism;
+        this.convergencePolicy = convergencePolicy;
+    }
+
+    public Output run() {
+        final AnswerMatrix matrix = this.answers.toAnswerMatrix();
+        final int nrParticipants = matrix.getNrParticipants();
+        final int nrChoices = matrix.getNrChoices();
+        final ConvergencePolicy.Tracker tracker = this.convergencePolicy.track();
+
+        //all buffers are allocated up front and reused by every iteration
+        final double[] parameters = new double[nrParticipants + matrix.getNrQuestions()];
+        final double[] previousParameters = new double[parameters.length];
+        final double[] classEstimations = new double[matrix.getNrQuestions() * nrChoices];
+        final double[] logClassProbabilities = new double[nrChoices];
+        final Lbfgs lbfgs = new Lbfgs( parameters.length, LBFGS_MEMORY );
+
+        Arrays.fill( parameters, 0, nrParticipants, ALPHA_PRIOR_MEAN );
+        Arrays.fill( parameters, nrParticipants, parameters.length, B_PRIOR_MEAN );
+        Arrays.fill( logClassProbabilities, -Math.log( nrChoices ) );
+        double logLikelihood = calculateClassEstimations( matrix, parameters, logClassProbabilities,
+                classEstimations );
+
+        while (true) {
+            LOG.info( "Starting iteration {}.", tracker.getIteration() + 1 );
+            System.arraycopy( parameters, 0, previousParameters, 0, parameters.length );
+
+            //m-step / maximization step
+            calculateLogClassProbabilities( matrix, classEstimations, logClassProbabilities );
+            lbfgs.minimize( ( x, gradient ) -> negativeExpectedLogPosterior( matrix, classEstimations, x, gradient ),
+                    parameters, MAXIMUM_NR_LBFGS_ITERATIONS, LBFGS_GRADIENT_TOLERANCE );
+
+            //e-step / estimation step
+            logLikelihood = calculateClassEstimations( matrix, parameters, logClassProbabilities, classEstimations );
+
+            if (tracker.iterationFinished( ConvergencePolicy.Delta.between( previousParameters, parameters ),
+                    logLikelihood )) {
+                break;
+            }
+        }
+
+        return toOutput( matrix, parameters, logClassProbabilities, classEstimations, logLikelihood,
+                tracker.getTrace() );
+    }
+
+    /**
+     * E-step: P(z_i = j | answers, alpha, beta), computed in log space and normalized with log-sum-exp.
+     *
+     * @param classEstimations target for the class estimations, indexed by [question * #choices + choice]
+     * @return log likelihood of the answers given the parameters, i.e. the sum of the log normalizers
+     */
+    private double calculateClassEstimations( final AnswerMatrix matrix, final double[] parameters,
+            final double[] logClassProbabilities, final double[] classEstimations ) {
+        final int nrParticipants = matrix.getNrParticipants();
+        final int nrChoices = matrix.getNrChoices();
+        final double logNrWrongChoices = Math.log( nrChoices - 1 );
+        return this.parallelism.sum( matrix.getNrQuestions(), ( from, to ) -> {
+            double logLikelihood = 0;
+            for (int question = from; question < to; question++) {
+                final int offset = question * nrChoices;
+                System.arraycopy( logClassProbabilities, 0, classEstimations, offset, nrChoices );
+                final double beta = Math.exp( parameters[nrParticipants + question] );
+                for (int a = matrix.getQuestionAnswersStart( question ); a < matrix.getQuestionAnswersEnd( question );
+                     a++) {
+                    final double x = parameters[matrix.getParticipantOfQuestionAnswer( a )] * beta;
+                    final int choice = matrix.getChoiceOfQuestionAnswer( a );
+                    final double logCorrect = logSigmoid( x );
+                    final double logWrong = logSigmoid( -x ) - logNrWrongChoices;
+                    for (int j = 0; j < nrChoices; j++) {
+                        classEstimations[offset + j] += j == choice ? logCorrect : logWrong;
+                    }
+                }
+                logLikelihood += LogSpace.normalize( classEstimations, offset, offset + nrChoices );
+            }
+            return logLikelihood;
+        } );
+    }
+
+    /**
+     * M-step for p_j = 1/#questions * sum_i T_ij.
+     */
+    private void calculateLogClassProbabilities( final AnswerMatrix matrix, final double[] classEstimations,
+            final double[] logClassProbabilities ) {
+        final int nrChoices = matrix.getNrChoices();
+        final double[] sums = this.parallelism.sum( matrix.getNrQuestions(), nrChoices, ( from, to, target ) -> {
+            for (int question = from; question < to; question++) {
+                for (int j = 0; j < nrChoices; j++) {
+                    target[j] += classEstimations[question * nrChoices + j];
+                }
+            }
+        } );
+        for (int j = 0; j < nrChoices; j++) {
+            logClassProbabilities[j] = LogSpace.log( sums[j] / matrix.getNrQuestions() );
+        }
+    }
+
+    /**
+     * Objective of the M-step for alpha_k and b_i, the negative of
+     *
+     * sum_(k,i) [T_i,l(k,i) * log sigma(alpha_k * beta_i) + (1 - T_i,l(k,i)) * log(1 - sigma(alpha_k * beta_i))]
+     * + log P(alpha) + log P(b)
+     *
+     * where l(k,i) is the answer of participant k to question i. The terms not depending on alpha_k and b_i are left
+     * out. The gradient with respect to alpha_k is summed over the answers of participant k and the gradient with
+     * respect to b_i over the answers to question i, so both are computed in parallel without synchronization.
+     */
+    private double negativeExpectedLogPosterior( final AnswerMatrix matrix, final double[] classEstimations,
+            final double[] parameters, final double[] gradient ) {
+        final int nrParticipants = matrix.getNrParticipants();
+        final int nrChoices = matrix.getNrChoices();
+
+        this.parallelism.forEach( nrParticipants, ( from, to ) -> {
+            for (int participant = from; participant < to; participant++) {
+                final double alpha = parameters[participant];
+                double derivative = -(alpha - ALPHA_PRIOR_MEAN);
+                for (int a = matrix.getParticipantAnswersStart( participant );
+                     a < matrix.getParticipantAnswersEnd( participant ); a++) {
+                    final int question = matrix.getQuestionOfParticipantAnswer( a );
+                    final double beta = Math.exp( parameters[nrParticipants + question] );
+                    final double correct = classEstimations[question * nrChoices + matrix
+                            .getChoiceOfParticipantAnswer( a )];
+                    derivative += (correct - sigmoid( alpha * beta )) * beta;
+                }
+                gradient[participant] = -derivative;
+            }
+        } );
+
+        return -this.parallelism.sum( matrix.getNrQuestions(), ( from, to ) -> {
+            double value = 0;
+            for (int question = from; question < to; question++) {
+                final double b = parameters[nrParticipants + question];
+                final double beta = Math.exp( b );
+                double derivative = -(b - B_PRIOR_MEAN);
+                value -= (b - B_PRIOR_MEAN) * (b - B_PRIOR_MEAN) / 2;
+                for (int a = matrix.getQuestionAnswersStart( question ); a < matrix.getQuestionAnswersEnd( question );
+                     a++) {
+                    final double alpha = parameters[matrix.getParticipantOfQuestionAnswer( a )];
+                    final double x = alpha * beta;
+                    final double correct = classEstimations[question * nrChoices + matrix
+                            .getChoiceOfQuestionAnswer( a )];
+                    value += correct * logSigmoid( x ) + (1 - correct) * logSigmoid( -x );
+                    derivative += (correct - sigmoid( x )) * x;
+                }
+                gradient[nrParticipants + question] = -derivative;
+            }
+            return value;
+        } ) - this.parallelism.sum( nrParticipants, ( from, to ) -> {
+            double value = 0;
+            for (int participant = from; participant < to; participant++) {
+                value -= (parameters[participant] - ALPHA_PRIOR_MEAN) * (parameters[participant] - ALPHA_PRIOR_MEAN) /
+                        2;
+            }
+            return value;
+        } );
+    }
+
+    private static double sigmoid( final double x ) {
+        return 1 / (1 + Math.exp( -x ));
+    }
+
+    /**
+     * @return log(sigma(x)), without overflow for large negative x
+     */
+    private static double logSigmoid( final double x ) {
+        return x >= 0 ? -Math.log1p( Math.exp( -x ) ) : x - Math.log1p( Math.exp( x ) );
+    }
+
+    private Output toOutput( final AnswerMatrix matrix, final double[] parameters,
+            final double[] logClassProbabilities, final double[] classEstimations, final double logLikelihood,
+            final ConvergenceTrace trace ) {
+        final int nrParticipants = matrix.getNrParticipants();
+        final int nrChoices = matrix.getNrChoices();
+
+        final ImmutableMap.Builder<ChoiceId, Double> classProbabilities = ImmutableMap.builder();
+        for (int j = 0; j < nrChoices; j++) {
+            classProbabilities.put( matrix.getChoice( j ), Math.exp( logClassProbabilities[j] ) );
+        }
+
+        final ImmutableMap.Builder<QuestionId, ImmutableSet<ClassEstimation>> classEstimationsByQuestion =
+                ImmutableMap.builder();
+        final ImmutableMap.Builder<QuestionId, Double> inverseDifficulties = ImmutableMap.builder();
+        for (int q = 0; q < matrix.getNrQuestions(); q++) {
+            final ImmutableSet.Builder<ClassEstimation> estimations = ImmutableSet.builder();
+            for (int j = 0; j < nrChoices; j++) {
+                estimations.add( new ClassEstimation( matrix.getChoice( j ), classEstimations[q * nrChoices + j] ) );
+            }
+            classEstimationsByQuestion.put( matrix.getQuestion( q ), estimations.build() );
+            inverseDifficulties.put( matrix.getQuestion( q ), Math.exp( parameters[nrParticipants + q] ) );
+        }
+
+        final ImmutableMap.Builder<ParticipantId, Double> expertises = ImmutableMap.builder();
+        for (int k = 0; k < nrParticipants; k++) {
+            expertises.put( matrix.getParticipant( k ), parameters[k] );
+        }
+        return new Output( classProbabilities.build(), classEstimationsByQuestion.build(), expertises.build(),
+                inverseDifficulties.build(), logLikelihood, trace );
+    }
+
+    public final class Output {
+        private final ImmutableMap<ChoiceId, Double> classProbabilities;
+
+        //in order of the question ordinals of the answer matrix
+        private final ImmutableMap<QuestionId, ImmutableSet<ClassEstimation>> classEstimations;
+
+        private final ImmutableMap<ParticipantId, Double> expertises;
+
+        private final ImmutableMap<QuestionId, Double> inverseDifficulties;
+
+        private final double logLikelihood;
+
+        private final ConvergenceTrace trace;
+
+        public Output( final ImmutableMap<ChoiceId, Double> classProbabilities,
+                final ImmutableMap<QuestionId, ImmutableSet<ClassEstimation>> classEstimations,
+                final ImmutableMap<ParticipantId, Double> expertises,
+                final ImmutableMap<QuestionId, Double> inverseDifficulties, final double logLikelihood,
+                final ConvergenceTrace trace ) {
+            this.classProbabilities = classProbabilities;
+            this.classEstimations = classEstimations;
+            this.expertises = expertises;
+            this.inverseDifficulties = inverseDifficulties;
+            this.logLikelihood = logLikelihood;
+            this.trace = trace;
+        }
+
+        /**
+         * @return p_j
+         */
+        public ImmutableMap<ChoiceId, Double> getClassProbabilities() {
+            return this.classProbabilities;
+        }
+
+        public ImmutableMap<QuestionId, ImmutableSet<ClassEstimation>> getClassEstimations() {
+            return this.classEstimations;
+        }
+
+        /**
+         * @param question ordinal of the question in the answer matrix
+         */
+        public ImmutableSet<ClassEstimation> getClassEstimations( final int question ) {
+            return this.classEstimations.values().asList().get( question );
+        }
+
+        /**
+         * @return alpha_k, negative for participants answering adversarially, 0 for participants answering randomly
+         */
+        public ImmutableMap<ParticipantId, Double> getExpertises() {
+            return this.expertises;
+        }
+
+        /**
+         * @return beta_i, the higher the easier the question
+         */
+        public ImmutableMap<QuestionId, Double> getInverseDifficulties() {
+            return this.inverseDifficulties;
+        }
+
+        /**
+         * @return log likelihood of the answers given the estimated parameters
+         */
+        public double getLogLikelihood() {
+            return this.logLikelihood;
+        }
+
+        /**
+         * @return delta, log likelihood and time spent of every iteration
+         */
+        public ConvergenceTrace getTrace() {
+            return this.trace;
+        }
+    }
+
+    public static final class ClassEstimation {
+        private final ChoiceId choice;
+
+        private final double estimation;
+
+        public ClassEstimation( final ChoiceId choice, final double estimation ) {
+            this.choice = choice;
+            this.estimation = estimation;
+        }
+
+        public ChoiceId getChoice() {
+            return this.choice;
+        }
+
+        public double getEstimation() {
+            return this.estimation;
+        }
+
+        @Override
+        public String toString() {
+            return "ClassEstimation{" +
+                    "choice=" + this.choice +
+                    ", estimation=" + this.estimation +
+                    '}';
+        }
+    }
 }
@@ -0,0 +1,526 @@
+package algorithms.truthinference;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * D&S (see {@link DawidSkeneAlgorithm}) which is updated as answers arrive, instead of re-running EM over all answers.
+ *
+ * The sufficient statistics of the m-step are kept up to date: sum_i T_ij for p_j, and sum_i T_ij n_kil respectively
+ * sum_i T_ij n_ki for pi^k_jl. Adding answers only touches the questions they belong to: the e-step is performed
+ * locally for them with the current estimates, and their old contribution to the statistics is replaced by the new
+ * one. This is repeated a bounded number of times, each time refreshing p_j and pi^k_jl from the statistics, so an
+ * update costs O(#answers of the affected questions * J^2) instead of a full run.
+ *
+ * New questions are initialized with the fraction of answers per choice, as in the full run. As local updates only
+ * approximate EM, a full run over all answers can be triggered periodically (see {@link
+ * Builder#withFullEmEvery(int)}) or explicitly with {@link #runFullEm()}.
+ *
+ * The set of choices is fixed on construction. Not thread-safe, callers have to synchronize.
+ *
+ * @author LinX
+ */
+public final class IncrementalDawidSkene {
+    private static final Logger LOG = LoggerFactory.getLogger( IncrementalDawidSkene.class );
+
+    //statistics below are treated as 0, as they are only left over from subtracting contributions
+    private static final double EPSILON = 1e-12;
+
+    private final ImmutableList<ChoiceId> choices;
+
+    private final ImmutableMap<ChoiceId, Integer> choiceOrdinals;
+
+    private final int nrChoices;
+
+    private final int nrLocalIterations;
+
+    private final int fullEmEvery;
+
+    private final boolean distinctAnswers;
+
+    private final ConvergencePolicy convergencePolicy;
+
+    private final Parallelism parallelism;
+
+    private final Map<QuestionId, Integer> questionOrdinals = Maps.newHashMap();
+
+    private final List<QuestionId> questions = Lists.newArrayList();
+
+    private final Map<ParticipantId, Integer> participantOrdinals = Maps.newHashMap();
+
+    private final List<ParticipantId> participants = Lists.newArrayList();
+
+    //distinct participants answering question q and their number of answers per choice
+    private final List<Observations> observations = Lists.newArrayList();
+
+    //all answers in arrival order, to compile the answer matrix for full runs
+    private int[] questionColumn = new int[16];
+
+    private int[] participantColumn = new int[16];
+
+    private int[] choiceColumn = new int[16];
+
+    private int nrAnswers;
+
+    private int nrAnswersSinceFullEm;
+
+    //T_ij
+    private double[] classEstimations = new double[0];
+
+    //sum_i T_ij
+    private final double[] classTotals;
+
+    //sum_i T_ij n_kil at [k * J * J + j * J + l]
+    private double[] errorRateNumerators = new double[0];
+
+    //sum_i T_ij n_ki at [k * J + j]
+    private double[] errorRateDenominators = new double[0];
+
+    //questions affected by the current update, in order of their first answer in it
+    private int[] affected = new int[16];
+
+    private boolean[] isAffected = new boolean[0];
+
+    private final double[] logJoint;
+
+    private IncrementalDawidSkene( final Builder builder ) {
+        this.choices = builder.choices;
+        this.choiceOrdinals = Maps.toMap( this.choices, this.choices::indexOf );
+        this.nrChoices = this.choices.size();
+        this.nrLocalIterations = builder.nrLocalIterations;
+        this.fullEmEvery = builder.fullEmEvery;
+        this.distinctAnswers = builder.distinctAnswers;
+        this.convergencePolicy = builder.convergencePolicy;
+        this.parallelism = builder.parallelism;
+        this.classTotals = new double[this.nrChoices];
+        this.logJoint = new double[this.nrChoices];
+    }
+
+    public void add( final Answer answer ) {
+        addAll( ImmutableList.of( answer ) );
+    }
+
+    /**
+     * Adds a batch of answers and updates the estimates of the questions they belong to. Triggers a full run, if
+     * configured and due.
+     *
+     * @throws IllegalArgumentException if an answer has a choice not configured on construction
+     */
+    public void addAll( final Iterable<Answer> answers ) {
+        //all choices are resolved before any state is changed, so a rejected batch leaves the estimates untouched
+        final ImmutableList<Answer> batch = ImmutableList.copyOf( answers );
+        final int[] choices = new int[batch.size()];
+        for (int b = 0; b < batch.size(); b++) {
+            final Integer choice = this.choiceOrdinals.get( batch.get( b ).getChoice() );
+            Preconditions.checkArgument( choice != null, "Unknown choice %s, expected one of %s.",
+                    batch.get( b ).getChoice(), this.choices );
+            choices[b] = choice;
+        }
+
+        int nrAffected = 0;
+        for (int b = 0; b < batch.size(); b++) {
+            final Answer answer = batch.get( b );
+            final int choice = choices[b];
+            final int participant = intern( answer.getParticipantId() );
+            final int question = intern( answer.getQuestionId() );
+            final Observations questionObservations = this.observations.get( question );
+            if (this.distinctAnswers && questionObservations.getCount( participant, choice ) > 0) {
+                continue;
+            }
+
+            if (!this.isAffected[question]) {
+                //the contribution has to be removed with the observations it was added with
+                if (questionObservations.size > 0) {
+                    contribute( question, -1 );
+                }
+                this.isAffected[question] = true;
+                if (nrAffected == this.affected.length) {
+                    this.affected = Arrays.copyOf( this.affected, nrAffected * 2 );
+                }
+                this.affected[nrAffected++] = question;
+            }
+            questionObservations.add( participant, choice );
+            addToColumns( question, participant, choice );
+        }
+
+        for (int a = 0; a < nrAffected; a++) {
+            final int question = this.affected[a];
+            if (isUninitialized( question )) {
+                initializeClassEstimations( question );
+            }
+            contribute( question, 1 );
+        }
+        for (int iteration = 0; iteration < this.nrLocalIterations; iteration++) {
+            for (int a = 0; a < nrAffected; a++) {
+                final int question = this.affected[a];
+                calculateClassEstimations( question );
+                contribute( question, -1 );
+                System.arraycopy( this.logJoint, 0, this.classEstimations, question * this.nrChoices,
+                        this.nrChoices );
+                contribute( question, 1 );
+            }
+        }
+        for (int a = 0; a < nrAffected; a++) {
+            this.isAffected[this.affected[a]] = false;
+        }
+
+        if (this.fullEmEvery > 0 && this.nrAnswersSinceFullEm >= this.fullEmEvery) {
+            runFullEm();
+        }
+    }
+
+    /**
+     * Runs EM over all answers with {@link DawidSkeneEngine} and replaces the statistics with its result.
+     *
+     * @return trace of the full run
+     */
+    public ConvergenceTrace runFullEm() {
+        Preconditions.checkState( this.nrAnswers > 0, "Full EM needs at least one answer." );
+        final AnswerMatrix matrix = AnswerMatrix.compile( this.questions, this.participants, this.choices,
+                Arrays.copyOf( this.questionColumn, this.nrAnswers ),
+                Arrays.copyOf( this.participantColumn, this.nrAnswers ),
+                Arrays.copyOf( this.choiceColumn, this.nrAnswers ) );
+        final DawidSkeneEngine.Estimates estimates = DawidSkeneEngine.builder( matrix ).withConvergencePolicy(
+                this.convergencePolicy ).withParallelism( this.parallelism ).build().run();
+
+        for (int q = 0; q < matrix.getNrQuestions(); q++) {
+            for (int j = 0; j < this.nrChoices; j++) {
+                this.classEstimations[q * this.nrChoices + j] = estimates.getClassEstimation( q, j );
+            }
+        }
+        Arrays.fill( this.classTotals, 0 );
+        Arrays.fill( this.errorRateNumerators, 0 );
+        Arrays.fill( this.errorRateDenominators, 0 );
+        for (int q = 0; q < this.questions.size(); q++) {
+            contribute( q, 1 );
+        }
+        this.nrAnswersSinceFullEm = 0;
+        LOG.info( "Full EM run over #{} answers after {} iterations.", this.nrAnswers,
+                estimates.getTrace().getNrIterations() );
+        return estimates.getTrace();
+    }
+
+    public ImmutableList<ChoiceId> getChoices() {
+        return this.choices;
+    }
+
+    public ImmutableSet<QuestionId> getQuestions() {
+        return ImmutableSet.copyOf( this.questions );
+    }
+
+    public ImmutableSet<ParticipantId> getParticipants() {
+        return ImmutableSet.copyOf( this.participants );
+    }
+
+    public int getNrAnswers() {
+        return this.nrAnswers;
+    }
+
+    /**
+     * @return T_ij for all choices j, empty if the question has no answers yet
+     */
+    public ImmutableMap<ChoiceId, Double> getClassEstimations( final QuestionId question ) {
+        final Integer q = this.questionOrdinals.get( question );
+        if (q == null) {
+            return ImmutableMap.of();
+        }
+        final ImmutableMap.Builder<ChoiceId, Double> estimations = ImmutableMap.builderWithExpectedSize(
+                this.nrChoices );
+        for (int j = 0; j < this.nrChoices; j++) {
+            estimations.put( this.choices.get( j ), this.classEstimations[q * this.nrChoices + j] );
+        }
+        return estimations.build();
+    }
+
+    /**
+     * @return p_j
+     */
+    public double getClassProbability( final ChoiceId choice ) {
+        final Integer j = this.choiceOrdinals.get( choice );
+        return j == null ? 0 : classProbability( j );
+    }
+
+    /**
+     * @return pi^k_jl, 0 if participant or labels are not known
+     */
+    public double getErrorRate( final ParticipantId participant, final ChoiceId trueLabel,
+            final ChoiceId answeredLabel ) {
+        final Integer k = this.participantOrdinals.get( participant );
+        final Integer j = this.choiceOrdinals.get( trueLabel );
+        final Integer l = this.choiceOrdinals.get( answeredLabel );
+        return k == null || j == null || l == null ? 0 : errorRate( k, j, l );
+    }
+
+    private double classProbability( final int choice ) {
+        return this.questions.isEmpty() ? 0 : this.classTotals[choice] / this.questions.size();
+    }
+
+    private double errorRate( final int participant, final int trueLabel, final int answeredLabel ) {
+        final double denominator = this.errorRateDenominators[participant * this.nrChoices + trueLabel];
+        if (denominator < EPSILON) {
+            return 0;
+        }
+        return Math.max( 0, this.errorRateNumerators[(participant * this.nrChoices + trueLabel) * this.nrChoices +
+                answeredLabel] ) / denominator;
+    }
+
+    /**
+     * Adds sign * T_ij of question i to the statistics.
+     */
+    private void contribute( final int question, final int sign ) {
+        final int offset = question * this.nrChoices;
+        final Observations questionObservations = this.observations.get( question );
+        for (int j = 0; j < this.nrChoices; j++) {
+            this.classTotals[j] += sign * this.classEstimations[offset + j];
+        }
+        for (int o = 0; o < questionObservations.size; o++) {
+            final int participant = questionObservations.participants[o];
+            final int size = questionObservations.sizes[o];
+            for (int j = 0; j < this.nrChoices; j++) {
+                final double tij = sign * this.classEstimations[offset + j];
+                if (tij == 0) {
+                    continue;
+                }
+                this.errorRateDenominators[participant * this.nrChoices + j] += tij * size;
+                for (int l = 0; l < this.nrChoices; l++) {
+                    final int nkil = questionObservations.counts[o * this.nrChoices + l];
+                    if (nkil != 0) {
+                        this.errorRateNumerators[(participant * this.nrChoices + j) * this.nrChoices + l] +=
+                                tij * nkil;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Local e-step: T_ij proportional to p_j * prod_k prod_l (pi^k_jl)^n_kil, in log space as in {@link
+     * DawidSkeneEngine}. As in the full run, p_j and pi^k_jl include the current contribution of the question itself.
+     * The result is left in logJoint.
+     */
+    private void calculateClassEstimations( final int question ) {
+        final Observations questionObservations = this.observations.get( question );
+        for (int j = 0; j < this.nrChoices; j++) {
+            this.logJoint[j] = LogSpace.log( classProbability( j ) );
+        }
+        for (int o = 0; o < questionObservations.size; o++) {
+            final int participant = questionObservations.participants[o];
+            for (int l = 0; l < this.nrChoices; l++) {
+                final int nkil = questionObservations.counts[o * this.nrChoices + l];
+                if (nkil != 0) {
+                    for (int j = 0; j < this.nrChoices; j++) {
+                        this.logJoint[j] += nkil * LogSpace.log( errorRate( participant, j, l ) );
+                    }
+                }
+            }
+        }
+        LogSpace.normalize( this.logJoint, 0, this.nrChoices );
+    }
+
+    /**
+     * T_ij as the fraction of answers for question i choosing j.
+     */
+    private void initializeClassEstimations( final int question ) {
+        final int offset = question * this.nrChoices;
+        final Observations questionObservations = this.observations.get( question );
+        double nrQuestionAnswers = 0;
+        for (int o = 0; o < questionObservations.size; o++) {
+            for (int l = 0; l < this.nrChoices; l++) {
+                this.classEstimations[offset + l] += questionObservations.counts[o * this.nrChoices + l];
+            }
+            nrQuestionAnswers += questionObservations.sizes[o];
+        }
+        for (int j = 0; j < this.nrChoices; j++) {
+            this.classEstimations[offset + j] /= nrQuestionAnswers;
+        }
+    }
+
+    private boolean isUninitialized( final int question ) {
+        for (int j = 0; j < this.nrChoices; j++) {
+            if (this.classEstimations[question * this.nrChoices + j] != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int intern( final QuestionId question ) {
+        final Integer ordinal = this.questionOrdinals.get( question );
+        if (ordinal != null) {
+            return ordinal;
+        }
+        final int q = this.questions.size();
+        this.questionOrdinals.put( question, q );
+        this.questions.add( question );
+        this.observations.add( new Observations( this.nrChoices ) );
+        if ((q + 1) * this.nrChoices > this.classEstimations.length) {
+            final int capacity = Math.max( 16, q * 2 );
+            this.classEstimations = Arrays.copyOf( this.classEstimations, capacity * this.nrChoices );
+            this.isAffected = Arrays.copyOf( this.isAffected, capacity );
+        }
+        return q;
+    }
+
+    private int intern( final ParticipantId participant ) {
+        final Integer ordinal = this.participantOrdinals.get( participant );
+        if (ordinal != null) {
+            return ordinal;
+        }
+        final int k = this.participants.size();
+        this.participantOrdinals.put( participant, k );
+        this.participants.add( participant );
+        if ((k + 1) * this.nrChoices > this.errorRateDenominators.length) {
+            final int capacity = Math.max( 16, k * 2 );
+            this.errorRateDenominators = Arrays.copyOf( this.errorRateDenominators, capacity * this.nrChoices );
+            this.errorRateNumerators = Arrays.copyOf( this.errorRateNumerators,
+                    capacity * this.nrChoices * this.nrChoices );
+        }
+        return k;
+    }
+
+    private void addToColumns( final int question, final int participant, final int choice ) {
+        if (this.nrAnswers == this.questionColumn.length) {
+            final int capacity = this.nrAnswers * 2;
+            this.questionColumn = Arrays.copyOf( this.questionColumn, capacity );
+            this.participantColumn = Arrays.copyOf( this.participantColumn, capacity );
+            this.choiceColumn = Arrays.copyOf( this.choiceColumn, capacity );
+        }
+        this.questionColumn[this.nrAnswers] = question;
+        this.participantColumn[this.nrAnswers] = participant;
+        this.choiceColumn[this.nrAnswers] = choice;
+        this.nrAnswers++;
+        this.nrAnswersSinceFullEm++;
+    }
+
+    public static Builder builder( final Collection<ChoiceId> choices ) {
+        return new Builder( choices );
+    }
+
+    /**
+     * Distinct participants answering a question, with their number of answers n_kil per choice l.
+     */
+    private static final class Observations {
+        private final int nrChoices;
+
+        private int[] participants = new int[4];
+
+        private int[] counts;
+
+        private int[] sizes = new int[4];
+
+        private int size;
+
+        private Observations( final int nrChoices ) {
+            this.nrChoices = nrChoices;
+            this.counts = new int[4 * nrChoices];
+        }
+
+        private int indexOf( final int participant ) {
+            for (int o = 0; o < this.size; o++) {
+                if (this.participants[o] == participant) {
+                    return o;
+                }
+            }
+            return -1;
+        }
+
+        private int getCount( final int participant, final int choice ) {
+            final int o = indexOf( participant );
+            return o == -1 ? 0 : this.counts[o * this.nrChoices + choice];
+        }
+
+        private void add( final int participant, final int choice ) {
+            int o = indexOf( participant );
+            if (o == -1) {
+                if (this.size == this.participants.length) {
+                    this.participants = Arrays.copyOf( this.participants, this.size * 2 );
+                    this.sizes = Arrays.copyOf( this.sizes, this.size * 2 );
+                    this.counts = Arrays.copyOf( this.counts, this.size * 2 * this.nrChoices );
+                }
+                o = this.size++;
+                this.participants[o] = participant;
+            }
+            this.counts[o * this.nrChoices + choice]++;
+            this.sizes[o]++;
+        }
+    }
+
+    public static final class Builder {
+        private final ImmutableList<ChoiceId> choices;
+
+        private int nrLocalIterations = 2;
+
+        private int fullEmEvery;
+
+        private boolean distinctAnswers;
+
+        private ConvergencePolicy convergencePolicy = ConvergencePolicy.absoluteDelta( 0.00001, 100 );
+
+        private Parallelism parallelism = Parallelism.sequential();
+
+        private Builder( final Collection<ChoiceId> choices ) {
+            Preconditions.checkArgument( !choices.isEmpty(), "At least one choice is needed." );
+            this.choices = ImmutableSet.copyOf( choices ).asList();
+        }
+
+        /**
+         * Number of local e-steps with refreshed p_j and pi^k_jl performed for the affected questions of an update.
+         */
+        public Builder withLocalIterations( final int nrLocalIterations ) {
+            Preconditions.checkArgument( nrLocalIterations >= 0, "Local iterations must not be negative, but were %s.",
+                    nrLocalIterations );
+            this.nrLocalIterations = nrLocalIterations;
+            return this;
+        }
+
+        /**
+         * Runs EM over all answers once nrAnswers answers have been added since the last full run, 0 to never run it
+         * automatically.
+         */
+        public Builder withFullEmEvery( final int nrAnswers ) {
+            Preconditions.checkArgument( nrAnswers >= 0, "Number of answers must not be negative, but was %s.",
+                    nrAnswers );
+            this.fullEmEvery = nrAnswers;
+            return this;
+        }
+
+        /**
+         * Answers equal to an already added answer are dropped, as done by {@link Answers#fromDefectReports}.
+         */
+        public Builder withDistinctAnswers() {
+            this.distinctAnswers = true;
+            return this;
+        }
+
+        /**
+         * Convergence policy of full runs.
+         */
+        public Builder withConvergencePolicy( final ConvergencePolicy convergencePolicy ) {
+            this.convergencePolicy = convergencePolicy;
+            return this;
+        }
+
+        /**
+         * Parallelism of full runs.
+         */
+        public Builder withParallelism( final Parallelism parallelism ) {
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        public IncrementalDawidSkene build() {
+            return new IncrementalDawidSkene( this );
+        }
+    }
+}
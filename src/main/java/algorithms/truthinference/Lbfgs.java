@@ -0,0 +1,197 @@
+package algorithms.truthinference;
+
+/**
+ * Limited memory BFGS minimizer with a backtracking line search, see:
+ *
+ * Numerical Optimization, Algorithm 7.4 and 7.5
+ * J. Nocedal and S. J. Wright
+ * 2006
+ *
+ * All buffers are allocated once for a fixed dimension, so repeated minimizations, e.g. one per M-step of an EM
+ * algorithm, do not allocate.
+ *
+ * @author LinX
+ */
+final class Lbfgs {
+    //sufficient decrease constant of the Armijo condition
+    private static final double ARMIJO = 1e-4;
+
+    private static final double BACKTRACKING_FACTOR = 0.5;
+
+    private static final int MAXIMUM_NR_LINE_SEARCH_STEPS = 30;
+
+    private final int dimension;
+
+    private final int memory;
+
+    //curvature pairs s_i = x_i+1 - x_i and y_i = g_i+1 - g_i, stored in a ring buffer
+    private final double[][] s;
+
+    private final double[][] y;
+
+    private final double[] rho;
+
+    //pair of the last step, only swapped into the ring buffer if its curvature is positive
+    private double[] candidateS;
+
+    private double[] candidateY;
+
+    private final double[] alpha;
+
+    private final double[] gradient;
+
+    private final double[] previousX;
+
+    private final double[] previousGradient;
+
+    private final double[] direction;
+
+    Lbfgs( final int dimension, final int memory ) {
+        this.dimension = dimension;
+        this.memory = memory;
+        this.s = new double[memory][dimension];
+        this.y = new double[memory][dimension];
+        this.rho = new double[memory];
+        this.candidateS = new double[dimension];
+        this.candidateY = new double[dimension];
+        this.alpha = new double[memory];
+        this.gradient = new double[dimension];
+        this.previousX = new double[dimension];
+        this.previousGradient = new double[dimension];
+        this.direction = new double[dimension];
+    }
+
+    /**
+     * Minimizes the objective starting from x.
+     *
+     * @param x                   start, replaced by the minimum found
+     * @param maximumNrIterations maximum number of quasi-Newton steps
+     * @param gradientTolerance   stops once the largest absolute component of the gradient falls below this value
+     * @return value of the objective at x
+     */
+    double minimize( final Objective objective, final double[] x, final int maximumNrIterations,
+            final double gradientTolerance ) {
+        double value = objective.evaluate( x, this.gradient );
+        int nrPairs = 0;
+        int newest = -1;
+        for (int iteration = 0; iteration < maximumNrIterations; iteration++) {
+            if (maxAbs( this.gradient ) < gradientTolerance) {
+                break;
+            }
+            computeDirection( nrPairs, newest );
+
+            double slope = dot( this.gradient, this.direction );
+            if (slope >= 0) {
+                //no descent direction due to bad curvature information, restart with steepest descent
+                nrPairs = 0;
+                computeDirection( 0, -1 );
+                slope = dot( this.gradient, this.direction );
+            }
+
+            System.arraycopy( x, 0, this.previousX, 0, this.dimension );
+            System.arraycopy( this.gradient, 0, this.previousGradient, 0, this.dimension );
+            final double previousValue = value;
+            //the first steepest descent step is scaled to unit length, quasi-Newton steps are already scaled
+            double step = nrPairs == 0 ? Math.min( 1, 1 / Math.sqrt( dot( this.gradient, this.gradient ) ) ) : 1;
+            int lineSearchStep = 0;
+            while (true) {
+                for (int i = 0; i < this.dimension; i++) {
+                    x[i] = this.previousX[i] + step * this.direction[i];
+                }
+                value = objective.evaluate( x, this.gradient );
+                if (value <= previousValue + ARMIJO * step * slope) {
+                    break;
+                }
+                if (++lineSearchStep == MAXIMUM_NR_LINE_SEARCH_STEPS) {
+                    //no progress possible, e.g. due to rounding close to the minimum
+                    System.arraycopy( this.previousX, 0, x, 0, this.dimension );
+                    System.arraycopy( this.previousGradient, 0, this.gradient, 0, this.dimension );
+                    return previousValue;
+                }
+                step *= BACKTRACKING_FACTOR;
+            }
+
+            double curvature = 0;
+            for (int i = 0; i < this.dimension; i++) {
+                this.candidateS[i] = x[i] - this.previousX[i];
+                this.candidateY[i] = this.gradient[i] - this.previousGradient[i];
+                curvature += this.candidateS[i] * this.candidateY[i];
+            }
+            //only pairs with positive curvature keep the inverse Hessian approximation positive definite. A rejected
+            //pair must not touch the ring buffer, as the slot of the next pair may still hold the oldest pair in use
+            if (curvature > 1e-10) {
+                final int next = (newest + 1) % this.memory;
+                final double[] replacedS = this.s[next];
+                final double[] replacedY = this.y[next];
+                this.s[next] = this.candidateS;
+                this.y[next] = this.candidateY;
+                this.candidateS = replacedS;
+                this.candidateY = replacedY;
+                this.rho[next] = 1 / curvature;
+                newest = next;
+                nrPairs = Math.min( nrPairs + 1, this.memory );
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Two-loop recursion computing -H * gradient from the newest nrPairs curvature pairs.
+     */
+    private void computeDirection( final int nrPairs, final int newest ) {
+        final double[] q = this.direction;
+        System.arraycopy( this.gradient, 0, q, 0, this.dimension );
+        for (int n = 0; n < nrPairs; n++) {
+            final int i = Math.floorMod( newest - n, this.memory );
+            this.alpha[i] = this.rho[i] * dot( this.s[i], q );
+            axpy( -this.alpha[i], this.y[i], q );
+        }
+        if (nrPairs > 0) {
+            final double gamma = 1 / (this.rho[newest] * dot( this.y[newest], this.y[newest] ));
+            for (int i = 0; i < this.dimension; i++) {
+                q[i] *= gamma;
+            }
+        }
+        for (int n = nrPairs - 1; n >= 0; n--) {
+            final int i = Math.floorMod( newest - n, this.memory );
+            final double beta = this.rho[i] * dot( this.y[i], q );
+            axpy( this.alpha[i] - beta, this.s[i], q );
+        }
+        for (int i = 0; i < this.dimension; i++) {
+            q[i] = -q[i];
+        }
+    }
+
+    private static double dot( final double[] a, final double[] b ) {
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    //b += factor * a
+    private static void axpy( final double factor, final double[] a, final double[] b ) {
+        for (int i = 0; i < a.length; i++) {
+            b[i] += factor * a[i];
+        }
+    }
+
+    private static double maxAbs( final double[] a ) {
+        double max = 0;
+        for (final double value : a) {
+            max = Math.max( max, Math.abs( value ) );
+        }
+        return max;
+    }
+
+    @FunctionalInterface
+    interface Objective {
+        /**
+         * @param x        point to evaluate
+         * @param gradient target for the gradient at x
+         * @return value at x
+         */
+        double evaluate( double[] x, double[] gradient );
+    }
+}
@@ -1,125 +1,159 @@
 package algorithms.truthinference;
 
 import com.google.common.collect.ImmutableMap;
-import com.google.common.collect.ImmutableMultiset;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Maps;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 import java.util.Map;
-import java.util.Optional;
-import java.util.function.Function;
-import java.util.stream.Collectors;
 
 /**
- * TODO
  * Implements algorithm from:
  *
  * Learning From Crowds
  * V. C. Raykar et al.
  * 2010
  *
+ * Without features of the questions, LFC estimates the true labels like D&S, but puts a prior on the error rates of
+ * the participants: Beta priors on sensitivity and specificity in the binary case and, for more than two choices, a
+ * Dirichlet prior on every row of the confusion matrices. The EM iterations are carried out by {@link
+ * DawidSkeneEngine} with the prior as pseudo counts, so binary and multi-class questions are handled alike.
+ *
  * @author LinX
  */
 public class LfcAlgorithm {
-    private static final Logger LOG = LoggerFactory.getLogger( LfcAlgorithm.class );
+    //stops once p_j or pi^k_jl have converged
+    private static final ConvergencePolicy DEFAULT_CONVERGENCE_POLICY = ConvergencePolicy.absoluteDelta( 0.00001,
+            100 );
 
-    //threshold under which the algorithm can be viewed as converged
-    private static final double CONVERGENCE_THRESHOLD = 0.00001;
+    //pseudo counts of a nearly uniform Dirichlet prior, which keeps pi^k_jl away from 0, so that a single answer of
+    //a participant never rules out a true label. Without features of the questions, LFC therefore stays close to D&S.
+    //The prior is kept weak on purpose: informative priors, e.g. Beta(2, 1), flip hundreds of the truths estimated by
+    //the reference implementation of LFC for multiple choices, see LfcAlgorithmTest
+    private static final double CORRECT_PSEUDO_COUNT = 0.001;
 
-    private static final int MAXIMUM_NR_ITERATIONS = 100;
+    private static final double WRONG_PSEUDO_COUNT = 0.001;
 
     private final Answers answers;
 
+    private final Parallelism parallelism;
+
+    private final ConvergencePolicy convergencePolicy;
+
     public LfcAlgorithm( final Answers answers ) {
-        this.answers = answers;
+        this( answers, Parallelism.sequential() );
     }
 
-    public Output run() {
-        int iteration = 0;
-
-        //u_i
-        ImmutableMap<QuestionId, ImmutableSet<ClassEstimation>> classEstimations = initClassEstimates();
+    public LfcAlgorithm( final Answers answers, final Parallelism parallelism ) {
+        this( answers, parallelism, DEFAULT_CONVERGENCE_POLICY );
+    }
 
-        Optional<Output> output = Optional.empty();
+    public LfcAlgorithm( final Answers answers, final Parallelism parallelism,
+            final ConvergencePolicy convergencePolicy ) {
+        this.answers = answers;
+        this.parallelism = parallelism;
+        this.convergencePolicy = convergencePolicy;
+    }
 
-        while (true) {
-            iteration++;
-            LOG.info( "Starting iteration {}.", iteration );
+    public Output run() {
+        return estimate( null );
+    }
 
-            //m-step / maximization step
-            final ImmutableMap<ParticipantId, Double> workerReliability = calculateWorkerReliability(
-                    classEstimations );
+    /**
+     * Runs EM starting from the class estimations of a previous run instead of the answers. Questions not estimated by
+     * the previous run are initialized from the answers as usual.
+     */
+    public Output run( final Output previous ) {
+        return estimate( Maps.transformValues( previous.getClassProbabilities(),
+                estimations -> estimations.stream().collect( ImmutableMap.toImmutableMap( ClassEstimation::getChoice,
+                        ClassEstimation::getEstimation ) ) ) );
+    }
 
-            //e-step / estimation step
-            classEstimations = calculateClassEstimates( workerReliability );
+    private Output estimate( final Map<QuestionId, ? extends Map<ChoiceId, Double>> warmStart ) {
+        final DawidSkeneEngine.Estimates estimates = DawidSkeneEngine.builder( this.answers.toAnswerMatrix() )
+                .withErrorRatePseudoCounts( CORRECT_PSEUDO_COUNT, WRONG_PSEUDO_COUNT )
+                .withConvergencePolicy( this.convergencePolicy ).withParallelism( this.parallelism )
+                .withWarmStart( warmStart ).build().run();
+        return toOutput( estimates );
+    }
 
+    private Output toOutput( final DawidSkeneEngine.Estimates estimates ) {
+        final AnswerMatrix matrix = estimates.getMatrix();
+        final int nrChoices = matrix.getNrChoices();
 
-            final Output newOutput = new Output( classEstimations, workerReliability );
-            if (iteration >= MAXIMUM_NR_ITERATIONS || output.map( o -> o.hasConverged( newOutput ) ).orElse( false )) {
-                break;
+        final ImmutableMap.Builder<QuestionId, ImmutableSet<ClassEstimation>> classProbabilities =
+                ImmutableMap.builder();
+        for (int i = 0; i < matrix.getNrQuestions(); i++) {
+            final ImmutableSet.Builder<ClassEstimation> estimations = ImmutableSet.builder();
+            for (int j = 0; j < nrChoices; j++) {
+                estimations.add( new ClassEstimation( matrix.getChoice( j ), estimates.getClassEstimation( i, j ) ) );
             }
-
-            output = Optional.of( newOutput );
+            classProbabilities.put( matrix.getQuestion( i ), estimations.build() );
         }
 
-        return null;
-    }
-
-    private ImmutableMap<QuestionId, ImmutableSet<ClassEstimation>> calculateClassEstimates(
-            final ImmutableMap<ParticipantId, Double> workerReliability ) {
-        return null;
-    }
+        //probability of answering correctly, i.e. sum_j p_j * pi^k_jj
+        final ImmutableMap.Builder<ParticipantId, Double> workerReliabilities = ImmutableMap.builder();
+        for (int k = 0; k < matrix.getNrParticipants(); k++) {
+            double reliability = 0;
+            for (int j = 0; j < nrChoices; j++) {
+                reliability += estimates.getClassProbability( j ) * estimates.getErrorRate( k, j, j );
+            }
+            workerReliabilities.put( matrix.getParticipant( k ), reliability );
+        }
 
-    private ImmutableMap<ParticipantId, Double> calculateWorkerReliability(
-            final ImmutableMap<QuestionId, ImmutableSet<ClassEstimation>> classEstimations ) {
-        return null;
-    }
-
-    /**
-     * Initialize u_i where i in instance.
-     *
-     * @return estimates
-     */
-    private ImmutableMap<QuestionId, ImmutableSet<ClassEstimation>> initClassEstimates() {
-        return Maps.toMap( this.answers.getQuestions(), task -> {
-            final ImmutableMultiset<Answer> answers = this.answers.getAnswers( task );
-            final Map<ChoiceId, Long> nrAssignedLabels = answers.stream().map( Answer::getChoice )
-                    .collect(
-                            Collectors.groupingBy( Function.identity(),
-                                    Collectors.counting() ) );
-            return nrAssignedLabels.entrySet().stream().map(
-                    l -> new ClassEstimation( l.getKey(), l.getValue() / answers.size() ) ).collect(
-                    ImmutableSet.toImmutableSet() );
-        } );
+        return new Output( classProbabilities.build(), workerReliabilities.build(), estimates.getConfusionMatrices(),
+                estimates.getTrace() );
     }
 
     public final class Output {
+        //in order of the question ordinals of the answer matrix
         private final ImmutableMap<QuestionId, ImmutableSet<ClassEstimation>> classProbabilities;
 
         private final ImmutableMap<ParticipantId, Double> workerReliabilities;
 
+        private final ConfusionMatrices confusionMatrices;
+
+        private final ConvergenceTrace trace;
+
         public Output(
                 final ImmutableMap<QuestionId, ImmutableSet<ClassEstimation>> classProbabilities,
-                final ImmutableMap<ParticipantId, Double> workerReliabilities ) {
+                final ImmutableMap<ParticipantId, Double> workerReliabilities,
+                final ConfusionMatrices confusionMatrices, final ConvergenceTrace trace ) {
             this.classProbabilities = classProbabilities;
             this.workerReliabilities = workerReliabilities;
+            this.confusionMatrices = confusionMatrices;
+            this.trace = trace;
         }
 
         public ImmutableMap<QuestionId, ImmutableSet<ClassEstimation>> getClassProbabilities() {
             return this.classProbabilities;
         }
 
+        /**
+         * @param question ordinal of the question in the answer matrix
+         */
+        public ImmutableSet<ClassEstimation> getClassProbabilities( final int question ) {
+            return this.classProbabilities.values().asList().get( question );
+        }
+
+        /**
+         * @return probability of a worker answering correctly, given the estimated class probabilities
+         */
         public ImmutableMap<ParticipantId, Double> getWorkerReliabilities() {
             return this.workerReliabilities;
         }
 
-        public boolean hasConverged( final Output other ) {
-            final double deltaWorkerReliabilities = this.workerReliabilities.entrySet().stream().mapToDouble(
-                    e -> Math.abs( other.workerReliabilities.get( e.getKey() ) - e.getValue() ) ).sum();
+        /**
+         * @return pi^k_jl indexed by ordinals of the answer matrix
+         */
+        public ConfusionMatrices getConfusionMatrices() {
+            return this.confusionMatrices;
+        }
 
-            return deltaWorkerReliabilities < CONVERGENCE_THRESHOLD;
+        /**
+         * @return delta, log likelihood and time spent of every iteration
+         */
+        public ConvergenceTrace getTrace() {
+            return this.trace;
         }
     }
 
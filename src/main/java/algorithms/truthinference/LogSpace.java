@@ -0,0 +1,60 @@
+package algorithms.truthinference;
+
+/**
+ * Helpers for computing posteriors in log space, so that products of many small probabilities do not underflow.
+ *
+ * @author LinX
+ */
+final class LogSpace {
+    private LogSpace() {
+        //utility class
+    }
+
+    /**
+     * @return log(p), with log(0) = -infinity. Probabilities slightly below 0 due to rounding, e.g. 1 - r for a
+     * reliability r summed up to slightly above 1, are treated as 0.
+     */
+    static double log( final double probability ) {
+        return probability <= 0 ? Double.NEGATIVE_INFINITY : Math.log( probability );
+    }
+
+    /**
+     * @return log(sum_i exp(logValues[i])) for i in [from, to), -infinity if all values are -infinity
+     */
+    static double logSumExp( final double[] logValues, final int from, final int to ) {
+        double max = Double.NEGATIVE_INFINITY;
+        for (int i = from; i < to; i++) {
+            max = Math.max( max, logValues[i] );
+        }
+        if (max == Double.NEGATIVE_INFINITY || max == Double.POSITIVE_INFINITY) {
+            return max;
+        }
+        double sum = 0;
+        for (int i = from; i < to; i++) {
+            sum += Math.exp( logValues[i] - max );
+        }
+        return max + Math.log( sum );
+    }
+
+    /**
+     * Replaces the unnormalized log probabilities in [from, to) by their normalized linear probabilities. If all
+     * values are -infinity, i.e. all probabilities are 0, the result is uniform.
+     *
+     * @return log of the normalizer, i.e. log(sum_i exp(logValues[i]))
+     */
+    static double normalize( final double[] logValues, final int from, final int to ) {
+        final double logNormalizer = logSumExp( logValues, from, to );
+        if (logNormalizer == Double.NEGATIVE_INFINITY) {
+            final double uniform = 1.0 / (to - from);
+            for (int i = from; i < to; i++) {
+                logValues[i] = uniform;
+            }
+        }
+        else {
+            for (int i = from; i < to; i++) {
+                logValues[i] = Math.exp( logValues[i] - logNormalizer );
+            }
+        }
+        return logNormalizer;
+    }
+}
@@ -0,0 +1,153 @@
+package algorithms.truthinference;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Execution mode for the per-question and per-participant steps of the truth inference algorithms. The work is split
+ * into chunks of fixed size, which are run on the executor, and partial sums are merged in chunk order. As the chunks
+ * do not depend on the executor, results are the same for sequential and parallel execution and any number of
+ * threads.
+ *
+ * @author LinX
+ */
+public final class Parallelism {
+    //number of questions or participants processed by one task
+    static final int CHUNK_SIZE = 256;
+
+    private static final Parallelism SEQUENTIAL = new Parallelism( null );
+
+    private final Executor executor;
+
+    private Parallelism( final Executor executor ) {
+        this.executor = executor;
+    }
+
+    public boolean isSequential() {
+        return this.executor == null;
+    }
+
+    /**
+     * Runs action for all chunks of [0, size).
+     */
+    void forEach( final int size, final RangeAction action ) {
+        runChunks( size, chunk -> action.run( chunkStart( chunk ), chunkEnd( chunk, size ) ) );
+    }
+
+    /**
+     * @return sum of the partial sums of all chunks of [0, size), added up in chunk order
+     */
+    double sum( final int size, final RangeSum action ) {
+        final double[] partialSums = new double[numberOfChunks( size )];
+        runChunks( size, chunk -> partialSums[chunk] = action.sum( chunkStart( chunk ), chunkEnd( chunk, size ) ) );
+        double sum = 0;
+        for (final double partialSum : partialSums) {
+            sum += partialSum;
+        }
+        return sum;
+    }
+
+    /**
+     * @return element-wise sum of the partial vectors of length width accumulated by all chunks of [0, size), added
+     * up in chunk order
+     */
+    double[] sum( final int size, final int width, final RangeAccumulator action ) {
+        final double[][] partialSums = new double[numberOfChunks( size )][];
+        runChunks( size, chunk -> {
+            final double[] partialSum = new double[width];
+            action.accumulate( chunkStart( chunk ), chunkEnd( chunk, size ), partialSum );
+            partialSums[chunk] = partialSum;
+        } );
+        final double[] sum = new double[width];
+        for (final double[] partialSum : partialSums) {
+            for (int i = 0; i < width; i++) {
+                sum[i] += partialSum[i];
+            }
+        }
+        return sum;
+    }
+
+    private void runChunks( final int size, final ChunkAction action ) {
+        final int nrChunks = numberOfChunks( size );
+        if (this.executor == null || nrChunks <= 1) {
+            for (int chunk = 0; chunk < nrChunks; chunk++) {
+                action.run( chunk );
+            }
+            return;
+        }
+
+        final CompletableFuture<?>[] tasks = new CompletableFuture<?>[nrChunks];
+        for (int chunk = 0; chunk < nrChunks; chunk++) {
+            final int currentChunk = chunk;
+            tasks[chunk] = CompletableFuture.runAsync( () -> action.run( currentChunk ), this.executor );
+        }
+        try {
+            CompletableFuture.allOf( tasks ).join();
+        } catch (final CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private static int numberOfChunks( final int size ) {
+        return (size + CHUNK_SIZE - 1) / CHUNK_SIZE;
+    }
+
+    private static int chunkStart( final int chunk ) {
+        return chunk * CHUNK_SIZE;
+    }
+
+    private static int chunkEnd( final int chunk, final int size ) {
+        return Math.min( size, (chunk + 1) * CHUNK_SIZE );
+    }
+
+    @Override
+    public String toString() {
+        return "Parallelism{" + (this.executor == null ? "sequential" : "executor=" + this.executor) + '}';
+    }
+
+    public static Parallelism sequential() {
+        return SEQUENTIAL;
+    }
+
+    /**
+     * @return parallel execution on the common fork join pool, i.e. on all available cores
+     */
+    public static Parallelism forkJoin() {
+        return new Parallelism( ForkJoinPool.commonPool() );
+    }
+
+    /**
+     * @return parallel execution on the given executor, e.g. a dedicated {@link ForkJoinPool}
+     */
+    public static Parallelism executor( final Executor executor ) {
+        return new Parallelism( executor );
+    }
+
+    @FunctionalInterface
+    interface RangeAction {
+        void run( int from, int to );
+    }
+
+    @FunctionalInterface
+    interface RangeSum {
+        double sum( int from, int to );
+    }
+
+    @FunctionalInterface
+    interface RangeAccumulator {
+        void accumulate( int from, int to, double[] target );
+    }
+
+    @FunctionalInterface
+    private interface ChunkAction {
+        void run( int chunk );
+    }
+}
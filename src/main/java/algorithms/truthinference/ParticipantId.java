@@ -1,20 +1,27 @@
 package algorithms.truthinference;
 
 import algorithms.Id;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 
 /**
  * @author LinX
  */
 public final class ParticipantId extends Id<String> {
+    //weak values keyed by the raw id, so that an id in use is found without creating an instance
+    private static final LoadingCache<String, ParticipantId> INSTANCES = CacheBuilder.newBuilder().weakValues().build(
+            CacheLoader.from( ParticipantId::new ) );
+
     private ParticipantId( final String id ) {
         super( id );
     }
 
     public static ParticipantId create( final int id ) {
-        return new ParticipantId( String.valueOf( id ) );
+        return create( String.valueOf( id ) );
     }
 
     public static ParticipantId create( final String id ) {
-        return new ParticipantId( id );
+        return INSTANCES.getUnchecked( id );
     }
 }
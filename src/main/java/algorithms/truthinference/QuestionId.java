@@ -1,20 +1,27 @@
 package algorithms.truthinference;
 
 import algorithms.Id;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 
 /**
  * @author LinX
  */
 public final class QuestionId extends Id<String> {
+    //weak values keyed by the raw id, so that an id in use is found without creating an instance
+    private static final LoadingCache<String, QuestionId> INSTANCES = CacheBuilder.newBuilder().weakValues().build(
+            CacheLoader.from( QuestionId::new ) );
+
     private QuestionId( final String id ) {
         super( id );
     }
 
     public static QuestionId create( final int id ) {
-        return new QuestionId( String.valueOf( id ) );
+        return create( String.valueOf( id ) );
     }
 
     public static QuestionId create( final String id ) {
-        return new QuestionId( id );
+        return INSTANCES.getUnchecked( id );
     }
 }
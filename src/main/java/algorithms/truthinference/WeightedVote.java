@@ -0,0 +1,53 @@
+package algorithms.truthinference;
+
+import java.util.Arrays;
+
+/**
+ * Weighted majority vote over the answers of a question of an {@link AnswerMatrix}.
+ *
+ * @author LinX
+ */
+final class WeightedVote {
+    private WeightedVote() {
+        //utility class
+    }
+
+    /**
+     * @param participantWeights weight of each participant's answers, null to count every answer with 1
+     * @param scores             scratch array of length #choices
+     * @return choice with the highest summed weight for question, on ties the choice that was answered first
+     */
+    static int argmax( final AnswerMatrix matrix, final int question, final double[] participantWeights,
+            final double[] scores ) {
+        Arrays.fill( scores, 0 );
+        final int start = matrix.getQuestionAnswersStart( question );
+        final int end = matrix.getQuestionAnswersEnd( question );
+        for (int a = start; a < end; a++) {
+            scores[matrix.getChoiceOfQuestionAnswer( a )] += participantWeights == null ? 1 :
+                    participantWeights[matrix.getParticipantOfQuestionAnswer( a )];
+        }
+        int best = -1;
+        for (int a = start; a < end; a++) {
+            final int choice = matrix.getChoiceOfQuestionAnswer( a );
+            if (best == -1 || scores[choice] > scores[best]) {
+                best = choice;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @return weighted vote for every question, computed in parallel
+     */
+    static int[] argmax( final AnswerMatrix matrix, final double[] participantWeights,
+            final Parallelism parallelism ) {
+        final int[] truths = new int[matrix.getNrQuestions()];
+        parallelism.forEach( matrix.getNrQuestions(), ( from, to ) -> {
+            final double[] scores = new double[matrix.getNrChoices()];
+            for (int q = from; q < to; q++) {
+                truths[q] = argmax( matrix, q, participantWeights, scores );
+            }
+        } );
+        return truths;
+    }
+}
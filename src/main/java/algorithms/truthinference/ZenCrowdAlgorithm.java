@@ -1,14 +1,11 @@
 package algorithms.truthinference;
 
 import com.google.common.collect.ImmutableMap;
-import com.google.common.collect.ImmutableMultiset;
 import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.Maps;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Map;
-import java.util.Optional;
 
 /**
  * Implements algorithm from:
@@ -22,78 +19,115 @@ import java.util.Optional;
 public class ZenCrowdAlgorithm {
     private static final Logger LOG = LoggerFactory.getLogger( ZenCrowdAlgorithm.class );
 
-    //threshold under which the algorithm can be viewed as converged
-    private static final double CONVERGENCE_THRESHOLD = 0.00001;
-
-    private static final int MAXIMUM_NR_ITERATIONS = 100;
+    //stops once the worker reliabilities have converged
+    private static final ConvergencePolicy DEFAULT_CONVERGENCE_POLICY = ConvergencePolicy.absoluteDelta( 0.00001,
+            100 );
 
     private final Answers answers;
 
+    private final Parallelism parallelism;
+
+    private final ConvergencePolicy convergencePolicy;
+
     public ZenCrowdAlgorithm( final Answers answers ) {
+        this( answers, Parallelism.sequential() );
+    }
+
+    public ZenCrowdAlgorithm( final Answers answers, final Parallelism parallelism ) {
+        this( answers, parallelism, DEFAULT_CONVERGENCE_POLICY );
+    }
+
+    public ZenCrowdAlgorithm( final Answers answers, final Parallelism parallelism,
+            final ConvergencePolicy convergencePolicy ) {
         this.answers = answers;
+        this.parallelism = parallelism;
+        this.convergencePolicy = convergencePolicy;
     }
 
-    //TODO incorporate prior estimations of worker quality
     public Output run() {
-        int iteration = 0;
+        return estimate( ImmutableMap.of() );
+    }
 
-        ImmutableMap<ParticipantId, Double> workerReliability = initWorkerReliability();
+    /**
+     * Runs EM starting from the worker reliabilities of a previous run. Workers not estimated by the previous run are
+     * initialized as usual.
+     */
+    public Output run( final Output previous ) {
+        return estimate( previous.getWorkerReliabilities() );
+    }
+
+    private Output estimate( final Map<ParticipantId, Double> initialWorkerReliabilities ) {
+        final AnswerMatrix matrix = this.answers.toAnswerMatrix();
+        final ConvergencePolicy.Tracker tracker = this.convergencePolicy.track();
 
-        Optional<Output> output = Optional.empty();
+        double[] workerReliabilities = initWorkerReliability( matrix, initialWorkerReliabilities );
+
+        double[] previousClassEstimations = null;
+        double[] previousWorkerReliabilities = null;
 
         while (true) {
-            iteration++;
-            LOG.info( "Starting iteration {}.", iteration );
+            LOG.info( "Starting iteration {}.", tracker.getIteration() + 1 );
 
             //e-step / estimation step
-            final ImmutableMap<QuestionId, ImmutableSet<ClassEstimation>> classEstimations = calculateClassEstimates(
-                    workerReliability );
+            final double[] classEstimations = new double[matrix.getNrQuestions() * matrix.getNrChoices()];
+            final double logLikelihood = calculateClassEstimates( matrix, workerReliabilities, classEstimations );
 
             //m-step / maximization step
-            workerReliability = calculateWorkerReliability( classEstimations );
-
-            final Output newOutput = new Output( classEstimations, workerReliability );
-            if (iteration >= MAXIMUM_NR_ITERATIONS || output.map( o -> o.hasConverged( newOutput ) ).orElse( false )) {
+            workerReliabilities = calculateWorkerReliability( matrix, classEstimations );
+
+            if (tracker.iterationFinished( previousWorkerReliabilities == null ? ConvergencePolicy.Delta.NONE :
+                    ConvergencePolicy.Delta.between( previousWorkerReliabilities, workerReliabilities ),
+                    logLikelihood )) {
+                //stopped after the first iteration, so there are no estimates of an iteration before
+                if (previousWorkerReliabilities == null) {
+                    previousClassEstimations = classEstimations;
+                    previousWorkerReliabilities = workerReliabilities;
+                }
                 break;
             }
 
-            output = Optional.of( newOutput );
+            previousClassEstimations = classEstimations;
+            previousWorkerReliabilities = workerReliabilities;
         }
 
-        return output.get();
+        return toOutput( matrix, previousClassEstimations, previousWorkerReliabilities, tracker.getTrace() );
     }
 
     /**
-     * Calculates the class estimations for every click. See Section 4.4 on gathering
+     * Calculates the class estimations for every click. See Section 4.4 on gathering. The product over the answers is
+     * computed as a sum of cached log reliabilities and normalized with log-sum-exp, so it does not underflow for
+     * clicks with many answers.
      *
      * @param workerReliabilities worker reliabilities
-     * @return class estimates
+     * @param classEstimations    target for the class estimates, indexed by [question * #choices + choice]
+     * @return log likelihood of the answers given the worker reliabilities, i.e. the sum of the log normalizers
      */
-    private ImmutableMap<QuestionId, ImmutableSet<ClassEstimation>> calculateClassEstimates(
-            final ImmutableMap<ParticipantId, Double> workerReliabilities ) {
-        return Maps.toMap( this.answers.getQuestions(), click -> {
-            final ImmutableMultiset<Answer> answers = this.answers.getAnswers( click );
-
-            final Map<ChoiceId, Double> estimationsForLabel = Maps.newHashMap();
-            answers.forEach( answer -> {
-                this.answers.getChoices().forEach( label -> {
-                    double estimation = estimationsForLabel.computeIfAbsent( label, l -> 1.0 );
-                    final double workerReliability = workerReliabilities.get( answer.getParticipantId() );
-                    if (label.equals( answer.getChoice() )) {
-                        estimation = estimation * workerReliability;
-                    }
-                    else {
-                        estimation = estimation * (1 - workerReliability) / (this.answers.getChoices().size() - 1);
-                    }
-                    estimationsForLabel.put( label, estimation );
-                } );
-            } );
-
-            final double sum = estimationsForLabel.values().stream().mapToDouble( e -> e ).sum();
+    private double calculateClassEstimates( final AnswerMatrix matrix, final double[] workerReliabilities,
+            final double[] classEstimations ) {
+        final int nrChoices = matrix.getNrChoices();
+        final double[] logReliabilities = new double[workerReliabilities.length];
+        final double[] logErrors = new double[workerReliabilities.length];
+        for (int k = 0; k < workerReliabilities.length; k++) {
+            logReliabilities[k] = LogSpace.log( workerReliabilities[k] );
+            logErrors[k] = LogSpace.log( (1 - workerReliabilities[k]) / (nrChoices - 1) );
+        }
 
-            return estimationsForLabel.entrySet().stream().map( e -> new ClassEstimation( e.getKey(),
-                    sum == 0 ? 1.0 / estimationsForLabel.size() : e.getValue() / sum ) ).collect(
-                    ImmutableSet.toImmutableSet() );
+        return this.parallelism.sum( matrix.getNrQuestions(), ( from, to ) -> {
+            double logLikelihood = 0;
+            for (int click = from; click < to; click++) {
+                final int offset = click * nrChoices;
+                for (int a = matrix.getQuestionAnswersStart( click ); a < matrix.getQuestionAnswersEnd( click );
+                     a++) {
+                    final int worker = matrix.getParticipantOfQuestionAnswer( a );
+                    final int choice = matrix.getChoiceOfQuestionAnswer( a );
+                    for (int label = 0; label < nrChoices; label++) {
+                        classEstimations[offset + label] += label == choice ? logReliabilities[worker] :
+                                logErrors[worker];
+                    }
+                }
+                logLikelihood += LogSpace.normalize( classEstimations, offset, offset + nrChoices );
+            }
+            return logLikelihood;
         } );
     }
 
@@ -104,55 +138,96 @@ public class ZenCrowdAlgorithm {
      * @param classEstimations class estimations
      * @return worker reliability scores
      */
-    private ImmutableMap<ParticipantId, Double> calculateWorkerReliability(
-            final ImmutableMap<QuestionId, ImmutableSet<ClassEstimation>> classEstimations ) {
-        return Maps.toMap( this.answers.getParticipants(), worker -> {
-            final ImmutableMultiset<Answer> answersForWorker = this.answers.getAnswers( worker );
-            return answersForWorker.stream().mapToDouble( answer -> {
-                final Double estimation = classEstimations.get( answer.getQuestionId() )
-                        .stream().filter(
-                                q -> q.getChoice().equals( answer.getChoice() ) ).map(
-                                ClassEstimation::getEstimation ).findFirst().orElse( 0.0 );
-                return estimation / answersForWorker.size();
-            } ).sum();
+    private double[] calculateWorkerReliability( final AnswerMatrix matrix, final double[] classEstimations ) {
+        final int nrChoices = matrix.getNrChoices();
+        final double[] workerReliabilities = new double[matrix.getNrParticipants()];
+        this.parallelism.forEach( matrix.getNrParticipants(), ( from, to ) -> {
+            for (int worker = from; worker < to; worker++) {
+                final double nrAnswers = matrix.getParticipantSize( worker );
+                double reliability = 0;
+                for (int a = matrix.getParticipantAnswersStart( worker );
+                     a < matrix.getParticipantAnswersEnd( worker ); a++) {
+                    reliability += classEstimations[matrix.getQuestionOfParticipantAnswer( a ) * nrChoices +
+                            matrix.getChoiceOfParticipantAnswer( a )] / nrAnswers;
+                }
+                workerReliabilities[worker] = reliability;
+            }
         } );
+        return workerReliabilities;
     }
 
     /**
      * Initialize the worker reliability with 0.5, if no initial estimations available. See Section 4.4 about
      * initializing the prior probability of the workers.
      *
+     * @param initialWorkerReliabilities initial estimations, e.g. of a previous run
      * @return initial worker reliability score
      */
-    private ImmutableMap<ParticipantId, Double> initWorkerReliability() {
-        return Maps.toMap( this.answers.getParticipants(), participantId -> 0.5 );
+    private static double[] initWorkerReliability( final AnswerMatrix matrix,
+            final Map<ParticipantId, Double> initialWorkerReliabilities ) {
+        final double[] workerReliabilities = new double[matrix.getNrParticipants()];
+        for (int k = 0; k < workerReliabilities.length; k++) {
+            workerReliabilities[k] = initialWorkerReliabilities.getOrDefault( matrix.getParticipant( k ), 0.5 );
+        }
+        return workerReliabilities;
+    }
+
+    private Output toOutput( final AnswerMatrix matrix, final double[] classEstimations,
+            final double[] workerReliabilities, final ConvergenceTrace trace ) {
+        final int nrChoices = matrix.getNrChoices();
+        final ImmutableMap.Builder<QuestionId, ImmutableSet<ClassEstimation>> classProbabilities =
+                ImmutableMap.builder();
+        for (int q = 0; q < matrix.getNrQuestions(); q++) {
+            final ImmutableSet.Builder<ClassEstimation> estimations = ImmutableSet.builder();
+            for (int j = 0; j < nrChoices; j++) {
+                estimations.add( new ClassEstimation( matrix.getChoice( j ), classEstimations[q * nrChoices + j] ) );
+            }
+            classProbabilities.put( matrix.getQuestion( q ), estimations.build() );
+        }
+
+        final ImmutableMap.Builder<ParticipantId, Double> reliabilities = ImmutableMap.builder();
+        for (int k = 0; k < matrix.getNrParticipants(); k++) {
+            reliabilities.put( matrix.getParticipant( k ), workerReliabilities[k] );
+        }
+        return new Output( classProbabilities.build(), reliabilities.build(), trace );
     }
 
     public final class Output {
+        //in order of the question ordinals of the answer matrix
         private final ImmutableMap<QuestionId, ImmutableSet<ClassEstimation>> classProbabilities;
 
         private final ImmutableMap<ParticipantId, Double> workerReliabilities;
 
+        private final ConvergenceTrace trace;
+
         public Output(
                 final ImmutableMap<QuestionId, ImmutableSet<ClassEstimation>> classProbabilities,
-                final ImmutableMap<ParticipantId, Double> workerReliabilities ) {
+                final ImmutableMap<ParticipantId, Double> workerReliabilities, final ConvergenceTrace trace ) {
             this.classProbabilities = classProbabilities;
             this.workerReliabilities = workerReliabilities;
+            this.trace = trace;
         }
 
         public ImmutableMap<QuestionId, ImmutableSet<ClassEstimation>> getClassProbabilities() {
             return this.classProbabilities;
         }
 
+        /**
+         * @param question ordinal of the question in the answer matrix
+         */
+        public ImmutableSet<ClassEstimation> getClassProbabilities( final int question ) {
+            return this.classProbabilities.values().asList().get( question );
+        }
+
         public ImmutableMap<ParticipantId, Double> getWorkerReliabilities() {
             return this.workerReliabilities;
         }
 
-        public boolean hasConverged( final Output other ) {
-            final double deltaWorkerReliabilities = this.workerReliabilities.entrySet().stream().mapToDouble(
-                    e -> Math.abs( other.workerReliabilities.get( e.getKey() ) - e.getValue() ) ).sum();
-
-            return deltaWorkerReliabilities < CONVERGENCE_THRESHOLD;
+        /**
+         * @return delta, log likelihood and time spent of every iteration
+         */
+        public ConvergenceTrace getTrace() {
+            return this.trace;
         }
     }
 
@@ -0,0 +1,57 @@
+package algorithms.vericom.model;
+
+import com.google.common.collect.ImmutableSet;
+import org.jooq.Condition;
+import org.jooq.Field;
+import org.jooq.impl.DSL;
+
+import java.util.function.Function;
+
+/**
+ * Restricts the rows read from a table by the value of one column. The filter is compiled to a parameterized SQL
+ * condition, so only matching rows are read.
+ *
+ * @author LinX
+ */
+public final class ColumnFilter {
+    private final String column;
+
+    private final Function<Field<String>, Condition> condition;
+
+    private final String description;
+
+    private ColumnFilter( final String column, final Function<Field<String>, Condition> condition,
+            final String description ) {
+        this.column = column;
+        this.condition = condition;
+        this.description = description;
+    }
+
+    /**
+     * @return filter for rows whose column is one of values
+     */
+    public static ColumnFilter in( final String column, final String... values ) {
+        final ImmutableSet<String> allowedValues = ImmutableSet.copyOf( values );
+        return new ColumnFilter( column, f -> f.in( allowedValues ), column + " in " + allowedValues );
+    }
+
+    /**
+     * @return filter for rows whose column starts with prefix
+     */
+    public static ColumnFilter startsWith( final String column, final String prefix ) {
+        return new ColumnFilter( column, f -> f.like( prefix + "%" ), column + " like " + prefix + "%" );
+    }
+
+    public String getColumn() {
+        return this.column;
+    }
+
+    public Condition toCondition() {
+        return this.condition.apply( DSL.field( DSL.name( this.column ), String.class ) );
+    }
+
+    @Override
+    public String toString() {
+        return "ColumnFilter{" + this.description + '}';
+    }
+}
@@ -1,20 +1,120 @@
 package algorithms.vericom.model;
 
+import algorithms.utils.UncheckedSQLException;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.pool.HikariPool;
+import org.jooq.Condition;
+import org.jooq.Cursor;
+import org.jooq.Record;
+import org.jooq.impl.DSL;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.Collection;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
+ * Hands out connections of a pooled data source, so that loads share a few open connections instead of connecting
+ * for every fetch. The MySQL database and the pool size can be configured with the system properties {@value
+ * #URL_PROPERTY}, {@value #USER_PROPERTY}, {@value #PASSWORD_PROPERTY} and {@value #POOL_SIZE_PROPERTY}; any other
+ * data source, e.g. an embedded database, can be used instead with {@link #useDataSource(DataSource)}.
+ *
  * @author LinX
  */
 public class DatabaseConnector {
-    private static final String DB_PATH = "jdbc:mysql://localhost:3306/defect_report?serverTimezone=UTC";
+    public static final String URL_PROPERTY = "consensus.db.url";
+
+    public static final String USER_PROPERTY = "consensus.db.user";
+
+    public static final String PASSWORD_PROPERTY = "consensus.db.password";
+
+    public static final String POOL_SIZE_PROPERTY = "consensus.db.poolSize";
+
+    //the cursor fetch makes MySQL honour the fetch size instead of sending all rows at once
+    private static final String DB_PATH =
+            "jdbc:mysql://localhost:3306/defect_report?serverTimezone=UTC&useCursorFetch=true";
 
     private static final String USER = "root";
 
     private static final String PASSWORD = "";
 
+    //the independent tables of both semesters can be read at once
+    private static final int POOL_SIZE = 8;
+
+    //rows read per round trip, so that large tables are never held as a whole
+    private static final int FETCH_SIZE = 1000;
+
+    private static DataSource dataSource;
+
     public static Connection createConnection() throws SQLException {
-        return DriverManager.getConnection( DB_PATH, USER, PASSWORD );
+        return getDataSource().getConnection();
+    }
+
+    /**
+     * Reads the columns of the rows of table matching condition. The rows are streamed to reader, which has to
+     * consume them before returning.
+     */
+    public static <T> T fetchLazy( final String table, final Collection<String> columns, final Condition condition,
+            final Function<Stream<Record>, T> reader ) {
+        try (Connection connection = createConnection();
+             Cursor<Record> cursor = DSL.using( connection ).select( columns.stream().map(
+                     c -> DSL.field( DSL.name( c ) ) ).collect( Collectors.toList() ) )
+                     .from( DSL.table( DSL.name( table ) ) ).where( condition ).fetchSize( FETCH_SIZE ).fetchLazy()) {
+            return reader.apply( cursor.stream() );
+        } catch (final SQLException e) {
+            throw new UncheckedSQLException( e );
+        }
+    }
+
+    /**
+     * @return the data source in use, the pooled MySQL database if no other data source has been set
+     */
+    public static synchronized DataSource getDataSource() throws SQLException {
+        if (dataSource == null) {
+            try {
+                dataSource = pooled( System.getProperty( URL_PROPERTY, DB_PATH ),
+                        System.getProperty( USER_PROPERTY, USER ), System.getProperty( PASSWORD_PROPERTY, PASSWORD ),
+                        Integer.getInteger( POOL_SIZE_PROPERTY, POOL_SIZE ) );
+            } catch (final HikariPool.PoolInitializationException e) {
+                //the pool is created again on the next request
+                throw new SQLException( e.getMessage(), e );
+            }
+        }
+        return dataSource;
+    }
+
+    /**
+     * Replaces the data source in use, closing the previous one if it was pooled.
+     */
+    public static synchronized void useDataSource( final DataSource newDataSource ) {
+        if (dataSource instanceof Closeable && dataSource != newDataSource) {
+            try {
+                ((Closeable) dataSource).close();
+            } catch (final IOException e) {
+                throw new UncheckedIOException( e );
+            }
+        }
+        dataSource = newDataSource;
+    }
+
+    /**
+     * @return a pool of at most poolSize connections to the database at url
+     */
+    public static HikariDataSource pooled( final String url, final String user, final String password,
+            final int poolSize ) {
+        final HikariConfig config = new HikariConfig();
+        config.setJdbcUrl( url );
+        config.setUsername( user );
+        config.setPassword( password );
+        config.setMaximumPoolSize( poolSize );
+        config.setPoolName( "defect-report-db" );
+        return new HikariDataSource( config );
     }
 }
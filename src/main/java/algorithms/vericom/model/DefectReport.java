@@ -1,11 +1,11 @@
 package algorithms.vericom.model;
 
 import algorithms.finaldefects.SemesterSettings;
-import algorithms.utils.UncheckedSQLException;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.Maps;
 import com.opencsv.CSVReader;
 import com.opencsv.CSVReaderBuilder;
+import org.jooq.Field;
 import org.jooq.Record;
 import org.jooq.impl.DSL;
 
@@ -14,19 +14,12 @@ import java.io.Reader;
 import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
-import java.sql.Connection;
-import java.sql.SQLException;
 import java.util.*;
-import java.util.function.Predicate;
-import java.util.stream.Collectors;
 
 /**
  * @author LinX
  */
 public class DefectReport {
-    private static final Map<SemesterSettings, ImmutableSet<DefectReport>> CACHED_DEFECT_REPORTS =
-            Maps.newConcurrentMap();
-
     public static final String DEFECT_REPORT_TABLE = "defect_report";
 
     public static final String ID_COLUMN = "id";
@@ -55,6 +48,11 @@ public class DefectReport {
 
     public static String WORKSHOP_ID_COLUMN = "workshop_id";
 
+    private static final ImmutableList<String> COLUMNS = ImmutableList.of( ID_COLUMN, DEFECT_REPORT_CODE_COLUMN,
+            WORKSHOP_CODE_COLUMN, TASK_ID_COLUMN, WORKER_ID_COLUMN, EME_ID_COLUMN, SCENARIO_ID_COLUMN,
+            DEFECT_TYPE_COLUMN, DEFECT_DESCRIPTION_COLUMN, SYN_DEFECT_DESCRIPTION_COLUMN, SYN_LABEL_COLUMN,
+            TASK_INSTANCE_ID_COLUMN, WORKSHOP_ID_COLUMN );
+
     private final int id;
 
     private final String defectReportCode;
@@ -86,15 +84,15 @@ public class DefectReport {
         this.defectReportCode = record.getValue( DEFECT_REPORT_CODE_COLUMN, String.class );
         this.workshopCode = record.getValue( WORKSHOP_CODE_COLUMN, String.class );
         this.taskId = record.getValue( TASK_ID_COLUMN, Integer.class );
-        this.workerId = new TaskWorkerId( record.getValue( WORKER_ID_COLUMN, Integer.class ) );
-        this.emeId = new EmeId( record.getValue( EME_ID_COLUMN, String.class ) );
+        this.workerId = TaskWorkerId.of( record.getValue( WORKER_ID_COLUMN, Integer.class ) );
+        this.emeId = EmeId.of( record.getValue( EME_ID_COLUMN, String.class ) );
         this.defectType = DefectType.fromString( record.getValue( DEFECT_TYPE_COLUMN, String.class ) );
         this.defectDescription = record.getValue( DEFECT_DESCRIPTION_COLUMN, String.class );
         this.synDefectDescription = record.getValue( SYN_DEFECT_DESCRIPTION_COLUMN, String.class );
         this.synLabel = record.getValue( SYN_LABEL_COLUMN, String.class );
         this.taskInstanceId = record.getValue( TASK_INSTANCE_ID_COLUMN, Integer.class );
         this.workshopId = record.getValue( WORKSHOP_ID_COLUMN, Integer.class );
-        this.scenarioId = new ScenarioId( record.getValue( SCENARIO_ID_COLUMN, String.class ) );
+        this.scenarioId = ScenarioId.of( record.getValue( SCENARIO_ID_COLUMN, String.class ) );
     }
 
     private DefectReport( final Builder builder ) {
@@ -187,7 +185,7 @@ public class DefectReport {
         final DefectReport that = (DefectReport) o;
         return this.id == that.id &&
                 this.taskId == that.taskId &&
-                this.workerId == that.workerId &&
+                Objects.equals( this.workerId, that.workerId ) &&
                 Objects.equals( this.taskInstanceId, that.taskInstanceId ) &&
                 Objects.equals( this.workshopId, that.workshopId ) &&
                 Objects.equals( this.defectReportCode, that.defectReportCode ) &&
@@ -235,50 +233,20 @@ public class DefectReport {
     }
 
     public static ImmutableSet<DefectReport> fetchDefectReports( final SemesterSettings semesterSettings ) {
-        return CACHED_DEFECT_REPORTS.computeIfAbsent( semesterSettings,
-                s -> readDefectReports( s.getDefectReportFilter() ) );
+        return SemesterDataStore.shared().get( semesterSettings ).getDefectReports();
     }
 
-    private static ImmutableSet<DefectReport> readDefectReports( final Predicate<DefectReport> filter ) {
-        try (Connection connection = DatabaseConnector.createConnection()) {
-            final String sql = "select * from " + DEFECT_REPORT_TABLE;
-            final ImmutableSet<DefectReport> defectReports = DSL.using( connection )
-                    .fetch( sql )
-                    .map( DefectReport::new ).stream().filter( filter )
-                    .filter
-                            ( e -> !Objects
-                                    .equals( e.getEmeId(), EmeId.EMPTY ) )
-                    .collect( ImmutableSet.toImmutableSet() );
-            final ImmutableSet<DefectReport> additionalDefectReportsFromCsv = getDefectReportsFromCsv();
-
-            final Map<TaskWorkerId, List<DefectReport>> defectsByWorker = defectReports.stream().collect( Collectors
-                    .groupingBy( DefectReport::getWorkerId ) );
-            return defectsByWorker.values().stream().flatMap( Collection::stream ).map(
-                    r -> r.getScenarioId().toString() == null ?
-                            r.replaceScenarioId( getScenarioIdOrThrow( additionalDefectReportsFromCsv, r ) ) :
-                            r ).collect( ImmutableSet.toImmutableSet() );
-        } catch (final SQLException e) {
-            throw new UncheckedSQLException( e );
-        }
-    }
-
-    private static ScenarioId getScenarioIdOrThrow(
-            final ImmutableSet<DefectReport> additionalDefectReportsFromCsv,
-            final DefectReport report ) {
-        final ImmutableSet<DefectReport> matches = additionalDefectReportsFromCsv.stream().filter(
-                r -> r.getDefectReportCode().contains( String.valueOf( report.getTaskId() ) ) &&
-                        Objects.equals( r.getWorkerId(), report.getWorkerId() ) ).collect(
-                ImmutableSet.toImmutableSet() );
-        if (matches.isEmpty()) {
-            throw new NoSuchElementException( "Scenario id not known for defect " + report );
-        }
-        else if (matches.size() > 1) {
-            throw new IllegalArgumentException(
-                    "More than one CSV defect report " + matches + " matching for defect " + report );
-        }
-        else {
-            return matches.iterator().next().getScenarioId();
+    static ImmutableSet<DefectReport> readDefectReports( final SemesterSettings semesterSettings ) {
+        //defect reports about an empty EME id are dropped, unknown EME ids are kept
+        final Field<String> emeId = DSL.field( DSL.name( EME_ID_COLUMN ), String.class );
+        final ImmutableSet<DefectReport> defectReports = DatabaseConnector.fetchLazy( DEFECT_REPORT_TABLE, COLUMNS,
+                semesterSettings.getDefectReportFilter().toCondition().and( emeId.isNull().or( emeId.ne( "" ) ) ),
+                records -> records.map( DefectReport::new ).collect( ImmutableSet.toImmutableSet() ) );
+        if (defectReports.stream().allMatch( r -> r.getScenarioId().toString() != null )) {
+            return defectReports;
         }
+        return ScenarioReconciliation.index( getDefectReportsFromCsv() ).reconcile( defectReports )
+                .getReconciledOrThrow();
     }
 
     private static ImmutableSet<DefectReport> getDefectReportsFromCsv() {
@@ -286,8 +254,8 @@ public class DefectReport {
                 Paths.get( "src/main/resources/additions/defectReportsSS18.csv" ) );
              CSVReader csvReader = new CSVReaderBuilder( reader ).withSkipLines( 1 ).build()) {
             return csvReader.readAll().stream().map( r -> DefectReport.builder( Integer.parseInt( r[0] ) ).withEmeId(
-                    new EmeId( r[12] ) ).withScenarioId( new ScenarioId( r[11] ) ).withWorkerId(
-                    new TaskWorkerId( r[7] ) )
+                    EmeId.of( r[12] ) ).withScenarioId( ScenarioId.of( r[11] ) ).withWorkerId(
+                    TaskWorkerId.of( r[7] ) )
                     .withDefectType( DefectType.fromString( r[14] ) )
                     .withDefectReportCode( r[1] )
                     .build() ).collect(
@@ -297,11 +265,6 @@ public class DefectReport {
         }
     }
 
-    public static Predicate<DefectReport> workshopFilter( final String... workshops ) {
-        final Set<String> filteredWorkshops = ImmutableSet.copyOf( workshops );
-        return d -> filteredWorkshops.contains( d.getWorkshopCode() );
-    }
-
     public static Builder builder( final int id ) {
         return new Builder( id );
     }
@@ -3,9 +3,14 @@ package algorithms.vericom.model;
 import algorithms.finaldefects.SemesterSettings;
 import algorithms.finaldefects.WorkerDefectReports;
 import algorithms.finaldefects.WorkerQuality;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Maps;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
 
 import java.util.List;
 import java.util.Map;
@@ -17,8 +22,12 @@ import java.util.stream.Collectors;
  * @author LinX
  */
 public class DefectReports {
+    private static final HashFunction FINGERPRINT_FUNCTION = Hashing.murmur3_128();
+
     private final ImmutableSet<DefectReport> defectReports;
 
+    private final Supplier<HashCode> fingerprint = Suppliers.memoize( this::calculateFingerprint );
+
     public DefectReports( final ImmutableSet<DefectReport> defectReports ) {
         this.defectReports = defectReports;
     }
@@ -27,6 +36,25 @@ public class DefectReports {
         return this.defectReports;
     }
 
+    /**
+     * @return content hash of the defect reports, independent of their order. Covers the fields used by the
+     * aggregation algorithms, i.e. id, worker, EME, scenario and defect type.
+     */
+    public HashCode getFingerprint() {
+        return this.fingerprint.get();
+    }
+
+    private HashCode calculateFingerprint() {
+        if (this.defectReports.isEmpty()) {
+            return FINGERPRINT_FUNCTION.hashInt( 0 );
+        }
+        return Hashing.combineUnordered( this.defectReports.stream().map( r -> FINGERPRINT_FUNCTION.newHasher()
+                .putInt( r.getId() ).putInt( r.getWorkerId().toInt() )
+                .putUnencodedChars( String.valueOf( r.getEmeId() ) ).putByte( (byte) 0 )
+                .putUnencodedChars( String.valueOf( r.getScenarioId() ) ).putByte( (byte) 0 )
+                .putUnencodedChars( String.valueOf( r.getDefectType() ) ).hash() ).collect( Collectors.toList() ) );
+    }
+
     public Map<EmeAndScenarioId, List<DefectReport>> groupedByEmeAndScenarioId() {
         return this.defectReports.stream().collect( Collectors.groupingBy( DefectReport::getEmeAndScenarioId ) );
     }
@@ -65,7 +93,11 @@ public class DefectReports {
                 '}';
     }
 
+    /**
+     * @return the defect reports of the semester held by the {@link SemesterDataStore}, the same instance as long as
+     * the data of the semester is not read again
+     */
     public static DefectReports fetchFromDb( final SemesterSettings settings ) {
-        return new DefectReports( DefectReport.fetchDefectReports( settings ) );
+        return SemesterDataStore.shared().get( settings ).toDefectReports();
     }
 }
@@ -1,12 +1,10 @@
 package algorithms.vericom.model;
 
 import algorithms.finaldefects.SemesterSettings;
-import algorithms.utils.UncheckedSQLException;
+import com.google.common.collect.ImmutableList;
 import org.jooq.Record;
 import org.jooq.impl.DSL;
 
-import java.sql.Connection;
-import java.sql.SQLException;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Stream;
@@ -27,6 +25,9 @@ public class Eme {
 
     public static String EME_GROUP_COLUMN = "eme_group";
 
+    private static final ImmutableList<String> COLUMNS = ImmutableList.of( EME_ID_COLUMN, OLD_EME_TEXT_COLUMN,
+            EME_TEXT, EME_TYPE_COLUMN, EME_GROUP_COLUMN );
+
     private final EmeId emeId;
 
     private final String emeText;
@@ -36,7 +37,7 @@ public class Eme {
     private final Integer emeGroupId;
 
     public Eme( final Record record, final SemesterSettings settings ) {
-        this.emeId = new EmeId( record.getValue( EME_ID_COLUMN, String.class ) );
+        this.emeId = EmeId.of( record.getValue( EME_ID_COLUMN, String.class ) );
         this.emeText = Optional.ofNullable( record.getValue( OLD_EME_TEXT_COLUMN, String.class ) ).filter( settings
                 .useOldEmes() ).filter( t -> !t
                 .equals( "NULL" ) ).orElseGet( () -> record.getValue( EME_TEXT, String.class ) );
@@ -102,12 +103,9 @@ public class Eme {
     }
 
     public static Stream<Eme> fetchEmes( final SemesterSettings settings ) {
-        try (Connection connection = DatabaseConnector.createConnection()) {
-            final String sql = "select * from " + EME_TABLE;
-            return DSL.using( connection ).fetch( sql ).map( r -> new Eme( r, settings ) ).stream();
-        } catch (final SQLException e) {
-            throw new UncheckedSQLException( e );
-        }
+        return DatabaseConnector.fetchLazy( EME_TABLE, COLUMNS, DSL.noCondition(),
+                records -> records.map( r -> new Eme( r, settings ) ).collect( ImmutableList.toImmutableList() ) )
+                .stream();
     }
 
     public static class Builder {
@@ -48,6 +48,6 @@ public final class EmeAndScenarioId {
 
     public static EmeAndScenarioId fromString( final String string ) {
         final String[] split = string.split( "//" );
-        return new EmeAndScenarioId( new EmeId( split[0] ), new ScenarioId( split[1] ) );
+        return new EmeAndScenarioId( EmeId.of( split[0] ), ScenarioId.of( split[1] ) );
     }
 }
@@ -1,17 +1,37 @@
 package algorithms.vericom.model;
 
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+
 import java.util.Objects;
 
 /**
+ * Id of an EME. Instances are interned, see {@link #of(String)}.
+ *
  * @author LinX
  */
 public final class EmeId {
-    public static final EmeId EMPTY = new EmeId( "" );
+    //weak values keyed by the raw id, so that an id in use is found without creating an instance
+    private static final LoadingCache<String, EmeId> INSTANCES = CacheBuilder.newBuilder().weakValues().build(
+            CacheLoader.from( EmeId::new ) );
+
+    public static final EmeId EMPTY = of( "" );
 
     private final String id;
 
-    public EmeId( final String id ) {
+    private final int hash;
+
+    private EmeId( final String id ) {
         this.id = id;
+        this.hash = 31 + Objects.hashCode( id );
+    }
+
+    /**
+     * @return the canonical id, equal ids are the same instance
+     */
+    public static EmeId of( final String id ) {
+        return INSTANCES.getUnchecked( id );
     }
 
     @Override
@@ -23,12 +43,12 @@ public final class EmeId {
             return false;
         }
         final EmeId emeId = (EmeId) o;
-        return Objects.equals( this.id, emeId.id );
+        return this.hash == emeId.hash && Objects.equals( this.id, emeId.id );
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash( this.id );
+        return this.hash;
     }
 
     @Override
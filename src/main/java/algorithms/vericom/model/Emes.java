@@ -2,9 +2,7 @@ package algorithms.vericom.model;
 
 import algorithms.finaldefects.SemesterSettings;
 import com.google.common.collect.ImmutableBiMap;
-import com.google.common.collect.Maps;
 
-import java.util.Map;
 import java.util.Objects;
 import java.util.function.Function;
 
@@ -12,8 +10,6 @@ import java.util.function.Function;
  * @author LinX
  */
 public final class Emes {
-    private static final Map<SemesterSettings, Emes> CACHED_EMES = Maps.newConcurrentMap();
-
     private final ImmutableBiMap<EmeId, Eme> emes;
 
     public Emes( final ImmutableBiMap<EmeId, Eme> emes ) {
@@ -53,9 +49,13 @@ public final class Emes {
     }
 
     public static Emes fetchFromDb( final SemesterSettings settings ) {
-        return CACHED_EMES.computeIfAbsent( settings, s -> new Emes( Eme.fetchEmes( settings )
+        return SemesterDataStore.shared().get( settings ).getEmes();
+    }
+
+    static Emes readEmes( final SemesterSettings settings ) {
+        return new Emes( Eme.fetchEmes( settings )
                 .collect( ImmutableBiMap
                         .toImmutableBiMap( Eme::getEmeId,
-                                Function.identity() ) ) ) );
+                                Function.identity() ) ) );
     }
 }
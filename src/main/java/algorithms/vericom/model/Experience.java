@@ -33,6 +33,22 @@ public class Experience {
         return this.questionType;
     }
 
+    public int getQuestionNr() {
+        return this.questionNr;
+    }
+
+    public int getMinRange() {
+        return this.minRange;
+    }
+
+    public int getMaxRange() {
+        return this.maxRange;
+    }
+
+    public int getScore() {
+        return this.score;
+    }
+
     @Override
     public boolean equals( final Object o ) {
         if (this == o) {
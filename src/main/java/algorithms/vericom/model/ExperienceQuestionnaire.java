@@ -4,7 +4,6 @@ import algorithms.finaldefects.Semester;
 import algorithms.finaldefects.SemesterSettings;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.Maps;
 import com.opencsv.CSVReader;
 import com.opencsv.CSVReaderBuilder;
 import org.slf4j.Logger;
@@ -21,9 +20,6 @@ import java.util.*;
  * @author LinX
  */
 public class ExperienceQuestionnaire {
-    private static final Map<SemesterSettings, ImmutableMap<TaskWorkerId, ExperienceQuestionnaire>>
-            CACHED_QUESTIONNAIRES = Maps.newHashMap();
-
     private static final Logger LOG = LoggerFactory.getLogger( ExperienceQuestionnaire.class );
 
     private static final ImmutableMap<Semester, String> CSV_FILE_PATHS = ImmutableMap.of(
@@ -74,12 +70,11 @@ public class ExperienceQuestionnaire {
     }
 
     public static ImmutableMap<TaskWorkerId, ExperienceQuestionnaire> fetch( final SemesterSettings settings ) {
-        return CACHED_QUESTIONNAIRES.computeIfAbsent( settings, ExperienceQuestionnaire::readQuestionnaires );
+        return SemesterDataStore.shared().get( settings ).getExperienceQuestionnaires();
     }
 
-    private static ImmutableMap<TaskWorkerId, ExperienceQuestionnaire> readQuestionnaires(
-            final SemesterSettings settings ) {
-        final ImmutableSet<Participant> participants = Participant.fetchParticipants( settings );
+    static ImmutableMap<TaskWorkerId, ExperienceQuestionnaire> readQuestionnaires(
+            final SemesterSettings settings, final ImmutableSet<Participant> participants ) {
         try (Reader reader = Files.newBufferedReader( Paths.get( CSV_FILE_PATHS.get( settings.getSemester() ) ) );
              CSVReader csvReader = new CSVReaderBuilder( reader ).withSkipLines( 1 ).build()) {
             final List<String[]> lines = csvReader.readAll();
@@ -1,13 +1,10 @@
 package algorithms.vericom.model;
 
 import algorithms.finaldefects.SemesterSettings;
-import algorithms.utils.UncheckedSQLException;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import org.jooq.Record;
-import org.jooq.impl.DSL;
 
-import java.sql.Connection;
-import java.sql.SQLException;
 import java.util.Objects;
 
 /**
@@ -26,6 +23,11 @@ public class FinalDefect {
 
     public static final String FINAL_DEFECT_TYPE_COLUMN = "final_defect_type";
 
+    public static final String FILTER_CODE_COLUMN = "filter_code";
+
+    private static final ImmutableList<String> COLUMNS = ImmutableList.of( EME_ID_COLUMN, EME_TEXT_COLUMN, SCENARIO_ID,
+            AGREEMENT_COEFF_COLUMN, FINAL_DEFECT_TYPE_COLUMN );
+
     private final EmeId emeId;
 
     private final String emeText;
@@ -37,9 +39,9 @@ public class FinalDefect {
     private final FinalDefectType finalDefectType;
 
     public FinalDefect( final Record record ) {
-        this.emeId = new EmeId( record.getValue( EME_ID_COLUMN, String.class ) );
+        this.emeId = EmeId.of( record.getValue( EME_ID_COLUMN, String.class ) );
         this.emeText = record.getValue( EME_TEXT_COLUMN, String.class );
-        this.scenarioId = new ScenarioId( record.getValue( SCENARIO_ID, String.class ) );
+        this.scenarioId = ScenarioId.of( record.getValue( SCENARIO_ID, String.class ) );
         this.agreementCoeff = new AgreementCoefficient( record.getValue( AGREEMENT_COEFF_COLUMN, Double.class ) );
         this.finalDefectType = record.getValue( FINAL_DEFECT_TYPE_COLUMN, FinalDefectType.class );
     }
@@ -113,15 +115,9 @@ public class FinalDefect {
     }
 
     public static ImmutableSet<FinalDefect> fetchFinalDefects( final SemesterSettings settings ) {
-        try (Connection connection = DatabaseConnector.createConnection()) {
-            final String sql = "select * from " + FINAL_DEFECT_TABLE + " where filter_code='" + settings
-                    .getFinalDefectFilterCode() + "'";
-            return DSL.using( connection )
-                    .fetch( sql )
-                    .map( FinalDefect::new ).stream().collect( ImmutableSet.toImmutableSet() );
-        } catch (final SQLException e) {
-            throw new UncheckedSQLException( e );
-        }
+        return DatabaseConnector.fetchLazy( FINAL_DEFECT_TABLE, COLUMNS, ColumnFilter.in( FILTER_CODE_COLUMN,
+                settings.getFinalDefectFilterCode() ).toCondition(),
+                records -> records.map( FinalDefect::new ).collect( ImmutableSet.toImmutableSet() ) );
     }
 
     public static class Builder {
@@ -1,18 +1,12 @@
 package algorithms.vericom.model;
 
-import algorithms.finaldefects.Semester;
 import algorithms.finaldefects.SemesterSettings;
-import algorithms.utils.UncheckedSQLException;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.Maps;
 import org.jooq.Record;
-import org.jooq.impl.DSL;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.sql.Connection;
-import java.sql.SQLException;
-import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 
@@ -20,8 +14,6 @@ import java.util.Optional;
  * @author LinX
  */
 public class Participant {
-    private static final Map<SemesterSettings, ImmutableSet<Participant>> CACHED_PARTICIPANTS = Maps.newHashMap();
-
     private static final Logger LOG = LoggerFactory.getLogger( Participant.class );
 
     public static final String PARTICIPANT_TABLE = "participant";
@@ -36,6 +28,9 @@ public class Participant {
 
     public static final String CREATED_AT_COLUMN = "created_at";
 
+    private static final ImmutableList<String> COLUMNS = ImmutableList.of( NAME_COLUMN, WORKER_ID_COLUMN,
+            WORKSHOP_ID_COLUMN, PARTICIPANT_ID_COLUMN, CREATED_AT_COLUMN );
+
     private final String name;
 
     private final TaskWorkerId workerId;
@@ -48,12 +43,21 @@ public class Participant {
 
     public Participant( final Record record ) {
         this.name = record.getValue( NAME_COLUMN, String.class );
-        this.workerId = new TaskWorkerId( record.getValue( WORKER_ID_COLUMN, String.class ) );
+        this.workerId = TaskWorkerId.of( record.getValue( WORKER_ID_COLUMN, String.class ) );
         this.workshopId = record.getValue( WORKSHOP_ID_COLUMN, Integer.class );
         this.participantId = record.getValue( PARTICIPANT_ID_COLUMN, String.class );
         this.createdAt = record.getValue( CREATED_AT_COLUMN, String.class );
     }
 
+    Participant( final String name, final TaskWorkerId workerId, final int workshopId, final String participantId,
+            final String createdAt ) {
+        this.name = name;
+        this.workerId = workerId;
+        this.workshopId = workshopId;
+        this.participantId = participantId;
+        this.createdAt = createdAt;
+    }
+
     public String getName() {
         return this.name;
     }
@@ -107,21 +111,13 @@ public class Participant {
     }
 
     public static ImmutableSet<Participant> fetchParticipants( final SemesterSettings settings ) {
-        return CACHED_PARTICIPANTS.computeIfAbsent( settings, Participant::readParticipants );
+        return SemesterDataStore.shared().get( settings ).getParticipants();
     }
 
-    private static ImmutableSet<Participant> readParticipants( final SemesterSettings settings ) {
-        final String sql = "select * from " + PARTICIPANT_TABLE;
-        try (Connection connection = DatabaseConnector.createConnection()) {
-            return DSL.using( connection )
-                    .fetch( sql )
-                    .map( Participant::createValidParticipant ).stream().filter( Optional::isPresent ).map(
-                            Optional::get ).filter(
-                            p -> p.createdAt.startsWith( settings.getSemester() == Semester.WS2017 ? "2017" : "2018" ) )
-                    .collect( ImmutableSet.toImmutableSet() );
-        } catch (final SQLException e) {
-            throw new UncheckedSQLException( e );
-        }
+    static ImmutableSet<Participant> readParticipants( final SemesterSettings settings ) {
+        return DatabaseConnector.fetchLazy( PARTICIPANT_TABLE, COLUMNS, settings.getParticipantFilter().toCondition(),
+                records -> records.map( Participant::createValidParticipant ).filter( Optional::isPresent ).map(
+                        Optional::get ).collect( ImmutableSet.toImmutableSet() ) );
     }
 
     private static Optional<Participant> createValidParticipant( final Record record ) {
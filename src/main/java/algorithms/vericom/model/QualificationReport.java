@@ -1,5 +1,6 @@
 package algorithms.vericom.model;
 
+import algorithms.finaldefects.SemesterSettings;
 import com.google.common.collect.ImmutableMap;
 import com.opencsv.CSVReader;
 import com.opencsv.CSVReaderBuilder;
@@ -17,9 +18,6 @@ import java.util.Objects;
 public class QualificationReport {
     private static final String CSV_FILE_PATH = "src/main/resources/additions/qualificationReports.csv";
 
-    public static final ImmutableMap<TaskWorkerId, QualificationReport> QUALIFICATION_REPORTS =
-            fetchQualificationReports();
-
     private final TaskWorkerId workerId;
 
     private final ImmutableMap<Integer, Boolean> results;
@@ -75,12 +73,16 @@ public class QualificationReport {
                 '}';
     }
 
-    private static ImmutableMap<TaskWorkerId, QualificationReport> fetchQualificationReports() {
+    public static ImmutableMap<TaskWorkerId, QualificationReport> fetch( final SemesterSettings settings ) {
+        return SemesterDataStore.shared().get( settings ).getQualificationReports();
+    }
+
+    static ImmutableMap<TaskWorkerId, QualificationReport> readQualificationReports() {
         try (Reader reader = Files.newBufferedReader( Paths.get( CSV_FILE_PATH ) );
              CSVReader csvReader = new CSVReaderBuilder( reader ).withSkipLines( 1 ).build()) {
             return csvReader.readAll().stream().collect(
-                    ImmutableMap.toImmutableMap( l -> new TaskWorkerId( l[7] ),
-                            l -> new QualificationReport( new TaskWorkerId( l[7] ), getResults( l ) ) ) );
+                    ImmutableMap.toImmutableMap( l -> TaskWorkerId.of( l[7] ),
+                            l -> new QualificationReport( TaskWorkerId.of( l[7] ), getResults( l ) ) ) );
         } catch (final IOException e) {
             throw new UncheckedIOException( e );
         }
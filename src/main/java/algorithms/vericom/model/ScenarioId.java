@@ -1,15 +1,38 @@
 package algorithms.vericom.model;
 
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+
 import java.util.Objects;
 
 /**
+ * Id of a scenario, interned like {@link EmeId}.
+ *
  * @author LinX
  */
 public final class ScenarioId {
+    //weak values keyed by the raw id, so that an id in use is found without creating an instance
+    private static final LoadingCache<String, ScenarioId> INSTANCES = CacheBuilder.newBuilder().weakValues().build(
+            CacheLoader.from( ScenarioId::new ) );
+
+    //defect reports without a scenario, the cache does not hold null keys
+    private static final ScenarioId NONE = new ScenarioId( null );
+
     private final String id;
 
-    public ScenarioId( final String id ) {
+    private final int hash;
+
+    private ScenarioId( final String id ) {
         this.id = id;
+        this.hash = 31 + Objects.hashCode( id );
+    }
+
+    /**
+     * @return the canonical id, equal ids are the same instance
+     */
+    public static ScenarioId of( final String id ) {
+        return id == null ? NONE : INSTANCES.getUnchecked( id );
     }
 
     @Override
@@ -21,12 +44,12 @@ public final class ScenarioId {
             return false;
         }
         final ScenarioId that = (ScenarioId) o;
-        return Objects.equals( this.id, that.id );
+        return this.hash == that.hash && Objects.equals( this.id, that.id );
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash( this.id );
+        return this.hash;
     }
 
     @Override
@@ -0,0 +1,134 @@
+package algorithms.vericom.model;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ImmutableSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Looks up the scenario of defect reports stored without one in the database. The scenario is taken from the CSV
+ * defect report of the same worker and task, which are matched through an index built once, so all defect reports are
+ * reconciled in one pass.
+ *
+ * @author LinX
+ */
+final class ScenarioReconciliation {
+    private static final Logger LOG = LoggerFactory.getLogger( ScenarioReconciliation.class );
+
+    //codes of CSV defect reports are I<task id>W<worker id>
+    private static final Pattern DEFECT_REPORT_CODE = Pattern.compile( "I(\\d+)W\\d+" );
+
+    private final ImmutableListMultimap<Long, DefectReport> csvReportsByWorkerAndTask;
+
+    private ScenarioReconciliation( final ImmutableListMultimap<Long, DefectReport> csvReportsByWorkerAndTask ) {
+        this.csvReportsByWorkerAndTask = csvReportsByWorkerAndTask;
+    }
+
+    /**
+     * @return reconciliation against the CSV defect reports, indexed by worker and the task of their code
+     */
+    static ScenarioReconciliation index( final Collection<DefectReport> csvReports ) {
+        final ImmutableListMultimap.Builder<Long, DefectReport> index = ImmutableListMultimap.builder();
+        for (final DefectReport report : csvReports) {
+            final Matcher code = DEFECT_REPORT_CODE.matcher( report.getDefectReportCode() );
+            final long taskId = code.matches() ? Long.parseLong( code.group( 1 ) ) : -1;
+            if (taskId >= 0 && taskId <= Integer.MAX_VALUE) {
+                index.put( key( report.getWorkerId(), (int) taskId ), report );
+            }
+            else {
+                LOG.warn( "CSV defect report {} has no task in its code {}.", report.getId(),
+                        report.getDefectReportCode() );
+            }
+        }
+        return new ScenarioReconciliation( index.build() );
+    }
+
+    /**
+     * @return the defect reports, those without a scenario with the scenario of their matching CSV defect report
+     */
+    Result reconcile( final Collection<DefectReport> reports ) {
+        final ImmutableSet.Builder<DefectReport> reconciled = ImmutableSet.builder();
+        final ImmutableList.Builder<DefectReport> unmatched = ImmutableList.builder();
+        final ImmutableList.Builder<DefectReport> ambiguous = ImmutableList.builder();
+        for (final DefectReport report : reports) {
+            if (report.getScenarioId().toString() != null) {
+                reconciled.add( report );
+                continue;
+            }
+            final ImmutableList<DefectReport> matches = this.csvReportsByWorkerAndTask.get(
+                    key( report.getWorkerId(), report.getTaskId() ) );
+            if (matches.isEmpty()) {
+                unmatched.add( report );
+            }
+            else if (matches.size() > 1) {
+                ambiguous.add( report );
+            }
+            else {
+                reconciled.add( report.replaceScenarioId( matches.get( 0 ).getScenarioId() ) );
+            }
+        }
+        return new Result( reconciled.build(), unmatched.build(), ambiguous.build() );
+    }
+
+    private static long key( final TaskWorkerId workerId, final int taskId ) {
+        return ((long) workerId.toInt() << Integer.SIZE) | (taskId & 0xffffffffL);
+    }
+
+    static final class Result {
+        private final ImmutableSet<DefectReport> reconciled;
+
+        private final ImmutableList<DefectReport> unmatched;
+
+        private final ImmutableList<DefectReport> ambiguous;
+
+        private Result( final ImmutableSet<DefectReport> reconciled, final ImmutableList<DefectReport> unmatched,
+                final ImmutableList<DefectReport> ambiguous ) {
+            this.reconciled = reconciled;
+            this.unmatched = unmatched;
+            this.ambiguous = ambiguous;
+        }
+
+        /**
+         * @return defect reports with a scenario
+         */
+        ImmutableSet<DefectReport> getReconciled() {
+            return this.reconciled;
+        }
+
+        /**
+         * @return defect reports without a scenario and without a matching CSV defect report
+         */
+        ImmutableList<DefectReport> getUnmatched() {
+            return this.unmatched;
+        }
+
+        /**
+         * @return defect reports without a scenario and with more than one matching CSV defect report
+         */
+        ImmutableList<DefectReport> getAmbiguous() {
+            return this.ambiguous;
+        }
+
+        /**
+         * @return defect reports with a scenario
+         * @throws IllegalStateException listing all defect reports left without a scenario
+         */
+        ImmutableSet<DefectReport> getReconciledOrThrow() {
+            if (!this.unmatched.isEmpty() || !this.ambiguous.isEmpty()) {
+                throw new IllegalStateException( "Scenario unknown for " + this.unmatched.size() +
+                        " defect reports without matching CSV defect report " + ids( this.unmatched ) + " and " +
+                        this.ambiguous.size() + " defect reports with more than one " + ids( this.ambiguous ) );
+            }
+            return this.reconciled;
+        }
+
+        private static ImmutableList<Integer> ids( final ImmutableList<DefectReport> reports ) {
+            return reports.stream().map( DefectReport::getId ).collect( ImmutableList.toImmutableList() );
+        }
+    }
+}
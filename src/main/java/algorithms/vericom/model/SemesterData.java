@@ -0,0 +1,219 @@
+package algorithms.vericom.model;
+
+import algorithms.finaldefects.SemesterSettings;
+import com.google.common.base.Stopwatch;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.hash.HashCode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * Everything read for a semester: defect reports, EMEs, participants, true defects, experience questionnaires and
+ * qualification reports, together with the time spent reading each of them. The sources are independent of each
+ * other: a source that cannot be read only fails the getter of that source and is read again on its next use.
+ *
+ * @author LinX
+ */
+public final class SemesterData {
+    private static final Logger LOG = LoggerFactory.getLogger( SemesterData.class );
+
+    private final Source<ImmutableSet<DefectReport>> defectReports;
+
+    private final Source<Emes> emes;
+
+    private final Source<ImmutableSet<Participant>> participants;
+
+    private final Source<ImmutableSet<TrueDefect>> trueDefects;
+
+    private final Source<ImmutableMap<TaskWorkerId, ExperienceQuestionnaire>> experienceQuestionnaires;
+
+    private final Source<ImmutableMap<TaskWorkerId, QualificationReport>> qualificationReports;
+
+    private final Map<String, Duration> loadTimes;
+
+    //one instance per data, so that its fingerprint is calculated once
+    private final Supplier<DefectReports> defectReportsWithFingerprint = Suppliers.memoize(
+            () -> new DefectReports( getDefectReports() ) );
+
+    SemesterData( final ImmutableSet<DefectReport> defectReports, final Emes emes,
+            final ImmutableSet<Participant> participants, final ImmutableSet<TrueDefect> trueDefects,
+            final ImmutableMap<TaskWorkerId, ExperienceQuestionnaire> experienceQuestionnaires,
+            final ImmutableMap<TaskWorkerId, QualificationReport> qualificationReports,
+            final ImmutableMap<String, Duration> loadTimes ) {
+        this.defectReports = new Source<>( defectReports );
+        this.emes = new Source<>( emes );
+        this.participants = new Source<>( participants );
+        this.trueDefects = new Source<>( trueDefects );
+        this.experienceQuestionnaires = new Source<>( experienceQuestionnaires );
+        this.qualificationReports = new Source<>( qualificationReports );
+        this.loadTimes = new ConcurrentHashMap<>( loadTimes );
+    }
+
+    private SemesterData( final SemesterSettings settings, final Executor executor ) {
+        this.loadTimes = new ConcurrentHashMap<>();
+        this.defectReports = new Source<>( "defectReports", () -> DefectReport.readDefectReports( settings ),
+                executor );
+        this.emes = new Source<>( "emes", () -> Emes.readEmes( settings ), executor );
+        this.participants = new Source<>( "participants", () -> Participant.readParticipants( settings ),
+                executor );
+        this.trueDefects = new Source<>( "trueDefects", TrueDefect::readTrueDefects, executor );
+        this.qualificationReports = new Source<>( "qualificationReports",
+                QualificationReport::readQualificationReports, executor );
+        this.experienceQuestionnaires = new Source<>( "experienceQuestionnaires",
+                () -> ExperienceQuestionnaire.readQuestionnaires( settings, getParticipants() ), executor );
+    }
+
+    /**
+     * Reads the data of a semester, every source on its own thread of executor, and waits until every source is
+     * either read or failed. Experience questionnaires are read once the participants they are matched with are
+     * available.
+     */
+    static SemesterData load( final SemesterSettings settings, final Executor executor ) {
+        final Stopwatch stopwatch = Stopwatch.createStarted();
+        final SemesterData data = new SemesterData( settings, executor );
+        data.sources().forEach( Source::await );
+        LOG.info( "Loaded data of {} in {} ms: {}", settings.getSemester(), stopwatch.elapsed().toMillis(),
+                data.getLoadTimes() );
+        return data;
+    }
+
+    public ImmutableSet<DefectReport> getDefectReports() {
+        return this.defectReports.get();
+    }
+
+    /**
+     * @return the defect reports, the same instance on every call
+     */
+    public DefectReports toDefectReports() {
+        return this.defectReportsWithFingerprint.get();
+    }
+
+    /**
+     * @see DefectReports#getFingerprint()
+     */
+    public HashCode getDefectReportsFingerprint() {
+        return toDefectReports().getFingerprint();
+    }
+
+    public Emes getEmes() {
+        return this.emes.get();
+    }
+
+    public ImmutableSet<Participant> getParticipants() {
+        return this.participants.get();
+    }
+
+    public ImmutableSet<TrueDefect> getTrueDefects() {
+        return this.trueDefects.get();
+    }
+
+    public ImmutableMap<TaskWorkerId, ExperienceQuestionnaire> getExperienceQuestionnaires() {
+        return this.experienceQuestionnaires.get();
+    }
+
+    public ImmutableMap<TaskWorkerId, QualificationReport> getQualificationReports() {
+        return this.qualificationReports.get();
+    }
+
+    /**
+     * @return time spent reading each source that has been read, by name of the source
+     */
+    public ImmutableMap<String, Duration> getLoadTimes() {
+        return ImmutableMap.copyOf( this.loadTimes );
+    }
+
+    /**
+     * @return number of records held by the sources read, which approximates the memory used by this data
+     */
+    int getNrRecords() {
+        return this.defectReports.size( Set::size ) + this.emes.size( e -> e.getEmes().size() ) +
+                this.participants.size( Set::size ) + this.trueDefects.size( Set::size ) +
+                this.experienceQuestionnaires.size( Map::size ) + this.qualificationReports.size( Map::size );
+    }
+
+    private ImmutableList<Source<?>> sources() {
+        return ImmutableList.of( this.defectReports, this.emes, this.participants, this.trueDefects,
+                this.experienceQuestionnaires, this.qualificationReports );
+    }
+
+    /**
+     * One source of the data, read asynchronously. If reading fails, the failure is thrown by {@link #get()}, which
+     * reads the source again on its next call.
+     */
+    private final class Source<T> {
+        private final String name;
+
+        private final Supplier<T> reader;
+
+        private final Executor executor;
+
+        private volatile CompletableFuture<T> value;
+
+        Source( final String name, final Supplier<T> reader, final Executor executor ) {
+            this.name = name;
+            this.reader = reader;
+            this.executor = executor;
+            this.value = CompletableFuture.supplyAsync( this::read, executor );
+        }
+
+        private Source( final T value ) {
+            this.name = null;
+            this.reader = () -> value;
+            this.executor = Runnable::run;
+            this.value = CompletableFuture.completedFuture( value );
+        }
+
+        T get() {
+            CompletableFuture<T> current = this.value;
+            if (current.isCompletedExceptionally()) {
+                synchronized (this) {
+                    if (this.value == current) {
+                        this.value = CompletableFuture.supplyAsync( this::read, this.executor );
+                    }
+                    current = this.value;
+                }
+            }
+            try {
+                return current.join();
+            } catch (final CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw e;
+            }
+        }
+
+        void await() {
+            try {
+                this.value.join();
+            } catch (final CompletionException e) {
+                LOG.warn( "Cannot read {}, reading it again on next use", this.name, e.getCause() );
+            }
+        }
+
+        int size( final ToIntFunction<T> size ) {
+            final CompletableFuture<T> current = this.value;
+            return current.isDone() && !current.isCompletedExceptionally() ? size.applyAsInt( current.join() ) : 0;
+        }
+
+        private T read() {
+            final Stopwatch stopwatch = Stopwatch.createStarted();
+            final T result = this.reader.get();
+            SemesterData.this.loadTimes.put( this.name, stopwatch.elapsed() );
+            return result;
+        }
+    }
+}
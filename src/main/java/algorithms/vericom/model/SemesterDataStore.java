@@ -0,0 +1,102 @@
+package algorithms.vericom.model;
+
+import algorithms.finaldefects.SemesterSettings;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+/**
+ * Holds the {@link SemesterData} of every semester in use, so that all algorithms share one copy of it. The data of a
+ * semester is read on first use, can be refreshed explicitly and is evicted once the number of records held exceeds
+ * the maximum. The shared store reads a semester from its {@link SemesterSnapshot} in the directory given by the
+ * system property {@value #SNAPSHOT_DIRECTORY_PROPERTY} if there is one, from the database otherwise.
+ *
+ * @author LinX
+ */
+public final class SemesterDataStore {
+    public static final String SNAPSHOT_DIRECTORY_PROPERTY = "consensus.snapshot.dir";
+
+    //records of all sources, enough for both semesters. The store uses a single segment, so that the maximum holds
+    //for all semesters together rather than being split across the segments of the cache
+    private static final long DEFAULT_MAXIMUM_NR_RECORDS = 1_000_000;
+
+    private static final ExecutorService LOADER_EXECUTOR = Executors.newCachedThreadPool(
+            new ThreadFactoryBuilder().setNameFormat( "semester-data-%d" ).setDaemon( true ).build() );
+
+    private static final SemesterDataStore SHARED = new SemesterDataStore( DEFAULT_MAXIMUM_NR_RECORDS,
+            SemesterDataStore::loadShared );
+
+    private final LoadingCache<SemesterSettings, SemesterData> data;
+
+    SemesterDataStore( final long maximumNrRecords, final Function<SemesterSettings, SemesterData> loader ) {
+        this.data = CacheBuilder.newBuilder().concurrencyLevel( 1 ).maximumWeight( maximumNrRecords )
+                .weigher( ( SemesterSettings s, SemesterData d ) -> d.getNrRecords() ).recordStats()
+                .build( CacheLoader.from( loader::apply ) );
+    }
+
+    private static SemesterData loadShared( final SemesterSettings settings ) {
+        final String snapshotDirectory = System.getProperty( SNAPSHOT_DIRECTORY_PROPERTY );
+        if (snapshotDirectory != null) {
+            final Path snapshot = SemesterSnapshot.path( Paths.get( snapshotDirectory ), settings );
+            if (Files.exists( snapshot )) {
+                return SemesterSnapshot.read( settings, snapshot );
+            }
+        }
+        return SemesterData.load( settings, LOADER_EXECUTOR );
+    }
+
+    /**
+     * @return the store used by the model classes
+     */
+    public static SemesterDataStore shared() {
+        return SHARED;
+    }
+
+    /**
+     * @return the data of the semester, read if it is not held yet. Concurrent requests for the same semester wait
+     * for one read.
+     */
+    public SemesterData get( final SemesterSettings settings ) {
+        try {
+            return this.data.getUnchecked( settings );
+        } catch (final UncheckedExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Reads the data of the semester again. Until the new data is available, the old data is returned.
+     */
+    public void refresh( final SemesterSettings settings ) {
+        this.data.refresh( settings );
+    }
+
+    public void invalidateAll() {
+        this.data.invalidateAll();
+    }
+
+    /**
+     * @return data held right now, by semester
+     */
+    public ImmutableMap<SemesterSettings, SemesterData> getLoaded() {
+        return ImmutableMap.copyOf( this.data.asMap() );
+    }
+
+    public CacheStats getStats() {
+        return this.data.stats();
+    }
+}
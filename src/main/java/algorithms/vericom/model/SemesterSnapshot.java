@@ -0,0 +1,471 @@
+package algorithms.vericom.model;
+
+import algorithms.finaldefects.SemesterSettings;
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.ImmutableBiMap;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * Versioned, columnar binary snapshot of the {@link SemesterData} of a semester. Every table is stored column by
+ * column as ints: strings are stored once in a string table and referenced by index, enums by the index of their name,
+ * so that reordering the constants of an enum does not change the meaning of a snapshot. A number that may be null
+ * takes two columns, 1 if it is present and 0 otherwise, followed by its value. Snapshots are read from a memory
+ * mapped file, so a semester can be loaded without a database and without parsing any text.
+ *
+ * <pre>
+ * header:       magic, version
+ * string table: nr strings, nr strings + 1 offsets into the UTF-8 bytes, UTF-8 bytes
+ * semester:     index of its name
+ * tables:       nr rows, nr columns, nr rows ints per column
+ * </pre>
+ *
+ * The tables are defect reports, EMEs, participants, true defects, experience questionnaires with their experiences
+ * and qualification reports with their results, in this order. All ints are big-endian.
+ *
+ * @author LinX
+ */
+public final class SemesterSnapshot {
+    static final int VERSION = 2;
+
+    //"SEMS"
+    private static final int MAGIC = 0x53454d53;
+
+    //no string, enum or object
+    private static final int NULL_REFERENCE = -1;
+
+    private static final String FILE_EXTENSION = ".snapshot";
+
+    private static final String DEFAULT_DIRECTORY = "output/snapshots";
+
+    private SemesterSnapshot() {
+    }
+
+    /**
+     * Writes snapshots of all semesters into the directory given as first argument, {@value #DEFAULT_DIRECTORY} by
+     * default.
+     */
+    public static void main( final String[] args ) throws IOException {
+        final Path directory = Paths.get( args.length > 0 ? args[0] : DEFAULT_DIRECTORY );
+        Files.createDirectories( directory );
+        SemesterSettings.SETTINGS.values().forEach(
+                s -> write( s, SemesterDataStore.shared().get( s ), path( directory, s ) ) );
+    }
+
+    /**
+     * @return path of the snapshot of the semester in directory
+     */
+    public static Path path( final Path directory, final SemesterSettings settings ) {
+        return directory.resolve( settings.getSemester() + FILE_EXTENSION );
+    }
+
+    /**
+     * Writes the data of the semester to path. The snapshot replaces an existing file only once it is complete.
+     */
+    public static void write( final SemesterSettings settings, final SemesterData data, final Path path ) {
+        final StringTable strings = new StringTable();
+        final int semester = strings.indexOf( settings.getSemester().name() );
+        final ImmutableList<Table> tables = toTables( data, strings );
+        final Path absolutePath = path.toAbsolutePath();
+        try {
+            final Path temporary = Files.createTempFile( absolutePath.getParent(),
+                    absolutePath.getFileName().toString(), ".tmp" );
+            try (DataOutputStream out = new DataOutputStream( new BufferedOutputStream(
+                    Files.newOutputStream( temporary ) ) )) {
+                out.writeInt( MAGIC );
+                out.writeInt( VERSION );
+                strings.writeTo( out );
+                out.writeInt( semester );
+                for (final Table table : tables) {
+                    table.writeTo( out );
+                }
+            } catch (final IOException e) {
+                Files.deleteIfExists( temporary );
+                throw e;
+            }
+            Files.move( temporary, absolutePath, StandardCopyOption.REPLACE_EXISTING );
+        } catch (final IOException e) {
+            throw new UncheckedIOException( e );
+        }
+    }
+
+    /**
+     * @return the data of the semester stored in the snapshot at path
+     * @throws IllegalArgumentException if path is no snapshot of the semester in the current version
+     */
+    public static SemesterData read( final SemesterSettings settings, final Path path ) {
+        final Stopwatch stopwatch = Stopwatch.createStarted();
+        try (FileChannel channel = FileChannel.open( path, StandardOpenOption.READ )) {
+            final ByteBuffer buffer = channel.map( FileChannel.MapMode.READ_ONLY, 0, channel.size() );
+            if (buffer.getInt() != MAGIC) {
+                throw new IllegalArgumentException( path + " is no semester snapshot" );
+            }
+            final int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new IllegalArgumentException(
+                        "Snapshot " + path + " has version " + version + ", expected " + VERSION );
+            }
+            final String[] strings = readStrings( buffer );
+            final String semester = strings[buffer.getInt()];
+            if (!semester.equals( settings.getSemester().name() )) {
+                throw new IllegalArgumentException(
+                        "Snapshot " + path + " is of " + semester + ", expected " + settings.getSemester() );
+            }
+            return new TableReader( buffer, strings ).readData(
+                    ImmutableMap.of( "snapshot", stopwatch.elapsed() ) );
+        } catch (final IOException e) {
+            throw new UncheckedIOException( e );
+        }
+    }
+
+    private static ImmutableList<Table> toTables( final SemesterData data, final StringTable strings ) {
+        final ImmutableList<ExperienceQuestionnaire> questionnaires =
+                data.getExperienceQuestionnaires().values().asList();
+        final ImmutableList.Builder<ExperienceRow> experiences = ImmutableList.builder();
+        for (int i = 0; i < questionnaires.size(); i++) {
+            for (final Experience experience : questionnaires.get( i ).getResults()) {
+                experiences.add( new ExperienceRow( i, experience ) );
+            }
+        }
+        final ImmutableList<QualificationReport> qualificationReports =
+                data.getQualificationReports().values().asList();
+        final ImmutableList.Builder<QualificationResultRow> qualificationResults = ImmutableList.builder();
+        for (int i = 0; i < qualificationReports.size(); i++) {
+            for (final Map.Entry<Integer, Boolean> result : qualificationReports.get( i ).getResults().entrySet()) {
+                qualificationResults.add( new QualificationResultRow( i, result.getKey(), result.getValue() ) );
+            }
+        }
+
+        return ImmutableList.of(
+                Table.of( data.getDefectReports().asList(), ImmutableList.of(
+                        DefectReport::getId,
+                        r -> strings.indexOf( r.getDefectReportCode() ),
+                        r -> strings.indexOf( r.getWorkshopCode() ),
+                        DefectReport::getTaskId,
+                        r -> present( r.getWorkerId() ),
+                        r -> r.getWorkerId() == null ? 0 : r.getWorkerId().toInt(),
+                        r -> strings.indexOf( r.getEmeId() == null ? null : r.getEmeId().toString() ),
+                        r -> strings.indexOf( r.getScenarioId() == null ? null : r.getScenarioId().toString() ),
+                        r -> strings.indexOf( r.getDefectType() ),
+                        r -> strings.indexOf( r.getDefectDescription() ),
+                        r -> strings.indexOf( r.getSynDefectDescription() ),
+                        r -> strings.indexOf( r.getSynLabel() ),
+                        r -> present( r.getTaskInstanceId() ),
+                        r -> number( r.getTaskInstanceId() ),
+                        r -> present( r.getWorkshopId() ),
+                        r -> number( r.getWorkshopId() ) ) ),
+                Table.of( data.getEmes().getEmes().values().asList(), ImmutableList.of(
+                        e -> strings.indexOf( e.getEmeId().toString() ),
+                        e -> strings.indexOf( e.getEmeText() ),
+                        e -> strings.indexOf( e.getEmeType() ),
+                        e -> present( e.getEmeGroupId() ),
+                        e -> number( e.getEmeGroupId() ) ) ),
+                Table.of( data.getParticipants().asList(), ImmutableList.of(
+                        p -> strings.indexOf( p.getName() ),
+                        p -> p.getWorkerId().toInt(),
+                        Participant::getWorkshopId,
+                        p -> strings.indexOf( p.getParticipantId() ),
+                        p -> strings.indexOf( p.getCreatedAt() ) ) ),
+                Table.of( data.getTrueDefects().asList(), ImmutableList.of(
+                        TrueDefect::getId,
+                        d -> strings.indexOf( d.getCodeTd() ),
+                        d -> strings.indexOf( d.getAboutModelElement() ),
+                        d -> strings.indexOf( d.getAboutEmEid().toString() ),
+                        d -> strings.indexOf( d.getScenario().toString() ),
+                        d -> strings.indexOf( d.getAboutMeType() ),
+                        d -> strings.indexOf( d.getDefectType() ),
+                        d -> strings.indexOf( d.getDefectSeverity() ),
+                        d -> strings.indexOf( d.getDescription() ) ) ),
+                Table.of( questionnaires, ImmutableList.of( q -> q.getWorkerId().toInt() ) ),
+                Table.of( experiences.build(), ImmutableList.of(
+                        e -> e.questionnaire,
+                        e -> strings.indexOf( e.experience.getQuestionType() ),
+                        e -> e.experience.getQuestionNr(),
+                        e -> e.experience.getMinRange(),
+                        e -> e.experience.getMaxRange(),
+                        e -> e.experience.getScore() ) ),
+                Table.of( qualificationReports, ImmutableList.of( r -> r.getWorkerId().toInt() ) ),
+                Table.of( qualificationResults.build(), ImmutableList.of(
+                        r -> r.report,
+                        r -> r.question,
+                        r -> r.result ? 1 : 0 ) ) );
+    }
+
+    private static String[] readStrings( final ByteBuffer buffer ) {
+        final int[] offsets = new int[buffer.getInt() + 1];
+        readInts( buffer, offsets );
+        final byte[] bytes = new byte[offsets[offsets.length - 1]];
+        buffer.get( bytes );
+        final String[] strings = new String[offsets.length - 1];
+        for (int i = 0; i < strings.length; i++) {
+            strings[i] = new String( bytes, offsets[i], offsets[i + 1] - offsets[i], StandardCharsets.UTF_8 );
+        }
+        return strings;
+    }
+
+    private static void readInts( final ByteBuffer buffer, final int[] values ) {
+        buffer.asIntBuffer().get( values );
+        buffer.position( buffer.position() + values.length * Integer.BYTES );
+    }
+
+    private static int present( final Object value ) {
+        return value == null ? 0 : 1;
+    }
+
+    private static int number( final Integer value ) {
+        return value == null ? 0 : value;
+    }
+
+    private static final class StringTable {
+        private final Map<String, Integer> indices = Maps.newLinkedHashMap();
+
+        int indexOf( final String value ) {
+            return value == null ? NULL_REFERENCE : this.indices.computeIfAbsent( value, v -> this.indices.size() );
+        }
+
+        int indexOf( final Enum<?> value ) {
+            return value == null ? NULL_REFERENCE : indexOf( value.name() );
+        }
+
+        void writeTo( final DataOutputStream out ) throws IOException {
+            final ImmutableList<byte[]> encoded = this.indices.keySet().stream().map(
+                    s -> s.getBytes( StandardCharsets.UTF_8 ) ).collect( ImmutableList.toImmutableList() );
+            out.writeInt( encoded.size() );
+            int offset = 0;
+            out.writeInt( offset );
+            for (final byte[] bytes : encoded) {
+                offset += bytes.length;
+                out.writeInt( offset );
+            }
+            for (final byte[] bytes : encoded) {
+                out.write( bytes );
+            }
+        }
+    }
+
+    private static final class Table {
+        private final int nrRows;
+
+        private final int[][] columns;
+
+        private Table( final int nrRows, final int[][] columns ) {
+            this.nrRows = nrRows;
+            this.columns = columns;
+        }
+
+        static <T> Table of( final List<T> rows, final ImmutableList<ToIntFunction<T>> columns ) {
+            final int[][] values = new int[columns.size()][rows.size()];
+            for (int r = 0; r < rows.size(); r++) {
+                for (int c = 0; c < columns.size(); c++) {
+                    values[c][r] = columns.get( c ).applyAsInt( rows.get( r ) );
+                }
+            }
+            return new Table( rows.size(), values );
+        }
+
+        void writeTo( final DataOutputStream out ) throws IOException {
+            out.writeInt( this.nrRows );
+            out.writeInt( this.columns.length );
+            for (final int[] column : this.columns) {
+                for (final int value : column) {
+                    out.writeInt( value );
+                }
+            }
+        }
+    }
+
+    private static final class TableReader {
+        private final ByteBuffer buffer;
+
+        private final String[] strings;
+
+        private int nrRows;
+
+        private int[][] columns;
+
+        TableReader( final ByteBuffer buffer, final String[] strings ) {
+            this.buffer = buffer;
+            this.strings = strings;
+        }
+
+        SemesterData readData( final ImmutableMap<String, Duration> loadTimes ) {
+            next( 16 );
+            final ImmutableSet.Builder<DefectReport> defectReports = ImmutableSet.builder();
+            for (int r = 0; r < this.nrRows; r++) {
+                final Integer workerId = number( 4, r );
+                final String emeId = string( 6, r );
+                final String scenarioId = string( 7, r );
+                final DefectReport.Builder builder = DefectReport.builder( value( 0, r ) )
+                        .withDefectReportCode( string( 1, r ) ).withWorkshopCode( string( 2, r ) )
+                        .withTaskId( value( 3, r ) ).withWorkerId( workerId == null ? null : TaskWorkerId.of(
+                                workerId ) ).withEmeId( emeId == null ? null : EmeId.of( emeId ) )
+                        .withScenarioId( scenarioId == null ? null : ScenarioId.of( scenarioId ) )
+                        .withDefectType( constant( DefectType.class, 8, r ) )
+                        .withDefectDescription( string( 9, r ) ).withSynDefectDescription( string( 10, r ) )
+                        .withSynLabel( string( 11, r ) ).withTaskInstanceId( number( 12, r ) )
+                        .withWorkshopId( number( 14, r ) );
+                defectReports.add( builder.build() );
+            }
+
+            next( 5 );
+            final ImmutableBiMap.Builder<EmeId, Eme> emes = ImmutableBiMap.builder();
+            for (int r = 0; r < this.nrRows; r++) {
+                final EmeId emeId = EmeId.of( string( 0, r ) );
+                final Eme.Builder builder = Eme.builder( emeId ).withEmeText( string( 1, r ) )
+                        .withEmeType( constant( EmeType.class, 2, r ) );
+                final Integer emeGroupId = number( 3, r );
+                if (emeGroupId != null) {
+                    builder.withEmeGroupId( emeGroupId );
+                }
+                emes.put( emeId, builder.build() );
+            }
+
+            next( 5 );
+            final ImmutableSet.Builder<Participant> participants = ImmutableSet.builder();
+            for (int r = 0; r < this.nrRows; r++) {
+                participants.add( new Participant( string( 0, r ), TaskWorkerId.of( value( 1, r ) ), value( 2, r ),
+                        string( 3, r ), string( 4, r ) ) );
+            }
+
+            next( 9 );
+            final ImmutableSet.Builder<TrueDefect> trueDefects = ImmutableSet.builder();
+            for (int r = 0; r < this.nrRows; r++) {
+                trueDefects.add( new TrueDefect( value( 0, r ), string( 1, r ), string( 2, r ),
+                        EmeId.of( string( 3, r ) ), ScenarioId.of( string( 4, r ) ), string( 5, r ),
+                        constant( DefectType.class, 6, r ), string( 7, r ), string( 8, r ) ) );
+            }
+
+            next( 1 );
+            final TaskWorkerId[] questionnaireWorkers = workers();
+            next( 6 );
+            final List<ImmutableSet.Builder<Experience>> experiences = builders( questionnaireWorkers.length,
+                    ImmutableSet::builder );
+            for (int r = 0; r < this.nrRows; r++) {
+                experiences.get( value( 0, r ) ).add( new Experience( constant( ExperienceQuestionType.class,
+                        1, r ), value( 2, r ), value( 3, r ), value( 4, r ), value( 5, r ) ) );
+            }
+            final ImmutableMap.Builder<TaskWorkerId, ExperienceQuestionnaire> questionnaires = ImmutableMap.builder();
+            for (int i = 0; i < questionnaireWorkers.length; i++) {
+                questionnaires.put( questionnaireWorkers[i], new ExperienceQuestionnaire( questionnaireWorkers[i],
+                        experiences.get( i ).build() ) );
+            }
+
+            next( 1 );
+            final TaskWorkerId[] qualificationWorkers = workers();
+            next( 3 );
+            final List<ImmutableMap.Builder<Integer, Boolean>> results = builders( qualificationWorkers.length,
+                    ImmutableMap::builder );
+            for (int r = 0; r < this.nrRows; r++) {
+                results.get( value( 0, r ) ).put( value( 1, r ), value( 2, r ) == 1 );
+            }
+            final ImmutableMap.Builder<TaskWorkerId, QualificationReport> qualificationReports =
+                    ImmutableMap.builder();
+            for (int i = 0; i < qualificationWorkers.length; i++) {
+                qualificationReports.put( qualificationWorkers[i], new QualificationReport( qualificationWorkers[i],
+                        results.get( i ).build() ) );
+            }
+
+            return new SemesterData( defectReports.build(), new Emes( emes.build() ), participants.build(),
+                    trueDefects.build(), questionnaires.build(), qualificationReports.build(), loadTimes );
+        }
+
+        private void next( final int expectedNrColumns ) {
+            this.nrRows = this.buffer.getInt();
+            final int nrColumns = this.buffer.getInt();
+            if (nrColumns != expectedNrColumns) {
+                throw new IllegalArgumentException(
+                        "Snapshot table has " + nrColumns + " columns, expected " + expectedNrColumns );
+            }
+            this.columns = new int[nrColumns][this.nrRows];
+            for (final int[] column : this.columns) {
+                readInts( this.buffer, column );
+            }
+        }
+
+        private TaskWorkerId[] workers() {
+            final TaskWorkerId[] workers = new TaskWorkerId[this.nrRows];
+            for (int r = 0; r < this.nrRows; r++) {
+                workers[r] = TaskWorkerId.of( value( 0, r ) );
+            }
+            return workers;
+        }
+
+        private int value( final int column, final int row ) {
+            return this.columns[column][row];
+        }
+
+        /**
+         * @param column column telling whether the number is present, followed by the column of its value
+         */
+        private Integer number( final int column, final int row ) {
+            return value( column, row ) == 0 ? null : value( column + 1, row );
+        }
+
+        private String string( final int column, final int row ) {
+            final int index = value( column, row );
+            return index == NULL_REFERENCE ? null : this.strings[index];
+        }
+
+        /**
+         * @throws IllegalArgumentException if the enum has no constant of the name stored
+         */
+        private <E extends Enum<E>> E constant( final Class<E> type, final int column, final int row ) {
+            final String name = string( column, row );
+            return name == null ? null : Enum.valueOf( type, name );
+        }
+
+        private static <B> List<B> builders( final int size, final Supplier<B> builder ) {
+            final List<B> builders = new ArrayList<>( size );
+            for (int i = 0; i < size; i++) {
+                builders.add( builder.get() );
+            }
+            return builders;
+        }
+    }
+
+    private static final class ExperienceRow {
+        private final int questionnaire;
+
+        private final Experience experience;
+
+        ExperienceRow( final int questionnaire, final Experience experience ) {
+            this.questionnaire = questionnaire;
+            this.experience = experience;
+        }
+    }
+
+    private static final class QualificationResultRow {
+        private final int report;
+
+        private final int question;
+
+        private final boolean result;
+
+        QualificationResultRow( final int report, final int question, final boolean result ) {
+            this.report = report;
+            this.question = question;
+            this.result = result;
+        }
+    }
+}
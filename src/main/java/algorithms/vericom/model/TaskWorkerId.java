@@ -1,19 +1,34 @@
 package algorithms.vericom.model;
 
-import java.util.Objects;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 
 /**
+ * Id of a worker, interned like {@link EmeId}.
+ *
  * @author LinX
  */
 public final class TaskWorkerId {
+    //weak values keyed by the raw id, so that an id in use is found without creating an instance
+    private static final LoadingCache<Integer, TaskWorkerId> INSTANCES = CacheBuilder.newBuilder().weakValues()
+            .build( CacheLoader.from( TaskWorkerId::new ) );
+
     private final int id;
 
-    public TaskWorkerId( final String id ) {
-        this( Integer.parseInt( id ) );
+    private TaskWorkerId( final int id ) {
+        this.id = id;
     }
 
-    public TaskWorkerId( final int id ) {
-        this.id = id;
+    public static TaskWorkerId of( final String id ) {
+        return of( Integer.parseInt( id ) );
+    }
+
+    /**
+     * @return the canonical id, equal ids are the same instance
+     */
+    public static TaskWorkerId of( final int id ) {
+        return INSTANCES.getUnchecked( id );
     }
 
     public int toInt() {
@@ -34,7 +49,8 @@ public final class TaskWorkerId {
 
     @Override
     public int hashCode() {
-        return Objects.hash( this.id );
+        //same as Objects.hash( id ), without the varargs array
+        return 31 + Integer.hashCode( this.id );
     }
 
     @Override
@@ -1,18 +1,17 @@
 package algorithms.vericom.model;
 
+import algorithms.finaldefects.SemesterSettings;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import org.jooq.Record;
 import org.jooq.impl.DSL;
 
-import java.sql.Connection;
 import java.util.Objects;
 
 /**
  * @author LinX
  */
 public class TrueDefect {
-    private static ImmutableSet<TrueDefect> CACHED_TRUE_DEFECTS = null;
-
     public static String TRUE_DEFECT_TABLE = "true_defect";
 
     public static String ID_COLUMN = "id";
@@ -33,6 +32,10 @@ public class TrueDefect {
 
     public static String DESCRIPTION_COLUMN = "description";
 
+    private static final ImmutableList<String> COLUMNS = ImmutableList.of( ID_COLUMN, CODE_TD_COLUMN,
+            ABOUT_MODEL_ELEMENT_COLUMN, ABOUT_EM_EID_COLUMN, SCENARIO_COLUMN, ABOUT_ME_TYPE_COLUMN, DEFECT_TYPE_COLUMN,
+            DEFECT_SEVERITY_COLUMN, DESCRIPTION_COLUMN );
+
     private final int id;
 
     private final String codeTd;
@@ -55,15 +58,15 @@ public class TrueDefect {
         this.id = record.getValue( ID_COLUMN, Integer.class );
         this.codeTd = record.getValue( CODE_TD_COLUMN, String.class );
         this.aboutModelElement = record.getValue( ABOUT_MODEL_ELEMENT_COLUMN, String.class );
-        this.aboutEmEid = new EmeId( record.getValue( ABOUT_EM_EID_COLUMN, String.class ) );
-        this.scenario = new ScenarioId( record.getValue( SCENARIO_COLUMN, String.class ) );
+        this.aboutEmEid = EmeId.of( record.getValue( ABOUT_EM_EID_COLUMN, String.class ) );
+        this.scenario = ScenarioId.of( record.getValue( SCENARIO_COLUMN, String.class ) );
         this.aboutMeType = record.getValue( ABOUT_ME_TYPE_COLUMN, String.class );
         this.defectType = DefectType.fromString( record.getValue( DEFECT_TYPE_COLUMN, String.class ).trim() );
         this.defectSeverity = record.getValue( DEFECT_SEVERITY_COLUMN, String.class );
         this.description = record.getValue( DESCRIPTION_COLUMN, String.class );
     }
 
-    private TrueDefect( final int id, final String codeTd, final String aboutModelElement, final EmeId aboutEmEid,
+    TrueDefect( final int id, final String codeTd, final String aboutModelElement, final EmeId aboutEmEid,
             final ScenarioId scenario, final String aboutMeType, final DefectType defectType, final String
             defectSeverity, final String description ) {
         this.id = id;
@@ -159,13 +162,12 @@ public class TrueDefect {
                 '}';
     }
 
-    public static ImmutableSet<TrueDefect> fetchTrueDefects( final Connection connection ) {
-        if (CACHED_TRUE_DEFECTS == null) {
-            final String sql = "select * from " + TRUE_DEFECT_TABLE;
-            CACHED_TRUE_DEFECTS = DSL.using( connection )
-                    .fetch( sql )
-                    .map( TrueDefect::new ).stream().collect( ImmutableSet.toImmutableSet() );
-        }
-        return CACHED_TRUE_DEFECTS;
+    public static ImmutableSet<TrueDefect> fetchTrueDefects( final SemesterSettings settings ) {
+        return SemesterDataStore.shared().get( settings ).getTrueDefects();
+    }
+
+    static ImmutableSet<TrueDefect> readTrueDefects() {
+        return DatabaseConnector.fetchLazy( TRUE_DEFECT_TABLE, COLUMNS, DSL.noCondition(),
+                records -> records.map( TrueDefect::new ).collect( ImmutableSet.toImmutableSet() ) );
     }
 }
@@ -7,50 +7,61 @@ import algorithms.finaldefects.aggregation.*;
 import algorithms.statistic.*;
 import algorithms.vericom.model.EmeAndScenarioId;
 import algorithms.vericom.model.ExperienceQuestionType;
+import algorithms.vericom.model.SemesterDataStore;
 import algorithms.vericom.model.Weight;
 import com.google.common.collect.ImmutableBiMap;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Maps;
+import com.google.common.hash.HashCode;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.time.Duration;
 import java.util.Map;
+import java.util.function.Function;
 
 /**
+ * Aggregation results and the responses built from them are cached, see {@link ResultCache}, so polling the same
+ * endpoint does not run the algorithms again as long as the defect reports have not changed.
+ *
  * @author LinX
  */
 @RestController
 @RequestMapping("algorithms")
 public class AlgorithmController {
-    private final Map<Semester, CrowdtruthAggregation> crowdtruthAlgorithm;
+    private static final long MAXIMUM_NR_CACHED_RESULTS = 200;
 
-    public AlgorithmController() {
-        this.crowdtruthAlgorithm = Maps.toMap( SemesterSettings.SETTINGS.keySet(),
-                s -> CrowdtruthAggregation.create( SemesterSettings.get( s ) ) );
-    }
+    private static final Duration CACHED_RESULTS_EXPIRE_AFTER = Duration.ofHours( 1 );
+
+    private final ResultCache results = new ResultCache( MAXIMUM_NR_CACHED_RESULTS, CACHED_RESULTS_EXPIRE_AFTER );
 
     @GetMapping("/finalDefects/CrowdTruth")
     public WebFinalDefects crowdTruthFinalDefects(
             @RequestParam(value = "semester", defaultValue = "WS2017") final Semester semester ) {
-        return new WebFinalDefects( AlgorithmType.CrowdTruth, this.crowdtruthAlgorithm.get( semester ) );
+        final HashCode fingerprint = fingerprint( semester );
+        return this.results.get( ResultCache.key( WebFinalDefects.class, AlgorithmType.CrowdTruth.name(),
+                ImmutableMap.of(), semester, fingerprint ),
+                () -> new WebFinalDefects( AlgorithmType.CrowdTruth, crowdtruth( semester, fingerprint ) ) );
     }
 
     @GetMapping("/finalDefects/MajorityVoting")
     public WebFinalDefects majorityVotingFinalDefects(
             @RequestParam(value = "semester", defaultValue = "WS2017") final Semester semester ) {
-        return new WebFinalDefects( AlgorithmType.MajorityVoting,
-                MajorityVotingAlgorithm.create( SemesterSettings.get( semester ) ) );
+        return webFinalDefects( AlgorithmType.MajorityVoting, ImmutableMap.of(), semester,
+                settings -> MajorityVotingAlgorithm.create( settings ) );
     }
 
     @GetMapping("/finalDefects/AdaptiveMajorityVoting")
     public WebFinalDefects adaptiveMajorityVotingFinalDefects(
             @RequestParam(value = "threshold", defaultValue = "0.0") final double threshold,
             @RequestParam(value = "semester", defaultValue = "WS2017") final Semester semester ) {
-        return new WebFinalDefects( AlgorithmType.AdaptiveMajorityVoting,
-                new AdaptiveMajorityVoting( threshold, SemesterSettings.get( semester ) ) );
+        return webFinalDefects( AlgorithmType.AdaptiveMajorityVoting,
+                ImmutableMap.of( "threshold", String.valueOf( threshold ) ), semester,
+                settings -> new AdaptiveMajorityVoting( threshold, settings ) );
     }
 
     @GetMapping("/finalDefects/MajorityVotingWithExperienceQuestionnaire")
@@ -74,9 +85,12 @@ public class AlgorithmController {
                         .put( ExperienceQuestionType.CROWDSOURCING_APPLICATIONS,
                                 new Weight( weightCrowdsourcingApplications ) )
                         .build();
-        return new WebFinalDefects( AlgorithmType.MajorityVotingWithExperienceQuestionnaire,
-                MajorityVotingWithExperienceQuestionnaire
-                        .create( SemesterSettings.get( semester ), qualityInfluence, alpha, weights ) );
+        final ImmutableMap.Builder<String, String> parameters = ImmutableMap.<String, String>builder()
+                .put( "qualityInfluence", qualityInfluence.name() ).put( "alpha", String.valueOf( alpha ) );
+        weights.forEach( ( type, weight ) -> parameters.put( type.name(), String.valueOf( weight.toDouble() ) ) );
+        return webFinalDefects( AlgorithmType.MajorityVotingWithExperienceQuestionnaire, parameters.build(), semester,
+                settings -> MajorityVotingWithExperienceQuestionnaire.create( settings, qualityInfluence, alpha,
+                        weights ) );
     }
 
     @GetMapping("/finalDefects/MajorityVotingWithQualificationReport")
@@ -84,15 +98,27 @@ public class AlgorithmController {
             @RequestParam(value = "qualityInfluence") final WorkerQualityInfluence qualityInfluence,
             @RequestParam(value = "alpha", defaultValue = "0.0") final double alpha,
             @RequestParam(value = "semester", defaultValue = "SS2018") final Semester semester ) {
-        return new WebFinalDefects( AlgorithmType.MajorityVotingWithQualificationReport,
-                MajorityVotingWithQualificationReport
-                        .create( SemesterSettings.get( semester ), qualityInfluence, alpha ) );
+        return webFinalDefects( AlgorithmType.MajorityVotingWithQualificationReport,
+                qualityInfluenceParameters( qualityInfluence, alpha ), semester,
+                settings -> MajorityVotingWithQualificationReport.create( settings, qualityInfluence, alpha ) );
+    }
+
+    @GetMapping("/finalDefects/GLAD")
+    public WebFinalDefects gladFinalDefects(
+            @RequestParam(value = "semester", defaultValue = "WS2017") final Semester semester ) {
+        return webFinalDefects( AlgorithmType.GLAD, ImmutableMap.of(), semester, GladAggregation::create );
+    }
+
+    @GetMapping("/finalDefects/LFC")
+    public WebFinalDefects lfcFinalDefects(
+            @RequestParam(value = "semester", defaultValue = "WS2017") final Semester semester ) {
+        return webFinalDefects( AlgorithmType.LFC, ImmutableMap.of(), semester, LfcAggregation::create );
     }
 
     @GetMapping("/workers")
     public CrowdtruthScores workers(
             @RequestParam(value = "semester", defaultValue = "WS2017") final Semester semester ) {
-        final CrowdtruthAggregation crowdtruthAggregation = this.crowdtruthAlgorithm.get( semester );
+        final CrowdtruthAggregation crowdtruthAggregation = crowdtruth( semester, fingerprint( semester ) );
         final ImmutableSet<ArtifactWithConfusionMatrix> workerScores =
                 QualityAnalyzer.create().getConfusionMatrixForWorkers( crowdtruthAggregation );
         final ImmutableSet<ArtifactWithConfusionMatrix> annotationScores =
@@ -111,15 +137,58 @@ public class AlgorithmController {
     @GetMapping("/all/metrics")
     public Map<String, ConfusionMatrix> getAllMetrics(
             @RequestParam(value = "semester", defaultValue = "WS2017") final Semester semester ) {
-        final ImmutableMap<String, FinalDefectAggregationAlgorithm> finalDefects =
-                calculateFinalDefectsForAllAlgorithms( semester );
-        return Maps.transformValues( finalDefects,
-                a -> new ConfusionMatrix( FinalDefectAnalyzer.getFinalDefects( a ).values() ) );
+        return this.results.get( ResultCache.key( ImmutableMap.class, "all/metrics", ImmutableMap.of(), semester,
+                fingerprint( semester ) ), () -> ImmutableMap.copyOf( Maps.transformValues(
+                calculateFinalDefectsForAllAlgorithms( semester ),
+                a -> new ConfusionMatrix( FinalDefectAnalyzer.getFinalDefects( a ).values() ) ) ) );
     }
 
     @GetMapping("/all/finalDefects")
     public ImmutableSet<FinalDefectComparison> getFinalDefectComparison(
             @RequestParam(value = "semester", defaultValue = "WS2017") final Semester semester ) {
+        return this.results.get( ResultCache.key( ImmutableSet.class, "all/finalDefects", ImmutableMap.of(), semester,
+                fingerprint( semester ) ), () -> calculateFinalDefectComparison( semester ) );
+    }
+
+    @GetMapping("/cache")
+    public WebCacheStats cacheStats() {
+        return new WebCacheStats( this.results.size(), this.results.getStats() );
+    }
+
+    /**
+     * Drops all cached results and the semester data read so far, e.g. after defect reports have been added to the
+     * database.
+     */
+    @PostMapping("/cache/invalidate")
+    public WebCacheStats invalidateCache() {
+        SemesterDataStore.shared().invalidateAll();
+        this.results.invalidateAll();
+        return cacheStats();
+    }
+
+    /**
+     * @return time spent reading each source of the semesters read so far, in milliseconds
+     */
+    @GetMapping("/semesterData")
+    public ImmutableMap<Semester, ImmutableMap<String, Long>> semesterDataLoadTimes() {
+        return SemesterDataStore.shared().getLoaded().entrySet().stream().collect( ImmutableMap.toImmutableMap(
+                e -> e.getKey().getSemester(), e -> ImmutableMap.copyOf( Maps.transformValues(
+                        e.getValue().getLoadTimes(), Duration::toMillis ) ) ) );
+    }
+
+    /**
+     * Reads the data of the semester again, while the data read before is still served. Cached results of the
+     * semester are dropped afterwards, as they may depend on sources other than the defect reports.
+     */
+    @PostMapping("/semesterData/refresh")
+    public ImmutableMap<Semester, ImmutableMap<String, Long>> refreshSemesterData(
+            @RequestParam(value = "semester", defaultValue = "WS2017") final Semester semester ) {
+        SemesterDataStore.shared().refresh( SemesterSettings.get( semester ) );
+        this.results.invalidate( semester );
+        return semesterDataLoadTimes();
+    }
+
+    private ImmutableSet<FinalDefectComparison> calculateFinalDefectComparison( final Semester semester ) {
         final ImmutableMap<String, FinalDefectAggregationAlgorithm> finalDefects =
                 calculateFinalDefectsForAllAlgorithms( semester );
 
@@ -141,34 +210,93 @@ public class AlgorithmController {
 
     private ImmutableMap<String, FinalDefectAggregationAlgorithm> calculateFinalDefectsForAllAlgorithms(
             final Semester semester ) {
-        final SemesterSettings settings = SemesterSettings.get( semester );
+        final HashCode fingerprint = fingerprint( semester );
         final ImmutableMap.Builder<String, FinalDefectAggregationAlgorithm> builder = ImmutableMap.builder();
         builder
-                .put( AlgorithmType.MajorityVoting.name(), MajorityVotingAlgorithm.create( settings ) ) //
-                .put( AlgorithmType.CrowdTruth.name(), this.crowdtruthAlgorithm.get( semester ) )
-                .put( AlgorithmType.AdaptiveMajorityVoting + ";t=0.1", new AdaptiveMajorityVoting( 0.1, settings ) )
-                .put( AlgorithmType.AdaptiveMajorityVoting + ";t=0.9", new AdaptiveMajorityVoting( 0.9, settings ) )
+                .put( AlgorithmType.MajorityVoting.name(), aggregation( AlgorithmType.MajorityVoting,
+                        ImmutableMap.of(), semester, fingerprint, settings -> MajorityVotingAlgorithm.create(
+                                settings ) ) ) //
+                .put( AlgorithmType.CrowdTruth.name(), crowdtruth( semester, fingerprint ) )
+                .put( AlgorithmType.AdaptiveMajorityVoting + ";t=0.1", adaptiveMajorityVoting( 0.1, semester,
+                        fingerprint ) )
+                .put( AlgorithmType.AdaptiveMajorityVoting + ";t=0.9", adaptiveMajorityVoting( 0.9, semester,
+                        fingerprint ) )
                 .put( AlgorithmType.MajorityVotingWithExperienceQuestionnaire + ";exp;alpha=0.1",
-                        MajorityVotingWithExperienceQuestionnaire
-                                .create( settings, WorkerQualityInfluence.EXPONENTIAL, 0.1 ) )
+                        majorityVotingWithExperienceQuestionnaire( WorkerQualityInfluence.EXPONENTIAL, 0.1, semester,
+                                fingerprint ) )
                 .put( AlgorithmType.MajorityVotingWithExperienceQuestionnaire + ";exp;alpha=0.5",
-                        MajorityVotingWithExperienceQuestionnaire
-                                .create( settings, WorkerQualityInfluence.EXPONENTIAL, 0.5 ) )
+                        majorityVotingWithExperienceQuestionnaire( WorkerQualityInfluence.EXPONENTIAL, 0.5, semester,
+                                fingerprint ) )
                 .put( AlgorithmType.MajorityVotingWithExperienceQuestionnaire + ";linear",
-                        MajorityVotingWithExperienceQuestionnaire
-                                .create( settings, WorkerQualityInfluence.LINEAR, 0.1 ) );
+                        majorityVotingWithExperienceQuestionnaire( WorkerQualityInfluence.LINEAR, 0.1, semester,
+                                fingerprint ) );
 
         if (semester == Semester.SS2018) {
             builder.put( AlgorithmType.MajorityVotingWithQualificationReport + ";exp;alpha=0.1",
-                    MajorityVotingWithQualificationReport
-                            .create( settings, WorkerQualityInfluence.EXPONENTIAL, 0.1 ) )
+                    majorityVotingWithQualificationReport( WorkerQualityInfluence.EXPONENTIAL, 0.1, semester,
+                            fingerprint ) )
                     .put( AlgorithmType.MajorityVotingWithQualificationReport + ";exp;alpha=0.5",
-                            MajorityVotingWithQualificationReport
-                                    .create( settings, WorkerQualityInfluence.EXPONENTIAL, 0.5 ) )
+                            majorityVotingWithQualificationReport( WorkerQualityInfluence.EXPONENTIAL, 0.5, semester,
+                                    fingerprint ) )
                     .put( AlgorithmType.MajorityVotingWithQualificationReport + ";linear",
-                            MajorityVotingWithQualificationReport
-                                    .create( settings, WorkerQualityInfluence.LINEAR, 0.1 ) );
+                            majorityVotingWithQualificationReport( WorkerQualityInfluence.LINEAR, 0.1, semester,
+                                    fingerprint ) );
         }
         return builder.build();
     }
+
+    private FinalDefectAggregationAlgorithm adaptiveMajorityVoting( final double threshold, final Semester semester,
+            final HashCode fingerprint ) {
+        return aggregation( AlgorithmType.AdaptiveMajorityVoting,
+                ImmutableMap.of( "threshold", String.valueOf( threshold ) ), semester, fingerprint,
+                settings -> new AdaptiveMajorityVoting( threshold, settings ) );
+    }
+
+    private FinalDefectAggregationAlgorithm majorityVotingWithExperienceQuestionnaire(
+            final WorkerQualityInfluence qualityInfluence, final double alpha, final Semester semester,
+            final HashCode fingerprint ) {
+        return aggregation( AlgorithmType.MajorityVotingWithExperienceQuestionnaire,
+                qualityInfluenceParameters( qualityInfluence, alpha ), semester, fingerprint,
+                settings -> MajorityVotingWithExperienceQuestionnaire.create( settings, qualityInfluence, alpha ) );
+    }
+
+    private FinalDefectAggregationAlgorithm majorityVotingWithQualificationReport(
+            final WorkerQualityInfluence qualityInfluence, final double alpha, final Semester semester,
+            final HashCode fingerprint ) {
+        return aggregation( AlgorithmType.MajorityVotingWithQualificationReport,
+                qualityInfluenceParameters( qualityInfluence, alpha ), semester, fingerprint,
+                settings -> MajorityVotingWithQualificationReport.create( settings, qualityInfluence, alpha ) );
+    }
+
+    private static ImmutableMap<String, String> qualityInfluenceParameters(
+            final WorkerQualityInfluence qualityInfluence, final double alpha ) {
+        return ImmutableMap.of( "qualityInfluence", qualityInfluence.name(), "alpha", String.valueOf( alpha ) );
+    }
+
+    private CrowdtruthAggregation crowdtruth( final Semester semester, final HashCode fingerprint ) {
+        return this.results.get( ResultCache.key( CrowdtruthAggregation.class, AlgorithmType.CrowdTruth.name(),
+                ImmutableMap.of(), semester, fingerprint ),
+                () -> CrowdtruthAggregation.create( SemesterSettings.get( semester ) ) );
+    }
+
+    private WebFinalDefects webFinalDefects( final AlgorithmType algorithmType,
+            final ImmutableMap<String, String> parameters, final Semester semester,
+            final Function<SemesterSettings, FinalDefectAggregationAlgorithm> algorithm ) {
+        final HashCode fingerprint = fingerprint( semester );
+        return this.results.get( ResultCache.key( WebFinalDefects.class, algorithmType.name(), parameters, semester,
+                fingerprint ), () -> new WebFinalDefects( algorithmType,
+                aggregation( algorithmType, parameters, semester, fingerprint, algorithm ) ) );
+    }
+
+    private FinalDefectAggregationAlgorithm aggregation( final AlgorithmType algorithmType,
+            final ImmutableMap<String, String> parameters, final Semester semester, final HashCode fingerprint,
+            final Function<SemesterSettings, FinalDefectAggregationAlgorithm> algorithm ) {
+        return this.results.get( ResultCache.key( FinalDefectAggregationAlgorithm.class, algorithmType.name(),
+                parameters, semester, fingerprint ), () -> algorithm.apply( SemesterSettings.get( semester ) ) );
+    }
+
+    //calculated once per semester data held by the store
+    private static HashCode fingerprint( final Semester semester ) {
+        return SemesterDataStore.shared().get( SemesterSettings.get( semester ) ).getDefectReportsFingerprint();
+    }
 }
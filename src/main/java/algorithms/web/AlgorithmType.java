@@ -14,5 +14,7 @@ enum AlgorithmType {
     DawidSkene,
     FastDawidSkene,
     HybridDawidSkene,
-    ZenCrowd
+    ZenCrowd,
+    GLAD,
+    LFC
 }
@@ -0,0 +1,127 @@
+package algorithms.web;
+
+import algorithms.finaldefects.Semester;
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.hash.HashCode;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Cache for aggregation results and the responses built from them. A result is identified by the algorithm, its
+ * parameters, the semester and the fingerprint of the defect reports it was calculated from (see {@link
+ * algorithms.vericom.model.DefectReports#getFingerprint()}), so changed defect reports never hit a stale result.
+ * The number of results is bounded and results expire a fixed time after they have been calculated.
+ *
+ * @author LinX
+ */
+final class ResultCache {
+    private final Cache<Key<?>, Object> results;
+
+    ResultCache( final long maximumNrResults, final Duration expireAfterWrite ) {
+        this.results = CacheBuilder.newBuilder().maximumSize( maximumNrResults )
+                .expireAfterWrite( expireAfterWrite.toNanos(), TimeUnit.NANOSECONDS ).recordStats().build();
+    }
+
+    /**
+     * @return the cached result for key, calculated by loader if there is none. Concurrent requests for the same key
+     * wait for one calculation.
+     */
+    @SuppressWarnings("unchecked")
+    <T> T get( final Key<? super T> key, final Supplier<? extends T> loader ) {
+        try {
+            //the key only matches results of its type
+            return (T) this.results.get( key, loader::get );
+        } catch (final ExecutionException | UncheckedExecutionException e) {
+            Throwables.throwIfUnchecked( e.getCause() );
+            throw new UncheckedExecutionException( e.getCause() );
+        }
+    }
+
+    /**
+     * Drops the results of the semester, e.g. after its data has been read again with unchanged defect reports but
+     * changed other sources, which the key does not cover.
+     */
+    void invalidate( final Semester semester ) {
+        this.results.asMap().keySet().removeIf( key -> key.semester == semester );
+    }
+
+    void invalidateAll() {
+        this.results.invalidateAll();
+    }
+
+    long size() {
+        return this.results.size();
+    }
+
+    CacheStats getStats() {
+        return this.results.stats();
+    }
+
+    static <T> Key<T> key( final Class<T> type, final String algorithm, final ImmutableMap<String, String> parameters,
+            final Semester semester, final HashCode defectReportsFingerprint ) {
+        return new Key<>( type, algorithm, parameters, semester, defectReportsFingerprint );
+    }
+
+    static final class Key<T> {
+        private final Class<T> type;
+
+        private final String algorithm;
+
+        private final ImmutableMap<String, String> parameters;
+
+        private final Semester semester;
+
+        private final HashCode defectReportsFingerprint;
+
+        private Key( final Class<T> type, final String algorithm, final ImmutableMap<String, String> parameters,
+                final Semester semester, final HashCode defectReportsFingerprint ) {
+            this.type = type;
+            this.algorithm = algorithm;
+            this.parameters = parameters;
+            this.semester = semester;
+            this.defectReportsFingerprint = defectReportsFingerprint;
+        }
+
+        @Override
+        public boolean equals( final Object o ) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            final Key<?> that = (Key<?>) o;
+            return Objects.equals( this.type, that.type ) &&
+                    Objects.equals( this.algorithm, that.algorithm ) &&
+                    Objects.equals( this.parameters, that.parameters ) &&
+                    this.semester == that.semester &&
+                    Objects.equals( this.defectReportsFingerprint, that.defectReportsFingerprint );
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash( this.type, this.algorithm, this.parameters, this.semester,
+                    this.defectReportsFingerprint );
+        }
+
+        @Override
+        public String toString() {
+            return "Key{" +
+                    "type=" + this.type.getSimpleName() +
+                    ", algorithm='" + this.algorithm + '\'' +
+                    ", parameters=" + this.parameters +
+                    ", semester=" + this.semester +
+                    ", defectReportsFingerprint=" + this.defectReportsFingerprint +
+                    '}';
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package algorithms.web;
+
+import com.google.common.cache.CacheStats;
+
+/**
+ * @author LinX
+ */
+public class WebCacheStats {
+    private final long size;
+
+    private final long hitCount;
+
+    private final long missCount;
+
+    private final double hitRate;
+
+    private final long evictionCount;
+
+    private final double averageLoadPenaltyMillis;
+
+    WebCacheStats( final long size, final CacheStats stats ) {
+        this.size = size;
+        this.hitCount = stats.hitCount();
+        this.missCount = stats.missCount();
+        this.hitRate = stats.hitRate();
+        this.evictionCount = stats.evictionCount();
+        this.averageLoadPenaltyMillis = stats.averageLoadPenalty() / 1e6;
+    }
+
+    public long getSize() {
+        return this.size;
+    }
+
+    public long getHitCount() {
+        return this.hitCount;
+    }
+
+    public long getMissCount() {
+        return this.missCount;
+    }
+
+    public double getHitRate() {
+        return this.hitRate;
+    }
+
+    public long getEvictionCount() {
+        return this.evictionCount;
+    }
+
+    public double getAverageLoadPenaltyMillis() {
+        return this.averageLoadPenaltyMillis;
+    }
+}
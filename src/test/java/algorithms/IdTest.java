@@ -0,0 +1,80 @@
+package algorithms;
+
+import algorithms.truthinference.ChoiceId;
+import algorithms.truthinference.ParticipantId;
+import algorithms.truthinference.QuestionId;
+import algorithms.vericom.model.EmeId;
+import algorithms.vericom.model.ScenarioId;
+import algorithms.vericom.model.TaskWorkerId;
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.Objects;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+
+/**
+ * @author LinX
+ */
+public class IdTest {
+    @Test
+    public void when_equalIdsCreated_then_sameInstance() {
+        assertThat( QuestionId.create( "q1" ), sameInstance( QuestionId.create( "q1" ) ) );
+        assertThat( ParticipantId.create( 7 ), sameInstance( ParticipantId.create( "7" ) ) );
+        assertThat( ChoiceId.create( "x" ), sameInstance( ChoiceId.create( "x" ) ) );
+        assertThat( EmeId.of( "DS1_EME1_Ent" ), sameInstance( EmeId.of( "DS1_EME1_Ent" ) ) );
+        assertThat( EmeId.of( "" ), sameInstance( EmeId.EMPTY ) );
+        assertThat( ScenarioId.of( "S1" ), sameInstance( ScenarioId.of( "S1" ) ) );
+        assertThat( ScenarioId.of( null ), sameInstance( ScenarioId.of( null ) ) );
+        assertThat( TaskWorkerId.of( 101 ), sameInstance( TaskWorkerId.of( "101" ) ) );
+    }
+
+    @Test
+    public void when_idsOfDifferentTypeCreated_then_notEqual() {
+        //GIVEN
+        final QuestionId question = QuestionId.create( "1" );
+
+        //WHEN
+        final ChoiceId choice = ChoiceId.create( "1" );
+
+        //THEN
+        assertThat( question, not( equalTo( (Object) choice ) ) );
+        assertThat( question.hashCode(), equalTo( choice.hashCode() ) );
+    }
+
+    @Test
+    public void when_hashCodeCached_then_sameAsBefore() {
+        assertThat( QuestionId.create( "q1" ).hashCode(), equalTo( Objects.hash( "q1" ) ) );
+        assertThat( EmeId.of( "DS1_EME1_Ent" ).hashCode(), equalTo( Objects.hash( "DS1_EME1_Ent" ) ) );
+        assertThat( TaskWorkerId.of( 101 ).hashCode(), equalTo( Objects.hash( 101 ) ) );
+        assertThat( ScenarioId.of( null ).hashCode(), equalTo( Objects.hash( (Object) null ) ) );
+    }
+
+    @Test
+    public void when_idsCreatedConcurrently_then_oneInstance() throws InterruptedException, ExecutionException {
+        //GIVEN
+        final ExecutorService executor = Executors.newFixedThreadPool( 8 );
+        try {
+            //WHEN
+            final ImmutableList<Future<ParticipantId>> participants = IntStream.range( 0, 64 ).mapToObj(
+                    i -> executor.submit( () -> ParticipantId.create( "concurrent" ) ) ).collect(
+                    ImmutableList.toImmutableList() );
+
+            //THEN
+            final ParticipantId first = participants.get( 0 ).get();
+            for (final Future<ParticipantId> participant : participants) {
+                assertThat( participant.get(), sameInstance( first ) );
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
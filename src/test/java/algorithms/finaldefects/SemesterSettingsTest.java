@@ -0,0 +1,26 @@
+package algorithms.finaldefects;
+
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+
+/**
+ * @author LinX
+ */
+public class SemesterSettingsTest {
+    @Test
+    public void when_settingsOfSameSemesterCreated_then_equal() {
+        //THEN
+        assertThat( SemesterSettings.ws2017(), equalTo( SemesterSettings.ws2017() ) );
+        assertThat( SemesterSettings.ws2017().hashCode(), equalTo( SemesterSettings.get( Semester.WS2017 )
+                .hashCode() ) );
+    }
+
+    @Test
+    public void when_settingsOfOtherSemesterCreated_then_notEqual() {
+        //THEN
+        assertThat( SemesterSettings.ws2017(), not( equalTo( SemesterSettings.ss2018() ) ) );
+    }
+}
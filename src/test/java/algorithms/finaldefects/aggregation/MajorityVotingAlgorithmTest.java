@@ -23,9 +23,9 @@ import static org.junit.Assert.assertThat;
 public class MajorityVotingAlgorithmTest {
     private Eme eme;
 
-    private static final EmeId EME_ID = new EmeId( "EME65" );
+    private static final EmeId EME_ID = EmeId.of( "EME65" );
 
-    private static final ScenarioId SCENARIO_ID = new ScenarioId( "SC1" );
+    private static final ScenarioId SCENARIO_ID = ScenarioId.of( "SC1" );
 
     @Before
     public void setup() {
@@ -0,0 +1,95 @@
+package algorithms.statistic;
+
+import algorithms.vericom.model.EmeId;
+import algorithms.vericom.model.TrueDefect;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import org.jooq.Field;
+import org.jooq.Record;
+import org.jooq.SQLDialect;
+import org.jooq.impl.DSL;
+import org.junit.Test;
+
+import java.util.NoSuchElementException;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * @author LinX
+ */
+public class TrueDefectIndexTest {
+    private static final TrueDefect ORDER_DATE = trueDefect( 1, "D1", "DS1_EME1_EntA" );
+
+    private static final TrueDefect ORDER_TIME = trueDefect( 2, "D2", "DS1_EME2_EntA" );
+
+    private static final TrueDefect NOT_APPLICABLE = trueDefect( 3, "D3", "NA" );
+
+    @Test
+    public void when_synonymsAdded_then_trueDefectsOfSynonymsCopied() {
+        //GIVEN
+        final ImmutableList<String[]> additions = ImmutableList.of(
+                line( "DS1_EME3_EntA", "DS1_EME1_EntA", "", "" ),
+                //sees the true defect copied by the line above
+                line( "DS1_EME4_EntA", "DS1_EME3_EntA", "", "" ) );
+
+        //WHEN
+        final TrueDefectIndex index = TrueDefectIndex.create( ImmutableSet.of( ORDER_DATE, ORDER_TIME ), additions );
+
+        //THEN
+        assertThat( index.getByEme().keySet(), containsInAnyOrder( EmeId.of( "DS1_EME1_EntA" ), EmeId.of(
+                "DS1_EME2_EntA" ), EmeId.of( "DS1_EME3_EntA" ), EmeId.of( "DS1_EME4_EntA" ) ) );
+        assertThat( index.get( EmeId.of( "DS1_EME4_EntA" ) ).get(), equalTo( ORDER_DATE.replaceEmeId( EmeId.of(
+                "DS1_EME4_EntA" ) ) ) );
+    }
+
+    @Test
+    public void when_manualMatchAdded_then_trueDefectWithCodeCopied() {
+        //GIVEN
+        final ImmutableList<String[]> additions = ImmutableList.of( line( "DS1_EME5_EntA", "", "", "D2" ) );
+
+        //WHEN
+        final TrueDefectIndex index = TrueDefectIndex.create( ImmutableSet.of( ORDER_DATE, ORDER_TIME ), additions );
+
+        //THEN
+        assertThat( index.get( EmeId.of( "DS1_EME5_EntA" ) ).get(), equalTo( ORDER_TIME.replaceEmeId( EmeId.of(
+                "DS1_EME5_EntA" ) ) ) );
+        assertThat( index.getByCodeTd( "D2" ).get(), equalTo( ORDER_TIME ) );
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void when_manualMatchUnknown_then_rejected() {
+        //WHEN
+        TrueDefectIndex.create( ImmutableSet.of( ORDER_DATE ), ImmutableList.of( line( "DS1_EME5_EntA", "", "",
+                "D9" ) ) );
+    }
+
+    @Test
+    public void when_trueDefectNotApplicable_then_removed() {
+        //WHEN
+        final TrueDefectIndex index = TrueDefectIndex.create( ImmutableSet.of( ORDER_DATE, NOT_APPLICABLE ),
+                ImmutableList.of() );
+
+        //THEN
+        assertThat( index.getTrueDefects(), equalTo( ImmutableSet.of( ORDER_DATE ) ) );
+        assertThat( index.get( EmeId.of( "NA" ) ).isPresent(), is( false ) );
+    }
+
+    private static String[] line( final String emeId, final String synonym, final String otherSynonym,
+            final String manualMatch ) {
+        return new String[]{"ENTITY_ATTRIBUTE", emeId, "", synonym, "", otherSynonym, "", manualMatch};
+    }
+
+    private static TrueDefect trueDefect( final int id, final String codeTd, final String emeId ) {
+        final ImmutableList<String> columns = ImmutableList.of( TrueDefect.ID_COLUMN, TrueDefect.CODE_TD_COLUMN,
+                TrueDefect.ABOUT_MODEL_ELEMENT_COLUMN, TrueDefect.ABOUT_EM_EID_COLUMN, TrueDefect.SCENARIO_COLUMN,
+                TrueDefect.ABOUT_ME_TYPE_COLUMN, TrueDefect.DEFECT_TYPE_COLUMN, TrueDefect.DEFECT_SEVERITY_COLUMN,
+                TrueDefect.DESCRIPTION_COLUMN );
+        final Record record = DSL.using( SQLDialect.DEFAULT ).newRecord( columns.stream().map( DSL::field ).toArray(
+                Field[]::new ) );
+        record.fromArray( id, codeTd, "order", emeId, "S1", "ENTITY_ATTRIBUTE", "MISSING", "major", "description" );
+        return new TrueDefect( record );
+    }
+}
@@ -0,0 +1,167 @@
+package algorithms.synthetic;
+
+import algorithms.truthinference.Answers;
+import algorithms.truthinference.QuestionId;
+import algorithms.vericom.model.DefectReports;
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+
+import java.io.StringWriter;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+
+/**
+ * @author LinX
+ */
+public class SyntheticCrowdTest {
+    @Test
+    public void when_generatedTwiceWithSameSeed_then_sameAnswers() {
+        //GIVEN
+        final SyntheticCrowd crowd = SyntheticCrowd.builder( 100, 20, 3 ).withRedundancy( 2, 6 )
+                .withSpammerFraction( 0.2 ).withSeed( 7 ).build();
+        final SyntheticCrowd sameCrowd = SyntheticCrowd.builder( 100, 20, 3 ).withRedundancy( 2, 6 )
+                .withSpammerFraction( 0.2 ).withSeed( 7 ).build();
+
+        //WHEN
+        final StringWriter csv = new StringWriter();
+        crowd.writeCsv( csv );
+        final StringWriter sameCsv = new StringWriter();
+        sameCrowd.writeCsv( sameCsv );
+
+        //THEN
+        assertThat( csv.toString(), equalTo( sameCsv.toString() ) );
+    }
+
+    @Test
+    public void when_generated_then_questionsAnsweredByDistinctWorkersWithinRedundancy() {
+        //GIVEN
+        final SyntheticCrowd crowd = SyntheticCrowd.builder( 200, 10, 2 ).withRedundancy( 3, 5 ).withNrScenarios(
+                4 ).build();
+
+        //WHEN
+        final Answers answers = crowd.toAnswers();
+
+        //THEN
+        assertThat( answers.getQuestions().size(), equalTo( 200 ) );
+        for (final QuestionId question : answers.getQuestions()) {
+            final int nrAnswers = answers.getAnswers( question ).size();
+            assertThat( nrAnswers, greaterThanOrEqualTo( 3 ) );
+            assertThat( nrAnswers, lessThanOrEqualTo( 5 ) );
+            assertThat( answers.getAnswers( question ).elementSet().size(), equalTo( nrAnswers ) );
+        }
+        assertThat( crowd.getEmeAndScenarioId( 6 ).toString(), equalTo( "eme1//scenario2" ) );
+    }
+
+    @Test
+    public void when_honestWorkersWithAccuracy_then_fractionOfTrueAnswersMatchesAccuracy() {
+        //GIVEN
+        final SyntheticCrowd crowd = SyntheticCrowd.builder( 20000, 50, 4 ).withAccuracy( 0.8, 0.8 ).build();
+
+        //WHEN
+        final int[] nrAnswers = {0};
+        final int[] nrTrueAnswers = {0};
+        crowd.generate( ( question, worker, choice ) -> {
+            nrAnswers[0]++;
+            if (choice == crowd.getTrueChoice( question )) {
+                nrTrueAnswers[0]++;
+            }
+        } );
+
+        //THEN
+        assertThat( nrAnswers[0], equalTo( 20000 * 5 ) );
+        assertThat( (double) nrTrueAnswers[0] / nrAnswers[0], closeTo( 0.8, 0.01 ) );
+    }
+
+    @Test
+    public void when_onlySpammers_then_answersUniform() {
+        //GIVEN
+        final SyntheticCrowd crowd = SyntheticCrowd.builder( 20000, 50, 2 ).withAccuracy( 1, 1 )
+                .withSpammerFraction( 1 ).build();
+
+        //WHEN
+        final int[] nrTrueAnswers = {0};
+        final long nrAnswers = crowd.generate( ( question, worker, choice ) -> {
+            if (choice == crowd.getTrueChoice( question )) {
+                nrTrueAnswers[0]++;
+            }
+        } );
+
+        //THEN
+        assertThat( crowd.isSpammer( 0 ), equalTo( true ) );
+        assertThat( nrTrueAnswers[0] / (double) nrAnswers, closeTo( 0.5, 0.01 ) );
+    }
+
+    @Test
+    public void when_defectReportsGenerated_then_sameStructureAsAnswers() {
+        //GIVEN
+        final SyntheticCrowd crowd = SyntheticCrowd.builder( 50, 10, 7 ).withNrScenarios( 5 ).withClassPriors( 1, 0,
+                0, 0, 0, 0, 1 ).build();
+
+        //WHEN
+        final DefectReports defectReports = crowd.toDefectReports();
+
+        //THEN
+        final Answers answers = crowd.toAnswers();
+        final Answers answersFromDefectReports = Answers.fromDefectReports( defectReports.getDefectReports() );
+        assertThat( answersFromDefectReports.getQuestions(), equalTo( answers.getQuestions() ) );
+        assertThat( answersFromDefectReports.getParticipants(), equalTo( answers.getParticipants() ) );
+        assertThat( defectReports.getDefectReports().size(), equalTo( 50 * 5 ) );
+    }
+
+    @Test
+    public void when_writtenAsCsv_then_oneLinePerAnswerAfterHeader() {
+        //GIVEN
+        final SyntheticCrowd crowd = SyntheticCrowd.builder( 30, 10, 2 ).build();
+
+        //WHEN
+        final StringWriter csv = new StringWriter();
+        final long nrAnswers = crowd.writeCsv( csv );
+
+        //THEN
+        final List<String> lines = ImmutableList.copyOf( csv.toString().split( "\n" ) );
+        assertThat( lines.get( 0 ), equalTo( "question,worker,answer" ) );
+        assertThat( (long) lines.size() - 1, equalTo( nrAnswers ) );
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void when_spammerFractionAboveOne_then_rejected() {
+        SyntheticCrowd.builder( 10, 5, 2 ).withSpammerFraction( 1.5 );
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void when_confusionMatrixRowNoDistribution_then_rejected() {
+        SyntheticCrowd.builder( 10, 5, 2 ).withConfusionMatrix( new double[][]{{0.9, 0.2}, {0, 1}} );
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void when_negativeClassPrior_then_rejected() {
+        SyntheticCrowd.builder( 10, 5, 2 ).withClassPriors( 1.5, -0.5 );
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void when_classPriorsAllZero_then_rejected() {
+        SyntheticCrowd.builder( 10, 5, 2 ).withClassPriors( 0, 0 );
+    }
+
+    @Test
+    public void when_confusionMatrixChangedAfterwards_then_copyUsed() {
+        //GIVEN
+        final double[][] confusionMatrix = {{1, 0}, {0, 1}};
+        final SyntheticCrowd.Builder builder = SyntheticCrowd.builder( 100, 10, 2 ).withConfusionMatrix(
+                confusionMatrix );
+        confusionMatrix[0][0] = 0;
+        confusionMatrix[0][1] = 1;
+
+        //WHEN
+        final SyntheticCrowd crowd = builder.build();
+
+        //THEN
+        crowd.generate( ( question, worker, choice ) -> assertThat( choice, equalTo( crowd.getTrueChoice(
+                question ) ) ) );
+    }
+}
@@ -0,0 +1,99 @@
+package algorithms.truthinference;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.sameInstance;
+
+/**
+ * @author LinX
+ */
+public class AnswerMatrixTest {
+    private static final Answers ANSWERS = new Answers( ImmutableList.of( //
+            Answer.create( ParticipantId.create( 2 ), QuestionId.create( "q1" ), ChoiceId.create( "a" ) ), //
+            Answer.create( ParticipantId.create( 1 ), QuestionId.create( "q1" ), ChoiceId.create( "b" ) ), //
+            Answer.create( ParticipantId.create( 1 ), QuestionId.create( "q2" ), ChoiceId.create( "a" ) ), //
+            Answer.create( ParticipantId.create( 1 ), QuestionId.create( "q2" ), ChoiceId.create( "a" ) ), //
+            Answer.create( ParticipantId.create( 1 ), QuestionId.create( "q2" ), ChoiceId.create( "b" ) ), //
+            Answer.create( ParticipantId.create( 2 ), QuestionId.create( "q1" ), ChoiceId.create( "a" ) ) ) );
+
+    @Test
+    public void when_compiled_then_idsAreInternedInOrderOfAnswers() {
+        //WHEN
+        final AnswerMatrix matrix = ANSWERS.toAnswerMatrix();
+
+        //THEN
+        assertThat( matrix.getQuestions(), contains( QuestionId.create( "q1" ), QuestionId.create( "q2" ) ) );
+        assertThat( matrix.getParticipants(), contains( ParticipantId.create( 2 ), ParticipantId.create( 1 ) ) );
+        assertThat( matrix.getChoices(), contains( ChoiceId.create( "a" ), ChoiceId.create( "b" ) ) );
+        assertThat( matrix.getOrdinal( ParticipantId.create( 1 ) ), equalTo( 1 ) );
+        assertThat( matrix.getOrdinal( ChoiceId.create( "c" ) ), equalTo( -1 ) );
+        assertThat( matrix.getNrAnswers(), equalTo( 6 ) );
+        assertThat( ANSWERS.toAnswerMatrix(), sameInstance( matrix ) );
+    }
+
+    @Test
+    public void when_compiled_then_observationsContainCountsPerChoice() {
+        //WHEN
+        final AnswerMatrix matrix = ANSWERS.toAnswerMatrix();
+
+        //THEN
+        assertThat( matrix.getNrObservations(), equalTo( 3 ) );
+        final int q1 = matrix.getOrdinal( QuestionId.create( "q1" ) );
+        final int q2 = matrix.getOrdinal( QuestionId.create( "q2" ) );
+        final int a = matrix.getOrdinal( ChoiceId.create( "a" ) );
+        final int b = matrix.getOrdinal( ChoiceId.create( "b" ) );
+
+        final int firstOfQ1 = matrix.getQuestionObservationsStart( q1 );
+        assertThat( matrix.getQuestionObservationsEnd( q1 ) - firstOfQ1, equalTo( 2 ) );
+        assertThat( matrix.getObservationParticipant( firstOfQ1 ), equalTo( 0 ) );
+        assertThat( matrix.getCount( firstOfQ1, a ), equalTo( 2 ) );
+        assertThat( matrix.getCount( firstOfQ1, b ), equalTo( 0 ) );
+
+        final int onlyOfQ2 = matrix.getQuestionObservationsStart( q2 );
+        assertThat( matrix.getObservationQuestion( onlyOfQ2 ), equalTo( q2 ) );
+        assertThat( matrix.getCount( onlyOfQ2, a ), equalTo( 2 ) );
+        assertThat( matrix.getCount( onlyOfQ2, b ), equalTo( 1 ) );
+        assertThat( matrix.getObservationSize( onlyOfQ2 ), equalTo( 3 ) );
+    }
+
+    @Test
+    public void when_compiled_then_indexesAreConsistentWithAnswers() {
+        //GIVEN
+        final Answers answers = DawidSkeneAlgorithmTest.OBSERVATIONS;
+
+        //WHEN
+        final AnswerMatrix matrix = answers.toAnswerMatrix();
+
+        //THEN
+        for (int q = 0; q < matrix.getNrQuestions(); q++) {
+            final QuestionId question = matrix.getQuestion( q );
+            assertThat( matrix.getQuestionSize( q ), equalTo( answers.getAnswers( question ).size() ) );
+            for (int o = matrix.getQuestionObservationsStart( q ); o < matrix.getQuestionObservationsEnd( q ); o++) {
+                final ParticipantId participant = matrix.getParticipant( matrix.getObservationParticipant( o ) );
+                for (int c = 0; c < matrix.getNrChoices(); c++) {
+                    assertThat( matrix.getCount( o, c ), equalTo( answers.getAnswers( participant, question ).count(
+                            Answer.create( participant, question, matrix.getChoice( c ) ) ) ) );
+                }
+            }
+        }
+        for (int p = 0; p < matrix.getNrParticipants(); p++) {
+            final ParticipantId participant = matrix.getParticipant( p );
+            assertThat( matrix.getParticipantSize( p ), equalTo( answers.getAnswers( participant ).size() ) );
+            for (int i = matrix.getParticipantAnswersStart( p ); i < matrix.getParticipantAnswersEnd( p ); i++) {
+                final Answer answer = Answer.create( participant,
+                        matrix.getQuestion( matrix.getQuestionOfParticipantAnswer( i ) ),
+                        matrix.getChoice( matrix.getChoiceOfParticipantAnswer( i ) ) );
+                assertThat( answers.getAnswers( participant ).contains( answer ), equalTo( true ) );
+            }
+            for (int i = matrix.getParticipantObservationsStart( p );
+                 i < matrix.getParticipantObservationsEnd( p ); i++) {
+                assertThat( matrix.getObservationParticipant( matrix.getParticipantObservation( i ) ),
+                        equalTo( p ) );
+            }
+        }
+    }
+}
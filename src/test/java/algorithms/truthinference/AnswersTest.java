@@ -0,0 +1,124 @@
+package algorithms.truthinference;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMultiset;
+import com.opencsv.CSVReader;
+import com.opencsv.CSVReaderBuilder;
+import org.junit.Test;
+
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.Assert.fail;
+
+/**
+ * @author LinX
+ */
+public class AnswersTest {
+    private static final String DOG_DATA = "src/test/resources/algorithms/catd/s4_Dog data/0/answer_1.csv";
+
+    private static final Answer A = Answer.create( ParticipantId.create( "w1" ), QuestionId.create( "q1" ),
+            ChoiceId.create( "x" ) );
+
+    private static final Answer B = Answer.create( ParticipantId.create( "w2" ), QuestionId.create( "q2" ),
+            ChoiceId.create( "y" ) );
+
+    private static final Answer C = Answer.create( ParticipantId.create( "w2" ), QuestionId.create( "q1" ),
+            ChoiceId.create( "y" ) );
+
+    @Test
+    public void when_builtFromStream_then_idsInOrderOfFirstOccurrence() {
+        //WHEN
+        final Answers answers = Answers.builder().addAll( ImmutableList.of( A, B, C, A ).stream() ).build();
+
+        //THEN
+        assertThat( answers.getNrAnswers(), equalTo( 4 ) );
+        assertThat( answers.getQuestions(), contains( QuestionId.create( "q1" ), QuestionId.create( "q2" ) ) );
+        assertThat( answers.getParticipants(), contains( ParticipantId.create( "w1" ), ParticipantId.create( "w2" ) ) );
+        assertThat( answers.getChoices(), contains( ChoiceId.create( "x" ), ChoiceId.create( "y" ) ) );
+        assertThat( answers.getAnswers( QuestionId.create( "q1" ) ), equalTo( ImmutableMultiset.of( A, C, A ) ) );
+        assertThat( answers.getAnswers( ParticipantId.create( "w2" ) ), contains( B, C ) );
+        assertThat( answers.getAnswers( ChoiceId.create( "y" ) ), contains( B, C ) );
+        assertThat( answers.getAnswers( ParticipantId.create( "w1" ), QuestionId.create( "q1" ) ).count( A ),
+                equalTo( 2 ) );
+        assertThat( answers.getAnswers( ParticipantId.create( "w1" ), QuestionId.create( "q2" ) ),
+                equalTo( ImmutableMultiset.of() ) );
+    }
+
+    @Test
+    public void when_distinctAnswers_then_duplicatesRemoved() {
+        //WHEN
+        final Answers answers = Answers.builder().withDistinctAnswers().add( A ).add( B ).add( A ).add( C ).add( B )
+                .build();
+
+        //THEN
+        assertThat( answers.getNrAnswers(), equalTo( 3 ) );
+        assertThat( answers.getAnswers( QuestionId.create( "q1" ) ), contains( A, C ) );
+        assertThat( answers.toAnswerMatrix().getNrAnswers(), equalTo( 3 ) );
+    }
+
+    @Test
+    public void when_readFromCsv_then_sameAsFromAnswerList() throws IOException {
+        //GIVEN
+        final Answers expected;
+        try (CSVReader csvReader = new CSVReaderBuilder( new FileReader( DOG_DATA ) ).withSkipLines( 1 ).build()) {
+            expected = new Answers( csvReader.readAll().stream().map(
+                    line -> Answer.create( ParticipantId.create( line[1] ), QuestionId.create( line[0] ),
+                            ChoiceId.create( line[2] ) ) ).collect( ImmutableList.toImmutableList() ) );
+        }
+
+        //WHEN
+        final Answers answers;
+        try (FileReader reader = new FileReader( DOG_DATA )) {
+            answers = Answers.fromCsv( reader );
+        }
+
+        //THEN
+        assertThat( answers.getQuestions().asList(), equalTo( expected.getQuestions().asList() ) );
+        assertThat( answers.getParticipants().asList(), equalTo( expected.getParticipants().asList() ) );
+        assertThat( answers.getChoices().asList(), equalTo( expected.getChoices().asList() ) );
+        expected.getQuestions().forEach( question -> assertThat( answers.getAnswers( question ),
+                equalTo( expected.getAnswers( question ) ) ) );
+        assertThat( answers.toAnswerMatrix().getNrObservations(),
+                equalTo( expected.toAnswerMatrix().getNrObservations() ) );
+    }
+
+    @Test
+    public void when_distinctAnswersOfManyParticipants_then_eachAnswerOnce() {
+        //GIVEN
+        final Answers.Builder builder = Answers.builder().withDistinctAnswers();
+        for (int k = 0; k < 100; k++) {
+            for (int repetition = 0; repetition < 3; repetition++) {
+                builder.add( ParticipantId.create( k ), QuestionId.create( "q1" ), ChoiceId.create( k % 2 ) );
+                builder.add( ParticipantId.create( k ), QuestionId.create( "q2" ), ChoiceId.create( k % 3 ) );
+            }
+        }
+
+        //WHEN
+        final Answers answers = builder.build();
+
+        //THEN
+        assertThat( answers.getNrAnswers(), equalTo( 200 ) );
+        assertThat( answers.getAnswers( QuestionId.create( "q1" ) ).size(), equalTo( 100 ) );
+    }
+
+    @Test
+    public void when_csvLineTooShort_then_rejectedWithLineNumber() throws IOException {
+        //GIVEN
+        final StringReader reader = new StringReader( "question,worker,answer\nq1,w1,x\nq2,w2\n" );
+
+        try {
+            //WHEN
+            Answers.fromCsv( reader );
+            fail( "Short line accepted" );
+        } catch (final IllegalArgumentException e) {
+            //THEN
+            assertThat( e.getMessage(), startsWith( "Line 3 " ) );
+        }
+    }
+}
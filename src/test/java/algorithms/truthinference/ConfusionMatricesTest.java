@@ -0,0 +1,48 @@
+package algorithms.truthinference;
+
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+/**
+ * @author LinX
+ */
+public class ConfusionMatricesTest {
+    @Test
+    public void when_errorRatesRequestedById_then_sameAsConfusionMatrices() {
+        //WHEN
+        final DawidSkeneAlgorithm.Output output = new DawidSkeneAlgorithm( DawidSkeneAlgorithmTest.OBSERVATIONS )
+                .run();
+
+        //THEN
+        final ConfusionMatrices confusionMatrices = output.getConfusionMatrices();
+        assertThat( output.getErrorRates().size(), equalTo( confusionMatrices.size() ) );
+        output.getErrorRates().forEach( ( id, estimation ) -> {
+            assertThat( id, equalTo( new DawidSkeneAlgorithm.ErrorRateId( id.getObserverId(), id.getAnsweredLabel(),
+                    id.getEstimatedTrueLabel() ) ) );
+            assertThat( estimation.getErrorRateEstimation(), equalTo( confusionMatrices.getErrorRate(
+                    id.getObserverId(), id.getEstimatedTrueLabel(), id.getAnsweredLabel() ) ) );
+        } );
+    }
+
+    @Test
+    public void when_confusionMatricesIterated_then_orderedByFlatIndex() {
+        //GIVEN
+        final AnswerMatrix matrix = DawidSkeneAlgorithmTest.OBSERVATIONS.toAnswerMatrix();
+        final double[] errorRates = new double[matrix.getNrParticipants() * matrix.getNrChoices() *
+                matrix.getNrChoices()];
+        for (int i = 0; i < errorRates.length; i++) {
+            errorRates[i] = i;
+        }
+
+        //WHEN
+        final ConfusionMatrices confusionMatrices = new ConfusionMatrices( matrix, errorRates );
+
+        //THEN
+        confusionMatrices.forEach( ( k, j, l, errorRate ) -> assertThat( errorRate,
+                equalTo( (double) confusionMatrices.index( k, j, l ) ) ) );
+        assertThat( confusionMatrices.getErrorRate( ParticipantId.create( "unknown" ), matrix.getChoice( 0 ),
+                matrix.getChoice( 0 ) ), equalTo( 0.0 ) );
+    }
+}
@@ -0,0 +1,145 @@
+package algorithms.truthinference;
+
+import com.google.common.base.Ticker;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.notNullValue;
+
+/**
+ * @author LinX
+ */
+public class ConvergencePolicyTest {
+    @Test
+    public void when_absoluteDeltaBelowThreshold_then_stopWithTrace() {
+        //GIVEN
+        final FakeTicker ticker = new FakeTicker();
+        final ConvergencePolicy.Tracker tracker = ConvergencePolicy.absoluteDelta( 0.1, 100 ).track( ticker );
+
+        //WHEN
+        ticker.advance( 5 );
+        final boolean stopAfterFirst = tracker.iterationFinished( ConvergencePolicy.Delta.NONE, Double.NaN );
+        ticker.advance( 7 );
+        final boolean stopAfterSecond = tracker.iterationFinished( ConvergencePolicy.Delta.between(
+                new double[]{0.5, 0.5}, new double[]{0.4, 0.6} ), Double.NaN );
+        ticker.advance( 3 );
+        final boolean stopAfterThird = tracker.iterationFinished( ConvergencePolicy.Delta.between(
+                new double[]{0.4, 0.6}, new double[]{0.39, 0.61} ), Double.NaN );
+
+        //THEN
+        assertThat( stopAfterFirst, equalTo( false ) );
+        assertThat( stopAfterSecond, equalTo( false ) );
+        assertThat( stopAfterThird, equalTo( true ) );
+        final ConvergenceTrace trace = tracker.getTrace();
+        assertThat( trace.getStopReason(), equalTo( ConvergenceTrace.StopReason.ABSOLUTE_DELTA ) );
+        assertThat( trace.getNrIterations(), equalTo( 3 ) );
+        assertThat( trace.getIterations().get( 1 ).getTimeSpent(), equalTo( Duration.ofMillis( 7 ) ) );
+        assertThat( trace.getTimeSpent(), equalTo( Duration.ofMillis( 15 ) ) );
+        assertThat( Double.isNaN( trace.getIterations().get( 0 ).getDelta() ), equalTo( true ) );
+    }
+
+    @Test
+    public void when_relativeDeltaBelowThreshold_then_stop() {
+        //GIVEN
+        final ConvergencePolicy.Tracker tracker = ConvergencePolicy.builder().withRelativeDeltaBelow( 0.01 ).build()
+                .track( new FakeTicker() );
+
+        //WHEN
+        final boolean stop = tracker.iterationFinished( ConvergencePolicy.Delta.between( new double[]{100, 100},
+                new double[]{101, 100} ), Double.NaN );
+
+        //THEN
+        assertThat( stop, equalTo( true ) );
+        assertThat( tracker.getTrace().getStopReason(), equalTo( ConvergenceTrace.StopReason.RELATIVE_DELTA ) );
+    }
+
+    @Test
+    public void when_logLikelihoodPlateaus_then_stop() {
+        //GIVEN
+        final ConvergencePolicy.Tracker tracker = ConvergencePolicy.builder().withLogLikelihoodPlateauBelow( 0.5 )
+                .build().track( new FakeTicker() );
+
+        //WHEN
+        final boolean stopAfterFirst = tracker.iterationFinished( ConvergencePolicy.Delta.NONE, -100 );
+        final boolean stopAfterSecond = tracker.iterationFinished( ConvergencePolicy.Delta.NONE, -90 );
+        final boolean stopAfterThird = tracker.iterationFinished( ConvergencePolicy.Delta.NONE, -89.9 );
+
+        //THEN
+        assertThat( stopAfterFirst, equalTo( false ) );
+        assertThat( stopAfterSecond, equalTo( false ) );
+        assertThat( stopAfterThird, equalTo( true ) );
+        assertThat( tracker.getTrace().getStopReason(),
+                equalTo( ConvergenceTrace.StopReason.LOG_LIKELIHOOD_PLATEAU ) );
+    }
+
+    @Test
+    public void when_maximumNrIterationsReached_then_stop() {
+        //GIVEN
+        final ConvergencePolicy.Tracker tracker = ConvergencePolicy.absoluteDelta( 0, 2 ).track( new FakeTicker() );
+
+        //WHEN
+        final boolean stopAfterFirst = tracker.iterationFinished( ConvergencePolicy.Delta.NONE, Double.NaN );
+        final boolean stopAfterSecond = tracker.iterationFinished( ConvergencePolicy.Delta.NONE, Double.NaN );
+
+        //THEN
+        assertThat( stopAfterFirst, equalTo( false ) );
+        assertThat( stopAfterSecond, equalTo( true ) );
+        assertThat( tracker.getTrace().getStopReason(),
+                equalTo( ConvergenceTrace.StopReason.MAXIMUM_NR_ITERATIONS ) );
+    }
+
+    @Test
+    public void when_timeBudgetExceeded_then_stop() {
+        //GIVEN
+        final FakeTicker ticker = new FakeTicker();
+        final ConvergencePolicy.Tracker tracker = ConvergencePolicy.builder().withTimeBudget(
+                Duration.ofMillis( 10 ) ).build().track( ticker );
+
+        //WHEN
+        ticker.advance( 6 );
+        final boolean stopAfterFirst = tracker.iterationFinished( ConvergencePolicy.Delta.NONE, Double.NaN );
+        ticker.advance( 6 );
+        final boolean stopAfterSecond = tracker.iterationFinished( ConvergencePolicy.Delta.NONE, Double.NaN );
+
+        //THEN
+        assertThat( stopAfterFirst, equalTo( false ) );
+        assertThat( stopAfterSecond, equalTo( true ) );
+        assertThat( tracker.getTrace().getStopReason(), equalTo( ConvergenceTrace.StopReason.TIME_BUDGET ) );
+    }
+
+    @Test
+    public void when_algorithmsRunWithPolicy_then_outputContainsTrace() {
+        //GIVEN
+        final ConvergencePolicy policy = ConvergencePolicy.absoluteDelta( 0.00001, 3 );
+
+        //WHEN
+        final DawidSkeneAlgorithm.Output dawidSkene = new DawidSkeneAlgorithm( DawidSkeneAlgorithmTest.OBSERVATIONS,
+                Parallelism.sequential(), policy ).run();
+        final ZenCrowdAlgorithm.Output zenCrowd = new ZenCrowdAlgorithm( DawidSkeneAlgorithmTest.OBSERVATIONS,
+                Parallelism.sequential(), policy ).run();
+
+        //THEN
+        assertThat( dawidSkene.getTrace().getNrIterations(), equalTo( 3 ) );
+        assertThat( dawidSkene.getTrace().getStopReason(), notNullValue() );
+        assertThat( Double.isNaN( dawidSkene.getTrace().getIterations().get( 2 ).getLogLikelihood() ),
+                equalTo( false ) );
+        assertThat( zenCrowd.getTrace().getNrIterations(), equalTo( 3 ) );
+    }
+
+    private static final class FakeTicker extends Ticker {
+        private long nanos;
+
+        private void advance( final long millis ) {
+            this.nanos += TimeUnit.MILLISECONDS.toNanos( millis );
+        }
+
+        @Override
+        public long read() {
+            return this.nanos;
+        }
+    }
+}
@@ -20,6 +20,7 @@ import java.util.function.Predicate;
 
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
 
 /**
  * @author LinX
@@ -181,6 +182,30 @@ public class CrowdtruthAlgorithmTest {
         //TODO add assertions
     }
 
+    @Test
+    public void when_warmStartedFromPreviousScores_then_sameScores() {
+        //GIVEN
+        final List<TutorialData> data = parseData( "relex_example.csv", TutorialData.class );
+        final Answers answers = new Answers( data.stream().flatMap( d -> Arrays.stream( d
+                .getChosenAnnotation().toString()
+                .split( " " ) ).map( a -> a.substring( 1,
+                a.length() - 1 ) ).map( String::toLowerCase ).map( a ->
+                Answer.create( d.getWorkerId(), d.getMediaUnitId(), ChoiceId.create( a ) ) ) )
+                .collect( ImmutableList.toImmutableList() ) );
+        final MetricsScores previous = CrowdtruthAlgorithm.calculateClosed( answers );
+
+        //WHEN
+        final MetricsScores metricsScores = CrowdtruthAlgorithm.calculateClosed( answers, previous );
+
+        //THEN
+        previous.getWorkerQualityScores().forEach( ( worker, score ) -> assertThat( "WQS of " + worker,
+                metricsScores.getWorkerQualityScores().get( worker ), closeTo( score, 0.01 ) ) );
+        previous.getMediaUnitQualityScores().forEach( ( mediaUnit, score ) -> assertThat( "UQS of " + mediaUnit,
+                metricsScores.getMediaUnitQualityScores().get( mediaUnit ), closeTo( score, 0.01 ) ) );
+        previous.getAnnotationQualityScores().forEach( ( annotation, score ) -> assertThat( "AQS of " + annotation,
+                metricsScores.getAnnotationQualityScores().get( annotation ), closeTo( score, 0.01 ) ) );
+    }
+
     private void assertAnnotationQualityEmpty( final MetricsScores metricsScores ) {
         assertThat( metricsScores.getAnnotationQualityScores(), equalTo( ImmutableMap.of() ) );
     }
@@ -10,6 +10,8 @@ import org.junit.Test;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.closeTo;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 
 /**
  * @author LinX
@@ -481,4 +483,20 @@ public class DawidSkeneAlgorithmTest {
                             closeTo( expectedEstimation.getIndicatorEstimation(), 0.01 ) );
                 } ) );
     }
+
+    @Test
+    public void when_warmStartedFromPreviousOutput_then_convergesInFewIterations() {
+        //GIVEN
+        final DawidSkeneAlgorithm dawidSkeneAlgorithm = new DawidSkeneAlgorithm( OBSERVATIONS );
+        final DawidSkeneAlgorithm.Output previous = dawidSkeneAlgorithm.run();
+
+        //WHEN
+        final DawidSkeneAlgorithm.Output output = dawidSkeneAlgorithm.run( previous );
+
+        //THEN
+        assertThat( output.getTrace().getNrIterations(), lessThanOrEqualTo( 3 ) );
+        assertThat( output.getTrace().getNrIterations(), lessThan( previous.getTrace().getNrIterations() ) );
+        previous.getPatientClassProbabilities().forEach( ( label, probability ) -> assertThat(
+                output.getPatientClassProbabilities().get( label ), closeTo( probability, 0.001 ) ) );
+    }
 }
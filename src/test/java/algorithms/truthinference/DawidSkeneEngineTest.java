@@ -0,0 +1,178 @@
+package algorithms.truthinference;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+
+/**
+ * @author LinX
+ */
+public class DawidSkeneEngineTest {
+    //estimates of the map-based implementation of D&S, as p,j,value | pi,k,j,l,value | T,i,j,value
+    private static final String EXPECTED_OUTPUT = "/algorithms/truthinference/dawid_skene_observations_output.csv";
+
+    private static final double TOLERANCE = 1E-9;
+
+    @Test
+    public void when_engineRunOnObservations_then_estimatesEqualMapBasedImplementation() throws IOException,
+            URISyntaxException {
+        //GIVEN
+        final AnswerMatrix matrix = DawidSkeneAlgorithmTest.OBSERVATIONS.toAnswerMatrix();
+        final List<String> expectedOutput = Files.readAllLines(
+                Paths.get( getClass().getResource( EXPECTED_OUTPUT ).toURI() ) );
+
+        //WHEN
+        final DawidSkeneEngine.Estimates estimates = DawidSkeneEngine.builder( matrix ).build().run();
+
+        //THEN
+        assertThat( expectedOutput.size(), equalTo( matrix.getNrChoices() + //
+                matrix.getNrParticipants() * matrix.getNrChoices() * matrix.getNrChoices() + //
+                matrix.getNrQuestions() * matrix.getNrChoices() ) );
+        for (final String line : expectedOutput) {
+            final String[] columns = line.split( "," );
+            final double expected = Double.parseDouble( columns[columns.length - 1] );
+            switch (columns[0]) {
+                case "p":
+                    assertThat( estimates.getClassProbability( choice( matrix, columns[1] ) ),
+                            closeTo( expected, TOLERANCE ) );
+                    break;
+                case "pi":
+                    assertThat( estimates.getErrorRate( matrix.getOrdinal( ParticipantId.create( columns[1] ) ),
+                            choice( matrix, columns[2] ), choice( matrix, columns[3] ) ),
+                            closeTo( expected, TOLERANCE ) );
+                    break;
+                case "T":
+                    assertThat( estimates.getClassEstimation( matrix.getOrdinal( QuestionId.create( columns[1] ) ),
+                            choice( matrix, columns[2] ) ), closeTo( expected, TOLERANCE ) );
+                    break;
+                default:
+                    throw new IllegalArgumentException( "Unknown estimate " + line );
+            }
+        }
+    }
+
+    @Test
+    public void when_errorRatePseudoCounts_then_errorRatesPositiveAndNormalized() {
+        //GIVEN
+        final AnswerMatrix matrix = DawidSkeneAlgorithmTest.OBSERVATIONS.toAnswerMatrix();
+
+        //WHEN
+        final DawidSkeneEngine.Estimates estimates = DawidSkeneEngine.builder( matrix )
+                .withErrorRatePseudoCounts( 1, 0.5 ).build().run();
+
+        //THEN
+        for (int k = 0; k < matrix.getNrParticipants(); k++) {
+            for (int j = 0; j < matrix.getNrChoices(); j++) {
+                double sum = 0;
+                for (int l = 0; l < matrix.getNrChoices(); l++) {
+                    assertThat( estimates.getErrorRate( k, j, l ), greaterThan( 0.0 ) );
+                    sum += estimates.getErrorRate( k, j, l );
+                }
+                assertThat( sum, closeTo( 1, TOLERANCE ) );
+            }
+        }
+    }
+
+    @Test
+    public void when_algorithmRunOnObservations_then_outputContainsAllEstimatesOfEngine() {
+        //WHEN
+        final DawidSkeneAlgorithm.Output output = new DawidSkeneAlgorithm( DawidSkeneAlgorithmTest.OBSERVATIONS )
+                .run();
+
+        //THEN
+        final AnswerMatrix matrix = DawidSkeneAlgorithmTest.OBSERVATIONS.toAnswerMatrix();
+        assertThat( output.getPatientClassProbabilities().size(), equalTo( matrix.getNrChoices() ) );
+        assertThat( output.getErrorRates().size(),
+                equalTo( matrix.getNrParticipants() * matrix.getNrChoices() * matrix.getNrChoices() ) );
+        output.getPatientClassEstimations().values().forEach(
+                e -> assertThat( e.size(), equalTo( matrix.getNrChoices() ) ) );
+    }
+
+    @Test
+    public void when_engineRunOnManyAnswersPerQuestion_then_classEstimationsDoNotUnderflow() {
+        //GIVEN
+        final int nrParticipants = 2000;
+        final int nrQuestions = 4;
+        final ImmutableList.Builder<Answer> answers = ImmutableList.builder();
+        for (int k = 0; k < nrParticipants; k++) {
+            for (int i = 0; i < nrQuestions; i++) {
+                final boolean correct = (k * 7 + i * 3) % 10 < 6;
+                answers.add( Answer.create( ParticipantId.create( k ), QuestionId.create( i ),
+                        ChoiceId.create( correct ? i % 2 : (i + 1) % 2 ) ) );
+            }
+        }
+        final AnswerMatrix matrix = new Answers( answers.build() ).toAnswerMatrix();
+
+        //WHEN
+        final DawidSkeneEngine.Estimates estimates = DawidSkeneEngine.builder( matrix ).build().run();
+
+        //THEN
+        for (int i = 0; i < matrix.getNrQuestions(); i++) {
+            double sum = 0;
+            for (int j = 0; j < matrix.getNrChoices(); j++) {
+                assertThat( Double.isNaN( estimates.getClassEstimation( i, j ) ), equalTo( false ) );
+                sum += estimates.getClassEstimation( i, j );
+            }
+            assertThat( sum, closeTo( 1, TOLERANCE ) );
+        }
+    }
+
+    @Test
+    public void when_engineRunOnObservations_then_logLikelihoodFromEStepIncreasesMonotonically() {
+        //GIVEN
+        final AnswerMatrix matrix = DawidSkeneAlgorithmTest.OBSERVATIONS.toAnswerMatrix();
+
+        //WHEN
+        final DawidSkeneEngine.Estimates estimates = DawidSkeneEngine.builder( matrix ).build().run();
+
+        //THEN
+        final ImmutableList<ConvergenceTrace.Iteration> iterations = estimates.getTrace().getIterations();
+        for (int i = 1; i < iterations.size(); i++) {
+            assertThat( iterations.get( i ).getLogLikelihood() >= iterations.get( i - 1 ).getLogLikelihood() -
+                    TOLERANCE, equalTo( true ) );
+        }
+        assertThat( estimates.getLogLikelihood(),
+                equalTo( iterations.get( estimates.getIteration() - 1 ).getLogLikelihood() ) );
+    }
+
+    @Test
+    public void when_policyStopsAfterFirstIteration_then_estimatesOfFirstIterationReturned() {
+        //GIVEN
+        final AnswerMatrix matrix = DawidSkeneAlgorithmTest.OBSERVATIONS.toAnswerMatrix();
+        final ImmutableList<ConvergencePolicy> policies = ImmutableList.of(
+                ConvergencePolicy.builder().withMaximumNrIterations( 1 ).build(),
+                ConvergencePolicy.builder().withTimeBudget( Duration.ZERO ).build() );
+
+        for (final ConvergencePolicy policy : policies) {
+            //WHEN
+            final DawidSkeneEngine.Estimates estimates = DawidSkeneEngine.builder( matrix )
+                    .withConvergencePolicy( policy ).build().run();
+
+            //THEN
+            assertThat( estimates.getIteration(), equalTo( 1 ) );
+            assertThat( estimates.getTrace().getNrIterations(), equalTo( 1 ) );
+            for (int i = 0; i < matrix.getNrQuestions(); i++) {
+                double sum = 0;
+                for (int j = 0; j < matrix.getNrChoices(); j++) {
+                    sum += estimates.getClassEstimation( i, j );
+                }
+                assertThat( sum, closeTo( 1, TOLERANCE ) );
+            }
+        }
+    }
+
+    private static int choice(final AnswerMatrix matrix, final String choice ) {
+        return matrix.getOrdinal( ChoiceId.create( choice ) );
+    }
+}
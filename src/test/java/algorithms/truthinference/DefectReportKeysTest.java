@@ -0,0 +1,89 @@
+package algorithms.truthinference;
+
+import algorithms.vericom.model.DefectReport;
+import algorithms.vericom.model.DefectType;
+import algorithms.vericom.model.EmeAndScenarioId;
+import algorithms.vericom.model.EmeId;
+import algorithms.vericom.model.FinalDefectType;
+import algorithms.vericom.model.ScenarioId;
+import algorithms.vericom.model.TaskWorkerId;
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+
+import java.util.NoSuchElementException;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.sameInstance;
+
+/**
+ * @author LinX
+ */
+public class DefectReportKeysTest {
+    private static final EmeAndScenarioId ORDER = new EmeAndScenarioId( EmeId.of( "DS1_EME1_Ent" ), ScenarioId.of(
+            "S1" ) );
+
+    private static final EmeAndScenarioId CUSTOMER = new EmeAndScenarioId( EmeId.of( "DS1_EME2_Ent" ),
+            ScenarioId.of( "S1" ) );
+
+    @Test
+    public void when_keysCreated_then_questionOrdinalsMapBackToEmesAndScenarios() {
+        //WHEN
+        final DefectReportKeys keys = DefectReportKeys.fromDefectReports( ImmutableList.of(
+                report( 1, 101, CUSTOMER, DefectType.MISSING ), report( 2, 102, ORDER, DefectType.WRONG ),
+                report( 3, 102, CUSTOMER, DefectType.NO_DEFECT ) ) );
+
+        //THEN
+        final AnswerMatrix matrix = keys.getAnswers().toAnswerMatrix();
+        assertThat( matrix.getNrAnswers(), equalTo( 3 ) );
+        assertThat( keys.getNrQuestions(), equalTo( matrix.getNrQuestions() ) );
+        assertThat( keys.getEmeAndScenarioId( 0 ), equalTo( CUSTOMER ) );
+        assertThat( keys.getEmeAndScenarioId( 1 ), equalTo( ORDER ) );
+        assertThat( keys.getEmeAndScenarioId( matrix.getQuestion( 1 ) ), equalTo( ORDER ) );
+        assertThat( keys.getQuestion( CUSTOMER ), sameInstance( matrix.getQuestion( 0 ) ) );
+        assertThat( keys.getQuestion( CUSTOMER ), equalTo( QuestionId.create( CUSTOMER.toString() ) ) );
+    }
+
+    @Test
+    public void when_keysCreated_then_sameAnswersAsBefore() {
+        //WHEN
+        final Answers answers = DefectReportKeys.fromDefectReports( ImmutableList.of(
+                report( 1, 101, ORDER, DefectType.WRONG ), report( 2, 101, ORDER, DefectType.WRONG ) ) )
+                .getAnswers();
+
+        //THEN
+        assertThat( answers.getNrAnswers(), equalTo( 1 ) );
+        assertThat( answers.getQuestions(), contains( QuestionId.create( "DS1_EME1_Ent//S1" ) ) );
+        assertThat( answers.getChoices(), contains( ChoiceId.create( "WRONG" ) ) );
+        assertThat( answers.getParticipants(), contains( ParticipantId.create( 101 ) ) );
+    }
+
+    @Test
+    public void when_choiceMapped_then_defectTypeOfChoice() {
+        for (final DefectType defectType : DefectType.values()) {
+            final ChoiceId choice = DefectReportKeys.getChoice( defectType );
+            assertThat( choice, equalTo( ChoiceId.create( defectType.toString() ) ) );
+            assertThat( DefectReportKeys.getDefectType( choice ), equalTo( defectType ) );
+            assertThat( DefectReportKeys.getFinalDefectType( choice ), equalTo( FinalDefectType.valueOf(
+                    defectType.toString() ) ) );
+        }
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void when_questionUnknown_then_rejected() {
+        //GIVEN
+        final DefectReportKeys keys = DefectReportKeys.fromDefectReports( ImmutableList.of(
+                report( 1, 101, ORDER, DefectType.WRONG ) ) );
+
+        //WHEN
+        keys.getEmeAndScenarioId( QuestionId.create( CUSTOMER.toString() ) );
+    }
+
+    private static DefectReport report( final int id, final int workerId, final EmeAndScenarioId emeAndScenarioId,
+            final DefectType defectType ) {
+        return DefectReport.builder( id ).withWorkerId( TaskWorkerId.of( workerId ) ).withEmeId(
+                emeAndScenarioId.getEmeId() ).withScenarioId( emeAndScenarioId.getScenarioId() ).withDefectType(
+                defectType ).build();
+    }
+}
@@ -0,0 +1,99 @@
+package algorithms.truthinference;
+
+import algorithms.synthetic.SyntheticCrowd;
+import com.google.common.collect.ImmutableSet;
+import org.junit.Test;
+
+import java.util.Comparator;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+
+/**
+ * @author LinX
+ */
+public class GladAlgorithmTest {
+    private static final SyntheticCrowd CROWD = SyntheticCrowd.builder( 2000, 50, 3 ).withAccuracy( 0.6, 0.9 )
+            .withSpammerFraction( 0.2 ).build();
+
+    @Test
+    public void when_crowdWithSpammers_then_convergesWithAccuracyCloseToDawidSkene() {
+        //GIVEN
+        final Answers answers = CROWD.toAnswers();
+
+        //WHEN
+        final GladAlgorithm.Output output = new GladAlgorithm( answers ).run();
+
+        //THEN
+        final DawidSkeneAlgorithm.Output expected = new DawidSkeneAlgorithm( answers ).run();
+        long nrCorrect = 0;
+        long nrExpectedCorrect = 0;
+        for (int question = 0; question < CROWD.getNrQuestions(); question++) {
+            final ChoiceId truth = ChoiceId.create( CROWD.getTrueChoice( question ) );
+            if (mostLikely( output.getClassEstimations().get( questionId( question ) ) ).equals( truth )) {
+                nrCorrect++;
+            }
+            if (expected.getPatientClassEstimations().get( questionId( question ) ).stream().max(
+                    Comparator.comparingDouble( DawidSkeneAlgorithm.IndicatorEstimation::getIndicatorEstimation ) )
+                    .get().getLabel().equals( truth )) {
+                nrExpectedCorrect++;
+            }
+        }
+        assertThat( output.getTrace().getStopReason(), equalTo( ConvergenceTrace.StopReason.ABSOLUTE_DELTA ) );
+        assertThat( (double) nrCorrect / CROWD.getNrQuestions(),
+                greaterThan( (double) nrExpectedCorrect / CROWD.getNrQuestions() - 0.01 ) );
+    }
+
+    @Test
+    public void when_crowdWithSpammers_then_spammersHaveLowerExpertise() {
+        //WHEN
+        final GladAlgorithm.Output output = new GladAlgorithm( CROWD.toAnswers() ).run();
+
+        //THEN
+        double spammerExpertise = 0;
+        int nrSpammers = 0;
+        double workerExpertise = 0;
+        for (int worker = 0; worker < CROWD.getNrWorkers(); worker++) {
+            final Double expertise = output.getExpertises().get( ParticipantId.create( worker ) );
+            if (expertise == null) {
+                continue;
+            }
+            if (CROWD.isSpammer( worker )) {
+                spammerExpertise += expertise;
+                nrSpammers++;
+            }
+            else {
+                workerExpertise += expertise;
+            }
+        }
+        assertThat( nrSpammers, greaterThan( 0 ) );
+        assertThat( spammerExpertise / nrSpammers, lessThan( workerExpertise / (output.getExpertises().size() -
+                nrSpammers) ) );
+    }
+
+    @Test
+    public void when_runInParallel_then_sameAsSequential() {
+        //GIVEN
+        final Answers answers = CROWD.toAnswers();
+
+        //WHEN
+        final GladAlgorithm.Output sequential = new GladAlgorithm( answers ).run();
+        final GladAlgorithm.Output parallel = new GladAlgorithm( answers, Parallelism.forkJoin() ).run();
+
+        //THEN
+        assertThat( parallel.getExpertises(), equalTo( sequential.getExpertises() ) );
+        assertThat( parallel.getInverseDifficulties(), equalTo( sequential.getInverseDifficulties() ) );
+        assertThat( parallel.getTrace().getNrIterations(), equalTo( sequential.getTrace().getNrIterations() ) );
+    }
+
+    private static QuestionId questionId( final int question ) {
+        return QuestionId.create( CROWD.getEmeAndScenarioId( question ).toString() );
+    }
+
+    private static ChoiceId mostLikely( final ImmutableSet<GladAlgorithm.ClassEstimation> estimations ) {
+        return estimations.stream().max( Comparator.comparingDouble( GladAlgorithm.ClassEstimation::getEstimation ) )
+                .get().getChoice();
+    }
+}
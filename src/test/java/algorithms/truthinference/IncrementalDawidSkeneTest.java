@@ -0,0 +1,165 @@
+package algorithms.truthinference;
+
+import algorithms.synthetic.SyntheticCrowd;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+
+/**
+ * @author LinX
+ */
+public class IncrementalDawidSkeneTest {
+    private static final ImmutableList<ChoiceId> CHOICES = ImmutableList.of( ChoiceId.create( 1 ),
+            ChoiceId.create( 2 ), ChoiceId.create( 3 ), ChoiceId.create( 4 ) );
+
+    @Test
+    public void when_fullEmRun_then_sameAsDawidSkeneAlgorithm() {
+        //GIVEN
+        final IncrementalDawidSkene dawidSkene = IncrementalDawidSkene.builder( CHOICES ).build();
+        answersOf( DawidSkeneAlgorithmTest.OBSERVATIONS ).forEach( dawidSkene::add );
+
+        //WHEN
+        dawidSkene.runFullEm();
+
+        //THEN
+        final DawidSkeneAlgorithm.Output expected = new DawidSkeneAlgorithm( DawidSkeneAlgorithmTest.OBSERVATIONS )
+                .run();
+        expected.getPatientClassEstimations().forEach( ( question, estimations ) -> estimations.forEach(
+                estimation -> assertThat( dawidSkene.getClassEstimations( question ).get( estimation.getLabel() ),
+                        closeTo( estimation.getIndicatorEstimation(), 1e-9 ) ) ) );
+        expected.getPatientClassProbabilities().forEach( ( choice, probability ) -> assertThat(
+                dawidSkene.getClassProbability( choice ), closeTo( probability, 0.001 ) ) );
+    }
+
+    @Test
+    public void when_answersAddedOneByOne_then_mostLikelyChoicesCloseToDawidSkeneAlgorithm() {
+        //GIVEN
+        final List<Answer> answers = Lists.newArrayList( answersOf( DawidSkeneAlgorithmTest.OBSERVATIONS ) );
+        Collections.shuffle( answers, new Random( 42 ) );
+        final IncrementalDawidSkene dawidSkene = IncrementalDawidSkene.builder( CHOICES ).build();
+
+        //WHEN
+        answers.forEach( dawidSkene::add );
+
+        //THEN
+        final DawidSkeneAlgorithm.Output expected = new DawidSkeneAlgorithm( DawidSkeneAlgorithmTest.OBSERVATIONS )
+                .run();
+        final long nrSame = expected.getPatientClassEstimations().entrySet().stream().filter( e -> mostLikely(
+                dawidSkene.getClassEstimations( e.getKey() ) ).equals( mostLikely( e.getValue() ) ) ).count();
+        assertThat( (double) nrSame / expected.getPatientClassEstimations().size(), greaterThan( 0.9 ) );
+    }
+
+    @Test
+    public void when_syntheticCrowdStreamedWithFullEmRuns_then_accuracyCloseToDawidSkeneAlgorithm() {
+        //GIVEN
+        final SyntheticCrowd crowd = SyntheticCrowd.builder( 2000, 50, 3 ).withAccuracy( 0.6, 0.9 )
+                .withSpammerFraction( 0.2 ).build();
+        final ImmutableList<ChoiceId> choices = ImmutableList.of( ChoiceId.create( 0 ), ChoiceId.create( 1 ),
+                ChoiceId.create( 2 ) );
+        final IncrementalDawidSkene dawidSkene = IncrementalDawidSkene.builder( choices ).withFullEmEvery( 3000 )
+                .build();
+        final Answers.Builder answers = Answers.builder();
+
+        //WHEN
+        crowd.generate( ( question, worker, choice ) -> {
+            final Answer answer = Answer.create( ParticipantId.create( worker ), QuestionId.create( question ),
+                    ChoiceId.create( choice ) );
+            dawidSkene.add( answer );
+            answers.add( answer );
+        } );
+
+        //THEN
+        final DawidSkeneAlgorithm.Output expected = new DawidSkeneAlgorithm( answers.build() ).run();
+        long nrCorrect = 0;
+        long nrExpectedCorrect = 0;
+        for (int question = 0; question < crowd.getNrQuestions(); question++) {
+            final ChoiceId truth = choices.get( crowd.getTrueChoice( question ) );
+            if (mostLikely( dawidSkene.getClassEstimations( QuestionId.create( question ) ) ).equals( truth )) {
+                nrCorrect++;
+            }
+            if (mostLikely( expected.getPatientClassEstimations().get( QuestionId.create( question ) ) ).equals(
+                    truth )) {
+                nrExpectedCorrect++;
+            }
+        }
+        assertThat( (double) nrCorrect / crowd.getNrQuestions(),
+                greaterThan( (double) nrExpectedCorrect / crowd.getNrQuestions() - 0.02 ) );
+    }
+
+    @Test
+    public void when_duplicateAnswerAndDistinctAnswers_then_ignored() {
+        //GIVEN
+        final IncrementalDawidSkene dawidSkene = IncrementalDawidSkene.builder( CHOICES ).withDistinctAnswers()
+                .build();
+        final Answer answer = Answer.create( ParticipantId.create( 1 ), QuestionId.create( 1 ), CHOICES.get( 0 ) );
+
+        //WHEN
+        dawidSkene.add( answer );
+        dawidSkene.add( answer );
+
+        //THEN
+        assertThat( dawidSkene.getNrAnswers(), equalTo( 1 ) );
+        assertThat( dawidSkene.getClassEstimations( QuestionId.create( 1 ) ).get( CHOICES.get( 0 ) ),
+                equalTo( 1.0 ) );
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void when_unknownChoice_then_exception() {
+        //WHEN
+        IncrementalDawidSkene.builder( CHOICES ).build().add( Answer.create( ParticipantId.create( 1 ),
+                QuestionId.create( 1 ), ChoiceId.create( 5 ) ) );
+    }
+
+    @Test
+    public void when_batchWithUnknownChoiceRejected_then_estimatesUnchanged() {
+        //GIVEN
+        final IncrementalDawidSkene dawidSkene = IncrementalDawidSkene.builder( CHOICES ).build();
+        dawidSkene.addAll( ImmutableList.of(
+                Answer.create( ParticipantId.create( 1 ), QuestionId.create( 1 ), CHOICES.get( 0 ) ),
+                Answer.create( ParticipantId.create( 2 ), QuestionId.create( 1 ), CHOICES.get( 1 ) ) ) );
+        final ImmutableMap<ChoiceId, Double> before = dawidSkene.getClassEstimations( QuestionId.create( 1 ) );
+
+        //WHEN
+        try {
+            dawidSkene.addAll( ImmutableList.of(
+                    Answer.create( ParticipantId.create( 3 ), QuestionId.create( 1 ), CHOICES.get( 0 ) ),
+                    Answer.create( ParticipantId.create( 3 ), QuestionId.create( 1 ), ChoiceId.create( 5 ) ) ) );
+            throw new AssertionError( "Batch with unknown choice accepted." );
+        } catch (final IllegalArgumentException expected) {
+            //rejected as a whole
+        }
+
+        //THEN
+        assertThat( dawidSkene.getNrAnswers(), equalTo( 2 ) );
+        assertThat( dawidSkene.getClassEstimations( QuestionId.create( 1 ) ), equalTo( before ) );
+        dawidSkene.add( Answer.create( ParticipantId.create( 3 ), QuestionId.create( 1 ), CHOICES.get( 0 ) ) );
+        assertThat( dawidSkene.getNrAnswers(), equalTo( 3 ) );
+    }
+
+    private static ImmutableList<Answer> answersOf( final Answers answers ) {
+        return answers.getQuestions().stream().flatMap( q -> answers.getAnswers( q ).stream() ).collect(
+                ImmutableList.toImmutableList() );
+    }
+
+    private static ChoiceId mostLikely( final ImmutableMap<ChoiceId, Double> classEstimations ) {
+        return classEstimations.entrySet().stream().max( Map.Entry.comparingByValue() ).get().getKey();
+    }
+
+    private static ChoiceId mostLikely( final ImmutableSet<DawidSkeneAlgorithm.IndicatorEstimation> estimations ) {
+        return estimations.stream().max( Comparator.comparingDouble(
+                DawidSkeneAlgorithm.IndicatorEstimation::getIndicatorEstimation ) ).get().getLabel();
+    }
+}
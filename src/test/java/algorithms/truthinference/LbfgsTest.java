@@ -0,0 +1,55 @@
+package algorithms.truthinference;
+
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+
+/**
+ * @author LinX
+ */
+public class LbfgsTest {
+    @Test
+    public void when_quadraticMinimized_then_minimumFound() {
+        //GIVEN
+        final Lbfgs lbfgs = new Lbfgs( 3, 2 );
+        final double[] x = {5, -3, 1};
+
+        //WHEN
+        final double value = lbfgs.minimize( ( p, gradient ) -> {
+            double sum = 0;
+            for (int i = 0; i < p.length; i++) {
+                final double scale = i + 1;
+                sum += scale * (p[i] - i) * (p[i] - i);
+                gradient[i] = 2 * scale * (p[i] - i);
+            }
+            return sum;
+        }, x, 100, 1e-9 );
+
+        //THEN
+        assertThat( value, closeTo( 0, 1e-12 ) );
+        for (int i = 0; i < x.length; i++) {
+            assertThat( x[i], closeTo( i, 1e-6 ) );
+        }
+    }
+
+    @Test
+    public void when_pairsWithNegativeCurvatureRejected_then_minimumStillFound() {
+        //GIVEN double well (x^2 - 1)^2 + y^2, starting in the concave region around x = 0, with a full ring buffer of
+        //one pair, so that every rejected pair would hit the slot of the pair in use
+        final Lbfgs lbfgs = new Lbfgs( 2, 1 );
+        final double[] x = {0.05, 2};
+
+        //WHEN
+        final double value = lbfgs.minimize( ( p, gradient ) -> {
+            gradient[0] = 4 * p[0] * (p[0] * p[0] - 1);
+            gradient[1] = 2 * p[1];
+            return (p[0] * p[0] - 1) * (p[0] * p[0] - 1) + p[1] * p[1];
+        }, x, 200, 1e-9 );
+
+        //THEN
+        assertThat( value, closeTo( 0, 1e-12 ) );
+        assertThat( Math.abs( x[0] ), closeTo( 1, 1e-6 ) );
+        assertThat( x[1], closeTo( 0, 1e-6 ) );
+    }
+}
@@ -0,0 +1,41 @@
+package algorithms.truthinference;
+
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.equalTo;
+
+/**
+ * @author LinX
+ */
+public class LogSpaceTest {
+    @Test
+    public void when_normalizeVerySmallProbabilities_then_noUnderflow() {
+        //GIVEN
+        final double[] logValues = {-1000, -1000 + Math.log( 3 )};
+
+        //WHEN
+        final double logNormalizer = LogSpace.normalize( logValues, 0, 2 );
+
+        //THEN
+        assertThat( logValues[0], closeTo( 0.25, 1E-12 ) );
+        assertThat( logValues[1], closeTo( 0.75, 1E-12 ) );
+        assertThat( logNormalizer, closeTo( -1000 + Math.log( 4 ), 1E-9 ) );
+    }
+
+    @Test
+    public void when_normalizeZeroProbabilities_then_uniform() {
+        //GIVEN
+        final double[] logValues = {0, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, 0};
+
+        //WHEN
+        final double logNormalizer = LogSpace.normalize( logValues, 1, 3 );
+
+        //THEN
+        assertThat( logNormalizer, equalTo( Double.NEGATIVE_INFINITY ) );
+        assertThat( logValues[1], equalTo( 0.5 ) );
+        assertThat( logValues[2], equalTo( 0.5 ) );
+        assertThat( logValues[0], equalTo( 0.0 ) );
+    }
+}
@@ -0,0 +1,108 @@
+package algorithms.truthinference;
+
+import com.google.common.collect.ImmutableList;
+import com.opencsv.CSVReader;
+import com.opencsv.CSVReaderBuilder;
+import org.junit.AfterClass;
+import org.junit.Test;
+
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+/**
+ * @author LinX
+ */
+public class ParallelismTest {
+    private static final ForkJoinPool POOL = new ForkJoinPool( 4 );
+
+    private static final Answers ANSWERS = parseData();
+
+    @AfterClass
+    public static void shutdownPool() {
+        POOL.shutdown();
+    }
+
+    @Test
+    public void when_sumInParallel_then_sameAsSequential() {
+        //GIVEN
+        final int size = 10 * Parallelism.CHUNK_SIZE + 17;
+
+        //WHEN
+        final double parallelSum = Parallelism.executor( POOL ).sum( size, ( from, to ) -> partialSum( from, to ) );
+        final double sequentialSum = Parallelism.sequential().sum( size, ( from, to ) -> partialSum( from, to ) );
+
+        //THEN
+        assertThat( parallelSum, equalTo( sequentialSum ) );
+    }
+
+    @Test
+    public void when_dawidSkeneRunInParallel_then_sameEstimatesAsSequential() {
+        //WHEN
+        final DawidSkeneEngine.Estimates parallel = DawidSkeneEngine.builder( ANSWERS.toAnswerMatrix() )
+                .withParallelism( Parallelism.executor( POOL ) ).build().run();
+        final DawidSkeneEngine.Estimates sequential = DawidSkeneEngine.builder( ANSWERS.toAnswerMatrix() ).build()
+                .run();
+
+        //THEN
+        final AnswerMatrix matrix = ANSWERS.toAnswerMatrix();
+        assertThat( parallel.getIteration(), equalTo( sequential.getIteration() ) );
+        for (int j = 0; j < matrix.getNrChoices(); j++) {
+            assertThat( parallel.getClassProbability( j ), equalTo( sequential.getClassProbability( j ) ) );
+            for (int i = 0; i < matrix.getNrQuestions(); i++) {
+                assertThat( parallel.getClassEstimation( i, j ), equalTo( sequential.getClassEstimation( i, j ) ) );
+            }
+        }
+    }
+
+    @Test
+    public void when_zenCrowdRunInParallel_then_sameOutputAsSequential() {
+        //WHEN
+        final ZenCrowdAlgorithm.Output parallel = new ZenCrowdAlgorithm( ANSWERS, Parallelism.executor( POOL ) )
+                .run();
+        final ZenCrowdAlgorithm.Output sequential = new ZenCrowdAlgorithm( ANSWERS ).run();
+
+        //THEN
+        assertThat( parallel.getWorkerReliabilities(), equalTo( sequential.getWorkerReliabilities() ) );
+    }
+
+    @Test
+    public void when_crhAndCatdRunInParallel_then_sameOutputAsSequential() {
+        //WHEN
+        final CrhAlgorithm.Output parallelCrh = new CrhAlgorithm( ANSWERS, Parallelism.executor( POOL ) ).run();
+        final CrhAlgorithm.Output sequentialCrh = new CrhAlgorithm( ANSWERS ).run();
+        final CatdAlgorithm.Output parallelCatd = new CatdAlgorithm( ANSWERS, Parallelism.executor( POOL ) ).run(
+                0.05 );
+        final CatdAlgorithm.Output sequentialCatd = new CatdAlgorithm( ANSWERS ).run( 0.05 );
+
+        //THEN
+        assertThat( parallelCrh.getTruths(), equalTo( sequentialCrh.getTruths() ) );
+        assertThat( parallelCrh.getSourceWeights(), equalTo( sequentialCrh.getSourceWeights() ) );
+        assertThat( parallelCatd.getTruths(), equalTo( sequentialCatd.getTruths() ) );
+        assertThat( parallelCatd.getSourceWeights(), equalTo( sequentialCatd.getSourceWeights() ) );
+    }
+
+    private static double partialSum( final int from, final int to ) {
+        double sum = 0;
+        for (int i = from; i < to; i++) {
+            sum += 1.0 / (i + 1);
+        }
+        return sum;
+    }
+
+    private static Answers parseData() {
+        try {
+            final CSVReader csvReader = new CSVReaderBuilder( new FileReader(
+                    "src/test/resources/algorithms/catd/s4_Dog data/0/answer_1.csv" ) ).withSkipLines( 1 ).build();
+
+            return new Answers( csvReader.readAll().stream().map(
+                    line -> Answer.create( ParticipantId.create( line[1] ), QuestionId.create( line[0] ),
+                            ChoiceId.create( line[2] ) ) ).collect( ImmutableList.toImmutableList() ) );
+        } catch (final IOException e) {
+            throw new AssertionError( "Cannot parse data.", e );
+        }
+    }
+}
@@ -8,9 +8,13 @@ import org.junit.Test;
 
 import java.io.FileReader;
 import java.io.IOException;
+import java.time.Duration;
 import java.util.Comparator;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.hamcrest.core.IsEqual.equalTo;
 
 /**
@@ -39,6 +43,43 @@ public class ZenCrowdAlgorithmTest {
         }
     }
 
+    @Test
+    public void when_warmStartedFromPreviousOutput_then_convergesInFewIterations() {
+        //GIVEN
+        final ZenCrowdAlgorithm algorithm = new ZenCrowdAlgorithm( parseData( 1 ), Parallelism.sequential(),
+                ConvergencePolicy.absoluteDelta( 0.001, 100 ) );
+        final ZenCrowdAlgorithm.Output previous = algorithm.run();
+
+        //WHEN
+        final ZenCrowdAlgorithm.Output output = algorithm.run( previous );
+
+        //THEN
+        assertThat( output.getTrace().getNrIterations(), lessThanOrEqualTo( 3 ) );
+        assertThat( output.getTrace().getNrIterations(), lessThan( previous.getTrace().getNrIterations() ) );
+        previous.getWorkerReliabilities().forEach( ( worker, reliability ) -> assertThat(
+                output.getWorkerReliabilities().get( worker ), closeTo( reliability, 0.01 ) ) );
+    }
+
+    @Test
+    public void when_policyStopsAfterFirstIteration_then_estimatesOfFirstIterationReturned() {
+        //GIVEN
+        final Answers answers = parseData( 1 );
+        final ImmutableList<ConvergencePolicy> policies = ImmutableList.of(
+                ConvergencePolicy.builder().withMaximumNrIterations( 1 ).build(),
+                ConvergencePolicy.builder().withTimeBudget( Duration.ZERO ).build() );
+
+        for (final ConvergencePolicy policy : policies) {
+            //WHEN
+            final ZenCrowdAlgorithm.Output output = new ZenCrowdAlgorithm( answers, Parallelism.sequential(), policy )
+                    .run();
+
+            //THEN
+            assertThat( output.getTrace().getNrIterations(), equalTo( 1 ) );
+            assertThat( output.getClassProbabilities().size(), equalTo( answers.getQuestions().size() ) );
+            assertThat( output.getWorkerReliabilities().size(), equalTo( answers.getParticipants().size() ) );
+        }
+    }
+
     private static Answers parseData( final int dataset ) {
         try {
             final CSVReader csvReader = new CSVReaderBuilder( new FileReader(
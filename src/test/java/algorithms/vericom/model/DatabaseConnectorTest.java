@@ -0,0 +1,121 @@
+package algorithms.vericom.model;
+
+import algorithms.finaldefects.SemesterSettings;
+import com.google.common.collect.ImmutableList;
+import com.zaxxer.hikari.HikariDataSource;
+import org.jooq.Record;
+import org.jooq.exception.DataAccessException;
+import org.jooq.impl.DSL;
+import org.junit.After;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.fail;
+
+/**
+ * @author LinX
+ */
+public class DatabaseConnectorTest {
+    @After
+    public void resetDataSource() {
+        DatabaseConnector.useDataSource( null );
+    }
+
+    @Test
+    public void when_dataSourceSet_then_connectionsFromDataSource() throws SQLException {
+        //GIVEN
+        final HikariDataSource dataSource = EmbeddedDatabase.create( "connections", 2 );
+        DatabaseConnector.useDataSource( dataSource );
+
+        //WHEN
+        try (Connection connection = DatabaseConnector.createConnection()) {
+            //THEN
+            assertThat( DatabaseConnector.getDataSource(), sameInstance( dataSource ) );
+            assertThat( connection.getMetaData().getURL(), equalTo( "jdbc:h2:mem:connections" ) );
+        }
+    }
+
+    @Test
+    public void when_fetchedLazily_then_onlyFilteredRowsAndColumnsRead() {
+        //GIVEN
+        DatabaseConnector.useDataSource( EmbeddedDatabase.create( "filter", 1 ) );
+
+        //WHEN
+        final ImmutableList<Record> records = DatabaseConnector.fetchLazy( DefectReport.DEFECT_REPORT_TABLE,
+                ImmutableList.of( DefectReport.ID_COLUMN, DefectReport.WORKSHOP_CODE_COLUMN ),
+                ColumnFilter.in( DefectReport.WORKSHOP_CODE_COLUMN, "WS2", "WS1_SS18" ).toCondition(),
+                r -> r.collect( ImmutableList.toImmutableList() ) );
+
+        //THEN
+        assertThat( records.stream().map( r -> r.getValue( DefectReport.ID_COLUMN, Integer.class ) ).collect(
+                Collectors.toSet() ), containsInAnyOrder( 3, 4 ) );
+        assertThat( records.get( 0 ).size(), equalTo( 2 ) );
+    }
+
+    @Test
+    public void when_semesterLoadedInParallel_then_allTablesReadOverPool() {
+        //GIVEN
+        final HikariDataSource dataSource = EmbeddedDatabase.create( "semester", 2 );
+        DatabaseConnector.useDataSource( dataSource );
+        final ExecutorService executor = Executors.newFixedThreadPool( 6 );
+
+        //WHEN
+        final SemesterData data;
+        try {
+            data = SemesterData.load( SemesterSettings.ws2017(), executor );
+        } finally {
+            executor.shutdown();
+        }
+
+        //THEN
+        assertThat( data.getDefectReports().stream().map( DefectReport::getId ).collect( Collectors.toSet() ),
+                containsInAnyOrder( 1, 2, 3 ) );
+        assertThat( data.getEmes().getEmes().size(), equalTo( 2 ) );
+        assertThat( data.getEmes().get( EmeId.of( "order" ) ).getEmeText(), equalTo( "Order" ) );
+        assertThat( data.getParticipants().size(), equalTo( 2 ) );
+        assertThat( data.getTrueDefects().size(), equalTo( 1 ) );
+        assertThat( dataSource.getHikariPoolMXBean().getTotalConnections(), lessThanOrEqualTo( 2 ) );
+    }
+
+    @Test
+    public void when_sourceCannotBeRead_then_otherSourcesStillAvailable() throws SQLException {
+        //GIVEN
+        final HikariDataSource dataSource = EmbeddedDatabase.create( "missingParticipants", 2 );
+        DatabaseConnector.useDataSource( dataSource );
+        try (Connection connection = dataSource.getConnection()) {
+            DSL.using( connection ).execute( "alter table participant rename to participant_old" );
+        }
+        final ExecutorService executor = Executors.newFixedThreadPool( 6 );
+
+        try {
+            //WHEN
+            final SemesterData data = SemesterData.load( SemesterSettings.ws2017(), executor );
+
+            //THEN
+            assertThat( data.getDefectReports().size(), equalTo( 3 ) );
+            assertThat( data.getTrueDefects().size(), equalTo( 1 ) );
+            try {
+                data.getParticipants();
+                fail( "Participants read from a missing table" );
+            } catch (final DataAccessException expected) {
+                //read again on next use
+            }
+            try (Connection connection = dataSource.getConnection()) {
+                DSL.using( connection ).execute( "alter table participant_old rename to participant" );
+            }
+            assertThat( data.getParticipants().size(), equalTo( 2 ) );
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
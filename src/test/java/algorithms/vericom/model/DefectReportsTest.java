@@ -0,0 +1,38 @@
+package algorithms.vericom.model;
+
+import algorithms.synthetic.SyntheticCrowd;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+
+/**
+ * @author LinX
+ */
+public class DefectReportsTest {
+    private static final DefectReports DEFECT_REPORTS = SyntheticCrowd.builder( 100, 10, 3 ).build()
+            .toDefectReports();
+
+    @Test
+    public void when_sameDefectReportsInOtherOrder_then_sameFingerprint() {
+        //GIVEN
+        final DefectReports reversed = new DefectReports( ImmutableSet.copyOf(
+                ImmutableList.copyOf( DEFECT_REPORTS.getDefectReports() ).reverse() ) );
+
+        //THEN
+        assertThat( reversed.getFingerprint(), equalTo( DEFECT_REPORTS.getFingerprint() ) );
+    }
+
+    @Test
+    public void when_defectReportRemoved_then_otherFingerprint() {
+        //GIVEN
+        final DefectReports fewer = new DefectReports( DEFECT_REPORTS.getDefectReports().stream().skip( 1 ).collect(
+                ImmutableSet.toImmutableSet() ) );
+
+        //THEN
+        assertThat( fewer.getFingerprint(), not( equalTo( DEFECT_REPORTS.getFingerprint() ) ) );
+    }
+}
@@ -0,0 +1,60 @@
+package algorithms.vericom.model;
+
+import algorithms.utils.UncheckedSQLException;
+import com.zaxxer.hikari.HikariDataSource;
+import org.jooq.DSLContext;
+import org.jooq.impl.DSL;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * In-memory H2 database in MySQL mode with the tables read by the model, for tests without a MySQL server.
+ *
+ * @author LinX
+ */
+final class EmbeddedDatabase {
+    private EmbeddedDatabase() {
+    }
+
+    /**
+     * @return a pool of at most poolSize connections to a new database holding a few defect reports, EMEs,
+     * participants and true defects of WS2017
+     */
+    static HikariDataSource create( final String name, final int poolSize ) {
+        final HikariDataSource dataSource = DatabaseConnector.pooled( "jdbc:h2:mem:" + name +
+                ";MODE=MySQL;DATABASE_TO_UPPER=FALSE;DB_CLOSE_DELAY=-1", "sa", "", poolSize );
+        try (Connection connection = dataSource.getConnection()) {
+            final DSLContext context = DSL.using( connection );
+            context.execute( "create table defect_report (id int primary key, defect_report_code varchar(50), " +
+                    "workshop_code varchar(20), task_id int, worker_id int, eme_id varchar(50), " +
+                    "scenario_id varchar(20), defect_type varchar(20), defect_description varchar(200), " +
+                    "syn_defect_description varchar(200), syn_label varchar(50), task_instance_id int, " +
+                    "workshop_id int)" );
+            context.execute( "insert into defect_report values " +
+                    "(1, 'DR1', 'WS1', 10, 101, 'customer', 'S1', 'MISSING', null, null, null, 1, 1), " +
+                    "(2, 'DR2', 'WS1', 10, 102, 'customer', 'S1', 'WRONG', null, null, null, 1, 1), " +
+                    "(3, 'DR3', 'WS2', 11, 103, 'order', 'S2', 'NO_DEFECT', null, null, null, 2, 2), " +
+                    "(4, 'DR4', 'WS1_SS18', 12, 104, 'order', 'S2', 'MISSING', null, null, null, 3, 3), " +
+                    "(5, 'DR5', 'WS1', 10, 101, '', 'S1', 'MISSING', null, null, null, 1, 1)" );
+            context.execute( "create table eme (eme_id varchar(50) primary key, old_eme_text varchar(200), " +
+                    "eme_text varchar(200), eme_type varchar(50), eme_group int)" );
+            context.execute( "insert into eme values ('customer', null, 'Customer', 'ENTITY', 1), " +
+                    "('order', 'NULL', 'Order', 'ENTITY', 2)" );
+            context.execute( "create table participant (p_id varchar(20), name varchar(100), worker_id varchar(20), " +
+                    "workshop_id int, created_at varchar(30))" );
+            context.execute( "insert into participant values ('p1', 'Ada Lovelace', '101', 1, '2017-10-01'), " +
+                    "('p2', 'Alan Turing', '102', 1, '2017-10-01'), ('p3', 'Kurt Goedel', '104', 3, '2018-04-01')" );
+            context.execute( "create table true_defect (id int primary key, code_td varchar(20), " +
+                    "about_model_element varchar(200), about_em_eid varchar(50), scenario varchar(20), " +
+                    "about_me_type varchar(50), defect_type varchar(20), defect_severity varchar(20), " +
+                    "description varchar(200))" );
+            context.execute( "insert into true_defect values " +
+                    "(1, 'TD1', 'Customer', 'customer', 'S1', 'ENTITY', 'MISSING', 'major', 'Customer missing')" );
+        } catch (final SQLException e) {
+            dataSource.close();
+            throw new UncheckedSQLException( e );
+        }
+        return dataSource;
+    }
+}
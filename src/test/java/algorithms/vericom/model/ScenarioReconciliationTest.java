@@ -0,0 +1,82 @@
+package algorithms.vericom.model;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+
+/**
+ * @author LinX
+ */
+public class ScenarioReconciliationTest {
+    private static final ImmutableList<DefectReport> CSV_REPORTS = ImmutableList.of(
+            csvReport( 1, 1733355800, 44573984, "Sc1" ),
+            csvReport( 2, 1733355800, 44573976, "Sc2" ),
+            csvReport( 3, 1733355801, 44573976, "Sc3" ),
+            csvReport( 4, 1733355802, 44573976, "Sc1" ),
+            csvReport( 5, 1733355802, 44573976, "Sc2" ) );
+
+    @Test
+    public void when_workerAndTaskMatch_then_scenarioOfCsvReport() {
+        //WHEN
+        final ScenarioReconciliation.Result result = ScenarioReconciliation.index( CSV_REPORTS ).reconcile(
+                ImmutableList.of( dbReport( 10, 1733355800, 44573976, null ),
+                        dbReport( 11, 1733355801, 44573976, null ), dbReport( 12, 1733355801, 44573984, "Sc4" ) ) );
+
+        //THEN
+        assertThat( result.getReconciled().stream().map( r -> r.getId() + ":" + r.getScenarioId() ).collect(
+                ImmutableList.toImmutableList() ), containsInAnyOrder( "10:Sc2", "11:Sc3", "12:Sc4" ) );
+        assertThat( result.getUnmatched(), empty() );
+        assertThat( result.getAmbiguous(), empty() );
+    }
+
+    @Test
+    public void when_noOrSeveralMatches_then_allReported() {
+        //GIVEN
+        final DefectReport unknownTask = dbReport( 10, 1733355899, 44573976, null );
+        final DefectReport unknownWorker = dbReport( 11, 1733355800, 1, null );
+        final DefectReport severalMatches = dbReport( 12, 1733355802, 44573976, null );
+
+        //WHEN
+        final ScenarioReconciliation.Result result = ScenarioReconciliation.index( CSV_REPORTS ).reconcile(
+                ImmutableList.of( unknownTask, unknownWorker, severalMatches ) );
+
+        //THEN
+        assertThat( result.getUnmatched(), contains( unknownTask, unknownWorker ) );
+        assertThat( result.getAmbiguous(), contains( severalMatches ) );
+        assertThat( result.getReconciled(), empty() );
+    }
+
+    @Test
+    public void when_reportsLeftWithoutScenario_then_allListedInException() {
+        //GIVEN
+        final ScenarioReconciliation.Result result = ScenarioReconciliation.index( CSV_REPORTS ).reconcile(
+                ImmutableList.of( dbReport( 10, 1, 44573976, null ), dbReport( 11, 1733355802, 44573976, null ) ) );
+
+        //WHEN
+        try {
+            result.getReconciledOrThrow();
+            throw new AssertionError( "Reports without scenario accepted" );
+        } catch (final IllegalStateException e) {
+            //THEN
+            assertThat( e.getMessage(), equalTo( "Scenario unknown for 1 defect reports without matching CSV " +
+                    "defect report [10] and 1 defect reports with more than one [11]" ) );
+        }
+    }
+
+    private static DefectReport csvReport( final int id, final int taskId, final int workerId,
+            final String scenario ) {
+        return DefectReport.builder( id ).withDefectReportCode( "I" + taskId + "W" + workerId ).withWorkerId(
+                TaskWorkerId.of( workerId ) ).withScenarioId( ScenarioId.of( scenario ) ).build();
+    }
+
+    private static DefectReport dbReport( final int id, final int taskId, final int workerId,
+            final String scenario ) {
+        return DefectReport.builder( id ).withTaskId( taskId ).withWorkerId( TaskWorkerId.of( workerId ) )
+                .withScenarioId( ScenarioId.of( scenario ) ).build();
+    }
+}
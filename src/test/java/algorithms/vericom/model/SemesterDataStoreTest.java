@@ -0,0 +1,106 @@
+package algorithms.vericom.model;
+
+import algorithms.finaldefects.SemesterSettings;
+import com.google.common.collect.ImmutableBiMap;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+
+/**
+ * @author LinX
+ */
+public class SemesterDataStoreTest {
+    @Test
+    public void when_settingsOfSameSemesterCreatedTwice_then_dataLoadedOnce() {
+        //GIVEN
+        final AtomicInteger nrLoads = new AtomicInteger();
+        final SemesterDataStore store = new SemesterDataStore( 100, countingLoader( nrLoads, 1 ) );
+
+        //WHEN
+        final SemesterData data = store.get( SemesterSettings.ws2017() );
+        final SemesterData sameData = store.get( SemesterSettings.ws2017() );
+
+        //THEN
+        assertThat( sameData, sameInstance( data ) );
+        assertThat( nrLoads.get(), equalTo( 1 ) );
+        assertThat( store.getLoaded().size(), equalTo( 1 ) );
+    }
+
+    @Test
+    public void when_refreshed_then_dataLoadedAgain() {
+        //GIVEN
+        final AtomicInteger nrLoads = new AtomicInteger();
+        final SemesterDataStore store = new SemesterDataStore( 100, countingLoader( nrLoads, 1 ) );
+        final SemesterData data = store.get( SemesterSettings.ws2017() );
+
+        //WHEN
+        store.refresh( SemesterSettings.ws2017() );
+
+        //THEN
+        assertThat( store.get( SemesterSettings.ws2017() ), not( sameInstance( data ) ) );
+        assertThat( nrLoads.get(), equalTo( 2 ) );
+    }
+
+    @Test
+    public void when_maximumNrRecordsExceeded_then_semesterEvicted() {
+        //GIVEN
+        final AtomicInteger nrLoads = new AtomicInteger();
+        final SemesterDataStore store = new SemesterDataStore( 3, countingLoader( nrLoads, 2 ) );
+
+        //WHEN
+        store.get( SemesterSettings.ws2017() );
+        store.get( SemesterSettings.ss2018() );
+
+        //THEN
+        assertThat( store.getLoaded().size(), equalTo( 1 ) );
+        assertThat( store.getStats().evictionCount(), equalTo( 1L ) );
+    }
+
+    @Test
+    public void when_defectReportsOfSameDataRequested_then_sameInstanceWithSameFingerprint() {
+        //GIVEN
+        final SemesterDataStore store = new SemesterDataStore( 100, countingLoader( new AtomicInteger(), 2 ) );
+
+        //WHEN
+        final DefectReports defectReports = store.get( SemesterSettings.ws2017() ).toDefectReports();
+
+        //THEN
+        assertThat( store.get( SemesterSettings.ws2017() ).toDefectReports(), sameInstance( defectReports ) );
+        assertThat( store.get( SemesterSettings.ws2017() ).getDefectReportsFingerprint(), sameInstance(
+                defectReports.getFingerprint() ) );
+    }
+
+    @Test
+    public void when_invalidated_then_nothingLoaded() {
+        //GIVEN
+        final SemesterDataStore store = new SemesterDataStore( 100, countingLoader( new AtomicInteger(), 1 ) );
+        store.get( SemesterSettings.ws2017() );
+
+        //WHEN
+        store.invalidateAll();
+
+        //THEN
+        assertThat( store.getLoaded().size(), equalTo( 0 ) );
+    }
+
+    private static Function<SemesterSettings, SemesterData> countingLoader( final AtomicInteger nrLoads,
+            final int nrDefectReports ) {
+        return settings -> {
+            nrLoads.incrementAndGet();
+            final ImmutableSet.Builder<DefectReport> defectReports = ImmutableSet.builder();
+            for (int i = 0; i < nrDefectReports; i++) {
+                defectReports.add( DefectReport.builder( i ).withWorkerId( TaskWorkerId.of( i ) ).build() );
+            }
+            return new SemesterData( defectReports.build(), new Emes( ImmutableBiMap.of() ), ImmutableSet.of(),
+                    ImmutableSet.of(), ImmutableMap.of(), ImmutableMap.of(), ImmutableMap.of() );
+        };
+    }
+}
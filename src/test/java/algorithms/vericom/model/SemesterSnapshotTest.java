@@ -0,0 +1,95 @@
+package algorithms.vericom.model;
+
+import algorithms.finaldefects.SemesterSettings;
+import com.google.common.collect.ImmutableBiMap;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+
+/**
+ * @author LinX
+ */
+public class SemesterSnapshotTest {
+    private static final TaskWorkerId WORKER = TaskWorkerId.of( 101 );
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void when_snapshotWrittenAndRead_then_sameData() throws IOException {
+        //GIVEN
+        final SemesterData data = createData();
+        final Path path = SemesterSnapshot.path( this.folder.getRoot().toPath(), SemesterSettings.ws2017() );
+
+        //WHEN
+        SemesterSnapshot.write( SemesterSettings.ws2017(), data, path );
+        final SemesterData read = SemesterSnapshot.read( SemesterSettings.ws2017(), path );
+
+        //THEN
+        assertThat( read.getDefectReports(), equalTo( data.getDefectReports() ) );
+        assertThat( read.getDefectReports().asList().get( 1 ).getTaskInstanceId(), nullValue() );
+        assertThat( read.getDefectReports().asList().get( 1 ).getWorkshopId(), equalTo( Integer.MIN_VALUE ) );
+        assertThat( read.getEmes(), equalTo( data.getEmes() ) );
+        assertThat( read.getParticipants(), equalTo( data.getParticipants() ) );
+        assertThat( read.getTrueDefects(), equalTo( data.getTrueDefects() ) );
+        assertThat( read.getExperienceQuestionnaires(), equalTo( data.getExperienceQuestionnaires() ) );
+        assertThat( read.getQualificationReports(), equalTo( data.getQualificationReports() ) );
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void when_snapshotOfOtherSemesterRead_then_rejected() {
+        //GIVEN
+        final Path path = this.folder.getRoot().toPath().resolve( "other.snapshot" );
+        SemesterSnapshot.write( SemesterSettings.ss2018(), createData(), path );
+
+        //WHEN
+        SemesterSnapshot.read( SemesterSettings.ws2017(), path );
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void when_snapshotOfOtherVersionRead_then_rejected() throws IOException {
+        //GIVEN
+        final Path path = this.folder.getRoot().toPath().resolve( "old.snapshot" );
+        try (DataOutputStream out = new DataOutputStream( Files.newOutputStream( path ) )) {
+            out.writeInt( 0x53454d53 );
+            out.writeInt( SemesterSnapshot.VERSION + 1 );
+        }
+
+        //WHEN
+        SemesterSnapshot.read( SemesterSettings.ws2017(), path );
+    }
+
+    private static SemesterData createData() {
+        final EmeId customer = EmeId.of( "customer" );
+        return new SemesterData(
+                ImmutableSet.of(
+                        DefectReport.builder( 1 ).withDefectReportCode( "DR1" ).withWorkshopCode( "WS1" )
+                                .withTaskId( 10 ).withWorkerId( WORKER ).withEmeId( customer )
+                                .withScenarioId( ScenarioId.of( "S1" ) ).withDefectType( DefectType.MISSING )
+                                .withDefectDescription( "Kunde fehlt überall" ).withTaskInstanceId( 1 )
+                                .withWorkshopId( 1 ).build(),
+                        DefectReport.builder( 2 ).withWorkerId( TaskWorkerId.of( 102 ) ).withEmeId( customer )
+                                .withDefectType( DefectType.NO_DEFECT ).withWorkshopId( Integer.MIN_VALUE ).build() ),
+                new Emes( ImmutableBiMap.of( customer, Eme.builder( customer ).withEmeText( "Customer" )
+                        .withEmeType( EmeType.ENTITY ).withEmeGroupId( 1 ).build() ) ),
+                ImmutableSet.of( new Participant( "Ada Lovelace", WORKER, 1, "p1", "2017-10-01" ) ),
+                ImmutableSet.of( new TrueDefect( 1, "TD1", "Customer", customer, ScenarioId.of( "S1" ), "ENTITY",
+                        DefectType.MISSING, "major", "Customer missing" ) ),
+                ImmutableMap.of( WORKER, new ExperienceQuestionnaire( WORKER, ImmutableSet.of(
+                        new Experience( ExperienceQuestionType.LANGUAGE, 1, 0, 5, 4 ),
+                        new Experience( ExperienceQuestionType.SOFTWARE_PROJECT, 3, 0, 5, 2 ) ) ) ),
+                ImmutableMap.of( WORKER, new QualificationReport( WORKER, ImmutableMap.of( 1, true, 2, false ) ) ),
+                ImmutableMap.of() );
+    }
+}
@@ -0,0 +1,112 @@
+package algorithms.web;
+
+import algorithms.finaldefects.Semester;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.hash.HashCode;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+/**
+ * @author LinX
+ */
+public class ResultCacheTest {
+    private static final HashCode FINGERPRINT = HashCode.fromLong( 1 );
+
+    @Test
+    public void when_sameKeyRequestedTwice_then_calculatedOnce() {
+        //GIVEN
+        final ResultCache cache = new ResultCache( 10, Duration.ofMinutes( 1 ) );
+        final AtomicInteger nrCalculations = new AtomicInteger();
+
+        //WHEN
+        for (int i = 0; i < 2; i++) {
+            cache.get( ResultCache.key( String.class, "algorithm", ImmutableMap.of( "alpha", "0.1" ),
+                    Semester.WS2017, FINGERPRINT ), () -> "result " + nrCalculations.incrementAndGet() );
+        }
+
+        //THEN
+        assertThat( nrCalculations.get(), equalTo( 1 ) );
+        assertThat( cache.getStats().hitCount(), equalTo( 1L ) );
+        assertThat( cache.getStats().missCount(), equalTo( 1L ) );
+    }
+
+    @Test
+    public void when_defectReportsFingerprintChanged_then_calculatedAgain() {
+        //GIVEN
+        final ResultCache cache = new ResultCache( 10, Duration.ofMinutes( 1 ) );
+        cache.get( ResultCache.key( String.class, "algorithm", ImmutableMap.of(), Semester.WS2017, FINGERPRINT ),
+                () -> "old" );
+
+        //WHEN
+        final String result = cache.get( ResultCache.key( String.class, "algorithm", ImmutableMap.of(),
+                Semester.WS2017, HashCode.fromLong( 2 ) ), () -> "new" );
+
+        //THEN
+        assertThat( result, equalTo( "new" ) );
+    }
+
+    @Test
+    public void when_parametersDiffer_then_differentResults() {
+        //GIVEN
+        final ResultCache cache = new ResultCache( 10, Duration.ofMinutes( 1 ) );
+        cache.get( ResultCache.key( String.class, "algorithm", ImmutableMap.of( "threshold", "0.1" ),
+                Semester.WS2017, FINGERPRINT ), () -> "0.1" );
+
+        //WHEN
+        final String result = cache.get( ResultCache.key( String.class, "algorithm",
+                ImmutableMap.of( "threshold", "0.9" ), Semester.WS2017, FINGERPRINT ), () -> "0.9" );
+
+        //THEN
+        assertThat( result, equalTo( "0.9" ) );
+        assertThat( cache.size(), equalTo( 2L ) );
+    }
+
+    @Test
+    public void when_maximumSizeExceeded_then_evicted() {
+        //GIVEN
+        final ResultCache cache = new ResultCache( 1, Duration.ofMinutes( 1 ) );
+
+        //WHEN
+        cache.get( ResultCache.key( String.class, "first", ImmutableMap.of(), Semester.WS2017, FINGERPRINT ),
+                () -> "first" );
+        cache.get( ResultCache.key( String.class, "second", ImmutableMap.of(), Semester.WS2017, FINGERPRINT ),
+                () -> "second" );
+
+        //THEN
+        assertThat( cache.size(), equalTo( 1L ) );
+        assertThat( cache.getStats().evictionCount(), equalTo( 1L ) );
+    }
+
+    @Test
+    public void when_semesterInvalidated_then_onlyResultsOfSemesterCalculatedAgain() {
+        //GIVEN
+        final ResultCache cache = new ResultCache( 10, Duration.ofMinutes( 1 ) );
+        cache.get( ResultCache.key( String.class, "algorithm", ImmutableMap.of(), Semester.WS2017, FINGERPRINT ),
+                () -> "old WS2017" );
+        cache.get( ResultCache.key( String.class, "algorithm", ImmutableMap.of(), Semester.SS2018, FINGERPRINT ),
+                () -> "old SS2018" );
+
+        //WHEN
+        cache.invalidate( Semester.WS2017 );
+
+        //THEN
+        assertThat( cache.get( ResultCache.key( String.class, "algorithm", ImmutableMap.of(), Semester.WS2017,
+                FINGERPRINT ), () -> "new WS2017" ), equalTo( "new WS2017" ) );
+        assertThat( cache.get( ResultCache.key( String.class, "algorithm", ImmutableMap.of(), Semester.SS2018,
+                FINGERPRINT ), () -> "new SS2018" ), equalTo( "old SS2018" ) );
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void when_calculationFails_then_exceptionRethrown() {
+        //WHEN
+        new ResultCache( 10, Duration.ofMinutes( 1 ) ).get( ResultCache.key( String.class, "algorithm",
+                ImmutableMap.of(), Semester.WS2017, FINGERPRINT ), () -> {
+            throw new IllegalStateException( "failed" );
+        } );
+    }
+}